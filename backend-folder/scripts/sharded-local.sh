@@ -0,0 +1,29 @@
+#!/usr/bin/env bash
+# Runs N instances with vehicle sharding on ports 8081.., sharing the local Mongo and Redis.
+# Needs a jar built with: ./mvnw package -DskipTests
+# Usage: scripts/sharded-local.sh [instances]   (Ctrl-C stops them all)
+# Check ownership with GET /api/admin/shards and /api/admin/shards/owner/{vehicleNumber} on any instance (admin token;
+# see security.admin-emails). Stopping one instance hands its vehicles to the others after its lease expires (or at once on a clean stop).
+set -euo pipefail
+
+INSTANCES=${1:-3}
+cd "$(dirname "$0")/.."
+JAR=$(ls target/MargDarshakSIH-*.jar 2>/dev/null | grep -v plain | head -1 || true)
+
+if [ -z "$JAR" ]; then
+    echo "No jar in target/; build with ./mvnw package -DskipTests" >&2
+    exit 1
+fi
+
+pids=()
+trap 'kill "${pids[@]}" 2>/dev/null || true; wait' INT TERM EXIT
+
+for i in $(seq 1 "$INSTANCES"); do
+    port=$((8080 + i))
+    java -jar "$JAR" --server.port="$port" --sharding.enabled=true --sharding.node-id="node$i" \
+        --notifications.node-id="node$i" \
+        >"target/shard-node$i.log" 2>&1 &
+    pids+=($!)
+    echo "node$i on :$port (log target/shard-node$i.log)"
+done
+wait
@@ -0,0 +1,60 @@
+#!/usr/bin/env bash
+# Startup-time benchmark: default vs fast-startup vs fast-startup + CDS.
+# Needs Mongo and Redis on localhost and a jar built with: ./mvnw -Pcds package -DskipTests
+# Usage: scripts/startup-benchmark.sh [runs]
+set -euo pipefail
+
+RUNS=${1:-5}
+cd "$(dirname "$0")/.."
+JAR=target/cds/MargDarshakSIH-0.0.1-SNAPSHOT.jar
+JSA=target/cds/application.jsa
+PORT=${PORT:-18080}
+
+if [ ! -f "$JAR" ] || [ ! -f "$JSA" ]; then
+    echo "Missing $JAR or $JSA; build with ./mvnw -Pcds package -DskipTests" >&2
+    exit 1
+fi
+
+# Starts the app, waits for "Started ... in X seconds" and prints X
+measure() {
+    local log
+    log=$(mktemp)
+    java "$@" -jar "$JAR" --server.port="$PORT" >"$log" 2>&1 &
+    local pid=$!
+    local seconds=""
+    for _ in $(seq 1 600); do
+        seconds=$(grep -oE 'Started MargDarshakSihApplication in [0-9.]+ seconds' "$log" | grep -oE '[0-9.]+' | head -1 || true)
+        if [ -n "$seconds" ] || ! kill -0 "$pid" 2>/dev/null; then
+            break
+        fi
+        sleep 0.1
+    done
+    kill "$pid" 2>/dev/null || true
+    wait "$pid" 2>/dev/null || true
+    if [ -z "$seconds" ]; then
+        echo "startup failed; log follows" >&2
+        cat "$log" >&2
+        rm -f "$log"
+        return 1
+    fi
+    rm -f "$log"
+    echo "$seconds"
+}
+
+run_mode() {
+    local name=$1
+    shift
+    local times=()
+    for _ in $(seq 1 "$RUNS"); do
+        times+=("$(measure "$@")")
+    done
+    local sorted median
+    sorted=$(printf '%s\n' "${times[@]}" | sort -n)
+    median=$(echo "$sorted" | awk '{a[NR]=$1} END {print (NR % 2) ? a[(NR+1)/2] : (a[NR/2] + a[NR/2+1]) / 2}')
+    printf '%-26s median %6.2fs   runs: %s\n' "$name" "$median" "$(echo "${times[@]}")"
+}
+
+echo "Startup time over $RUNS runs ($(java -version 2>&1 | head -1))"
+run_mode "default"
+run_mode "fast-startup" -Dspring.profiles.active=fast-startup
+run_mode "fast-startup + CDS" -XX:SharedArchiveFile="$JSA" -Dspring.profiles.active=fast-startup
@@ -0,0 +1,24 @@
+// One-off migration before deploying the unique userId indexes on vehicles and driver_documents.
+// Lists users with more than one document (merge or delete those by hand first), then drops the old
+// non-unique userId_1 index so the application can create the unique one on startup.
+// Usage: mongosh "mongodb://localhost:27017/<database>" scripts/unique-userid-indexes.js
+for (const name of ["vehicles", "driver_documents"]) {
+    const coll = db.getCollection(name);
+    const duplicates = coll.aggregate([
+        { $match: { userId: { $ne: null } } },
+        { $group: { _id: "$userId", count: { $sum: 1 }, ids: { $push: "$_id" } } },
+        { $match: { count: { $gt: 1 } } }
+    ]).toArray();
+    if (duplicates.length > 0) {
+        print(`${name}: ${duplicates.length} userIds have more than one document, resolve them and run again`);
+        duplicates.forEach(d => print(`  ${d._id}: ${d.ids.join(", ")}`));
+        continue;
+    }
+    const existing = coll.getIndexes().find(i => i.name === "userId" || i.name === "userId_1");
+    if (existing && !existing.unique) {
+        coll.dropIndex(existing.name);
+        print(`${name}: dropped non-unique index ${existing.name}`);
+    } else {
+        print(`${name}: nothing to do`);
+    }
+}
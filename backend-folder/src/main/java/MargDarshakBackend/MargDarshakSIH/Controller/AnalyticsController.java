@@ -0,0 +1,92 @@
+package MargDarshakBackend.MargDarshakSIH.Controller;
+
+import MargDarshakBackend.MargDarshakSIH.Service.AnalyticsService;
+import MargDarshakBackend.MargDarshakSIH.Utils.AuthUtils;
+import MargDarshakBackend.MargDarshakSIH.entity.RouteDailySummary;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Map;
+
+// Daily route performance reports (see AnalyticsService). Reads only touch route_daily_summaries.
+@RestController
+@RequestMapping("/api/admin/analytics")
+public class AnalyticsController {
+
+    @Autowired
+    private AnalyticsService analyticsService;
+
+    // All routes for one day (default: yesterday)
+    @GetMapping("/routes")
+    public ResponseEntity<?> routes(Authentication authentication, @RequestParam(required = false) String date) {
+        if (authentication == null) {
+            return ResponseEntity.status(401).build();
+        }
+        LocalDate day = parseDate(date, LocalDate.now().minusDays(1));
+        if (day == null) {
+            return ResponseEntity.badRequest().body(Map.of("message", "date must be yyyy-MM-dd"));
+        }
+        return ResponseEntity.ok(analyticsService.summaries(day));
+    }
+
+    // One route over a date range (default: the last 30 days); accepts any route alias
+    @GetMapping("/routes/{route}")
+    public ResponseEntity<?> route(Authentication authentication, @PathVariable String route,
+                                   @RequestParam(required = false) String from,
+                                   @RequestParam(required = false) String to) {
+        if (authentication == null) {
+            return ResponseEntity.status(401).build();
+        }
+        LocalDate end = parseDate(to, LocalDate.now().minusDays(1));
+        LocalDate start = end == null ? null : parseDate(from, end.minusDays(29));
+        if (start == null || end == null || start.isAfter(end)) {
+            return ResponseEntity.badRequest().body(Map.of("message", "from/to must be yyyy-MM-dd with from <= to"));
+        }
+        List<RouteDailySummary> history = analyticsService.history(route, start, end);
+        return ResponseEntity.ok(history);
+    }
+
+    // Recompute one day in the background (replaces any existing summaries for it); poll GET /run for the result
+    @PostMapping("/run")
+    public ResponseEntity<Map<String, Object>> run(Authentication authentication, @RequestParam(required = false) String date) {
+        if (authentication == null) {
+            return ResponseEntity.status(401).build();
+        }
+        if (!AuthUtils.isAdmin(authentication)) {
+            return ResponseEntity.status(403).build();
+        }
+        LocalDate day = parseDate(date, LocalDate.now().minusDays(1));
+        if (day == null) {
+            return ResponseEntity.badRequest().body(Map.of("message", "date must be yyyy-MM-dd"));
+        }
+        if (!analyticsService.submit(day)) {
+            return ResponseEntity.status(409).body(Map.of("message", "Analytics for " + day + " is already running"));
+        }
+        return ResponseEntity.accepted().body(Map.of("message", "Analytics run started", "date", day.toString()));
+    }
+
+    // Stats of the last run on this node
+    @GetMapping("/run")
+    public ResponseEntity<Map<String, Object>> lastRun(Authentication authentication) {
+        if (authentication == null) {
+            return ResponseEntity.status(401).build();
+        }
+        return ResponseEntity.ok(analyticsService.lastRun());
+    }
+
+    private static LocalDate parseDate(String value, LocalDate fallback) {
+        if (value == null || value.isBlank()) {
+            return fallback;
+        }
+        try {
+            return LocalDate.parse(value.trim());
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package MargDarshakBackend.MargDarshakSIH.Controller;
+
+import MargDarshakBackend.MargDarshakSIH.Service.DriverAssignmentService;
+import MargDarshakBackend.MargDarshakSIH.Service.EntityCacheService;
+import MargDarshakBackend.MargDarshakSIH.Utils.AuthUtils;
+import MargDarshakBackend.MargDarshakSIH.dto.AssignmentRequest;
+import MargDarshakBackend.MargDarshakSIH.dto.AssignmentView;
+import MargDarshakBackend.MargDarshakSIH.entity.DriverAssignment;
+import MargDarshakBackend.MargDarshakSIH.entity.User;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/assignments")
+@CrossOrigin(origins = "*")
+public class AssignmentController {
+
+    @Autowired
+    private DriverAssignmentService assignmentService;
+
+    @Autowired
+    private EntityCacheService entityCache;
+
+    // Admins and the driver themselves see the full assignment; other signed-in users only see which
+    // vehicle is assigned for which shift, without the driver's email, name or phone
+    @GetMapping
+    public ResponseEntity<?> getAssignments(@RequestParam(required = false) String driverEmail,
+                                            @RequestParam(required = false) String vehicleNumber,
+                                            Authentication authentication) {
+        if (authentication == null) {
+            return ResponseEntity.status(401).body(Map.of("message", "Authentication required"));
+        }
+        boolean admin = AuthUtils.isAdmin(authentication);
+        List<DriverAssignment> assignments;
+        if (driverEmail != null) {
+            if (!admin && !driverEmail.equals(authentication.getName())) {
+                return ResponseEntity.status(403).body(Map.of("message", "Only admins can look up another driver's assignments"));
+            }
+            assignments = assignmentService.forDriver(driverEmail);
+        } else if (vehicleNumber != null) {
+            assignments = assignmentService.forVehicle(vehicleNumber);
+        } else {
+            return ResponseEntity.badRequest().body(Map.of("message", "driverEmail or vehicleNumber is required"));
+        }
+        if (admin || driverEmail != null) {
+            return ResponseEntity.ok(assignments);
+        }
+        return ResponseEntity.ok(assignments.stream().map(AssignmentView::from).toList());
+    }
+
+    @PostMapping
+    public ResponseEntity<?> assign(@RequestBody AssignmentRequest request, Authentication authentication) {
+        if (authentication == null) {
+            return ResponseEntity.status(401).body(Map.of("message", "Authentication required"));
+        }
+        if (!AuthUtils.isAdmin(authentication)) {
+            return ResponseEntity.status(403).body(Map.of("message", "Admin role required"));
+        }
+        if (request.getDriverEmail() == null || request.getVehicleNumber() == null) {
+            return ResponseEntity.badRequest().body(Map.of("message", "driverEmail and vehicleNumber are required"));
+        }
+        try {
+            if (request.getShiftStart() != null) LocalTime.parse(request.getShiftStart());
+            if (request.getShiftEnd() != null) LocalTime.parse(request.getShiftEnd());
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", "Shift times must be HH:mm"));
+        }
+        User driver = entityCache.findUserByEmail(request.getDriverEmail());
+        if (driver == null) {
+            return ResponseEntity.badRequest().body(Map.of("message", "Unknown driver: " + request.getDriverEmail()));
+        }
+        DriverAssignment saved = assignmentService.assign(driver, request.getVehicleNumber(),
+                request.getShiftStart(), request.getShiftEnd());
+        return ResponseEntity.ok(saved);
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<?> unassign(@PathVariable String id, Authentication authentication) {
+        if (authentication == null) {
+            return ResponseEntity.status(401).body(Map.of("message", "Authentication required"));
+        }
+        if (!AuthUtils.isAdmin(authentication)) {
+            return ResponseEntity.status(403).body(Map.of("message", "Admin role required"));
+        }
+        if (!assignmentService.unassign(id)) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(Map.of("message", "Assignment removed"));
+    }
+}
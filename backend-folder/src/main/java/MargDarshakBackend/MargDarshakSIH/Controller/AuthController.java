@@ -1,12 +1,16 @@
 package MargDarshakBackend.MargDarshakSIH.Controller;
 
 import MargDarshakBackend.MargDarshakSIH.Repository.UserRepository;
+import MargDarshakBackend.MargDarshakSIH.Service.EntityCacheService;
 import MargDarshakBackend.MargDarshakSIH.Utils.JwtUtils;
+import MargDarshakBackend.MargDarshakSIH.dto.AuthResponse;
 import MargDarshakBackend.MargDarshakSIH.dto.LoginRequest;
 import MargDarshakBackend.MargDarshakSIH.dto.RegisterRequest;
+import MargDarshakBackend.MargDarshakSIH.dto.UserProfileView;
 import MargDarshakBackend.MargDarshakSIH.entity.User;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -33,6 +37,8 @@ public class AuthController {
     @Autowired
     UserRepository userRepository;
     @Autowired
+    private EntityCacheService entityCache;
+    @Autowired
     private PasswordEncoder passwordEncoder;
 
     @Autowired
@@ -52,17 +58,14 @@ public class AuthController {
             user.setEmail(request.getEmail());
             user.setPassword(passwordEncoder.encode(request.getPassword()));
             user.setPhone(request.getPhone());
-            User savedUser = userRepository.save(user);
+            user.setVersion(0L);
+            User savedUser = entityCache.saveUser(user);
 
             // ✅ Generate JWT
             String token = jwtUtil.generateToken(savedUser.getEmail());
 
-            // ✅ Response with token + user
-            Map<String, Object> response = new HashMap<>();
-            response.put("token", token);
-            response.put("user", savedUser);
-
-            return ResponseEntity.ok(response);
+            // ✅ Response with token + user profile (no password hash)
+            return authResponse(token, UserProfileView.from(savedUser));
 
         } catch (Exception e) {
             log.error("Error during registration", e);
@@ -81,28 +84,17 @@ public class AuthController {
                     )
             );
 
-            // ✅ Find user by email
-            String email = user.getEmail();
-            String password = user.getPassword();
-            User userr = userRepository.findByEmail(email);
-            if (userr == null) {
+            // ✅ Credentials were verified by the AuthenticationManager; only the profile is needed here
+            UserProfileView profile = entityCache.findProfileByEmail(authenticate.getName());
+            if (profile == null) {
                 return new ResponseEntity<>("User not found", HttpStatus.BAD_REQUEST);
             }
 
-            // ✅ Validate password
-            if (!passwordEncoder.matches(user.getPassword(), userr.getPassword())) {
-                return new ResponseEntity<>("Invalid credentials", HttpStatus.BAD_REQUEST);
-            }
-
             // ✅ Generate JWT
-            String token = jwtUtil.generateToken(userr.getEmail());
+            String token = jwtUtil.generateToken(profile.getEmail());
 
-            // ✅ Response with token + user
-            Map<String, Object> response = new HashMap<>();
-            response.put("token", token);
-            response.put("user", userr);
-
-            return ResponseEntity.ok(response);
+            // ✅ Response with token + user profile
+            return authResponse(token, profile);
 
         } catch (Exception e) {
             log.error("Error during login", e);
@@ -110,14 +102,20 @@ public class AuthController {
         }
     }
 
+    private ResponseEntity<AuthResponse> authResponse(String token, UserProfileView profile) {
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noStore())
+                .body(new AuthResponse(token, profile));
+    }
+
     @DeleteMapping("/user/delete")
     public ResponseEntity<Map<String, String>> deleteUser(Authentication authentication) {
         String email = authentication.getName();
-        User user = userRepository.findByEmail(email);
+        User user = entityCache.findUserByEmail(email);
         if (user == null) {
             throw new RuntimeException("User not found");
         }
-        userRepository.deleteById(user.getId());
+        entityCache.deleteUser(user);
 
         Map<String, String> response = new HashMap<>();
         response.put("status", "success");
@@ -0,0 +1,68 @@
+package MargDarshakBackend.MargDarshakSIH.Controller;
+
+import MargDarshakBackend.MargDarshakSIH.Service.DriverAssignmentService;
+import MargDarshakBackend.MargDarshakSIH.Service.SeatOccupancyService;
+import MargDarshakBackend.MargDarshakSIH.Utils.AuthUtils;
+import MargDarshakBackend.MargDarshakSIH.dto.OccupancyEvent;
+import MargDarshakBackend.MargDarshakSIH.dto.OccupancyUpdateRequest;
+import MargDarshakBackend.MargDarshakSIH.dto.SeatOccupancyResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/buses")
+@CrossOrigin(origins = "*")
+public class BusController {
+
+    @Autowired
+    private SeatOccupancyService occupancyService;
+
+    @Autowired
+    private DriverAssignmentService assignmentService;
+
+    @GetMapping("/{busId}/occupancy")
+    public ResponseEntity<SeatOccupancyResponse> getOccupancy(@PathVariable String busId) {
+        SeatOccupancyResponse occupancy = occupancyService.get(busId);
+        if (occupancy == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(occupancy);
+    }
+
+    // Writes are limited to admins and the bus's assigned driver
+    @PostMapping("/{busId}/occupancy")
+    public ResponseEntity<?> setOccupancy(@PathVariable String busId, @RequestBody OccupancyUpdateRequest request,
+                                          Authentication authentication) {
+        ResponseEntity<?> denied = checkWriter(authentication, busId);
+        if (denied != null) {
+            return denied;
+        }
+        return ResponseEntity.ok(occupancyService.set(busId, request.getTotalSeats(),
+                request.getOccupiedSeats(), request.getWomenSeatsOccupied()));
+    }
+
+    @PostMapping("/{busId}/occupancy/events")
+    public ResponseEntity<?> recordEvent(@PathVariable String busId, @RequestBody OccupancyEvent event,
+                                         Authentication authentication) {
+        ResponseEntity<?> denied = checkWriter(authentication, busId);
+        if (denied != null) {
+            return denied;
+        }
+        event.setBusId(busId);
+        return ResponseEntity.ok(occupancyService.applyEvent(event));
+    }
+
+    private ResponseEntity<?> checkWriter(Authentication authentication, String busId) {
+        if (authentication == null) {
+            return ResponseEntity.status(401).body(Map.of("message", "Authentication required"));
+        }
+        if (!AuthUtils.isAdmin(authentication) && !assignmentService.drives(authentication.getName(), busId)) {
+            return ResponseEntity.status(403).body(Map.of("message", "Only admins or the bus's assigned driver can update occupancy"));
+        }
+        return null;
+    }
+}
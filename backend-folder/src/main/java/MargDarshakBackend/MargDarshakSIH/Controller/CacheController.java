@@ -0,0 +1,35 @@
+package MargDarshakBackend.MargDarshakSIH.Controller;
+
+import MargDarshakBackend.MargDarshakSIH.Service.EntityCacheService;
+import MargDarshakBackend.MargDarshakSIH.Service.RedisNearCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/cache")
+public class CacheController {
+
+    @Autowired
+    private EntityCacheService entityCache;
+
+    @Autowired
+    private RedisNearCache nearCache;
+
+    // Hit/miss counters for the user, vehicle and document caches and the Redis near-cache
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Map<String, Object>>> getStats(Authentication authentication) {
+        if (authentication == null) {
+            return ResponseEntity.status(401).build();
+        }
+        Map<String, Map<String, Object>> stats = new LinkedHashMap<>(entityCache.stats());
+        stats.put("redisNearCache", nearCache.stats());
+        return ResponseEntity.ok(stats);
+    }
+}
@@ -1,7 +1,6 @@
 package MargDarshakBackend.MargDarshakSIH.Controller;
 
-import MargDarshakBackend.MargDarshakSIH.Repository.DriverDocumentsRepository;
-import MargDarshakBackend.MargDarshakSIH.Repository.UserRepository;
+import MargDarshakBackend.MargDarshakSIH.Service.EntityCacheService;
 import MargDarshakBackend.MargDarshakSIH.entity.DriverDocuments;
 import MargDarshakBackend.MargDarshakSIH.entity.User;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -25,17 +24,14 @@ import java.util.UUID;
 public class DocumentsController {
 
     @Autowired
-    private DriverDocumentsRepository documentsRepository;
-
-    @Autowired
-    private UserRepository userRepository;
+    private EntityCacheService entityCache;
 
     @GetMapping
     public ResponseEntity<?> getDocuments(Authentication authentication) {
         String email = authentication.getName();
-        User user = userRepository.findByEmail(email);
+        User user = entityCache.findUserByEmail(email);
         if (user == null) return ResponseEntity.status(401).build();
-        Optional<DriverDocuments> docs = documentsRepository.findByUserId(user.getId());
+        Optional<DriverDocuments> docs = entityCache.findDocumentsByUserId(user.getId());
         return docs.<ResponseEntity<?>>map(ResponseEntity::ok)
                 .orElseGet(() -> ResponseEntity.notFound().build());
     }
@@ -45,11 +41,19 @@ public class DocumentsController {
                                             @RequestParam("document") MultipartFile file,
                                             @RequestParam("documentType") String documentType) throws IOException {
         String email = authentication.getName();
-        User user = userRepository.findByEmail(email);
+        User user = entityCache.findUserByEmail(email);
         if (user == null) return ResponseEntity.status(401).build();
 
         if (file.isEmpty()) return ResponseEntity.badRequest().body("Empty file");
 
+        String field = switch (documentType) {
+            case "drivingLicense" -> "drivingLicenseUrl";
+            case "vehicleRegistration" -> "vehicleRegistrationUrl";
+            case "insuranceCertificate" -> "insuranceCertificateUrl";
+            default -> null;
+        };
+        if (field == null) return ResponseEntity.badRequest().body("Unknown documentType");
+
         String original = file.getOriginalFilename() != null ? file.getOriginalFilename() : "doc";
         String ext = original.contains(".") ? original.substring(original.lastIndexOf('.')) : "";
         String filename = UUID.randomUUID() + ext;
@@ -64,18 +68,7 @@ public class DocumentsController {
                 .path(filename)
                 .toUriString();
 
-        DriverDocuments docs = documentsRepository.findByUserId(user.getId())
-                .orElseGet(DriverDocuments::new);
-        docs.setUserId(user.getId());
-        switch (documentType) {
-            case "drivingLicense" -> docs.setDrivingLicenseUrl(fileUrl);
-            case "vehicleRegistration" -> docs.setVehicleRegistrationUrl(fileUrl);
-            case "insuranceCertificate" -> docs.setInsuranceCertificateUrl(fileUrl);
-            default -> {
-                return ResponseEntity.badRequest().body("Unknown documentType");
-            }
-        }
-        documentsRepository.save(docs);
+        entityCache.upsertDocuments(user.getId(), Map.of(field, fileUrl));
 
         return ResponseEntity.ok(Map.of(
                 "documentUrl", fileUrl,
@@ -87,11 +80,9 @@ public class DocumentsController {
     public ResponseEntity<?> completeProfile(Authentication authentication,
                                              @RequestBody Map<String, Object> payload) {
         String email = authentication.getName();
-        User user = userRepository.findByEmail(email);
+        User user = entityCache.updateUserFieldsByEmail(email, Map.of("profileComplete", true));
         if (user == null) return ResponseEntity.status(401).build();
 
-        user.setProfileComplete(true);
-        userRepository.save(user);
         return ResponseEntity.ok(Map.of("message", "Profile completed"));
     }
 }
@@ -1,6 +1,8 @@
 package MargDarshakBackend.MargDarshakSIH.Controller;
 
 
+import MargDarshakBackend.MargDarshakSIH.Service.DriverAssignmentService;
+import MargDarshakBackend.MargDarshakSIH.entity.DriverAssignment;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -11,18 +13,14 @@ import org.springframework.web.bind.annotation.RestController;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/driver")
 public class DriverController {
 
-    // Mock database or service to map email to vehicleNumber
-    private final Map<String, String> driverVehicleMap = new HashMap<>();
-
-    public DriverController() {
-        // Mock data (replace with actual database query)
-        driverVehicleMap.put("driver@example.com", "KA01AB1234");
-    }
+    @Autowired
+    private DriverAssignmentService assignmentService;
 
     @GetMapping("/profile")
     public ResponseEntity<Map<String, String>> getDriverProfile() {
@@ -31,13 +29,17 @@ public class DriverController {
             Authentication auth = SecurityContextHolder.getContext().getAuthentication();
             String email = auth.getName(); // Get email from JWT
 
-            String vehicleNumber = driverVehicleMap.get(email);
-            if (vehicleNumber == null) {
+            Optional<DriverAssignment> assignment = assignmentService.currentForDriver(email);
+            if (assignment.isEmpty()) {
                 response.put("message", "No vehicle assigned to driver: " + email);
                 return ResponseEntity.badRequest().body(response);
             }
 
-            response.put("vehicleNumber", vehicleNumber);
+            response.put("vehicleNumber", assignment.get().getVehicleNumber());
+            if (assignment.get().getShiftStart() != null) {
+                response.put("shiftStart", assignment.get().getShiftStart());
+                response.put("shiftEnd", assignment.get().getShiftEnd());
+            }
             return ResponseEntity.ok(response);
         } catch (Exception e) {
             response.put("message", "Failed to fetch profile: " + e.getMessage());
@@ -0,0 +1,45 @@
+package MargDarshakBackend.MargDarshakSIH.Controller;
+
+import MargDarshakBackend.MargDarshakSIH.Service.BulkImportService;
+import MargDarshakBackend.MargDarshakSIH.Utils.AuthUtils;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+@RestController
+@RequestMapping("/api/admin/import")
+public class ImportController {
+
+    @Autowired
+    private BulkImportService bulkImportService;
+
+    // Bulk onboarding: streams NDJSON (default) or CSV (text/csv or ?format=csv) rows in,
+    // and streams one NDJSON result per row back as each chunk completes.
+    @PostMapping(produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> importRows(Authentication authentication,
+                                                            HttpServletRequest request,
+                                                            @RequestParam(value = "format", required = false) String format) throws IOException {
+        if (authentication == null) {
+            return ResponseEntity.status(401).build();
+        }
+        if (!AuthUtils.isAdmin(authentication)) {
+            return ResponseEntity.status(403).build();
+        }
+        String contentType = request.getContentType();
+        boolean csv = "csv".equalsIgnoreCase(format)
+                || (contentType != null && contentType.startsWith("text/csv"));
+        InputStream in = request.getInputStream();
+
+        StreamingResponseBody body = out -> bulkImportService.importStream(in, csv, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
+    }
+}
@@ -0,0 +1,48 @@
+package MargDarshakBackend.MargDarshakSIH.Controller;
+
+import MargDarshakBackend.MargDarshakSIH.Service.LocationStreamHub;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+// Server-Sent Events streams of live positions for passengers watching one bus or one route.
+// Events are named "location" with the same fields as GET /api/trips/location/{vehicleNumber};
+// browsers resume with Last-Event-ID automatically after a drop. Unknown vehicles and routes get a 404.
+@RestController
+@RequestMapping("/api/stream")
+public class LocationStreamController {
+
+    @Autowired
+    private LocationStreamHub hub;
+
+    @GetMapping(value = "/vehicles/{vehicleNumber}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamVehicle(@PathVariable String vehicleNumber,
+                                                    @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        if (!hub.isKnownVehicle(vehicleNumber)) {
+            return ResponseEntity.notFound().build();
+        }
+        return stream(LocationStreamHub.vehicleChannel(vehicleNumber), lastEventId);
+    }
+
+    // Route string, "Origin→Destination" or tripId, as in /api/search/drivers
+    @GetMapping(value = "/routes/{route}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamRoute(@PathVariable String route,
+                                                  @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        if (!hub.isKnownRoute(route)) {
+            return ResponseEntity.notFound().build();
+        }
+        return stream(LocationStreamHub.routeChannel(route), lastEventId);
+    }
+
+    private ResponseEntity<SseEmitter> stream(String channel, String lastEventId) {
+        SseEmitter emitter = hub.subscribe(channel, lastEventId);
+        if (emitter == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        // Keep reverse proxies from buffering the stream
+        return ResponseEntity.ok().header("X-Accel-Buffering", "no").header("Cache-Control", "no-cache").body(emitter);
+    }
+}
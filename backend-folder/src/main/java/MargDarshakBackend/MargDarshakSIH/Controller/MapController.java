@@ -0,0 +1,244 @@
+package MargDarshakBackend.MargDarshakSIH.Controller;
+
+import MargDarshakBackend.MargDarshakSIH.Model.Stop;
+import MargDarshakBackend.MargDarshakSIH.Service.RouteGeometryService;
+import MargDarshakBackend.MargDarshakSIH.Service.RouteGeometryService.Geometry;
+import MargDarshakBackend.MargDarshakSIH.Service.RouteGeometryService.Level;
+import MargDarshakBackend.MargDarshakSIH.Service.TrafficAggregator;
+import MargDarshakBackend.MargDarshakSIH.Utils.AuthUtils;
+import MargDarshakBackend.MargDarshakSIH.Utils.GeoUtils;
+import MargDarshakBackend.MargDarshakSIH.Utils.PolylineCodec;
+import MargDarshakBackend.MargDarshakSIH.dto.RouteShapeRequest;
+import MargDarshakBackend.MargDarshakSIH.dto.TrafficConditionsRequest;
+import MargDarshakBackend.MargDarshakSIH.dto.TrafficSnapshot;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+// Map data for the PWA. Traffic conditions read the last snapshot published by TrafficAggregator; route shapes
+// come from RouteGeometryService. Route details are small and short-lived (they carry the live traffic condition),
+// while the shape itself lives at a versioned URL that is cached as immutable.
+@RestController
+@RequestMapping("/api/map")
+public class MapController {
+
+    @Autowired
+    private TrafficAggregator trafficAggregator;
+
+    @Value("${traffic.publish-ms:10000}")
+    private long publishMs;
+
+    @Value("${traffic.max-query-points:500}")
+    private int maxQueryPoints;
+
+    @Autowired
+    private RouteGeometryService routeGeometryService;
+
+    @Value("${routes.default-zoom:12}")
+    private int defaultZoom;
+
+    @Value("${routes.max-shape-points:50000}")
+    private int maxShapePoints;
+
+    // Whole snapshot, served as the bytes serialised at publish time
+    @GetMapping("/traffic-conditions")
+    public ResponseEntity<byte[]> trafficConditions(WebRequest webRequest) {
+        String etag = "\"traffic-" + trafficAggregator.snapshot().generation() + "\"";
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.maxAge(publishMs, TimeUnit.MILLISECONDS).cachePublic())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(trafficAggregator.snapshotJson());
+    }
+
+    // {points:[{lat,lng}]} -> {condition, delay (minutes), segments, samples, generatedAt}
+    @PostMapping("/traffic-conditions")
+    public ResponseEntity<Map<String, Object>> trafficConditionsAlong(@RequestBody TrafficConditionsRequest request) {
+        if (request.getPoints() == null || request.getPoints().isEmpty()) {
+            return ResponseEntity.badRequest().body(Map.of("message", "points is required"));
+        }
+        if (request.getPoints().size() > maxQueryPoints) {
+            return ResponseEntity.badRequest().body(Map.of("message", "At most " + maxQueryPoints + " points per request"));
+        }
+        List<double[]> points = new ArrayList<>(request.getPoints().size());
+        for (TrafficConditionsRequest.Point p : request.getPoints()) {
+            if (p == null || p.getLat() == null || p.getLng() == null) {
+                return ResponseEntity.badRequest().body(Map.of("message", "Each point needs lat and lng"));
+            }
+            points.add(new double[]{p.getLat(), p.getLng()});
+        }
+        return ResponseEntity.ok(trafficAggregator.conditionsAlong(points));
+    }
+
+    // BusRoute for the PWA: stops as points, distance, scheduled duration, live traffic condition, and the shape
+    // (encoded polyline) for ?zoom= inline, so a map load is this one request. shape.url is the immutable form.
+    @GetMapping("/route/{routeId}")
+    public ResponseEntity<Map<String, Object>> route(@PathVariable String routeId,
+                                                     @RequestParam(required = false) Integer zoom,
+                                                     WebRequest webRequest) {
+        Optional<Geometry> found = routeGeometryService.geometry(routeId);
+        if (found.isEmpty()) {
+            return ResponseEntity.status(404).body(Map.of("message", "Route not found"));
+        }
+        Geometry geometry = found.get();
+        TrafficSnapshot traffic = trafficAggregator.snapshot();
+        Level level = geometry.level(zoom == null ? defaultZoom : zoom);
+        String etag = "\"" + geometry.version() + "-" + level.minZoom() + "-" + traffic.generation() + "\"";
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+
+        List<Map<String, Object>> points = new ArrayList<>();
+        List<Stop> stops = geometry.stops();
+        for (int i = 0; i < stops.size(); i++) {
+            Stop stop = stops.get(i);
+            Map<String, Object> point = new LinkedHashMap<>();
+            point.put("latitude", stop.getLat());
+            point.put("longitude", stop.getLon());
+            point.put("order", i);
+            point.put("stopType", i == stops.size() - 1 ? "dropoff" : "pickup");
+            point.put("name", stop.getName());
+            point.put("distance", i == 0 ? 0.0 : round(GeoUtils.haversineKm(
+                    stops.get(i - 1).getLat(), stops.get(i - 1).getLon(), stop.getLat(), stop.getLon())));
+            points.add(point);
+        }
+        TrafficSnapshot.RouteCondition condition = traffic.routes().get(geometry.routeId());
+
+        Map<String, Object> shape = new LinkedHashMap<>();
+        shape.put("version", geometry.version());
+        shape.put("source", geometry.source());
+        shape.put("minZoom", level.minZoom());
+        shape.put("pointCount", level.pointCount());
+        shape.put("polyline", level.polyline());
+        shape.put("url", "/api/map/route/" + geometry.routeId() + "/shape/" + geometry.version());
+        List<Map<String, Object>> levels = new ArrayList<>();
+        for (Level l : geometry.levels()) {
+            levels.add(Map.of("minZoom", l.minZoom(), "pointCount", l.pointCount()));
+        }
+        shape.put("levels", levels);
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("routeId", geometry.routeId());
+        response.put("routeName", geometry.routeName());
+        response.put("points", points);
+        response.put("totalDistance", round(geometry.lengthKm()));
+        response.put("estimatedTime", geometry.estimatedMinutes());
+        response.put("trafficCondition", condition == null ? "unknown" : condition.condition());
+        response.put("trafficDelay", condition == null ? 0 : condition.delayMinutes());
+        response.put("shape", shape);
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.maxAge(publishMs, TimeUnit.MILLISECONDS).cachePublic())
+                .body(response);
+    }
+
+    // Versioned shape for one zoom level; the bytes were serialised when the shape was built.
+    // An outdated version redirects (uncached) to the current one.
+    @GetMapping("/route/{routeId}/shape/{version}")
+    public ResponseEntity<byte[]> shape(@PathVariable String routeId, @PathVariable String version,
+                                        @RequestParam(required = false) Integer zoom) {
+        Optional<Geometry> found = routeGeometryService.geometry(routeId);
+        if (found.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        Geometry geometry = found.get();
+        int z = zoom == null ? defaultZoom : zoom;
+        if (!geometry.version().equals(version)) {
+            return ResponseEntity.status(HttpStatus.FOUND)
+                    .location(URI.create("/api/map/route/" + geometry.routeId() + "/shape/" + geometry.version() + "?zoom=" + z))
+                    .cacheControl(CacheControl.noStore())
+                    .build();
+        }
+        return ResponseEntity.ok()
+                .eTag("\"" + version + "-" + geometry.level(z).minZoom() + "\"")
+                .cacheControl(CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable())
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(geometry.level(z).json());
+    }
+
+    // Imported polyline ({polyline} or {points:[{lat,lng}]}) for a route, replacing its current shape
+    @PutMapping("/route/{routeId}/shape")
+    public ResponseEntity<Map<String, Object>> importShape(Authentication authentication, @PathVariable String routeId,
+                                                           @RequestBody RouteShapeRequest request) {
+        if (authentication == null) {
+            return ResponseEntity.status(401).build();
+        }
+        if (!AuthUtils.isAdmin(authentication)) {
+            return ResponseEntity.status(403).body(Map.of("message", "Admin role required"));
+        }
+        double[][] points;
+        try {
+            if (request.getPolyline() != null && !request.getPolyline().isBlank()) {
+                points = PolylineCodec.decode(request.getPolyline());
+            } else if (request.getPoints() != null) {
+                points = new double[2][request.getPoints().size()];
+                for (int i = 0; i < request.getPoints().size(); i++) {
+                    TrafficConditionsRequest.Point p = request.getPoints().get(i);
+                    if (p == null || p.getLat() == null || p.getLng() == null) {
+                        return ResponseEntity.badRequest().body(Map.of("message", "Each point needs lat and lng"));
+                    }
+                    points[0][i] = p.getLat();
+                    points[1][i] = p.getLng();
+                }
+            } else {
+                return ResponseEntity.badRequest().body(Map.of("message", "polyline or points is required"));
+            }
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", "Invalid shape: " + e.getMessage()));
+        }
+        if (points[0].length < 2 || points[0].length > maxShapePoints) {
+            return ResponseEntity.badRequest().body(Map.of("message", "A shape needs between 2 and " + maxShapePoints + " points"));
+        }
+        Geometry geometry = routeGeometryService.importShape(routeId, points[0], points[1]);
+        Map<String, Object> response = new HashMap<>();
+        response.put("message", "Shape imported");
+        response.put("routeId", geometry.routeId());
+        response.put("version", geometry.version());
+        response.put("pointCount", geometry.pointCount());
+        return ResponseEntity.ok(response);
+    }
+
+    // Raw GTFS shapes.txt as the request body
+    @PostMapping("/shapes")
+    public ResponseEntity<Map<String, Object>> importGtfsShapes(Authentication authentication, HttpServletRequest request) throws IOException {
+        if (authentication == null) {
+            return ResponseEntity.status(401).build();
+        }
+        if (!AuthUtils.isAdmin(authentication)) {
+            return ResponseEntity.status(403).body(Map.of("message", "Admin role required"));
+        }
+        try {
+            int imported = routeGeometryService.importGtfs(request.getInputStream());
+            Map<String, Object> response = new HashMap<>();
+            response.put("message", "Shapes imported");
+            response.put("imported", imported);
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("message", "Invalid shapes.txt: " + e.getMessage()));
+        }
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+}
@@ -0,0 +1,165 @@
+package MargDarshakBackend.MargDarshakSIH.Controller;
+
+import MargDarshakBackend.MargDarshakSIH.Model.Stop;
+import MargDarshakBackend.MargDarshakSIH.Schedule.ScheduleLoader;
+import MargDarshakBackend.MargDarshakSIH.Schedule.StopLoader;
+import MargDarshakBackend.MargDarshakSIH.Service.DriverAssignmentService;
+import MargDarshakBackend.MargDarshakSIH.Service.NotificationService;
+import MargDarshakBackend.MargDarshakSIH.Utils.AuthUtils;
+import MargDarshakBackend.MargDarshakSIH.dto.Notification;
+import MargDarshakBackend.MargDarshakSIH.dto.NotificationEventRequest;
+import MargDarshakBackend.MargDarshakSIH.dto.SubscriptionRequest;
+import MargDarshakBackend.MargDarshakSIH.entity.NotificationSubscription;
+import MargDarshakBackend.MargDarshakSIH.entity.TripSchedule;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Subscriptions for the signed-in passenger; notifications arrive over STOMP on /user/queue/notifications
+// (CONNECT with "Authorization: Bearer <jwt>").
+@RestController
+@RequestMapping("/api/notifications")
+public class NotificationController {
+
+    @Autowired
+    private NotificationService notificationService;
+
+    @Autowired
+    private DriverAssignmentService assignmentService;
+
+    @Autowired
+    private ScheduleLoader scheduleLoader;
+
+    @Autowired
+    private StopLoader stopLoader;
+
+    @GetMapping("/subscriptions")
+    public ResponseEntity<?> getSubscriptions(Authentication authentication) {
+        if (authentication == null) {
+            return ResponseEntity.status(401).build();
+        }
+        List<NotificationSubscription> subscriptions = notificationService.subscriptions(authentication.getName());
+        return ResponseEntity.ok(Map.of("subscriptions", subscriptions));
+    }
+
+    @PostMapping("/subscriptions")
+    public ResponseEntity<?> subscribe(Authentication authentication, @RequestBody SubscriptionRequest request) {
+        if (authentication == null) {
+            return ResponseEntity.status(401).build();
+        }
+        Map<String, String> error = validate(request.getType(), request.getTarget());
+        if (error != null) {
+            return ResponseEntity.badRequest().body(error);
+        }
+        return ResponseEntity.status(201).body(
+                notificationService.subscribe(authentication.getName(), request.getType(), request.getTarget()));
+    }
+
+    @DeleteMapping("/subscriptions")
+    public ResponseEntity<Map<String, String>> unsubscribe(Authentication authentication,
+                                                           @RequestParam String type, @RequestParam String target) {
+        if (authentication == null) {
+            return ResponseEntity.status(401).build();
+        }
+        Map<String, String> error = validate(type, target);
+        if (error != null) {
+            return ResponseEntity.badRequest().body(error);
+        }
+        Map<String, String> response = new HashMap<>();
+        if (!notificationService.unsubscribe(authentication.getName(), type, target)) {
+            response.put("message", "Subscription not found");
+            return ResponseEntity.status(404).body(response);
+        }
+        response.put("message", "Unsubscribed");
+        return ResponseEntity.ok(response);
+    }
+
+    // Delay and SOS reports from drivers or operators. Admins may report for anything; a driver only for a vehicle
+    // assigned to them, and only to a route or stop that vehicle serves (SOS skips the per-recipient rate cap, so it
+    // must not be open to every passenger or fan out to other routes' subscribers).
+    @PostMapping("/events")
+    public ResponseEntity<Map<String, String>> publishEvent(Authentication authentication,
+                                                            @RequestBody NotificationEventRequest request) {
+        if (authentication == null) {
+            return ResponseEntity.status(401).build();
+        }
+        Map<String, String> response = new HashMap<>();
+        if (!Notification.DELAY.equals(request.getType()) && !Notification.SOS.equals(request.getType())) {
+            response.put("message", "type must be delay or sos");
+            return ResponseEntity.badRequest().body(response);
+        }
+        if (request.getVehicleNumber() == null && request.getRoute() == null && request.getStopId() == null) {
+            response.put("message", "vehicleNumber, route or stopId is required");
+            return ResponseEntity.badRequest().body(response);
+        }
+        if (!AuthUtils.isAdmin(authentication)) {
+            if (!assignmentService.drives(authentication.getName(), request.getVehicleNumber())) {
+                response.put("message", "Only admins or the vehicle's assigned driver can publish events");
+                return ResponseEntity.status(403).body(response);
+            }
+            if (!servesTargets(request.getVehicleNumber(), request.getRoute(), request.getStopId())) {
+                response.put("message", "route and stopId must be served by the vehicle");
+                return ResponseEntity.status(403).body(response);
+            }
+        }
+        Notification n = new Notification();
+        n.setType(request.getType());
+        n.setVehicleNumber(request.getVehicleNumber());
+        n.setRoute(request.getRoute());
+        n.setStopId(request.getStopId());
+        n.setMessage(request.getMessage());
+        n.setTimestamp(System.currentTimeMillis());
+        String id = notificationService.publish(n,
+                notificationService.targetsFor(request.getVehicleNumber(), request.getRoute(), request.getStopId()));
+        response.put("message", "Notification queued");
+        response.put("id", id);
+        return ResponseEntity.status(202).body(response);
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> getStats(Authentication authentication) {
+        if (authentication == null) {
+            return ResponseEntity.status(401).build();
+        }
+        return ResponseEntity.ok(notificationService.stats());
+    }
+
+    // The route must be one of the vehicle's route keys and the stop must be on one of its routes
+    private boolean servesTargets(String vehicleNumber, String route, String stopId) {
+        if (route == null && stopId == null) {
+            return true;
+        }
+        List<TripSchedule> schedules = scheduleLoader.getSchedules().getOrDefault(vehicleNumber, List.of());
+        Stop stop = stopId != null ? stopLoader.getStop(stopId) : null;
+        if (stopId != null && stop == null) {
+            return false;
+        }
+        boolean routeServed = route == null;
+        boolean stopServed = stop == null;
+        for (TripSchedule schedule : schedules) {
+            if (!routeServed && ScheduleLoader.routeKeys(schedule).contains(ScheduleLoader.normalizeRoute(route))) {
+                routeServed = true;
+            }
+            if (!stopServed && List.of(ScheduleLoader.normalizeRoute(schedule.getRoute()).split("→"))
+                    .contains(ScheduleLoader.normalizeRoute(stop.getName()))) {
+                stopServed = true;
+            }
+        }
+        return routeServed && stopServed;
+    }
+
+    private static Map<String, String> validate(String type, String target) {
+        if (type == null || !NotificationService.TYPES.contains(type)) {
+            return Map.of("message", "type must be route, stop or vehicle");
+        }
+        if (target == null || target.isBlank()) {
+            return Map.of("message", "target is required");
+        }
+        return null;
+    }
+}
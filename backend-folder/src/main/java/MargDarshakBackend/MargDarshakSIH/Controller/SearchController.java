@@ -0,0 +1,48 @@
+package MargDarshakBackend.MargDarshakSIH.Controller;
+
+import MargDarshakBackend.MargDarshakSIH.Service.BusSearchService;
+import MargDarshakBackend.MargDarshakSIH.Service.DriverAssignmentService;
+import MargDarshakBackend.MargDarshakSIH.entity.DriverAssignment;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/search")
+@CrossOrigin(origins = "*")
+public class SearchController {
+
+    @Autowired
+    private DriverAssignmentService assignmentService;
+
+    @Autowired
+    private BusSearchService busSearchService;
+
+    // Bus results with live location, driver and occupancy; "partial" is true if any source timed out
+    @GetMapping("/buses")
+    public ResponseEntity<Map<String, Object>> searchBuses(@RequestParam(required = false) String from,
+                                                           @RequestParam(required = false) String to,
+                                                           @RequestParam(required = false) String busId) {
+        return ResponseEntity.ok(busSearchService.search(from, to, busId));
+    }
+
+    // Drivers currently on shift for a route (route string, "Origin→Destination" or tripId)
+    @GetMapping("/drivers")
+    public ResponseEntity<Map<String, Object>> getRouteDrivers(@RequestParam String route) {
+        List<Map<String, Object>> drivers = new ArrayList<>();
+        for (DriverAssignment assignment : assignmentService.driversOnRoute(route)) {
+            Map<String, Object> driver = new HashMap<>();
+            driver.put("id", assignment.getDriverId());
+            driver.put("name", assignment.getDriverName());
+            driver.put("phone", assignment.getDriverPhone());
+            driver.put("vehicleNumber", assignment.getVehicleNumber());
+            drivers.add(driver);
+        }
+        return ResponseEntity.ok(Map.of("drivers", drivers));
+    }
+}
@@ -0,0 +1,49 @@
+package MargDarshakBackend.MargDarshakSIH.Controller;
+
+import MargDarshakBackend.MargDarshakSIH.Service.ShardMembership;
+import MargDarshakBackend.MargDarshakSIH.Service.ShardRouter;
+import MargDarshakBackend.MargDarshakSIH.Service.TripLifecycleService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/shards")
+public class ShardController {
+
+    @Autowired
+    private ShardMembership membership;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private TripLifecycleService tripLifecycle;
+
+    // This node's view: members, routing counters and the trips it currently holds
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getShards(Authentication authentication) {
+        if (authentication == null) {
+            return ResponseEntity.status(401).build();
+        }
+        Map<String, Object> response = new LinkedHashMap<>(shardRouter.stats());
+        response.put("trips", tripLifecycle.stats());
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/owner/{vehicleNumber}")
+    public ResponseEntity<Map<String, Object>> getOwner(Authentication authentication, @PathVariable String vehicleNumber) {
+        if (authentication == null) {
+            return ResponseEntity.status(401).build();
+        }
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("vehicleNumber", vehicleNumber);
+        response.put("owner", membership.ownerOf(vehicleNumber));
+        response.put("local", membership.owns(vehicleNumber));
+        return ResponseEntity.ok(response);
+    }
+}
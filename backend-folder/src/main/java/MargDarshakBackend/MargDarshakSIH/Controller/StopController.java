@@ -0,0 +1,53 @@
+package MargDarshakBackend.MargDarshakSIH.Controller;
+
+import MargDarshakBackend.MargDarshakSIH.Model.Stop;
+import MargDarshakBackend.MargDarshakSIH.Schedule.StopLoader;
+import MargDarshakBackend.MargDarshakSIH.Service.GeofenceService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/stops")
+public class StopController {
+
+    @Autowired
+    private StopLoader stopLoader;
+
+    @Autowired
+    private GeofenceService geofenceService;
+
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getStops() {
+        List<Map<String, Object>> stops = new ArrayList<>();
+        for (Stop stop : stopLoader.getStops().values()) {
+            Map<String, Object> s = new LinkedHashMap<>();
+            s.put("stopId", stop.getStopId());
+            s.put("name", stop.getName());
+            s.put("lat", stop.getLat());
+            s.put("lon", stop.getLon());
+            s.put("radius", stop.getRadiusMeters());
+            stops.add(s);
+        }
+        return ResponseEntity.ok(Map.of("stops", stops));
+    }
+
+    // Buses currently inside the stop's geofence
+    @GetMapping("/{stopId}/vehicles")
+    public ResponseEntity<Map<String, Object>> getVehiclesAtStop(@PathVariable String stopId) {
+        Map<String, Object> response = new HashMap<>();
+        if (stopLoader.getStop(stopId) == null) {
+            response.put("message", "Unknown stop: " + stopId);
+            return ResponseEntity.badRequest().body(response);
+        }
+        response.put("stopId", stopId);
+        response.put("vehicles", geofenceService.vehiclesAt(stopId));
+        return ResponseEntity.ok(response);
+    }
+}
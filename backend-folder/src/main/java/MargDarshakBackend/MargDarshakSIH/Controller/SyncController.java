@@ -0,0 +1,75 @@
+package MargDarshakBackend.MargDarshakSIH.Controller;
+
+import MargDarshakBackend.MargDarshakSIH.Schedule.ScheduleLoader;
+import MargDarshakBackend.MargDarshakSIH.Schedule.StopLoader;
+import MargDarshakBackend.MargDarshakSIH.Service.GeofenceService;
+import MargDarshakBackend.MargDarshakSIH.Service.SyncService;
+import MargDarshakBackend.MargDarshakSIH.Utils.AuthUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Delta sync of trips, routes and stops for the PWA's offline cache.
+// GET /api/sync gives the full snapshot; GET /api/sync?since={version} gives what changed since that version,
+// or the snapshot ("mode": "snapshot") when the version is too old. Clients store "version" for next time.
+@RestController
+@RequestMapping("/api/sync")
+public class SyncController {
+
+    @Autowired
+    private SyncService syncService;
+
+    @Autowired
+    private ScheduleLoader scheduleLoader;
+
+    @Autowired
+    private StopLoader stopLoader;
+
+    @Autowired
+    private GeofenceService geofenceService;
+
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> sync(@RequestParam(required = false) String since, WebRequest webRequest) {
+        Map<String, Object> body = syncService.sync(since);
+        // Strong ETag over (from, to): the same request against the same data is always byte-identical
+        String etag = "\"" + body.get("version") + ("delta".equals(body.get("mode")) ? "-" + body.get("since") : "") + "\"";
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache().cachePublic())
+                .body(body);
+    }
+
+    @GetMapping("/version")
+    public ResponseEntity<Map<String, String>> version() {
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .body(Map.of("version", syncService.currentVersion()));
+    }
+
+    // Re-reads schedules.csv and stops.csv; the next sync call picks up the new version. Admin only.
+    @PostMapping("/reload")
+    public ResponseEntity<Map<String, String>> reload(Authentication authentication) {
+        if (authentication == null) {
+            return ResponseEntity.status(401).build();
+        }
+        if (!AuthUtils.isAdmin(authentication)) {
+            return ResponseEntity.status(403).body(Map.of("message", "Admin role required"));
+        }
+        scheduleLoader.reload();
+        stopLoader.reload();
+        geofenceService.load(stopLoader.getStops().values());
+        Map<String, String> response = new HashMap<>();
+        response.put("message", "Reference data reloaded");
+        response.put("version", syncService.currentVersion());
+        return ResponseEntity.ok(response);
+    }
+}
@@ -0,0 +1,30 @@
+package MargDarshakBackend.MargDarshakSIH.Controller;
+
+import MargDarshakBackend.MargDarshakSIH.Service.LocationTraceService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/traces")
+public class TraceController {
+
+    @Autowired
+    private LocationTraceService traceService;
+
+    // Most recent sampled location messages over the slow threshold, newest first, with per-stage timings
+    @GetMapping("/slow")
+    public ResponseEntity<Map<String, Object>> getSlowTraces(Authentication authentication,
+                                                             @RequestParam(defaultValue = "50") int limit) {
+        if (authentication == null) {
+            return ResponseEntity.status(401).build();
+        }
+        Map<String, Object> response = new LinkedHashMap<>(traceService.stats());
+        response.put("traces", traceService.slowTraces(Math.max(0, limit)));
+        return ResponseEntity.ok(response);
+    }
+}
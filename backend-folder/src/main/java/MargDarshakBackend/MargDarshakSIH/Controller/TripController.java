@@ -1,16 +1,31 @@
 package MargDarshakBackend.MargDarshakSIH.Controller;
 
+import MargDarshakBackend.MargDarshakSIH.Model.TripState;
 import MargDarshakBackend.MargDarshakSIH.Schedule.ScheduleLoader;
+import MargDarshakBackend.MargDarshakSIH.Service.DriverAssignmentService;
+import MargDarshakBackend.MargDarshakSIH.Service.LocationStore;
+import MargDarshakBackend.MargDarshakSIH.Service.PipelineMetrics;
+import MargDarshakBackend.MargDarshakSIH.Service.RedisNearCache;
+import MargDarshakBackend.MargDarshakSIH.Service.TripLifecycleService;
+import MargDarshakBackend.MargDarshakSIH.dto.LocationBatchRequest;
 import MargDarshakBackend.MargDarshakSIH.entity.TripSchedule;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 import redis.clients.jedis.JedisPooled;
 
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/api/trips")
@@ -22,6 +37,27 @@ public class TripController {
  @Autowired
     private JedisPooled jedis; // Redis client
 
+    @Autowired
+    private PipelineMetrics metrics;
+
+    @Autowired
+    private RedisNearCache nearCache;
+
+    @Autowired
+    private LocationStore locationStore;
+
+    @Autowired
+    private TripLifecycleService tripLifecycle;
+
+    @Autowired
+    private DriverAssignmentService assignmentService;
+
+    @Value("${locations.batch-max:100}")
+    private int batchMax;
+
+    @Value("${locations.since-skew-ms:2000}")
+    private long sinceSkewMs;
+
     @PostMapping("/start")
     public ResponseEntity<Map<String, String>> startTrip(@RequestBody TripRequest tripRequest) {
         Map<String, String> response = new HashMap<>();
@@ -35,19 +71,23 @@ public class TripController {
                 return ResponseEntity.badRequest().body(response);
             }
 
-            TripSchedule schedule = scheduleLoader.getScheduleByVehicle(tripRequest.getVehicleNumber());
-            if (schedule == null) {
+            TripSchedule planned = scheduleLoader.getScheduleByVehicle(tripRequest.getVehicleNumber());
+            if (planned == null) {
                 response.put("message", "No schedule found for vehicle: " + tripRequest.getVehicleNumber());
                 return ResponseEntity.badRequest().body(response);
             }
 
-            // Update startTime
+            // The actual start goes on a copy: the loaded schedule is shared and stays the planned timetable
+            // that analytics delays, headways and sync versions are computed from
+            LocalDateTime startTime;
             try {
-                schedule.setStartTime(LocalDateTime.parse(tripRequest.getStartTime(), DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+                startTime = LocalDateTime.parse(tripRequest.getStartTime(), DateTimeFormatter.ISO_LOCAL_DATE_TIME);
             } catch (Exception e) {
                 response.put("message", "Invalid startTime format: " + tripRequest.getStartTime());
                 return ResponseEntity.badRequest().body(response);
             }
+            TripSchedule schedule = new TripSchedule(planned.getTripId(), planned.getVehicleNumber(), startTime,
+                    planned.getEndTime(), planned.getOrigin(), planned.getDestination(), planned.getRoute());
 
             // Store in Redis
             Map<String, String> tripData = new HashMap<>();
@@ -58,7 +98,11 @@ public class TripController {
             tripData.put("origin", schedule.getOrigin());
             tripData.put("destination", schedule.getDestination());
             tripData.put("route", schedule.getRoute());
+            tripData.put("state", TripState.STARTED.value());
+            long redisStart = metrics.start();
             jedis.hset("trip_schedule:" + schedule.getTripId(), tripData); // Single hset call
+            metrics.stop("redis.command", redisStart, "op", "hset");
+            tripLifecycle.start(schedule);
 
             response.put("message", "Trip started successfully");
             response.put("tripId", schedule.getTripId());
@@ -72,11 +116,158 @@ public class TripController {
     @GetMapping("/location/{vehicleNumber}")
     public ResponseEntity<Map<String, String>> getLocation(@PathVariable String vehicleNumber) {
         Map<String, String> response = new HashMap<>();
-        Map<String, String> locationData = jedis.hgetAll("location:" + vehicleNumber);
+        // Served from the near-cache until the driver's next fix invalidates it; same shape in either encoding
+        Map<String, String> locationData = locationStore.read(vehicleNumber);
         if (locationData.isEmpty()) {
             response.put("message", "No location data found for vehicle: " + vehicleNumber);
             return ResponseEntity.badRequest().body(response);
         }
         return ResponseEntity.ok(locationData);
     }
+
+    // Positions for many vehicles in one pipelined Redis read (?vehicles=A,B,C&since=...)
+    @GetMapping("/locations")
+    public ResponseEntity<Map<String, Object>> getLocations(@RequestParam(required = false) List<String> vehicles,
+                                                            @RequestParam(required = false) String since) {
+        return batchLocations(vehicles, since);
+    }
+
+    // Same as the GET, for vehicle lists too long for a query string
+    @PostMapping("/locations")
+    public ResponseEntity<Map<String, Object>> postLocations(@RequestBody LocationBatchRequest request) {
+        return batchLocations(request.getVehicles(), request.getSince());
+    }
+
+    private ResponseEntity<Map<String, Object>> batchLocations(List<String> vehicles, String since) {
+        Map<String, Object> response = new HashMap<>();
+        Set<String> vehicleNumbers = new LinkedHashSet<>();
+        if (vehicles != null) {
+            for (String v : vehicles) {
+                if (v != null && !v.isBlank()) {
+                    vehicleNumbers.add(v.trim());
+                }
+            }
+        }
+        if (vehicleNumbers.isEmpty()) {
+            response.put("message", "vehicles is required");
+            return ResponseEntity.badRequest().body(response);
+        }
+        if (vehicleNumbers.size() > batchMax) {
+            response.put("message", "At most " + batchMax + " vehicles per request");
+            return ResponseEntity.badRequest().body(response);
+        }
+        Long sinceMillis = null;
+        if (since != null && !since.isBlank()) {
+            sinceMillis = parseSince(since);
+            if (sinceMillis == null) {
+                response.put("message", "Invalid since: " + since);
+                return ResponseEntity.badRequest().body(response);
+            }
+        }
+
+        // Taken before the read and pulled back a little, so a fix stamped just before a concurrent read isn't
+        // skipped by the client's next call; the cost is the occasional repeat
+        long asOf = System.currentTimeMillis() - sinceSkewMs;
+        Map<String, Map<String, String>> found = locationStore.readAll(vehicleNumbers);
+        Map<String, Map<String, String>> locations = new LinkedHashMap<>();
+        List<String> missing = new ArrayList<>();
+        for (String vehicleNumber : vehicleNumbers) {
+            Map<String, String> location = found.get(vehicleNumber);
+            if (location == null) {
+                missing.add(vehicleNumber);
+            } else if (sinceMillis == null || fixMillis(location) > sinceMillis) {
+                locations.put(vehicleNumber, location);
+            }
+        }
+        response.put("locations", locations);
+        response.put("missing", missing);
+        response.put("asOf", asOf);
+        return ResponseEntity.ok(response);
+    }
+
+    private static Long parseSince(String since) {
+        try {
+            return Long.parseLong(since.trim());
+        } catch (NumberFormatException e) {
+            // fall through to a date-time
+        }
+        try {
+            return LocalDateTime.parse(since.trim()).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    // Fix time as stored by LocationStore (server LocalDateTime); unreadable stamps count as changed
+    private static long fixMillis(Map<String, String> location) {
+        try {
+            return LocalDateTime.parse(location.get("timestamp")).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        } catch (Exception e) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    @GetMapping("/{tripId}/state")
+    public ResponseEntity<Map<String, String>> getTripState(@PathVariable String tripId) {
+        Map<String, String> response = new HashMap<>();
+        TripState state = tripLifecycle.stateOf(tripId);
+        if (state == null) {
+            response.put("message", "Unknown trip: " + tripId);
+            return ResponseEntity.badRequest().body(response);
+        }
+        response.put("tripId", tripId);
+        response.put("state", state.value());
+        return ResponseEntity.ok(response);
+    }
+
+    // Driver ends the trip; "state" may force completed or abandoned, otherwise it is decided from the fixes.
+    // Only a driver assigned to the trip's vehicle may end it.
+    @PostMapping("/{tripId}/end")
+    public ResponseEntity<Map<String, String>> endTrip(@PathVariable String tripId,
+                                                       @RequestBody(required = false) Map<String, String> body,
+                                                       Authentication authentication) {
+        Map<String, String> response = new HashMap<>();
+        if (authentication == null) {
+            response.put("message", "Authentication required");
+            return ResponseEntity.status(401).body(response);
+        }
+        String vehicleNumber = tripLifecycle.vehicleOf(tripId);
+        if (vehicleNumber == null) {
+            response.put("message", "No active trip: " + tripId);
+            return ResponseEntity.badRequest().body(response);
+        }
+        boolean assigned = assignmentService.forVehicle(vehicleNumber).stream()
+                .anyMatch(a -> authentication.getName().equals(a.getDriverEmail()));
+        if (!assigned) {
+            response.put("message", "Not the driver of trip: " + tripId);
+            return ResponseEntity.status(403).body(response);
+        }
+        TripState requested = null;
+        if (body != null && body.get("state") != null) {
+            try {
+                requested = TripState.valueOf(body.get("state").toUpperCase());
+            } catch (IllegalArgumentException e) {
+                response.put("message", "Invalid state: " + body.get("state"));
+                return ResponseEntity.badRequest().body(response);
+            }
+        }
+        if (!tripLifecycle.end(tripId, requested)) {
+            response.put("message", "No active trip: " + tripId);
+            return ResponseEntity.badRequest().body(response);
+        }
+        response.put("message", "Trip ended");
+        response.put("state", tripLifecycle.stateOf(tripId).value());
+        return ResponseEntity.ok(response);
+    }
+
+    @GetMapping("/{tripId}")
+    public ResponseEntity<Map<String, String>> getTrip(@PathVariable String tripId) {
+        Map<String, String> tripData = nearCache.hgetAll("trip_schedule:" + tripId);
+        if (tripData.isEmpty()) {
+            Map<String, String> response = new HashMap<>();
+            response.put("message", "No started trip found: " + tripId);
+            return ResponseEntity.badRequest().body(response);
+        }
+        return ResponseEntity.ok(tripData);
+    }
 }
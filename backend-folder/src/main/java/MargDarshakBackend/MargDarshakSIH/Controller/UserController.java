@@ -1,17 +1,25 @@
 package MargDarshakBackend.MargDarshakSIH.Controller;
 
-import MargDarshakBackend.MargDarshakSIH.Repository.UserRepository;
+import MargDarshakBackend.MargDarshakSIH.Service.DriverAssignmentService;
+import MargDarshakBackend.MargDarshakSIH.Service.EntityCacheService;
 import MargDarshakBackend.MargDarshakSIH.dto.ProfileUpdateRequest;
+import MargDarshakBackend.MargDarshakSIH.dto.UserProfileView;
 import MargDarshakBackend.MargDarshakSIH.entity.User;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.AuthenticatedPrincipal;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import java.net.Authenticator;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
 import java.io.IOException;
 import java.nio.file.Files;
@@ -25,24 +33,41 @@ import java.util.UUID;
 public class UserController {
 
     @Autowired
-    private UserRepository userRepository;
+    private EntityCacheService entityCache;
+
+    @Autowired
+    private DriverAssignmentService assignmentService;
 
     // ✅ Get currently authenticated user's profile
     @GetMapping
-    public ResponseEntity<?> getAuthenticatedUser(Authentication authentication) {
+    public ResponseEntity<?> getAuthenticatedUser(Authentication authentication, WebRequest webRequest) {
         String username = authentication.getName();
-        String id = userRepository.findByEmail(username).getId();
-        Optional<User> user = userRepository.findById(id);
-        return user.map(ResponseEntity::ok)
-                .orElseGet(() -> ResponseEntity.notFound().build());
+        return profileResponse(Optional.ofNullable(entityCache.findProfileByEmail(username)), webRequest);
     }
 
     // ✅ Get user profile by ID (to support frontend call /api/user/{id})
     @GetMapping("/{id}")
-    public ResponseEntity<?> getUserById(@PathVariable String id) {
-        Optional<User> user = userRepository.findById(id);
-        return user.map(ResponseEntity::ok)
-                .orElseGet(() -> ResponseEntity.notFound().build());
+    public ResponseEntity<?> getUserById(@PathVariable String id, WebRequest webRequest) {
+        return profileResponse(entityCache.findProfileById(id), webRequest);
+    }
+
+    // Profiles carry their version, which doubles as a strong ETag for conditional GETs
+    private ResponseEntity<?> profileResponse(Optional<UserProfileView> profile, WebRequest webRequest) {
+        if (profile.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        Long version = profile.get().getVersion();
+        if (version == null) {
+            return ResponseEntity.ok(profile.get());
+        }
+        String etag = "\"" + profile.get().getId() + "-" + version + "\"";
+        if (webRequest.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(profile.get());
     }
 
     // ✅ Update user profile
@@ -51,32 +76,42 @@ public class UserController {
             @PathVariable String id,
             @RequestBody ProfileUpdateRequest request
     ) {
-        Optional<User> optionalUser = userRepository.findById(id);
-        if (optionalUser.isEmpty()) {
-            return ResponseEntity.notFound().build();
-        }
-
-        User user = optionalUser.get();
-
-        // Update only provided fields
+        // Update only provided fields, as a single atomic $set
+        Map<String, Object> fields = new HashMap<>();
         if (request.getName() != null && !request.getName().isEmpty()) {
-            user.setName(request.getName());
+            fields.put("name", request.getName());
         }
         if (request.getPhone() != null && !request.getPhone().isEmpty()) {
-            user.setPhone(request.getPhone());
+            fields.put("phone", request.getPhone());
         }
         if (request.getAddress() != null && !request.getAddress().isEmpty()) {
-            user.setAddress(request.getAddress());
+            fields.put("address", request.getAddress());
         }
         if (request.getProfileImageUrl() != null && !request.getProfileImageUrl().isEmpty()) {
-            user.setProfileImageUrl(request.getProfileImageUrl());
+            fields.put("profileImageUrl", request.getProfileImageUrl());
         }
 
         // Don’t allow email or password updates here for security
         // (can be handled separately if needed)
 
-        User updatedUser = userRepository.save(user);
-        return ResponseEntity.ok(updatedUser);
+        if (fields.isEmpty()) {
+            Optional<UserProfileView> profile = entityCache.findProfileById(id);
+            return profile.<ResponseEntity<?>>map(ResponseEntity::ok)
+                    .orElseGet(() -> ResponseEntity.notFound().build());
+        }
+
+        try {
+            User updatedUser = entityCache.updateUserFields(id, fields, request.getVersion());
+            if (updatedUser == null) {
+                return ResponseEntity.notFound().build();
+            }
+            if (fields.containsKey("name") || fields.containsKey("phone")) {
+                assignmentService.refreshDriver(updatedUser);
+            }
+            return ResponseEntity.ok(UserProfileView.from(updatedUser));
+        } catch (OptimisticLockingFailureException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("message", e.getMessage()));
+        }
     }
 
     // ✅ Upload profile photo and update user's profileImageUrl
@@ -84,7 +119,7 @@ public class UserController {
     public ResponseEntity<?> uploadProfilePhoto(Authentication authentication,
                                                 @RequestParam("photo") MultipartFile photo) throws IOException {
         String username = authentication.getName();
-        User user = userRepository.findByEmail(username);
+        UserProfileView user = entityCache.findProfileByEmail(username);
         if (user == null) {
             return ResponseEntity.notFound().build();
         }
@@ -107,10 +142,9 @@ public class UserController {
                 .path(filename)
                 .toUriString();
 
-        user.setProfileImageUrl(fileUrl);
-        userRepository.save(user);
+        entityCache.updateUserFields(user.getId(), Map.of("profileImageUrl", fileUrl), null);
 
-        return ResponseEntity.ok(java.util.Map.of(
+        return ResponseEntity.ok(Map.of(
                 "photoUrl", fileUrl,
                 "message", "Profile photo uploaded"
         ));
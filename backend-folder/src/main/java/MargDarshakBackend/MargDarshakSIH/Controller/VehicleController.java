@@ -1,7 +1,6 @@
 package MargDarshakBackend.MargDarshakSIH.Controller;
 
-import MargDarshakBackend.MargDarshakSIH.Repository.UserRepository;
-import MargDarshakBackend.MargDarshakSIH.Repository.VehicleRepository;
+import MargDarshakBackend.MargDarshakSIH.Service.EntityCacheService;
 import MargDarshakBackend.MargDarshakSIH.entity.User;
 import MargDarshakBackend.MargDarshakSIH.entity.Vehicle;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -9,6 +8,7 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
 
@@ -18,19 +18,16 @@ import java.util.Optional;
 public class VehicleController {
 
     @Autowired
-    private VehicleRepository vehicleRepository;
-
-    @Autowired
-    private UserRepository userRepository;
+    private EntityCacheService entityCache;
 
     @GetMapping
     public ResponseEntity<?> getVehicle(Authentication authentication) {
         String email = authentication.getName();
-        User user = userRepository.findByEmail(email);
+        User user = entityCache.findUserByEmail(email);
         if (user == null) {
             return ResponseEntity.status(401).build();
         }
-        Optional<Vehicle> vehicle = vehicleRepository.findByUserId(user.getId());
+        Optional<Vehicle> vehicle = entityCache.findVehicleByUserId(user.getId());
         return vehicle.<ResponseEntity<?>>map(ResponseEntity::ok)
                 .orElseGet(() -> ResponseEntity.notFound().build());
     }
@@ -39,20 +36,20 @@ public class VehicleController {
     public ResponseEntity<?> upsertVehicle(Authentication authentication,
                                            @RequestBody Vehicle incoming) {
         String email = authentication.getName();
-        User user = userRepository.findByEmail(email);
+        User user = entityCache.findUserByEmail(email);
         if (user == null) {
             return ResponseEntity.status(401).build();
         }
 
-        Vehicle vehicle = vehicleRepository.findByUserId(user.getId())
-                .orElseGet(Vehicle::new);
-        vehicle.setUserId(user.getId());
-        vehicle.setVehicleNumber(incoming.getVehicleNumber());
-        vehicle.setModel(incoming.getModel());
-        vehicle.setSeatingCapacity(incoming.getSeatingCapacity());
-        vehicle.setFuelType(incoming.getFuelType());
+        // Single upsert keyed by userId instead of read-modify-save
+        Map<String, Object> fields = new HashMap<>();
+        fields.put("vehicleNumber", incoming.getVehicleNumber());
+        fields.put("model", incoming.getModel());
+        fields.put("seatingCapacity", incoming.getSeatingCapacity());
+        fields.put("fuelType", incoming.getFuelType());
 
-        Vehicle saved = vehicleRepository.save(vehicle);
+        // Registering a vehicle does not assign the caller to it; only an admin creates assignments
+        Vehicle saved = entityCache.upsertVehicle(user.getId(), fields);
         return ResponseEntity.ok(Map.of(
                 "message", "Vehicle saved",
                 "vehicle", saved
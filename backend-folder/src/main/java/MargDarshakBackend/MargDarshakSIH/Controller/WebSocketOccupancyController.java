@@ -0,0 +1,40 @@
+package MargDarshakBackend.MargDarshakSIH.Controller;
+
+import MargDarshakBackend.MargDarshakSIH.Service.DriverAssignmentService;
+import MargDarshakBackend.MargDarshakSIH.Service.SeatOccupancyService;
+import MargDarshakBackend.MargDarshakSIH.dto.OccupancyEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.stereotype.Controller;
+
+import java.security.Principal;
+
+@Controller
+public class WebSocketOccupancyController {
+    private static final Logger logger = LoggerFactory.getLogger(WebSocketOccupancyController.class);
+
+    @Autowired
+    private SeatOccupancyService occupancyService;
+
+    @Autowired
+    private DriverAssignmentService assignmentService;
+
+    // Conductor/driver apps send boarding and alighting counts here; subscribers of
+    // /topic/occupancy/{busId} are only notified when the crowding band changes. The session must have
+    // connected with a token (see StompAuthInterceptor) belonging to the bus's assigned driver.
+    @MessageMapping("/occupancy-event")
+    public void handleOccupancyEvent(OccupancyEvent event, Principal principal) {
+        if (event.getBusId() == null || event.getBusId().isEmpty()) {
+            logger.error("Occupancy event without busId");
+            return;
+        }
+        if (principal == null || !assignmentService.drives(principal.getName(), event.getBusId())) {
+            logger.warn("Rejected occupancy event for {} from {}", event.getBusId(),
+                    principal == null ? "an anonymous session" : principal.getName());
+            return;
+        }
+        occupancyService.applyEvent(event);
+    }
+}
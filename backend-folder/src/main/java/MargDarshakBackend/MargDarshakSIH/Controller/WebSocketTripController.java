@@ -1,17 +1,24 @@
 package MargDarshakBackend.MargDarshakSIH.Controller;
 
 
+import MargDarshakBackend.MargDarshakSIH.Model.LocationTrace;
 import MargDarshakBackend.MargDarshakSIH.Model.LocationUpdateRequest;
+import MargDarshakBackend.MargDarshakSIH.Service.LocationStore;
+import MargDarshakBackend.MargDarshakSIH.Service.LocationStreamHub;
+import MargDarshakBackend.MargDarshakSIH.Service.LocationTraceService;
+import MargDarshakBackend.MargDarshakSIH.Service.PipelineMetrics;
+import MargDarshakBackend.MargDarshakSIH.Service.ShardRouter;
 import lombok.extern.slf4j.Slf4j;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.messaging.handler.annotation.MessageMapping;
-import org.springframework.messaging.handler.annotation.SendTo;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Controller;
-import redis.clients.jedis.JedisPooled;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 
 @Slf4j
 @Controller
@@ -19,31 +26,68 @@ public class WebSocketTripController {
     private static final Logger logger = LoggerFactory.getLogger(WebSocketTripController.class);
 
     @Autowired
-    private JedisPooled jedis;
+    private LocationStore locationStore;
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Autowired
+    private PipelineMetrics metrics;
+
+    @Autowired
+    private LocationTraceService traceService;
+
+    @Autowired
+    private LocationStreamHub streamHub;
+
+    @Autowired
+    private ShardRouter shardRouter;
 
     @MessageMapping("/update-location")
-    @SendTo("/topic/location-updates")
-    public LocationUpdateRequest handleLocationUpdate(LocationUpdateRequest update) {
-        logger.info("Received location update: {}", update);
+    public void handleLocationUpdate(LocationUpdateRequest update) {
+        long start = metrics.start();
+        LocationTrace trace = traceService.begin(update.getVehicleNumber(), update.getTimestamp());
+        logger.debug("Received location update: {}", update);
 
         // Validate data
         if (update.getVehicleNumber() == null || update.getVehicleNumber().isEmpty()) {
             logger.error("Invalid vehicleNumber: {}", update.getVehicleNumber());
-            return null; // Or send error via WebSocket
+            traceService.finish(trace);
+            return; // Or send error via WebSocket
         }
         if (update.getLatitude()==null  || update.getLongitude() ==null) {
             logger.error("Invalid coordinates: lat={}, long={}", update.getLatitude(), update.getLongitude());
-            return null;
+            traceService.finish(trace);
+            return;
+        }
+        if (trace != null) {
+            trace.mark(LocationTrace.Stage.VALIDATED);
         }
 
-        // Store in Redis
-        String key = "location:" + update.getVehicleNumber();
-        jedis.hset(key, "vehicleNumber", update.getVehicleNumber());
-        jedis.hset(key, "latitude", update.getLatitude().toString());
-        jedis.hset(key, "longitude", update.getLongitude().toString());
-        jedis.hset(key, "timestamp", LocalDateTime.now().toString());
+        // Store in Redis (one command, layout chosen by location.encoding)
+        long now = System.currentTimeMillis();
+        locationStore.write(update.getVehicleNumber(), update.getLatitude(), update.getLongitude(), now);
+        if (trace != null) {
+            trace.mark(LocationTrace.Stage.PERSISTED);
+        }
+        metrics.vehicleActive(update.getVehicleNumber());
+        // Trip lifecycle, geofences and traffic run on the vehicle's owner node
+        shardRouter.dispatch(update.getVehicleNumber(), update.getLatitude(), update.getLongitude(), now);
+        if (trace != null) {
+            trace.mark(LocationTrace.Stage.DISPATCHED);
+        }
 
-        // Broadcast to subscribers (user app)
-        return update;
+        // Broadcast to subscribers (user app); traced messages carry their id so sends can be stamped
+        long broadcastStart = metrics.start();
+        if (trace == null) {
+            messagingTemplate.convertAndSend("/topic/location-updates", update);
+        } else {
+            messagingTemplate.convertAndSend("/topic/location-updates", update, traceService.headers(trace));
+            trace.mark(LocationTrace.Stage.ENQUEUED);
+        }
+        streamHub.publish(update.getVehicleNumber(), update.getLatitude(), update.getLongitude(),
+                LocalDateTime.ofInstant(Instant.ofEpochMilli(now), ZoneId.systemDefault()).toString());
+        metrics.stop("location.broadcast", broadcastStart, "transport", "stomp");
+        metrics.stop("location.ingest", start, "transport", "stomp");
     }
 }
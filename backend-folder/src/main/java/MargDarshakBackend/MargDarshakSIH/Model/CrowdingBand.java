@@ -0,0 +1,36 @@
+package MargDarshakBackend.MargDarshakSIH.Model;
+
+// Same thresholds as calculateCrowdingStatus in the PWA (lib/api/buses.ts)
+public enum CrowdingBand {
+    AVAILABLE("Available", "bg-green-500"),
+    HALF_FULL("Half Full", "bg-yellow-500"),
+    NEARLY_FULL("Nearly Full", "bg-orange-500"),
+    CROWDED("Crowded", "bg-red-500");
+
+    private final String status;
+    private final String color;
+
+    CrowdingBand(String status, String color) {
+        this.status = status;
+        this.color = color;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public String getColor() {
+        return color;
+    }
+
+    public static CrowdingBand of(int occupiedSeats, int totalSeats) {
+        if (totalSeats <= 0) {
+            return occupiedSeats > 0 ? CROWDED : AVAILABLE;
+        }
+        int percent = occupiedSeats * 100 / totalSeats;
+        if (percent <= 25) return AVAILABLE;
+        if (percent <= 50) return HALF_FULL;
+        if (percent <= 75) return NEARLY_FULL;
+        return CROWDED;
+    }
+}
@@ -0,0 +1,79 @@
+package MargDarshakBackend.MargDarshakSIH.Model;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Stage timestamps for one sampled location message, from server receipt to the last per-session send.
+// Stages are stamped by the ingesting thread and read by whichever thread finishes the trace, hence the atomics;
+// sends complete on the outbound channel threads.
+public class LocationTrace {
+
+    public enum Stage { RECEIVED, VALIDATED, PERSISTED, DISPATCHED, ENQUEUED }
+
+    private final String traceId;
+    private final String vehicleNumber;
+    private final String clientTimestamp;
+    private final Long clientEpochMillis;
+    private final long receivedAtMillis;
+    private final AtomicLongArray stageNanos = new AtomicLongArray(Stage.values().length);
+    private final AtomicInteger sends = new AtomicInteger();
+    private final AtomicLong firstSendNanos = new AtomicLong();
+    private final AtomicLong lastSendNanos = new AtomicLong();
+
+    public LocationTrace(String traceId, String vehicleNumber, String clientTimestamp, Long clientEpochMillis) {
+        this.traceId = traceId;
+        this.vehicleNumber = vehicleNumber;
+        this.clientTimestamp = clientTimestamp;
+        this.clientEpochMillis = clientEpochMillis;
+        this.receivedAtMillis = System.currentTimeMillis();
+        this.stageNanos.set(Stage.RECEIVED.ordinal(), System.nanoTime());
+    }
+
+    public void mark(Stage stage) {
+        stageNanos.set(stage.ordinal(), System.nanoTime());
+    }
+
+    public void sendCompleted() {
+        long now = System.nanoTime();
+        sends.incrementAndGet();
+        firstSendNanos.compareAndSet(0, now);
+        lastSendNanos.accumulateAndGet(now, Math::max);
+    }
+
+    public long stageNanos(Stage stage) {
+        return stageNanos.get(stage.ordinal());
+    }
+
+    public String getTraceId() {
+        return traceId;
+    }
+
+    public String getVehicleNumber() {
+        return vehicleNumber;
+    }
+
+    public String getClientTimestamp() {
+        return clientTimestamp;
+    }
+
+    public Long getClientEpochMillis() {
+        return clientEpochMillis;
+    }
+
+    public long getReceivedAtMillis() {
+        return receivedAtMillis;
+    }
+
+    public int getSends() {
+        return sends.get();
+    }
+
+    public long getFirstSendNanos() {
+        return firstSendNanos.get();
+    }
+
+    public long getLastSendNanos() {
+        return lastSendNanos.get();
+    }
+}
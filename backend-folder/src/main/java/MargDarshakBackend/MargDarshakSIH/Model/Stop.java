@@ -0,0 +1,102 @@
+package MargDarshakBackend.MargDarshakSIH.Model;
+
+import MargDarshakBackend.MargDarshakSIH.Utils.GeoUtils;
+
+// A stop's geofence: a circle (radius in metres around lat/lon) or, when polygon points are given, a polygon.
+// The bounding box is what the spatial index stores; contains() is the exact test.
+public class Stop {
+    private final String stopId;
+    private final String name;
+    private final double lat;
+    private final double lon;
+    private final double radiusMeters;
+    private final double[] polygonLat;
+    private final double[] polygonLon;
+    private final double minLat;
+    private final double maxLat;
+    private final double minLon;
+    private final double maxLon;
+
+    public Stop(String stopId, String name, double lat, double lon, double radiusMeters) {
+        this(stopId, name, lat, lon, radiusMeters, null, null);
+    }
+
+    public Stop(String stopId, String name, double lat, double lon, double radiusMeters,
+                double[] polygonLat, double[] polygonLon) {
+        this.stopId = stopId;
+        this.name = name;
+        this.lat = lat;
+        this.lon = lon;
+        this.radiusMeters = radiusMeters;
+        this.polygonLat = polygonLat;
+        this.polygonLon = polygonLon;
+        if (isPolygon()) {
+            double aLat = Double.MAX_VALUE, bLat = -Double.MAX_VALUE, aLon = Double.MAX_VALUE, bLon = -Double.MAX_VALUE;
+            for (int i = 0; i < polygonLat.length; i++) {
+                aLat = Math.min(aLat, polygonLat[i]);
+                bLat = Math.max(bLat, polygonLat[i]);
+                aLon = Math.min(aLon, polygonLon[i]);
+                bLon = Math.max(bLon, polygonLon[i]);
+            }
+            minLat = aLat;
+            maxLat = bLat;
+            minLon = aLon;
+            maxLon = bLon;
+        } else {
+            double dLat = GeoUtils.metersToLatDegrees(radiusMeters);
+            double dLon = GeoUtils.metersToLonDegrees(radiusMeters, lat);
+            minLat = lat - dLat;
+            maxLat = lat + dLat;
+            minLon = lon - dLon;
+            maxLon = lon + dLon;
+        }
+    }
+
+    public boolean isPolygon() {
+        return polygonLat != null && polygonLat.length >= 3;
+    }
+
+    // scale > 1 widens a circle, used for exit hysteresis; polygons are tested as drawn
+    public boolean contains(double pointLat, double pointLon, double scale) {
+        if (isPolygon()) {
+            return GeoUtils.pointInPolygon(pointLat, pointLon, polygonLat, polygonLon);
+        }
+        return GeoUtils.haversineKm(lat, lon, pointLat, pointLon) * 1000 <= radiusMeters * scale;
+    }
+
+    public String getStopId() {
+        return stopId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public double getLat() {
+        return lat;
+    }
+
+    public double getLon() {
+        return lon;
+    }
+
+    public double getRadiusMeters() {
+        return radiusMeters;
+    }
+
+    public double getMinLat() {
+        return minLat;
+    }
+
+    public double getMaxLat() {
+        return maxLat;
+    }
+
+    public double getMinLon() {
+        return minLon;
+    }
+
+    public double getMaxLon() {
+        return maxLon;
+    }
+}
@@ -0,0 +1,18 @@
+package MargDarshakBackend.MargDarshakSIH.Model;
+
+// scheduled -> started (driver pressed start) -> in_progress (first live fix) -> completed | abandoned
+public enum TripState {
+    SCHEDULED,
+    STARTED,
+    IN_PROGRESS,
+    COMPLETED,
+    ABANDONED;
+
+    public boolean isFinal() {
+        return this == COMPLETED || this == ABANDONED;
+    }
+
+    public String value() {
+        return name().toLowerCase();
+    }
+}
@@ -0,0 +1,10 @@
+package MargDarshakBackend.MargDarshakSIH.Repository;
+
+import MargDarshakBackend.MargDarshakSIH.entity.DriverAssignment;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import java.util.Optional;
+
+public interface DriverAssignmentRepository extends MongoRepository<DriverAssignment, String> {
+    Optional<DriverAssignment> findByDriverIdAndVehicleNumber(String driverId, String vehicleNumber);
+}
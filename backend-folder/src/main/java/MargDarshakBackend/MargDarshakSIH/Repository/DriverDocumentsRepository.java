@@ -5,7 +5,7 @@ import org.springframework.data.mongodb.repository.MongoRepository;
 
 import java.util.Optional;
 
-public interface DriverDocumentsRepository extends MongoRepository<DriverDocuments, String> {
+public interface DriverDocumentsRepository extends MongoRepository<DriverDocuments, String>, DriverDocumentsRepositoryCustom {
     Optional<DriverDocuments> findByUserId(String userId);
 }
 
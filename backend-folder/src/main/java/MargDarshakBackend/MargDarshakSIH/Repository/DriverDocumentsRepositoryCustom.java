@@ -0,0 +1,11 @@
+package MargDarshakBackend.MargDarshakSIH.Repository;
+
+import MargDarshakBackend.MargDarshakSIH.entity.DriverDocuments;
+
+import java.util.Map;
+
+public interface DriverDocumentsRepositoryCustom {
+
+    // Insert-or-$set the documents record for userId in one findAndModify and return the result
+    DriverDocuments upsertByUserId(String userId, Map<String, Object> fields);
+}
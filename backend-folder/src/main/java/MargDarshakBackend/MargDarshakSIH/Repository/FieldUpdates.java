@@ -0,0 +1,53 @@
+package MargDarshakBackend.MargDarshakSIH.Repository;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.Map;
+import java.util.function.Supplier;
+
+// Helpers shared by the *RepositoryCustomImpl classes for single round-trip $set updates.
+final class FieldUpdates {
+
+    static final String VERSION = "version";
+
+    private FieldUpdates() {
+    }
+
+    // $set every given field and bump the version counter
+    static Update setAll(Map<String, Object> fields) {
+        Update update = new Update();
+        fields.forEach(update::set);
+        update.inc(VERSION, 1);
+        return update;
+    }
+
+    static Query byField(String field, Object value, Long expectedVersion) {
+        Criteria criteria = Criteria.where(field).is(value);
+        if (expectedVersion != null) {
+            criteria = criteria.and(VERSION).is(expectedVersion);
+        }
+        return new Query(criteria);
+    }
+
+    static FindAndModifyOptions returnNew() {
+        return FindAndModifyOptions.options().returnNew(true);
+    }
+
+    static FindAndModifyOptions upsertReturnNew() {
+        return FindAndModifyOptions.options().returnNew(true).upsert(true);
+    }
+
+    // Two upserts for a new key can both miss and race to insert; the unique index rejects the loser, and
+    // running it again matches the winner's document (servers from 4.2 usually retry this themselves)
+    static <T> T retryOnDuplicate(Supplier<T> upsert) {
+        try {
+            return upsert.get();
+        } catch (DuplicateKeyException e) {
+            return upsert.get();
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package MargDarshakBackend.MargDarshakSIH.Repository;
+
+import MargDarshakBackend.MargDarshakSIH.entity.NotificationSubscription;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface NotificationSubscriptionRepository extends MongoRepository<NotificationSubscription, String> {
+    List<NotificationSubscription> findByUserEmail(String userEmail);
+
+    Optional<NotificationSubscription> findByUserEmailAndTypeAndTarget(String userEmail, String type, String target);
+}
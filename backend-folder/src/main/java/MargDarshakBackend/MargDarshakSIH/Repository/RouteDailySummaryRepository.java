@@ -0,0 +1,14 @@
+package MargDarshakBackend.MargDarshakSIH.Repository;
+
+import MargDarshakBackend.MargDarshakSIH.entity.RouteDailySummary;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface RouteDailySummaryRepository extends MongoRepository<RouteDailySummary, String> {
+    List<RouteDailySummary> findByDateOrderByRouteAsc(LocalDate date);
+
+    // Between is exclusive at both ends
+    List<RouteDailySummary> findByRouteAndDateBetweenOrderByDateAsc(String route, LocalDate after, LocalDate before);
+}
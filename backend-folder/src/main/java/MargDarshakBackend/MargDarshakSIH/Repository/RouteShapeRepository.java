@@ -0,0 +1,7 @@
+package MargDarshakBackend.MargDarshakSIH.Repository;
+
+import MargDarshakBackend.MargDarshakSIH.entity.RouteShape;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface RouteShapeRepository extends MongoRepository<RouteShape, String> {
+}
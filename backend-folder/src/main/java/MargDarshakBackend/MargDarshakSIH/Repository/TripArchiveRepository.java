@@ -0,0 +1,10 @@
+package MargDarshakBackend.MargDarshakSIH.Repository;
+
+import MargDarshakBackend.MargDarshakSIH.entity.TripArchive;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import java.util.Optional;
+
+public interface TripArchiveRepository extends MongoRepository<TripArchive, String> {
+    Optional<TripArchive> findFirstByTripIdOrderByEndedAtDesc(String tripId);
+}
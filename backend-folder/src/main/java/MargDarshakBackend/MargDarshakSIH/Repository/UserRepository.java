@@ -1,12 +1,18 @@
 package MargDarshakBackend.MargDarshakSIH.Repository;
 
+import MargDarshakBackend.MargDarshakSIH.dto.UserProfileView;
 import MargDarshakBackend.MargDarshakSIH.entity.User;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
-public interface UserRepository extends MongoRepository<User, String> {
+public interface UserRepository extends MongoRepository<User, String>, UserRepositoryCustom {
     User findByEmail(String email);
 
     void deleteByEmail(String email);
 
     boolean existsByEmail(String email);
+
+    // DTO projections: only the UserProfileView fields are fetched
+    UserProfileView findProfileByEmail(String email);
+
+    UserProfileView findProfileById(String id);
 }
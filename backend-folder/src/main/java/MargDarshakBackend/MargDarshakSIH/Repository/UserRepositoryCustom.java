@@ -0,0 +1,15 @@
+package MargDarshakBackend.MargDarshakSIH.Repository;
+
+import MargDarshakBackend.MargDarshakSIH.entity.User;
+
+import java.util.Map;
+
+public interface UserRepositoryCustom {
+
+    // Atomically $set the given fields and return the updated user, or null if no user has this id.
+    // When expectedVersion is non-null the update only applies if the stored version matches,
+    // otherwise an OptimisticLockingFailureException is thrown.
+    User updateFields(String id, Map<String, Object> fields, Long expectedVersion);
+
+    User updateFieldsByEmail(String email, Map<String, Object> fields);
+}
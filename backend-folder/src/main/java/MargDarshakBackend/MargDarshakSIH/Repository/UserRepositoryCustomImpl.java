@@ -0,0 +1,40 @@
+package MargDarshakBackend.MargDarshakSIH.Repository;
+
+import MargDarshakBackend.MargDarshakSIH.entity.User;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.Map;
+
+public class UserRepositoryCustomImpl implements UserRepositoryCustom {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Override
+    public User updateFields(String id, Map<String, Object> fields, Long expectedVersion) {
+        User updated = mongoTemplate.findAndModify(
+                FieldUpdates.byField("_id", id, expectedVersion),
+                FieldUpdates.setAll(fields),
+                FieldUpdates.returnNew(),
+                User.class);
+        if (updated == null && expectedVersion != null
+                && mongoTemplate.exists(new Query(Criteria.where("_id").is(id)), User.class)) {
+            throw new OptimisticLockingFailureException(
+                    "User " + id + " was modified concurrently (expected version " + expectedVersion + ")");
+        }
+        return updated;
+    }
+
+    @Override
+    public User updateFieldsByEmail(String email, Map<String, Object> fields) {
+        return mongoTemplate.findAndModify(
+                FieldUpdates.byField("email", email, null),
+                FieldUpdates.setAll(fields),
+                FieldUpdates.returnNew(),
+                User.class);
+    }
+}
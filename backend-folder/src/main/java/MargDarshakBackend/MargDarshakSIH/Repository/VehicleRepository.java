@@ -3,10 +3,16 @@ package MargDarshakBackend.MargDarshakSIH.Repository;
 import MargDarshakBackend.MargDarshakSIH.entity.Vehicle;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
-public interface VehicleRepository extends MongoRepository<Vehicle, String> {
+public interface VehicleRepository extends MongoRepository<Vehicle, String>, VehicleRepositoryCustom {
     Optional<Vehicle> findByUserId(String userId);
+
+    Optional<Vehicle> findFirstByVehicleNumber(String vehicleNumber);
+
+    List<Vehicle> findByVehicleNumberIn(Collection<String> vehicleNumbers);
 }
 
 
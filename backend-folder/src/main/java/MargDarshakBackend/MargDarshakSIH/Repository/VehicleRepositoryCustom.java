@@ -0,0 +1,11 @@
+package MargDarshakBackend.MargDarshakSIH.Repository;
+
+import MargDarshakBackend.MargDarshakSIH.entity.Vehicle;
+
+import java.util.Map;
+
+public interface VehicleRepositoryCustom {
+
+    // Insert-or-$set the vehicle owned by userId in one findAndModify and return the result
+    Vehicle upsertByUserId(String userId, Map<String, Object> fields);
+}
@@ -0,0 +1,22 @@
+package MargDarshakBackend.MargDarshakSIH.Repository;
+
+import MargDarshakBackend.MargDarshakSIH.entity.Vehicle;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.Map;
+
+public class VehicleRepositoryCustomImpl implements VehicleRepositoryCustom {
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Override
+    public Vehicle upsertByUserId(String userId, Map<String, Object> fields) {
+        return FieldUpdates.retryOnDuplicate(() -> mongoTemplate.findAndModify(
+                FieldUpdates.byField("userId", userId, null),
+                FieldUpdates.setAll(fields),
+                FieldUpdates.upsertReturnNew(),
+                Vehicle.class));
+    }
+}
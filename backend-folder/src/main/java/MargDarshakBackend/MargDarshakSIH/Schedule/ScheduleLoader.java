@@ -1,53 +1,133 @@
 package MargDarshakBackend.MargDarshakSIH.Schedule;
 
+import MargDarshakBackend.MargDarshakSIH.Service.PipelineMetrics;
 import MargDarshakBackend.MargDarshakSIH.entity.TripSchedule;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Component;
 
 import java.io.BufferedReader;
+import java.io.File;
 import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
+// Schedules grouped by vehicle, loaded once from schedules.csv (working directory first, then the classpath).
+// With schedules.async-load=true the file is parsed on a background thread; readers wait for it up to
+// schedules.load-timeout-ms and ScheduleReadinessIndicator keeps the instance out of rotation until it is done.
 @Component
 public class ScheduleLoader {
+    private static final Logger log = LoggerFactory.getLogger(ScheduleLoader.class);
 
-    private final Map<String, List<TripSchedule>> schedules = new HashMap<>();
+    private volatile Map<String, List<TripSchedule>> schedules = new HashMap<>();
+    private final CountDownLatch loaded = new CountDownLatch(1);
 
-    public ScheduleLoader() {
+    @Autowired
+    private PipelineMetrics metrics;
+
+    @Value("${schedules.async-load:false}")
+    private boolean asyncLoad;
+
+    @Value("${schedules.load-timeout-ms:10000}")
+    private long loadTimeoutMs;
+
+    @PostConstruct
+    void init() {
+        if (!asyncLoad) {
+            loadSchedules();
+            return;
+        }
+        Thread loader = new Thread(this::loadSchedules, "schedule-loader");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    // Re-reads schedules.csv and swaps the map in; on a parse error the current schedules stay
+    public synchronized void reload() {
         loadSchedules();
     }
 
     private void loadSchedules() {
         String csvFile = "src/main/resources/schedules.csv";
+        try (BufferedReader br = open(csvFile)) {
+            schedules = parse(br);
+        } catch (Exception e) {
+            log.error("Error loading schedules: {}", e.getMessage());
+        } finally {
+            loaded.countDown();
+        }
+    }
+
+    private static BufferedReader open(String csvFile) throws IOException {
+        if (new File(csvFile).exists()) {
+            return new BufferedReader(new FileReader(csvFile));
+        }
+        // Packaged jar: no source tree on disk
+        return new BufferedReader(new InputStreamReader(
+                new ClassPathResource("schedules.csv").getInputStream(), StandardCharsets.UTF_8));
+    }
+
+    public boolean isLoaded() {
+        return loaded.getCount() == 0;
+    }
+
+    private void awaitLoaded() {
+        if (loaded.getCount() == 0) {
+            return;
+        }
+        try {
+            loaded.await(loadTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Parses schedules.csv content (header line first), grouped by vehicleNumber
+    public static Map<String, List<TripSchedule>> parse(BufferedReader br) throws IOException {
+        Map<String, List<TripSchedule>> parsed = new HashMap<>();
         String line;
-        try (BufferedReader br = new BufferedReader(new FileReader(csvFile))) {
-            br.readLine(); // Skip header
-            while ((line = br.readLine()) != null) {
-                String[] data = line.split(",", -1);
-                if (data.length != 7) {
-                    System.err.println("Invalid CSV line: " + line);
-                    continue;
-                }
-                TripSchedule schedule = new TripSchedule(
-                        data[0].trim(), // tripId
-                        data[1].trim(), // vehicleNumber
-                        data[2].trim(), // startTime (String)
-                        data[3].trim(), // endTime (String)
-                        data[4].trim(), // origin
-                        data[5].trim(), // destination
-                        data[6].trim()  // route
-                );
-                schedules.computeIfAbsent(data[1].trim(), k -> new ArrayList<>()).add(schedule);
+        br.readLine(); // Skip header
+        while ((line = br.readLine()) != null) {
+            String[] data = line.split(",", -1);
+            if (data.length != 7) {
+                log.warn("Invalid CSV line: {}", line);
+                continue;
             }
-        } catch (Exception e) {
-            System.err.println("Error loading schedules: " + e.getMessage());
+            TripSchedule schedule = new TripSchedule(
+                    data[0].trim(), // tripId
+                    data[1].trim(), // vehicleNumber
+                    data[2].trim(), // startTime (String)
+                    data[3].trim(), // endTime (String)
+                    data[4].trim(), // origin
+                    data[5].trim(), // destination
+                    data[6].trim()  // route
+            );
+            parsed.computeIfAbsent(data[1].trim(), k -> new ArrayList<>()).add(schedule);
         }
+        return parsed;
     }
 
     public TripSchedule getScheduleByVehicle(String vehicleNumber) {
+        awaitLoaded();
+        long start = metrics.start();
+        TripSchedule schedule = findScheduleByVehicle(vehicleNumber);
+        metrics.stop("schedule.lookup", start);
+        return schedule;
+    }
+
+    private TripSchedule findScheduleByVehicle(String vehicleNumber) {
         List<TripSchedule> vehicleSchedules = schedules.get(vehicleNumber);
         if (vehicleSchedules == null || vehicleSchedules.isEmpty()) {
             return null;
@@ -64,6 +144,25 @@ public class ScheduleLoader {
     }
 
     public Map<String, List<TripSchedule>> getSchedules() {
+        awaitLoaded();
         return schedules;
     }
+
+    // Keys a route can be looked up by: the full stop list ("Bangalore→Ramanagara→Mysore"),
+    // origin→destination, origin-destination and the tripId. See normalizeRoute.
+    public static List<String> routeKeys(TripSchedule schedule) {
+        List<String> keys = new ArrayList<>();
+        keys.add(normalizeRoute(schedule.getRoute()));
+        keys.add(normalizeRoute(schedule.getOrigin() + "→" + schedule.getDestination()));
+        keys.add(normalizeRoute(schedule.getOrigin() + "-" + schedule.getDestination()));
+        keys.add(normalizeRoute(schedule.getTripId()));
+        return keys;
+    }
+
+    public static String normalizeRoute(String route) {
+        if (route == null) {
+            return "";
+        }
+        return route.toLowerCase().replace("->", "→").replace(" ", "");
+    }
 }
\ No newline at end of file
@@ -0,0 +1,23 @@
+package MargDarshakBackend.MargDarshakSIH.Schedule;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.stereotype.Component;
+
+// Part of the readiness group as "scheduleReadiness": OUT_OF_SERVICE until ScheduleLoader has finished its
+// (possibly background) load
+@Component("scheduleReadiness")
+public class ScheduleReadinessIndicator implements HealthIndicator {
+
+    @Autowired
+    private ScheduleLoader scheduleLoader;
+
+    @Override
+    public Health health() {
+        if (!scheduleLoader.isLoaded()) {
+            return Health.outOfService().withDetail("schedules", "loading").build();
+        }
+        return Health.up().withDetail("vehicles", scheduleLoader.getSchedules().size()).build();
+    }
+}
@@ -0,0 +1,101 @@
+package MargDarshakBackend.MargDarshakSIH.Schedule;
+
+import MargDarshakBackend.MargDarshakSIH.Model.Stop;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Stop geofences from stops.csv (working directory first, then the classpath), like ScheduleLoader.
+// Columns: stopId,name,lat,lon,radius[,polygon]; radius is in metres, and the optional polygon is
+// "lat lon;lat lon;..." and replaces the circle.
+@Component
+public class StopLoader {
+    private static final Logger log = LoggerFactory.getLogger(StopLoader.class);
+
+    @Value("${stops.file:src/main/resources/stops.csv}")
+    private String stopsFile;
+
+    private volatile Map<String, Stop> stops = Map.of();
+
+    @PostConstruct
+    void init() {
+        reload();
+    }
+
+    // Swaps in a freshly parsed stop map; on error the current stops stay
+    public synchronized void reload() {
+        try (BufferedReader br = open(stopsFile)) {
+            Map<String, Stop> loaded = new LinkedHashMap<>();
+            for (Stop stop : parse(br)) {
+                loaded.put(stop.getStopId(), stop);
+            }
+            stops = loaded;
+        } catch (Exception e) {
+            log.warn("Error loading stops: {}", e.getMessage());
+        }
+    }
+
+    private static BufferedReader open(String csvFile) throws IOException {
+        if (new File(csvFile).exists()) {
+            return new BufferedReader(new FileReader(csvFile));
+        }
+        return new BufferedReader(new InputStreamReader(
+                new ClassPathResource("stops.csv").getInputStream(), StandardCharsets.UTF_8));
+    }
+
+    public static List<Stop> parse(BufferedReader br) throws IOException {
+        List<Stop> parsed = new ArrayList<>();
+        String line = br.readLine(); // header
+        while ((line = br.readLine()) != null) {
+            if (line.isBlank()) {
+                continue;
+            }
+            String[] data = line.split(",");
+            if (data.length < 5) {
+                log.warn("Skipping stop line: {}", line);
+                continue;
+            }
+            double[][] polygon = data.length > 5 ? parsePolygon(data[5].trim()) : null;
+            parsed.add(new Stop(data[0].trim(), data[1].trim(),
+                    Double.parseDouble(data[2].trim()), Double.parseDouble(data[3].trim()), Double.parseDouble(data[4].trim()),
+                    polygon == null ? null : polygon[0], polygon == null ? null : polygon[1]));
+        }
+        return parsed;
+    }
+
+    private static double[][] parsePolygon(String value) {
+        if (value.isEmpty()) {
+            return null;
+        }
+        String[] points = value.split(";");
+        double[][] polygon = new double[2][points.length];
+        for (int i = 0; i < points.length; i++) {
+            String[] p = points[i].trim().split("\\s+");
+            polygon[0][i] = Double.parseDouble(p[0]);
+            polygon[1][i] = Double.parseDouble(p[1]);
+        }
+        return polygon;
+    }
+
+    public Map<String, Stop> getStops() {
+        return stops;
+    }
+
+    public Stop getStop(String stopId) {
+        return stops.get(stopId);
+    }
+}
@@ -0,0 +1,301 @@
+package MargDarshakBackend.MargDarshakSIH.Service;
+
+import MargDarshakBackend.MargDarshakSIH.Model.Stop;
+import MargDarshakBackend.MargDarshakSIH.Repository.RouteDailySummaryRepository;
+import MargDarshakBackend.MargDarshakSIH.Schedule.ScheduleLoader;
+import MargDarshakBackend.MargDarshakSIH.Service.RouteDayAnalyzer.RouteInfo;
+import MargDarshakBackend.MargDarshakSIH.Service.RouteDayAnalyzer.TripSeries;
+import MargDarshakBackend.MargDarshakSIH.Service.RouteNetwork.Network;
+import MargDarshakBackend.MargDarshakSIH.entity.RouteDailySummary;
+import MargDarshakBackend.MargDarshakSIH.entity.TripArchive;
+import MargDarshakBackend.MargDarshakSIH.entity.TripSchedule;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import redis.clients.jedis.JedisPooled;
+import redis.clients.jedis.params.SetParams;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+// Nightly on-time performance, headway and bunching report per route, computed off the hot path from
+// trip_archives and the schedules, and written to route_daily_summaries for the admin API.
+// Archives are streamed from Mongo and converted to primitive series as they arrive; the analysis runs on a
+// dedicated fork-join pool (analytics.parallelism, default half the cores, so request threads keep the rest) and
+// never borrows the common pool. Every run of a date, nightly or on demand, holds the Redis lock
+// analytics:lock:{date}, so one date is computed by one node at a time; re-running a date replaces it.
+// On-demand runs go to a background thread; the nightly job also skips dates already done (analytics:done:{date}).
+@Service
+public class AnalyticsService {
+    private static final Logger log = LoggerFactory.getLogger(AnalyticsService.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private RouteDailySummaryRepository summaryRepository;
+
+    @Autowired
+    private RouteNetwork routeNetwork;
+
+    @Autowired
+    private ScheduleLoader scheduleLoader;
+
+    @Autowired
+    private JedisPooled jedis;
+
+    @Value("${analytics.enabled:true}")
+    private boolean enabled;
+
+    @Value("${analytics.parallelism:0}")
+    private int parallelism;
+
+    @Value("${analytics.on-time-early-minutes:1}")
+    private double onTimeEarlyMinutes;
+
+    @Value("${analytics.on-time-late-minutes:5}")
+    private double onTimeLateMinutes;
+
+    @Value("${analytics.stop-radius-meters:300}")
+    private double stopRadiusMeters;
+
+    @Value("${analytics.bunching-ratio:0.25}")
+    private double bunchingRatio;
+
+    @Value("${analytics.bunching-minutes:2}")
+    private double bunchingMinutes;
+
+    @Value("${analytics.lock-seconds:3600}")
+    private long lockSeconds;
+
+    @Value("${notifications.node-id:${sharding.node-id:${HOSTNAME:local}-${server.port:8080}}}")
+    private String nodeId;
+
+    private static final String RELEASE_SCRIPT =
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end";
+
+    private ForkJoinPool pool;
+    private ExecutorService runner;
+    private volatile Map<String, Object> lastRun = Map.of();
+
+    @PostConstruct
+    void init() {
+        pool = new ForkJoinPool(parallelism > 0 ? parallelism : Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+        runner = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "analytics-run");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        runner.shutdownNow();
+        pool.shutdownNow();
+    }
+
+    @Scheduled(cron = "${analytics.cron:0 30 2 * * *}")
+    public void nightly() {
+        if (!enabled) {
+            return;
+        }
+        LocalDate date = LocalDate.now().minusDays(1);
+        if (jedis.exists("analytics:done:" + date)) {
+            log.info("Analytics for {} already done on another node", date);
+            return;
+        }
+        Map<String, Object> stats = runLocked(date);
+        if (stats == null) {
+            log.info("Analytics for {} already running on another node", date);
+            return;
+        }
+        jedis.set("analytics:done:" + date, nodeId, SetParams.setParams().ex(lockSeconds));
+        log.info("Analytics for {}: {}", date, stats);
+    }
+
+    // On-demand run in the background; false if the date is already being computed (here or on another node)
+    public boolean submit(LocalDate date) {
+        String token = lock(date);
+        if (token == null) {
+            return false;
+        }
+        runner.execute(() -> {
+            try {
+                log.info("Analytics for {}: {}", date, run(date));
+            } catch (Exception e) {
+                log.warn("Analytics for {} failed: {}", date, e.getMessage());
+                lastRun = Map.of("date", date.toString(), "error", String.valueOf(e.getMessage()));
+            } finally {
+                unlock(date, token);
+            }
+        });
+        return true;
+    }
+
+    // Stats of the last run on this node (empty before the first)
+    public Map<String, Object> lastRun() {
+        return lastRun;
+    }
+
+    // null when the lock is held elsewhere
+    private Map<String, Object> runLocked(LocalDate date) {
+        String token = lock(date);
+        if (token == null) {
+            return null;
+        }
+        try {
+            return run(date);
+        } finally {
+            unlock(date, token);
+        }
+    }
+
+    // Expires after lock-seconds in case the holder dies mid-run
+    private String lock(LocalDate date) {
+        String token = nodeId + ":" + UUID.randomUUID();
+        return "OK".equals(jedis.set("analytics:lock:" + date, token, SetParams.setParams().nx().ex(lockSeconds))) ? token : null;
+    }
+
+    private void unlock(LocalDate date, String token) {
+        try {
+            jedis.eval(RELEASE_SCRIPT, List.of("analytics:lock:" + date), List.of(token));
+        } catch (Exception e) {
+            log.warn("Releasing analytics lock for {} failed, it will expire: {}", date, e.getMessage());
+        }
+    }
+
+    private synchronized Map<String, Object> run(LocalDate date) {
+        long start = System.currentTimeMillis();
+        Network network = routeNetwork.current();
+        Map<String, TripSchedule> schedulesByTrip = new HashMap<>();
+        Map<String, List<TripSchedule>> schedulesByRoute = new HashMap<>();
+        for (List<TripSchedule> vehicleSchedules : scheduleLoader.getSchedules().values()) {
+            for (TripSchedule s : vehicleSchedules) {
+                schedulesByTrip.put(s.getTripId(), s);
+                schedulesByRoute.computeIfAbsent(ScheduleLoader.normalizeRoute(s.getRoute()), k -> new ArrayList<>()).add(s);
+            }
+        }
+        Map<String, RouteInfo> routes = new HashMap<>();
+        for (String key : network.routes()) {
+            List<TripSchedule> routeSchedules = schedulesByRoute.getOrDefault(key, List.of());
+            routes.put(key, routeInfo(key, routeSchedules.isEmpty() ? key : routeSchedules.get(0).getRoute(),
+                    network.stopsOf(key), routeSchedules));
+        }
+
+        List<TripSeries> trips = new ArrayList<>();
+        Query query = new Query(Criteria.where("startedAt").gte(date.atStartOfDay()).lt(date.plusDays(1).atStartOfDay()));
+        try (Stream<TripArchive> archives = mongoTemplate.stream(query, TripArchive.class)) {
+            archives.forEach(a -> trips.add(series(a, schedulesByTrip.get(a.getTripId()), date)));
+        }
+        long loaded = System.currentTimeMillis();
+
+        RouteDayAnalyzer analyzer = new RouteDayAnalyzer(onTimeEarlyMinutes, onTimeLateMinutes, stopRadiusMeters,
+                bunchingRatio, bunchingMinutes);
+        List<RouteDailySummary> summaries = analyzer.analyze(date, trips, routes, pool);
+        long analyzed = System.currentTimeMillis();
+
+        if (!summaries.isEmpty()) {
+            BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, RouteDailySummary.class);
+            for (RouteDailySummary summary : summaries) {
+                ops.replaceOne(new Query(Criteria.where("_id").is(summary.getId())), summary, FindAndReplaceOptions.options().upsert());
+            }
+            ops.execute();
+        }
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("date", date.toString());
+        stats.put("trips", trips.size());
+        stats.put("routes", summaries.size());
+        stats.put("parallelism", pool.getParallelism());
+        stats.put("loadMs", loaded - start);
+        stats.put("analyzeMs", analyzed - loaded);
+        stats.put("writeMs", System.currentTimeMillis() - analyzed);
+        lastRun = stats;
+        return stats;
+    }
+
+    public List<RouteDailySummary> summaries(LocalDate date) {
+        return summaryRepository.findByDateOrderByRouteAsc(date);
+    }
+
+    public List<RouteDailySummary> history(String route, LocalDate from, LocalDate to) {
+        return summaryRepository.findByRouteAndDateBetweenOrderByDateAsc(
+                ScheduleLoader.normalizeRoute(route), from.minusDays(1), to.plusDays(1));
+    }
+
+    private static TripSeries series(TripArchive a, TripSchedule schedule, LocalDate date) {
+        List<TripArchive.TrajectoryPoint> trajectory = a.getTrajectory() == null ? List.of() : a.getTrajectory();
+        double[] lats = new double[trajectory.size()];
+        double[] lons = new double[trajectory.size()];
+        long[] times = new long[trajectory.size()];
+        for (int i = 0; i < lats.length; i++) {
+            TripArchive.TrajectoryPoint p = trajectory.get(i);
+            lats[i] = p.getLat();
+            lons[i] = p.getLon();
+            times[i] = p.getT();
+        }
+        long scheduledStart = Long.MIN_VALUE, scheduledEnd = Long.MIN_VALUE;
+        if (schedule != null && schedule.getStartTime() != null && schedule.getEndTime() != null) {
+            // schedules.csv times repeat daily; place them on the analysed date
+            LocalDateTime startAt = date.atTime(schedule.getStartTime().toLocalTime());
+            LocalDateTime endAt = date.atTime(schedule.getEndTime().toLocalTime());
+            scheduledStart = millis(startAt);
+            scheduledEnd = millis(endAt.isBefore(startAt) ? endAt.plusDays(1) : endAt);
+        }
+        return new TripSeries(ScheduleLoader.normalizeRoute(a.getRoute()), "completed".equals(a.getState()), a.getDistanceKm(),
+                scheduledStart, scheduledEnd, millis(a.getFirstFixAt()), millis(a.getLastFixAt()), lats, lons, times);
+    }
+
+    private static RouteInfo routeInfo(String key, String name, List<Stop> stops, List<TripSchedule> schedules) {
+        String[] stopIds = new String[stops.size()];
+        double[] stopLats = new double[stops.size()];
+        double[] stopLons = new double[stops.size()];
+        for (int i = 0; i < stops.size(); i++) {
+            stopIds[i] = stops.get(i).getStopId();
+            stopLats[i] = stops.get(i).getLat();
+            stopLons[i] = stops.get(i).getLon();
+        }
+        // Median gap between consecutive departures (minute of day)
+        double headway = Double.NaN;
+        if (schedules.size() >= 2) {
+            int[] departures = new int[schedules.size()];
+            for (int i = 0; i < departures.length; i++) {
+                departures[i] = schedules.get(i).getStartTime().getHour() * 60 + schedules.get(i).getStartTime().getMinute();
+            }
+            Arrays.sort(departures);
+            int[] gaps = new int[departures.length - 1];
+            for (int i = 1; i < departures.length; i++) {
+                gaps[i - 1] = departures[i] - departures[i - 1];
+            }
+            Arrays.sort(gaps);
+            headway = gaps[gaps.length / 2];
+        }
+        return new RouteInfo(key, name, stopIds, stopLats, stopLons, headway);
+    }
+
+    private static long millis(LocalDateTime time) {
+        return time == null ? Long.MIN_VALUE : time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
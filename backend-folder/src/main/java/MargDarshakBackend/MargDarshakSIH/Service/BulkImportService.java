@@ -0,0 +1,369 @@
+package MargDarshakBackend.MargDarshakSIH.Service;
+
+import MargDarshakBackend.MargDarshakSIH.dto.ImportResult;
+import MargDarshakBackend.MargDarshakSIH.dto.ImportRow;
+import MargDarshakBackend.MargDarshakSIH.entity.DriverAssignment;
+import MargDarshakBackend.MargDarshakSIH.entity.User;
+import MargDarshakBackend.MargDarshakSIH.entity.Vehicle;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+// Streams an NDJSON or CSV onboarding file in fixed-size chunks. Per chunk: one $in lookup of the
+// referenced emails, bcrypt on a bounded pool, one unordered bulk insert for users, one bulk
+// upsert for vehicles and one for driver assignments. Per-row results are written back as
+// NDJSON after every chunk, so neither the input nor the output is ever held in memory as a whole.
+@Service
+public class BulkImportService {
+    private static final Logger log = LoggerFactory.getLogger(BulkImportService.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private EntityCacheService entityCache;
+
+    @Autowired
+    private DriverAssignmentService assignmentService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${import.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${import.hash-threads:0}")
+    private int hashThreads;
+
+    private ThreadPoolExecutor hashPool;
+
+    @PostConstruct
+    void init() {
+        int threads = hashThreads > 0 ? hashThreads : Runtime.getRuntime().availableProcessors();
+        // Bounded queue + caller-runs: a huge file applies back-pressure instead of queueing every hash
+        hashPool = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(threads * 4), new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        hashPool.shutdown();
+    }
+
+    public void importStream(InputStream in, boolean csv, OutputStream out) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        String[] header = null;
+        if (csv) {
+            String first = reader.readLine();
+            if (first == null) {
+                return;
+            }
+            header = first.split(",", -1);
+            for (int i = 0; i < header.length; i++) {
+                header[i] = header[i].trim();
+            }
+        }
+
+        List<ImportRow> chunk = new ArrayList<>(chunkSize);
+        List<ImportResult> parseErrors = new ArrayList<>();
+        long rowNumber = 0;
+        long total = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            rowNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                ImportRow row = csv ? parseCsv(header, line) : objectMapper.readValue(line, ImportRow.class);
+                row.setRow(rowNumber);
+                chunk.add(row);
+            } catch (Exception e) {
+                parseErrors.add(new ImportResult(rowNumber, null, null, "error", "Unparseable row: " + e.getMessage()));
+            }
+            if (chunk.size() >= chunkSize) {
+                total += writeResults(out, parseErrors, processChunk(chunk));
+                chunk = new ArrayList<>(chunkSize);
+                parseErrors = new ArrayList<>();
+            }
+        }
+        total += writeResults(out, parseErrors, processChunk(chunk));
+        log.info("Bulk import finished: {} rows", total);
+    }
+
+    private int writeResults(OutputStream out, List<ImportResult> parseErrors, List<ImportResult> results) throws IOException {
+        List<ImportResult> all = new ArrayList<>(parseErrors);
+        all.addAll(results);
+        all.sort((a, b) -> Long.compare(a.getRow(), b.getRow()));
+        for (ImportResult result : all) {
+            out.write(objectMapper.writeValueAsBytes(result));
+            out.write('\n');
+        }
+        out.flush();
+        return all.size();
+    }
+
+    private ImportRow parseCsv(String[] header, String line) {
+        String[] data = line.split(",", -1);
+        ImportRow row = new ImportRow();
+        for (int i = 0; i < header.length && i < data.length; i++) {
+            String value = data[i].trim();
+            if (value.isEmpty()) {
+                continue;
+            }
+            switch (header[i]) {
+                case "type" -> row.setType(value);
+                case "name" -> row.setName(value);
+                case "email" -> row.setEmail(value);
+                case "password" -> row.setPassword(value);
+                case "phone" -> row.setPhone(value);
+                case "vehicleNumber" -> row.setVehicleNumber(value);
+                case "model" -> row.setModel(value);
+                case "seatingCapacity" -> row.setSeatingCapacity(Integer.valueOf(value));
+                case "fuelType" -> row.setFuelType(value);
+                case "driverEmail" -> row.setDriverEmail(value);
+                default -> {
+                }
+            }
+        }
+        return row;
+    }
+
+    private List<ImportResult> processChunk(List<ImportRow> rows) {
+        if (rows.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, ImportResult> results = new TreeMap<>();
+        List<ImportRow> userRows = new ArrayList<>();
+        List<ImportRow> vehicleRows = new ArrayList<>();
+        List<ImportRow> assignmentRows = new ArrayList<>();
+        Set<String> emails = new HashSet<>();
+
+        for (ImportRow row : rows) {
+            String error = validate(row);
+            if (error != null) {
+                results.put(row.getRow(), result(row, "error", error));
+                continue;
+            }
+            switch (row.getType()) {
+                case "user" -> userRows.add(row);
+                case "vehicle" -> vehicleRows.add(row);
+                default -> assignmentRows.add(row);
+            }
+            emails.add(ownerEmail(row));
+        }
+
+        Map<String, User> users = existingUsers(emails);
+        insertUsers(userRows, users, results);
+        upsertVehicles(vehicleRows, users, results);
+        upsertAssignments(assignmentRows, users, results);
+        return new ArrayList<>(results.values());
+    }
+
+    private String validate(ImportRow row) {
+        if (row.getType() == null) {
+            return "type is required";
+        }
+        return switch (row.getType()) {
+            case "user" -> isBlank(row.getEmail()) || isBlank(row.getPassword())
+                    ? "email and password are required" : null;
+            case "vehicle" -> isBlank(row.getEmail()) || isBlank(row.getVehicleNumber())
+                    ? "email and vehicleNumber are required" : null;
+            case "assignment" -> isBlank(row.getDriverEmail()) || isBlank(row.getVehicleNumber())
+                    ? "driverEmail and vehicleNumber are required" : null;
+            default -> "Unknown type: " + row.getType();
+        };
+    }
+
+    // One $in query per chunk instead of an existsByEmail per row
+    private Map<String, User> existingUsers(Set<String> emails) {
+        Map<String, User> users = new HashMap<>();
+        if (emails.isEmpty()) {
+            return users;
+        }
+        Query query = new Query(Criteria.where("email").in(emails));
+        query.fields().include("email").include("name").include("phone");
+        for (User user : mongoTemplate.find(query, User.class)) {
+            users.put(user.getEmail(), user);
+        }
+        return users;
+    }
+
+    private void insertUsers(List<ImportRow> userRows, Map<String, User> knownUsers, Map<Long, ImportResult> results) {
+        List<ImportRow> toCreate = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        for (ImportRow row : userRows) {
+            if (knownUsers.containsKey(row.getEmail()) || !seen.add(row.getEmail())) {
+                results.put(row.getRow(), result(row, "duplicate", "Email already exists"));
+            } else {
+                toCreate.add(row);
+            }
+        }
+        if (toCreate.isEmpty()) {
+            return;
+        }
+
+        List<Future<String>> hashes = new ArrayList<>(toCreate.size());
+        for (ImportRow row : toCreate) {
+            hashes.add(hashPool.submit(() -> passwordEncoder.encode(row.getPassword())));
+        }
+
+        List<ImportRow> created = new ArrayList<>(toCreate.size());
+        List<User> users = new ArrayList<>(toCreate.size());
+        for (int i = 0; i < toCreate.size(); i++) {
+            ImportRow row = toCreate.get(i);
+            try {
+                User user = new User();
+                // Ids are assigned up front so vehicle rows later in the chunk can reference them
+                user.setId(new ObjectId().toHexString());
+                user.setName(row.getName());
+                user.setEmail(row.getEmail());
+                user.setPhone(row.getPhone());
+                user.setPassword(hashes.get(i).get());
+                user.setVersion(0L);
+                users.add(user);
+                created.add(row);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                results.put(row.getRow(), result(row, "error", "Interrupted"));
+            } catch (ExecutionException e) {
+                results.put(row.getRow(), result(row, "error", e.getCause().getMessage()));
+            }
+        }
+        if (users.isEmpty()) {
+            return;
+        }
+
+        Set<Integer> failed = new HashSet<>();
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, User.class).insert(users).execute();
+        } catch (BulkOperationException e) {
+            e.getErrors().forEach(error -> {
+                failed.add(error.getIndex());
+                ImportRow row = created.get(error.getIndex());
+                results.put(row.getRow(), result(row, "error", error.getMessage()));
+            });
+        }
+        for (int i = 0; i < created.size(); i++) {
+            if (!failed.contains(i)) {
+                ImportRow row = created.get(i);
+                knownUsers.put(row.getEmail(), users.get(i));
+                results.put(row.getRow(), result(row, "created", null));
+            }
+        }
+    }
+
+    private void upsertVehicles(List<ImportRow> vehicleRows, Map<String, User> knownUsers, Map<Long, ImportResult> results) {
+        BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Vehicle.class);
+        List<ImportRow> queued = new ArrayList<>();
+        List<String> queuedUserIds = new ArrayList<>();
+        for (ImportRow row : vehicleRows) {
+            User owner = knownUsers.get(row.getEmail());
+            if (owner == null) {
+                results.put(row.getRow(), result(row, "error", "Unknown user: " + row.getEmail()));
+                continue;
+            }
+            String userId = owner.getId();
+            Update update = new Update().set("vehicleNumber", row.getVehicleNumber()).inc("version", 1);
+            if (row.getModel() != null) update.set("model", row.getModel());
+            if (row.getSeatingCapacity() != null) update.set("seatingCapacity", row.getSeatingCapacity());
+            if (row.getFuelType() != null) update.set("fuelType", row.getFuelType());
+            ops.upsert(new Query(Criteria.where("userId").is(userId)), update);
+            queued.add(row);
+            queuedUserIds.add(userId);
+        }
+        if (queued.isEmpty()) {
+            return;
+        }
+
+        Set<Integer> failed = new HashSet<>();
+        try {
+            ops.execute();
+        } catch (BulkOperationException e) {
+            e.getErrors().forEach(error -> {
+                failed.add(error.getIndex());
+                ImportRow row = queued.get(error.getIndex());
+                results.put(row.getRow(), result(row, "error", error.getMessage()));
+            });
+        }
+        for (int i = 0; i < queued.size(); i++) {
+            entityCache.evictVehicle(queuedUserIds.get(i));
+            if (!failed.contains(i)) {
+                ImportRow row = queued.get(i);
+                results.put(row.getRow(), result(row, "updated", null));
+            }
+        }
+    }
+
+    private void upsertAssignments(List<ImportRow> assignmentRows, Map<String, User> knownUsers, Map<Long, ImportResult> results) {
+        List<DriverAssignment> assignments = new ArrayList<>();
+        List<ImportRow> queued = new ArrayList<>();
+        for (ImportRow row : assignmentRows) {
+            User driver = knownUsers.get(row.getDriverEmail());
+            if (driver == null) {
+                results.put(row.getRow(), result(row, "error", "Unknown driver: " + row.getDriverEmail()));
+                continue;
+            }
+            assignments.add(new DriverAssignment(null, driver.getId(), driver.getEmail(), driver.getName(),
+                    driver.getPhone(), row.getVehicleNumber(), null, null));
+            queued.add(row);
+        }
+        if (queued.isEmpty()) {
+            return;
+        }
+        try {
+            assignmentService.assignAll(assignments);
+            queued.forEach(row -> results.put(row.getRow(), result(row, "assigned", null)));
+        } catch (Exception e) {
+            queued.forEach(row -> results.put(row.getRow(), result(row, "error", e.getMessage())));
+        }
+    }
+
+    private static String ownerEmail(ImportRow row) {
+        return "assignment".equals(row.getType()) ? row.getDriverEmail() : row.getEmail();
+    }
+
+    private static ImportResult result(ImportRow row, String status, String message) {
+        String key = "user".equals(row.getType()) ? row.getEmail() : row.getVehicleNumber();
+        return new ImportResult(row.getRow(), row.getType(), key, status, message);
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+}
@@ -0,0 +1,325 @@
+package MargDarshakBackend.MargDarshakSIH.Service;
+
+import MargDarshakBackend.MargDarshakSIH.Repository.VehicleRepository;
+import MargDarshakBackend.MargDarshakSIH.Schedule.ScheduleLoader;
+import MargDarshakBackend.MargDarshakSIH.dto.BusSearchResult;
+import MargDarshakBackend.MargDarshakSIH.dto.SeatOccupancyResponse;
+import MargDarshakBackend.MargDarshakSIH.entity.DriverAssignment;
+import MargDarshakBackend.MargDarshakSIH.entity.TripSchedule;
+import MargDarshakBackend.MargDarshakSIH.entity.Vehicle;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+// Builds bus search results from four sources: schedules (in memory), live locations (Redis),
+// vehicles (Mongo), drivers and occupancy (in-memory services).
+// Each source is fetched once for the whole candidate set. Locations and vehicles run concurrently on the pool while
+// the in-memory lookups run on the request thread. A remote source that misses its deadline contributes nothing,
+// is interrupted (or never starts, if still queued) and the response is marked partial.
+@Service
+public class BusSearchService {
+    private static final Logger log = LoggerFactory.getLogger(BusSearchService.class);
+    private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("HH:mm");
+
+    @Autowired
+    private ScheduleLoader scheduleLoader;
+
+    @Autowired
+    private LocationStore locationStore;
+
+    @Autowired
+    private VehicleRepository vehicleRepository;
+
+    @Autowired
+    private DriverAssignmentService assignmentService;
+
+    @Autowired
+    private SeatOccupancyService occupancyService;
+
+    @Value("${search.source-timeout-ms:300}")
+    private long sourceTimeoutMs;
+
+    @Value("${search.max-results:50}")
+    private int maxResults;
+
+    @Value("${search.threads:8}")
+    private int threads;
+
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    void init() {
+        AtomicInteger count = new AtomicInteger();
+        // Bounded queue; when full the source is rejected and counts as timed out (see source), so an
+        // overloaded pool can't make the request thread run a slow source past its deadline
+        executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(threads * 32), r -> {
+                    Thread t = new Thread(r, "bus-search-" + count.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public Map<String, Object> search(String from, String to, String busId) {
+        long start = System.nanoTime();
+        Map<String, Long> timings = new ConcurrentHashMap<>();
+        AtomicBoolean partial = new AtomicBoolean();
+
+        List<TripSchedule> candidates = candidates(from, to, busId);
+        timings.put("schedules", elapsedMs(start));
+        List<String> vehicleNumbers = new ArrayList<>(candidates.size());
+        for (TripSchedule s : candidates) {
+            vehicleNumbers.add(s.getVehicleNumber());
+        }
+
+        CompletableFuture<Map<String, Map<String, String>>> locations =
+                source("locations", () -> fetchLocations(vehicleNumbers), timings, partial);
+        CompletableFuture<Map<String, Vehicle>> vehicles =
+                source("vehicles", () -> fetchVehicles(vehicleNumbers), timings, partial);
+        long inMemory = System.nanoTime();
+        Map<String, DriverAssignment> drivers = fetchDrivers(vehicleNumbers);
+        timings.put("drivers", elapsedMs(inMemory));
+        inMemory = System.nanoTime();
+        Map<String, SeatOccupancyResponse> occupancy = fetchOccupancy(vehicleNumbers);
+        timings.put("occupancy", elapsedMs(inMemory));
+
+        CompletableFuture.allOf(locations, vehicles).join();
+
+        List<BusSearchResult> buses = new ArrayList<>(candidates.size());
+        for (TripSchedule s : candidates) {
+            buses.add(merge(s, locations.join().get(s.getVehicleNumber()), vehicles.join().get(s.getVehicleNumber()),
+                    drivers.get(s.getVehicleNumber()), occupancy.get(s.getVehicleNumber())));
+        }
+        timings.put("total", elapsedMs(start));
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("buses", buses);
+        response.put("partial", partial.get());
+        response.put("timings", new LinkedHashMap<>(timings));
+        return response;
+    }
+
+    // Runs one source on the pool; on timeout, rejection or error it yields an empty map and flags the result
+    private <T> CompletableFuture<Map<String, T>> source(String name, Supplier<Map<String, T>> fetch,
+                                                         Map<String, Long> timings, AtomicBoolean partial) {
+        long start = System.nanoTime();
+        Runner runner = new Runner();
+        CompletableFuture<Map<String, T>> future;
+        try {
+            future = CompletableFuture.supplyAsync(() -> {
+                if (!runner.start()) {
+                    return null;
+                }
+                try {
+                    Map<String, T> result = fetch.get();
+                    timings.put(name, elapsedMs(start));
+                    return result;
+                } finally {
+                    runner.finish();
+                }
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            log.warn("Search source {} skipped, pool saturated", name);
+            future = CompletableFuture.completedFuture(null);
+        }
+        return future
+                .completeOnTimeout(null, sourceTimeoutMs, TimeUnit.MILLISECONDS)
+                .exceptionally(e -> {
+                    log.warn("Search source {} failed: {}", name, e.getMessage());
+                    return null;
+                })
+                .thenApply(result -> {
+                    if (result == null) {
+                        // Frees the pool thread instead of letting the source run on for nobody
+                        runner.abandon();
+                        partial.set(true);
+                        timings.putIfAbsent(name, elapsedMs(start));
+                        return Map.of();
+                    }
+                    return result;
+                });
+    }
+
+    private List<TripSchedule> candidates(String from, String to, String busId) {
+        List<TripSchedule> candidates = new ArrayList<>();
+        for (List<TripSchedule> vehicleSchedules : scheduleLoader.getSchedules().values()) {
+            if (vehicleSchedules.isEmpty()) {
+                continue;
+            }
+            TripSchedule s = scheduleLoader.getScheduleByVehicle(vehicleSchedules.get(0).getVehicleNumber());
+            if (matches(s, from, to, busId)) {
+                candidates.add(s);
+                if (candidates.size() >= maxResults) {
+                    break;
+                }
+            }
+        }
+        return candidates;
+    }
+
+    // from and to must both be on the route, with from before to, so a B→A search doesn't list A→B buses
+    private static boolean matches(TripSchedule s, String from, String to, String busId) {
+        if (busId != null && !busId.isBlank() && !busId.equalsIgnoreCase(s.getVehicleNumber())) {
+            return false;
+        }
+        String[] stops = ScheduleLoader.normalizeRoute(s.getRoute()).split("→");
+        int fromIndex = -1;
+        if (from != null && !from.isBlank()) {
+            fromIndex = firstStop(stops, ScheduleLoader.normalizeRoute(from));
+            if (fromIndex < 0) {
+                return false;
+            }
+        }
+        if (to != null && !to.isBlank()) {
+            int toIndex = lastStop(stops, ScheduleLoader.normalizeRoute(to));
+            if (toIndex < 0 || toIndex <= fromIndex) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int firstStop(String[] stops, String name) {
+        for (int i = 0; i < stops.length; i++) {
+            if (stops[i].contains(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int lastStop(String[] stops, String name) {
+        for (int i = stops.length - 1; i >= 0; i--) {
+            if (stops[i].contains(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // One pipelined round trip for all live positions, whichever encoding is active
+    private Map<String, Map<String, String>> fetchLocations(List<String> vehicleNumbers) {
+        return locationStore.readAll(vehicleNumbers);
+    }
+
+    // One $in query for all vehicles
+    private Map<String, Vehicle> fetchVehicles(List<String> vehicleNumbers) {
+        Map<String, Vehicle> vehicles = new HashMap<>();
+        if (vehicleNumbers.isEmpty()) {
+            return vehicles;
+        }
+        for (Vehicle v : vehicleRepository.findByVehicleNumberIn(vehicleNumbers)) {
+            vehicles.putIfAbsent(v.getVehicleNumber(), v);
+        }
+        return vehicles;
+    }
+
+    private Map<String, DriverAssignment> fetchDrivers(List<String> vehicleNumbers) {
+        Map<String, DriverAssignment> drivers = new HashMap<>();
+        for (String vehicleNumber : vehicleNumbers) {
+            assignmentService.currentForVehicle(vehicleNumber).ifPresent(a -> drivers.put(vehicleNumber, a));
+        }
+        return drivers;
+    }
+
+    private Map<String, SeatOccupancyResponse> fetchOccupancy(List<String> vehicleNumbers) {
+        Map<String, SeatOccupancyResponse> occupancy = new HashMap<>();
+        for (String vehicleNumber : vehicleNumbers) {
+            SeatOccupancyResponse snapshot = occupancyService.get(vehicleNumber);
+            if (snapshot != null) {
+                occupancy.put(vehicleNumber, snapshot);
+            }
+        }
+        return occupancy;
+    }
+
+    private static BusSearchResult merge(TripSchedule s, Map<String, String> location, Vehicle vehicle,
+                                         DriverAssignment driver, SeatOccupancyResponse occupancy) {
+        BusSearchResult bus = new BusSearchResult();
+        bus.setId(s.getVehicleNumber());
+        bus.setRoute(s.getRoute());
+        bus.setFrom(s.getOrigin());
+        bus.setTo(s.getDestination());
+        bus.setDestination(s.getDestination());
+        bus.setArrivalTime(s.getEndTime() == null ? null : s.getEndTime().format(TIME));
+        if (location != null) {
+            try {
+                bus.setCoordinates(new BusSearchResult.Coordinates(
+                        Double.parseDouble(location.get("latitude")), Double.parseDouble(location.get("longitude"))));
+            } catch (NullPointerException | NumberFormatException e) {
+                // Malformed hash; leave coordinates empty
+            }
+        }
+        if (driver != null) {
+            bus.setDriverName(driver.getDriverName());
+            bus.setDriverPhone(driver.getDriverPhone());
+        }
+        if (occupancy != null) {
+            bus.setSeatOccupancy(occupancy);
+            bus.setWomenSeats(occupancy.getWomenSeatsOccupied());
+        } else if (vehicle != null && vehicle.getSeatingCapacity() != null) {
+            bus.setSeatOccupancy(new SeatOccupancyResponse(s.getVehicleNumber(), vehicle.getSeatingCapacity(),
+                    0, 0, null, null));
+        }
+        return bus;
+    }
+
+    // The pool thread running a source, so a source that outlives its deadline can be interrupted. Start and
+    // finish are under the same lock as abandon, so an interrupt never lands on the thread's next task.
+    private static final class Runner {
+        private Thread thread;
+        private boolean abandoned;
+
+        synchronized boolean start() {
+            if (abandoned) {
+                return false;
+            }
+            thread = Thread.currentThread();
+            return true;
+        }
+
+        void finish() {
+            synchronized (this) {
+                thread = null;
+            }
+            // Clears an interrupt from an abandon that raced with the end of the fetch
+            Thread.interrupted();
+        }
+
+        synchronized void abandon() {
+            abandoned = true;
+            if (thread != null) {
+                thread.interrupt();
+            }
+        }
+    }
+
+    private static long elapsedMs(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+}
@@ -0,0 +1,285 @@
+package MargDarshakBackend.MargDarshakSIH.Service;
+
+import MargDarshakBackend.MargDarshakSIH.Repository.DriverAssignmentRepository;
+import MargDarshakBackend.MargDarshakSIH.Schedule.ScheduleLoader;
+import MargDarshakBackend.MargDarshakSIH.entity.DriverAssignment;
+import MargDarshakBackend.MargDarshakSIH.entity.TripSchedule;
+import MargDarshakBackend.MargDarshakSIH.entity.User;
+import MargDarshakBackend.MargDarshakSIH.entity.Vehicle;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+// Driver <-> vehicle assignments, persisted in Mongo and served from an immutable in-memory index.
+// Every write goes to Mongo first and then swaps in a rebuilt index; a periodic refresh picks up
+// writes made by other nodes. Reads never query Mongo.
+@Service
+public class DriverAssignmentService {
+    private static final Logger log = LoggerFactory.getLogger(DriverAssignmentService.class);
+
+    @Autowired
+    private DriverAssignmentRepository assignmentRepository;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private ScheduleLoader scheduleLoader;
+
+    private volatile Index index = Index.build(List.of(), Map.of());
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void init() {
+        if (assignmentRepository.count() == 0) {
+            bootstrapFromVehicles();
+        }
+        refresh();
+    }
+
+    @Scheduled(fixedDelayString = "${assignments.refresh-ms:60000}", initialDelayString = "${assignments.refresh-ms:60000}")
+    public synchronized void refresh() {
+        index = Index.build(assignmentRepository.findAll(), scheduleLoader.getSchedules());
+    }
+
+    // ---- reads (in-memory, O(1) map lookups) ----
+
+    public Optional<DriverAssignment> currentForDriver(String driverEmail) {
+        return current(index.byDriver.get(driverEmail));
+    }
+
+    public Optional<DriverAssignment> currentForVehicle(String vehicleNumber) {
+        return current(index.byVehicle.get(vehicleNumber));
+    }
+
+    public List<DriverAssignment> forDriver(String driverEmail) {
+        return index.byDriver.getOrDefault(driverEmail, List.of());
+    }
+
+    public List<DriverAssignment> forVehicle(String vehicleNumber) {
+        return index.byVehicle.getOrDefault(vehicleNumber, List.of());
+    }
+
+    // Whether the driver is assigned to the vehicle (any shift, not just the current one)
+    public boolean drives(String driverEmail, String vehicleNumber) {
+        if (driverEmail == null || vehicleNumber == null) {
+            return false;
+        }
+        for (DriverAssignment assignment : forDriver(driverEmail)) {
+            if (vehicleNumber.equals(assignment.getVehicleNumber())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Drivers currently on shift on any vehicle scheduled for the route
+    public List<DriverAssignment> driversOnRoute(String route) {
+        List<String> vehicles = index.vehiclesByRoute.get(ScheduleLoader.normalizeRoute(route));
+        if (vehicles == null) {
+            return List.of();
+        }
+        List<DriverAssignment> drivers = new ArrayList<>();
+        for (String vehicleNumber : vehicles) {
+            currentForVehicle(vehicleNumber).ifPresent(drivers::add);
+        }
+        return drivers;
+    }
+
+    private Optional<DriverAssignment> current(List<DriverAssignment> candidates) {
+        if (candidates == null) {
+            return Optional.empty();
+        }
+        int minute = minuteOfDay(LocalTime.now());
+        for (DriverAssignment assignment : candidates) {
+            if (onShift(assignment, minute)) {
+                return Optional.of(assignment);
+            }
+        }
+        return Optional.empty();
+    }
+
+    // ---- writes ----
+
+    public synchronized DriverAssignment assign(User driver, String vehicleNumber, String shiftStart, String shiftEnd) {
+        DriverAssignment assignment = assignmentRepository
+                .findByDriverIdAndVehicleNumber(driver.getId(), vehicleNumber)
+                .orElseGet(DriverAssignment::new);
+        assignment.setDriverId(driver.getId());
+        assignment.setDriverEmail(driver.getEmail());
+        assignment.setDriverName(driver.getName());
+        assignment.setDriverPhone(driver.getPhone());
+        assignment.setVehicleNumber(vehicleNumber);
+        assignment.setShiftStart(shiftStart);
+        assignment.setShiftEnd(shiftEnd);
+        DriverAssignment saved = assignmentRepository.save(assignment);
+        replace(List.of(saved));
+        return saved;
+    }
+
+    // Bulk upsert keyed by (driverId, vehicleNumber), then one $in read-back to patch the index
+    public synchronized void assignAll(List<DriverAssignment> assignments) {
+        if (assignments.isEmpty()) {
+            return;
+        }
+        BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, DriverAssignment.class);
+        Set<String> driverIds = new HashSet<>();
+        for (DriverAssignment a : assignments) {
+            ops.upsert(new Query(Criteria.where("driverId").is(a.getDriverId()).and("vehicleNumber").is(a.getVehicleNumber())),
+                    new Update()
+                            .set("driverEmail", a.getDriverEmail())
+                            .set("driverName", a.getDriverName())
+                            .set("driverPhone", a.getDriverPhone())
+                            .set("shiftStart", a.getShiftStart())
+                            .set("shiftEnd", a.getShiftEnd()));
+            driverIds.add(a.getDriverId());
+        }
+        ops.execute();
+        replace(mongoTemplate.find(new Query(Criteria.where("driverId").in(driverIds)), DriverAssignment.class));
+    }
+
+    // Assignments copy the driver's name and phone; called after a profile update so they don't go stale
+    public synchronized void refreshDriver(User driver) {
+        boolean stale = false;
+        for (DriverAssignment a : forDriver(driver.getEmail())) {
+            stale |= !Objects.equals(a.getDriverName(), driver.getName()) || !Objects.equals(a.getDriverPhone(), driver.getPhone());
+        }
+        if (!stale) {
+            return;
+        }
+        Query byDriver = new Query(Criteria.where("driverId").is(driver.getId()));
+        mongoTemplate.updateMulti(byDriver, new Update().set("driverName", driver.getName()).set("driverPhone", driver.getPhone()),
+                DriverAssignment.class);
+        replace(mongoTemplate.find(byDriver, DriverAssignment.class));
+    }
+
+    public synchronized boolean unassign(String id) {
+        if (!assignmentRepository.existsById(id)) {
+            return false;
+        }
+        assignmentRepository.deleteById(id);
+        List<DriverAssignment> remaining = new ArrayList<>(index.all.size());
+        for (DriverAssignment a : index.all) {
+            if (!a.getId().equals(id)) {
+                remaining.add(a);
+            }
+        }
+        index = Index.build(remaining, scheduleLoader.getSchedules());
+        return true;
+    }
+
+    private void replace(Collection<DriverAssignment> updated) {
+        Map<String, DriverAssignment> byId = new HashMap<>();
+        for (DriverAssignment a : index.all) {
+            byId.put(a.getId(), a);
+        }
+        for (DriverAssignment a : updated) {
+            byId.put(a.getId(), a);
+        }
+        index = Index.build(new ArrayList<>(byId.values()), scheduleLoader.getSchedules());
+    }
+
+    // First start on a fresh database: derive all-day assignments from drivers' registered vehicles.
+    // A vehicle number registered by more than one user is left for an admin to assign.
+    private void bootstrapFromVehicles() {
+        Query vehicleQuery = new Query(Criteria.where("userId").ne(null).and("vehicleNumber").ne(null));
+        List<Vehicle> vehicles = mongoTemplate.find(vehicleQuery, Vehicle.class);
+        if (vehicles.isEmpty()) {
+            return;
+        }
+        Map<String, Integer> owners = new HashMap<>();
+        for (Vehicle v : vehicles) {
+            owners.merge(v.getVehicleNumber(), 1, Integer::sum);
+        }
+        Map<String, String> vehicleByUser = new HashMap<>();
+        for (Vehicle v : vehicles) {
+            if (owners.get(v.getVehicleNumber()) == 1) {
+                vehicleByUser.put(v.getUserId(), v.getVehicleNumber());
+            }
+        }
+        if (vehicleByUser.isEmpty()) {
+            return;
+        }
+        Query userQuery = new Query(Criteria.where("_id").in(vehicleByUser.keySet()));
+        userQuery.fields().include("email").include("name").include("phone");
+        List<DriverAssignment> assignments = new ArrayList<>();
+        for (User u : mongoTemplate.find(userQuery, User.class)) {
+            assignments.add(new DriverAssignment(null, u.getId(), u.getEmail(), u.getName(), u.getPhone(),
+                    vehicleByUser.get(u.getId()), null, null));
+        }
+        assignAll(assignments);
+        log.info("Bootstrapped {} driver assignments from registered vehicles", assignments.size());
+    }
+
+    static boolean onShift(DriverAssignment a, int minute) {
+        if (a.getShiftStart() == null || a.getShiftEnd() == null) {
+            return true;
+        }
+        int start = minuteOfDay(LocalTime.parse(a.getShiftStart()));
+        int end = minuteOfDay(LocalTime.parse(a.getShiftEnd()));
+        return start <= end ? minute >= start && minute < end : minute >= start || minute < end;
+    }
+
+    private static int minuteOfDay(LocalTime time) {
+        return time.getHour() * 60 + time.getMinute();
+    }
+
+    private static final class Index {
+        final List<DriverAssignment> all;
+        final Map<String, List<DriverAssignment>> byDriver;
+        final Map<String, List<DriverAssignment>> byVehicle;
+        final Map<String, List<String>> vehiclesByRoute;
+
+        private Index(List<DriverAssignment> all, Map<String, List<DriverAssignment>> byDriver,
+                      Map<String, List<DriverAssignment>> byVehicle, Map<String, List<String>> vehiclesByRoute) {
+            this.all = all;
+            this.byDriver = byDriver;
+            this.byVehicle = byVehicle;
+            this.vehiclesByRoute = vehiclesByRoute;
+        }
+
+        static Index build(List<DriverAssignment> all, Map<String, List<TripSchedule>> schedules) {
+            Map<String, List<DriverAssignment>> byDriver = new HashMap<>();
+            Map<String, List<DriverAssignment>> byVehicle = new HashMap<>();
+            for (DriverAssignment a : all) {
+                if (a.getDriverEmail() != null) {
+                    byDriver.computeIfAbsent(a.getDriverEmail(), k -> new ArrayList<>()).add(a);
+                }
+                if (a.getVehicleNumber() != null) {
+                    byVehicle.computeIfAbsent(a.getVehicleNumber(), k -> new ArrayList<>()).add(a);
+                }
+            }
+            Map<String, List<String>> vehiclesByRoute = new HashMap<>();
+            for (List<TripSchedule> vehicleSchedules : schedules.values()) {
+                for (TripSchedule s : vehicleSchedules) {
+                    for (String key : ScheduleLoader.routeKeys(s)) {
+                        List<String> vehicles = vehiclesByRoute.computeIfAbsent(key, k -> new ArrayList<>());
+                        if (!vehicles.contains(s.getVehicleNumber())) {
+                            vehicles.add(s.getVehicleNumber());
+                        }
+                    }
+                }
+            }
+            return new Index(List.copyOf(all), byDriver, byVehicle, vehiclesByRoute);
+        }
+    }
+}
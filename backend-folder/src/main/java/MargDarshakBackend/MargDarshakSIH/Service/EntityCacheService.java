@@ -0,0 +1,208 @@
+package MargDarshakBackend.MargDarshakSIH.Service;
+
+import MargDarshakBackend.MargDarshakSIH.Repository.DriverDocumentsRepository;
+import MargDarshakBackend.MargDarshakSIH.Repository.UserRepository;
+import MargDarshakBackend.MargDarshakSIH.Repository.VehicleRepository;
+import MargDarshakBackend.MargDarshakSIH.dto.UserProfileView;
+import MargDarshakBackend.MargDarshakSIH.entity.DriverDocuments;
+import MargDarshakBackend.MargDarshakSIH.entity.User;
+import MargDarshakBackend.MargDarshakSIH.entity.Vehicle;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import redis.clients.jedis.JedisPooled;
+
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.UnaryOperator;
+
+// Cached lookups for the user, vehicle and document repositories.
+// Users (and their profile projections) are cached under both "email:" and "id:" keys;
+// vehicles and documents under "userId:".
+// All writes for these entities should go through here so the cache stays consistent.
+// Cached users never carry the password hash (not in the process, not in Redis); login reads it from Mongo
+// with findUserWithPassword. Every lookup returns a private copy.
+@Service
+public class EntityCacheService {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private VehicleRepository vehicleRepository;
+
+    @Autowired
+    private DriverDocumentsRepository documentsRepository;
+
+    @Autowired
+    private JedisPooled jedis;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${cache.local.max-entries:10000}")
+    private int maxEntries;
+
+    @Value("${cache.local.ttl-seconds:30}")
+    private long localTtlSeconds;
+
+    @Value("${cache.redis.enabled:true}")
+    private boolean redisEnabled;
+
+    @Value("${cache.redis.ttl-seconds:600}")
+    private long redisTtlSeconds;
+
+    private TwoLevelCache<User> users;
+    private TwoLevelCache<UserProfileView> profiles;
+    private TwoLevelCache<Vehicle> vehicles;
+    private TwoLevelCache<DriverDocuments> documents;
+
+    @PostConstruct
+    void init() {
+        users = newCache("users", User.class, EntityCacheService::withoutPassword);
+        profiles = newCache("profiles", UserProfileView.class, p -> new UserProfileView(p.getId(), p.getName(), p.getEmail(),
+                p.getPhone(), p.getAddress(), p.getProfileImageUrl(), p.getProfileComplete(), p.getVersion()));
+        vehicles = newCache("vehicles", Vehicle.class, v -> new Vehicle(v.getId(), v.getUserId(), v.getVehicleNumber(),
+                v.getModel(), v.getSeatingCapacity(), v.getFuelType(), v.getVersion()));
+        documents = newCache("documents", DriverDocuments.class, d -> new DriverDocuments(d.getId(), d.getUserId(),
+                d.getDrivingLicenseUrl(), d.getVehicleRegistrationUrl(), d.getInsuranceCertificateUrl(), d.getVersion()));
+    }
+
+    private <T> TwoLevelCache<T> newCache(String name, Class<T> type, UnaryOperator<T> copier) {
+        return new TwoLevelCache<>(name, type, copier, maxEntries, localTtlSeconds,
+                jedis, objectMapper, redisEnabled, redisTtlSeconds);
+    }
+
+    private static User withoutPassword(User user) {
+        User copy = new User();
+        copy.setId(user.getId());
+        copy.setName(user.getName());
+        copy.setEmail(user.getEmail());
+        copy.setPhone(user.getPhone());
+        copy.setProvider(user.getProvider());
+        copy.setAddress(user.getAddress());
+        copy.setProfileImageUrl(user.getProfileImageUrl());
+        copy.setProfileComplete(user.getProfileComplete());
+        copy.setRoles(user.getRoles() == null ? null : new HashSet<>(user.getRoles()));
+        copy.setVersion(user.getVersion());
+        return copy;
+    }
+
+    // ---- users ----
+
+    public User findUserByEmail(String email) {
+        if (email == null) return null;
+        // The id key is only written when the user came from Mongo, so a cache hit costs no Redis write
+        return users.get("email:" + email, k -> userRepository.findByEmail(email),
+                u -> u.getId() == null ? null : "id:" + u.getId());
+    }
+
+    // Uncached, with the password hash; only for authenticating a login
+    public User findUserWithPassword(String email) {
+        return email == null ? null : userRepository.findByEmail(email);
+    }
+
+    public Optional<User> findUserById(String id) {
+        if (id == null) return Optional.empty();
+        return Optional.ofNullable(users.get("id:" + id, k -> userRepository.findById(id).orElse(null)));
+    }
+
+    public UserProfileView findProfileByEmail(String email) {
+        if (email == null) return null;
+        return profiles.get("email:" + email, k -> userRepository.findProfileByEmail(email));
+    }
+
+    public Optional<UserProfileView> findProfileById(String id) {
+        if (id == null) return Optional.empty();
+        return Optional.ofNullable(profiles.get("id:" + id, k -> userRepository.findProfileById(id)));
+    }
+
+    public User saveUser(User user) {
+        User saved = userRepository.save(user);
+        cacheUser(saved);
+        return saved;
+    }
+
+    public User updateUserFields(String id, Map<String, Object> fields, Long expectedVersion) {
+        User updated = userRepository.updateFields(id, fields, expectedVersion);
+        if (updated != null) {
+            cacheUser(updated);
+        }
+        return updated;
+    }
+
+    public User updateUserFieldsByEmail(String email, Map<String, Object> fields) {
+        User updated = userRepository.updateFieldsByEmail(email, fields);
+        if (updated != null) {
+            cacheUser(updated);
+        }
+        return updated;
+    }
+
+    public void cacheUser(User user) {
+        users.put("id:" + user.getId(), user);
+        users.put("email:" + user.getEmail(), user);
+        UserProfileView profile = UserProfileView.from(user);
+        profiles.put("id:" + user.getId(), profile);
+        profiles.put("email:" + user.getEmail(), profile);
+    }
+
+    public void deleteUser(User user) {
+        userRepository.deleteById(user.getId());
+        evictUser(user);
+    }
+
+    public void evictUser(User user) {
+        users.evict("id:" + user.getId(), "email:" + user.getEmail());
+        profiles.evict("id:" + user.getId(), "email:" + user.getEmail());
+    }
+
+    // ---- vehicles ----
+
+    public Optional<Vehicle> findVehicleByUserId(String userId) {
+        if (userId == null) return Optional.empty();
+        return Optional.ofNullable(vehicles.get("userId:" + userId,
+                k -> vehicleRepository.findByUserId(userId).orElse(null)));
+    }
+
+    public Vehicle upsertVehicle(String userId, Map<String, Object> fields) {
+        Vehicle saved = vehicleRepository.upsertByUserId(userId, fields);
+        vehicles.put("userId:" + userId, saved);
+        return saved;
+    }
+
+    public void evictVehicle(String userId) {
+        vehicles.evict("userId:" + userId);
+    }
+
+    // ---- documents ----
+
+    public Optional<DriverDocuments> findDocumentsByUserId(String userId) {
+        if (userId == null) return Optional.empty();
+        return Optional.ofNullable(documents.get("userId:" + userId,
+                k -> documentsRepository.findByUserId(userId).orElse(null)));
+    }
+
+    public DriverDocuments upsertDocuments(String userId, Map<String, Object> fields) {
+        DriverDocuments saved = documentsRepository.upsertByUserId(userId, fields);
+        documents.put("userId:" + userId, saved);
+        return saved;
+    }
+
+    public List<TwoLevelCache<?>> caches() {
+        return List.of(users, profiles, vehicles, documents);
+    }
+
+    public Map<String, Map<String, Object>> stats() {
+        Map<String, Map<String, Object>> stats = new LinkedHashMap<>();
+        for (TwoLevelCache<?> cache : caches()) {
+            stats.put(cache.getName(), cache.stats());
+        }
+        return stats;
+    }
+}
@@ -0,0 +1,213 @@
+package MargDarshakBackend.MargDarshakSIH.Service;
+
+import MargDarshakBackend.MargDarshakSIH.Model.Stop;
+import MargDarshakBackend.MargDarshakSIH.Schedule.StopLoader;
+import MargDarshakBackend.MargDarshakSIH.Utils.GeoUtils;
+import MargDarshakBackend.MargDarshakSIH.Utils.GridIndex;
+import MargDarshakBackend.MargDarshakSIH.dto.OwnershipChangedEvent;
+import MargDarshakBackend.MargDarshakSIH.dto.StopEvent;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import redis.clients.jedis.Connection;
+import redis.clients.jedis.JedisPooled;
+import redis.clients.jedis.Pipeline;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Arrival/departure detection on the ingest path. Stop geofences sit in a uniform grid, so a fix is only tested
+// against the stops whose bounding boxes touch its cell; per-fix cost doesn't grow with the number of stops.
+// Each vehicle remembers the stops it is inside. Entering one publishes an arrival StopEvent, and leaving
+// one publishes a departure. A circle only counts as left once the fix is beyond radius * exit-hysteresis,
+// so GPS jitter at the edge doesn't flap.
+// With sharding only the owner evaluates a vehicle, so vehiclesAt reads a Redis sorted set per stop instead
+// (geofence:stop:{stopId}, score = when the vehicle was last seen inside). The owner adds on arrival, removes on
+// departure and re-scores at most every shared-refresh-ms while the vehicle stays; entries of vehicles that stopped
+// reporting age out after state-ttl-minutes.
+@Service
+public class GeofenceService {
+    private static final Logger log = LoggerFactory.getLogger(GeofenceService.class);
+
+    @Autowired
+    private StopLoader stopLoader;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private PipelineMetrics metrics;
+
+    @Autowired
+    private ShardMembership membership;
+
+    @Autowired
+    private JedisPooled jedis;
+
+    @Value("${geofence.enabled:true}")
+    private boolean enabled;
+
+    @Value("${geofence.cell-meters:1000}")
+    private double cellMeters;
+
+    @Value("${geofence.exit-hysteresis:1.15}")
+    private double exitHysteresis;
+
+    @Value("${geofence.state-ttl-minutes:30}")
+    private long stateTtlMinutes;
+
+    @Value("${geofence.shared-refresh-ms:60000}")
+    private long sharedRefreshMs;
+
+    static final String STOP_PREFIX = "geofence:stop:";
+
+    private volatile GridIndex<Stop> index = new GridIndex<>(1);
+    private final Map<String, VehicleState> vehicles = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void init() {
+        load(stopLoader.getStops().values());
+    }
+
+    public void load(Collection<Stop> stops) {
+        GridIndex<Stop> built = new GridIndex<>(GeoUtils.metersToLatDegrees(cellMeters));
+        for (Stop stop : stops) {
+            built.add(stop, stop.getMinLat(), stop.getMinLon(), stop.getMaxLat(), stop.getMaxLon());
+        }
+        index = built;
+        log.info("Geofence index: {} stops in {} cells", built.size(), built.cellCount());
+    }
+
+    // Returns the events it published (empty for most fixes)
+    public List<StopEvent> evaluate(String vehicleNumber, double lat, double lon, long epochMillis) {
+        if (!enabled) {
+            return List.of();
+        }
+        long start = metrics.start();
+        VehicleState state = vehicles.computeIfAbsent(vehicleNumber, k -> new VehicleState());
+        List<StopEvent> events = null;
+        List<String> refresh = null;
+        synchronized (state) {
+            if (epochMillis < state.lastSeen) {
+                // Out-of-order fix; the enter/exit state has already moved past it
+                metrics.stop("geofence.evaluate", start);
+                return List.of();
+            }
+            state.lastSeen = epochMillis;
+            Iterator<Stop> inside = state.inside.values().iterator();
+            while (inside.hasNext()) {
+                Stop stop = inside.next();
+                if (!stop.contains(lat, lon, exitHysteresis)) {
+                    inside.remove();
+                    events = add(events, new StopEvent(StopEvent.DEPARTURE, vehicleNumber, stop.getStopId(), stop.getName(), lat, lon, epochMillis));
+                }
+            }
+            for (Stop stop : index.query(lat, lon)) {
+                if (!state.inside.containsKey(stop.getStopId()) && stop.contains(lat, lon, 1.0)) {
+                    state.inside.put(stop.getStopId(), stop);
+                    events = add(events, new StopEvent(StopEvent.ARRIVAL, vehicleNumber, stop.getStopId(), stop.getName(), lat, lon, epochMillis));
+                }
+            }
+            if (membership.isEnabled() && !state.inside.isEmpty() && epochMillis - state.sharedAt >= sharedRefreshMs) {
+                refresh = new ArrayList<>(state.inside.keySet());
+                state.sharedAt = epochMillis;
+            }
+        }
+        if (membership.isEnabled() && (events != null || refresh != null)) {
+            share(vehicleNumber, events, refresh);
+        }
+        metrics.stop("geofence.evaluate", start);
+        if (events == null) {
+            return List.of();
+        }
+        for (StopEvent event : events) {
+            eventPublisher.publishEvent(event);
+        }
+        return events;
+    }
+
+    // Vehicles currently inside the stop's geofence
+    public List<String> vehiclesAt(String stopId) {
+        if (membership.isEnabled()) {
+            long cutoff = System.currentTimeMillis() - stateTtlMinutes * 60_000;
+            try {
+                jedis.zremrangeByScore(STOP_PREFIX + stopId, 0, cutoff);
+                return jedis.zrangeByScore(STOP_PREFIX + stopId, cutoff, Double.POSITIVE_INFINITY);
+            } catch (Exception e) {
+                log.warn("Shared geofence read for {} failed: {}", stopId, e.getMessage());
+                return List.of();
+            }
+        }
+        List<String> result = new ArrayList<>();
+        vehicles.forEach((vehicleNumber, state) -> {
+            synchronized (state) {
+                if (state.inside.containsKey(stopId)) {
+                    result.add(vehicleNumber);
+                }
+            }
+        });
+        return result;
+    }
+
+    // Forget vehicles that stopped reporting; no departure is emitted for them
+    @Scheduled(fixedDelayString = "${geofence.sweep-ms:60000}")
+    public void sweep() {
+        long cutoff = System.currentTimeMillis() - stateTtlMinutes * 60_000;
+        vehicles.entrySet().removeIf(e -> e.getValue().lastSeen < cutoff);
+    }
+
+    // Vehicles now owned elsewhere are evaluated there; their shared entries stay for the new owner to maintain
+    @EventListener(OwnershipChangedEvent.class)
+    public void onOwnershipChanged() {
+        vehicles.keySet().removeIf(vehicleNumber -> !membership.owns(vehicleNumber));
+    }
+
+    private void share(String vehicleNumber, List<StopEvent> events, List<String> refresh) {
+        long now = System.currentTimeMillis();
+        try (Connection connection = jedis.getPool().getResource()) {
+            Pipeline pipeline = new Pipeline(connection);
+            if (events != null) {
+                for (StopEvent event : events) {
+                    if (StopEvent.ARRIVAL.equals(event.getType())) {
+                        pipeline.zadd(STOP_PREFIX + event.getStopId(), now, vehicleNumber);
+                    } else {
+                        pipeline.zrem(STOP_PREFIX + event.getStopId(), vehicleNumber);
+                    }
+                }
+            }
+            if (refresh != null) {
+                for (String stopId : refresh) {
+                    pipeline.zadd(STOP_PREFIX + stopId, now, vehicleNumber);
+                }
+            }
+            pipeline.sync();
+        } catch (Exception e) {
+            log.warn("Shared geofence update for {} failed: {}", vehicleNumber, e.getMessage());
+        }
+    }
+
+    private static List<StopEvent> add(List<StopEvent> events, StopEvent event) {
+        if (events == null) {
+            events = new ArrayList<>(2);
+        }
+        events.add(event);
+        return events;
+    }
+
+    private static final class VehicleState {
+        final Map<String, Stop> inside = new HashMap<>(4);
+        volatile long lastSeen;
+        long sharedAt;
+    }
+}
@@ -0,0 +1,163 @@
+package MargDarshakBackend.MargDarshakSIH.Service;
+
+import MargDarshakBackend.MargDarshakSIH.Utils.CompactLocationCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import redis.clients.jedis.Connection;
+import redis.clients.jedis.JedisPooled;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+// Live vehicle positions in Redis, in one of two layouts (location.encoding):
+//   hash    - "location:{vehicle}" hash of string fields (vehicleNumber, latitude, longitude, timestamp)
+//   compact - "vloc:{vehicle}" string holding a CompactLocationCodec value (17 bytes)
+// Reads always return the hash-shaped map so callers don't care which layout is active. With
+// location.read-fallback on, a miss in the active layout is retried in the other one so a node can
+// switch encodings without losing positions written before the switch. Every write also deletes the other
+// layout's key, so a fallback read never returns a position older than the latest fix.
+@Service
+public class LocationStore {
+    private static final Logger log = LoggerFactory.getLogger(LocationStore.class);
+
+    public static final String HASH_PREFIX = "location:";
+    public static final String COMPACT_PREFIX = "vloc:";
+
+    @Autowired
+    private JedisPooled jedis;
+
+    @Autowired
+    private RedisNearCache nearCache;
+
+    @Autowired
+    private PipelineMetrics metrics;
+
+    @Value("${location.encoding:hash}")
+    private String encoding;
+
+    @Value("${location.read-fallback:false}")
+    private boolean readFallback;
+
+    public boolean isCompact() {
+        return "compact".equalsIgnoreCase(encoding);
+    }
+
+    // Sets the active layout and deletes the other one in a single pipelined round trip
+    public void write(String vehicleNumber, double latitude, double longitude, long epochMillis) {
+        long redisStart = metrics.start();
+        try (Connection connection = jedis.getPool().getResource()) {
+            Pipeline pipeline = new Pipeline(connection);
+            if (isCompact()) {
+                pipeline.set(compactKey(vehicleNumber), CompactLocationCodec.encode(latitude, longitude, epochMillis));
+                pipeline.del(HASH_PREFIX + vehicleNumber);
+            } else {
+                pipeline.hset(HASH_PREFIX + vehicleNumber, toFields(vehicleNumber, latitude, longitude, epochMillis));
+                pipeline.del(COMPACT_PREFIX + vehicleNumber);
+            }
+            pipeline.sync();
+        }
+        metrics.stop("redis.command", redisStart, "op", isCompact() ? "set" : "hset");
+    }
+
+    // Hash-shaped view of the vehicle's last position, empty if none
+    public Map<String, String> read(String vehicleNumber) {
+        Map<String, String> location = isCompact() ? readCompact(vehicleNumber) : readHash(vehicleNumber);
+        if (location.isEmpty() && readFallback) {
+            location = isCompact() ? readHash(vehicleNumber) : readCompact(vehicleNumber);
+        }
+        return location;
+    }
+
+    // One pipelined round trip for many vehicles; vehicles without a position are left out
+    public Map<String, Map<String, String>> readAll(Collection<String> vehicleNumbers) {
+        Map<String, Map<String, String>> locations = new HashMap<>();
+        if (vehicleNumbers.isEmpty()) {
+            return locations;
+        }
+        Map<String, Response<Map<String, String>>> hashes = new HashMap<>();
+        Map<String, Response<byte[]>> compact = new HashMap<>();
+        boolean readHashes = !isCompact() || readFallback;
+        boolean readCompact = isCompact() || readFallback;
+        long redisStart = metrics.start();
+        try (Connection connection = jedis.getPool().getResource()) {
+            Pipeline pipeline = new Pipeline(connection);
+            for (String vehicleNumber : vehicleNumbers) {
+                if (readHashes) {
+                    hashes.put(vehicleNumber, pipeline.hgetAll(HASH_PREFIX + vehicleNumber));
+                }
+                if (readCompact) {
+                    compact.put(vehicleNumber, pipeline.get(compactKey(vehicleNumber)));
+                }
+            }
+            pipeline.sync();
+        }
+        metrics.stop("redis.command", redisStart, "op", "pipeline.location");
+        for (String vehicleNumber : vehicleNumbers) {
+            Map<String, String> fromHash = readHashes ? hashes.get(vehicleNumber).get() : null;
+            Map<String, String> fromCompact = readCompact ? decode(vehicleNumber, compact.get(vehicleNumber).get()) : null;
+            Map<String, String> location = isCompact() ? firstNonEmpty(fromCompact, fromHash) : firstNonEmpty(fromHash, fromCompact);
+            if (location != null) {
+                locations.put(vehicleNumber, location);
+            }
+        }
+        return locations;
+    }
+
+    public void delete(String vehicleNumber) {
+        jedis.del(HASH_PREFIX + vehicleNumber, COMPACT_PREFIX + vehicleNumber);
+    }
+
+    private Map<String, String> readHash(String vehicleNumber) {
+        return metrics.time("redis.command", () -> nearCache.hgetAll(HASH_PREFIX + vehicleNumber), "op", "hgetall");
+    }
+
+    private Map<String, String> readCompact(String vehicleNumber) {
+        byte[] value = metrics.time("redis.command", () -> nearCache.getBytes(COMPACT_PREFIX + vehicleNumber), "op", "get");
+        Map<String, String> location = decode(vehicleNumber, value);
+        return location == null ? Map.of() : location;
+    }
+
+    private Map<String, String> decode(String vehicleNumber, byte[] value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            CompactLocationCodec.Fix fix = CompactLocationCodec.decode(value);
+            return toFields(vehicleNumber, fix.latitude(), fix.longitude(), fix.epochMillis());
+        } catch (IllegalArgumentException e) {
+            log.warn("Ignoring unreadable location for {}: {}", vehicleNumber, e.getMessage());
+            return null;
+        }
+    }
+
+    private static Map<String, String> firstNonEmpty(Map<String, String> first, Map<String, String> second) {
+        if (first != null && !first.isEmpty()) {
+            return first;
+        }
+        return second != null && !second.isEmpty() ? second : null;
+    }
+
+    // Same field set and formatting the hash layout has always used
+    static Map<String, String> toFields(String vehicleNumber, double latitude, double longitude, long epochMillis) {
+        Map<String, String> fields = new HashMap<>();
+        fields.put("vehicleNumber", vehicleNumber);
+        fields.put("latitude", Double.toString(latitude));
+        fields.put("longitude", Double.toString(longitude));
+        fields.put("timestamp", LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault()).toString());
+        return fields;
+    }
+
+    private static byte[] compactKey(String vehicleNumber) {
+        return (COMPACT_PREFIX + vehicleNumber).getBytes(StandardCharsets.UTF_8);
+    }
+}
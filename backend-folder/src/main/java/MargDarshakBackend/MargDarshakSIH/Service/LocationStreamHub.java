@@ -0,0 +1,490 @@
+package MargDarshakBackend.MargDarshakSIH.Service;
+
+import MargDarshakBackend.MargDarshakSIH.Schedule.ScheduleLoader;
+import MargDarshakBackend.MargDarshakSIH.Utils.RingBuffer;
+import MargDarshakBackend.MargDarshakSIH.entity.TripSchedule;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// In-memory fan-out of live positions to Server-Sent Events subscribers, one channel per vehicle
+// ("vehicle:{number}") and per route ("route:{normalized route}"). Both ingest paths publish here after
+// the Redis write. Each fix is serialized once and queued per subscriber; a subscriber's queue is drained by
+// one task at a time on a small pool, so the ingest thread never blocks on a client. A client that falls
+// sse.max-pending frames behind is dropped (it reconnects with Last-Event-ID). Servlet writes block, so a send
+// that takes longer than sse.send-timeout-ms also drops its client: its sender thread is interrupted and the
+// pool gets a replacement thread (up to sse.send-threads-max) until the write returns, so stalled clients can't
+// starve the healthy ones. An idle emitter is only an async request parked in the container (no thread), which
+// is what lets one node hold many thousands of them.
+// Event ids come from one counter, so a reconnect with Last-Event-ID gets the buffered events it missed.
+// Without an id, or with one from before a node restart, the client just gets the latest position.
+// Channels only exist for scheduled vehicles and routes (or vehicles with a live position) and are dropped
+// once they have had no subscribers for sse.channel-idle-ms.
+@Service
+public class LocationStreamHub {
+    private static final Logger log = LoggerFactory.getLogger(LocationStreamHub.class);
+
+    @Autowired
+    private ScheduleLoader scheduleLoader;
+
+    @Autowired
+    private LocationStore locationStore;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Autowired
+    private PipelineMetrics metrics;
+
+    @Value("${sse.replay-size:32}")
+    private int replaySize;
+
+    @Value("${sse.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    @Value("${sse.retry-ms:3000}")
+    private long retryMs;
+
+    @Value("${sse.max-connections:20000}")
+    private int maxConnections;
+
+    @Value("${sse.send-threads:4}")
+    private int sendThreads;
+
+    @Value("${sse.send-threads-max:64}")
+    private int maxSendThreads;
+
+    @Value("${sse.send-timeout-ms:10000}")
+    private long sendTimeoutMs;
+
+    @Value("${sse.max-pending:64}")
+    private int maxPending;
+
+    @Value("${sse.channel-idle-ms:300000}")
+    private long channelIdleMs;
+
+    private static final Event HEARTBEAT = new Event(0, SseEmitter.event().comment("hb").build());
+
+    private final Map<String, Channel> channels = new ConcurrentHashMap<>();
+    private final AtomicLong eventIds = new AtomicLong();
+    private final AtomicInteger connections = new AtomicInteger();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong stalledSends = new AtomicLong();
+    private volatile RouteIndex routeIndex = new RouteIndex(null, Set.of());
+    private ThreadPoolExecutor sender;
+    // Sender threads added to stand in for ones stuck in an abandoned write
+    private int replacementThreads;
+
+    @PostConstruct
+    void init() {
+        AtomicInteger n = new AtomicInteger();
+        sender = new ThreadPoolExecutor(sendThreads, sendThreads, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread t = new Thread(r, "sse-send-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        if (metrics.isEnabled()) {
+            Gauge.builder("sse.connections", connections, AtomicInteger::get).register(registry);
+            Gauge.builder("sse.channels", channels, Map::size).register(registry);
+            Gauge.builder("sse.dropped", dropped, AtomicLong::get).register(registry);
+        }
+    }
+
+    @PreDestroy
+    void close() {
+        sender.shutdownNow();
+        for (Channel channel : channels.values()) {
+            for (Subscriber subscriber : channel.subscribers) {
+                subscriber.emitter.complete();
+            }
+        }
+    }
+
+    public static String vehicleChannel(String vehicleNumber) {
+        return "vehicle:" + vehicleNumber;
+    }
+
+    public static String routeChannel(String route) {
+        return "route:" + ScheduleLoader.normalizeRoute(route);
+    }
+
+    // Scheduled vehicles, plus unscheduled ones that have reported a position
+    public boolean isKnownVehicle(String vehicleNumber) {
+        if (vehicleNumber == null || vehicleNumber.isBlank()) {
+            return false;
+        }
+        return scheduleLoader.getSchedules().containsKey(vehicleNumber) || !locationStore.read(vehicleNumber).isEmpty();
+    }
+
+    public boolean isKnownRoute(String route) {
+        Map<String, List<TripSchedule>> schedules = scheduleLoader.getSchedules();
+        RouteIndex index = routeIndex;
+        if (index.schedules != schedules) {
+            // The loader swaps the whole map on reload, so identity tells us when to rebuild
+            Set<String> keys = new HashSet<>();
+            for (List<TripSchedule> vehicleSchedules : schedules.values()) {
+                for (TripSchedule schedule : vehicleSchedules) {
+                    keys.addAll(ScheduleLoader.routeKeys(schedule));
+                }
+            }
+            index = new RouteIndex(schedules, keys);
+            routeIndex = index;
+        }
+        return index.keys.contains(ScheduleLoader.normalizeRoute(route));
+    }
+
+    // Null when the node is at sse.max-connections
+    public SseEmitter subscribe(String channelKey, String lastEventId) {
+        return subscribe(channelKey, lastEventId, new SseEmitter(timeoutMs));
+    }
+
+    SseEmitter subscribe(String channelKey, String lastEventId, SseEmitter emitter) {
+        if (connections.incrementAndGet() > maxConnections) {
+            connections.decrementAndGet();
+            return null;
+        }
+        long lastId = parseId(lastEventId);
+        Subscriber[] created = new Subscriber[1];
+        // Registering and taking the replay happen under the channel lock, so every event is either in the
+        // replay or queued live after it; compute also keeps eviction from removing the channel in between
+        channels.compute(channelKey, (k, existing) -> {
+            Channel channel = existing != null ? existing : new Channel(k, replaySize);
+            Subscriber subscriber = new Subscriber(channel, emitter);
+            synchronized (channel) {
+                channel.subscribers.add(subscriber);
+                subscriber.enqueue(new Event(0, SseEmitter.event().reconnectTime(retryMs).comment("connected").build()));
+                for (Event event : channel.since(lastId)) {
+                    subscriber.enqueue(event);
+                }
+            }
+            created[0] = subscriber;
+            return channel;
+        });
+        Subscriber subscriber = created[0];
+        Runnable remove = () -> unsubscribe(subscriber);
+        emitter.onCompletion(remove);
+        emitter.onTimeout(remove);
+        emitter.onError(e -> remove.run());
+        return emitter;
+    }
+
+    public void publish(String vehicleNumber, double latitude, double longitude, String timestamp) {
+        Set<String> keys = new LinkedHashSet<>();
+        keys.add(vehicleChannel(vehicleNumber));
+        TripSchedule schedule = scheduleLoader.getScheduleByVehicle(vehicleNumber);
+        if (schedule != null) {
+            for (String route : ScheduleLoader.routeKeys(schedule)) {
+                keys.add("route:" + route);
+            }
+        }
+        String data = null;
+        for (String key : keys) {
+            Channel channel = channels.get(key);
+            if (channel == null) {
+                continue;
+            }
+            if (data == null) {
+                data = serialize(vehicleNumber, latitude, longitude, timestamp);
+                if (data == null) {
+                    return;
+                }
+            }
+            String payload = data;
+            // Ids are taken under the channel lock so each subscriber's queue stays in id order
+            synchronized (channel) {
+                long id = eventIds.incrementAndGet();
+                Event event = new Event(id, SseEmitter.event().id(Long.toString(id)).name("location")
+                        .data(payload, MediaType.APPLICATION_JSON).build());
+                channel.recent.add(event);
+                for (Subscriber subscriber : channel.subscribers) {
+                    subscriber.enqueue(event);
+                }
+            }
+        }
+    }
+
+    // Comment lines keep proxies and mobile networks from dropping idle connections; they also surface dead ones.
+    // Channels nobody has watched for sse.channel-idle-ms are dropped along with their replay buffer.
+    @Scheduled(fixedRateString = "${sse.heartbeat-ms:15000}")
+    public void heartbeat() {
+        long now = System.currentTimeMillis();
+        for (Channel channel : channels.values()) {
+            for (Subscriber subscriber : channel.subscribers) {
+                subscriber.enqueue(HEARTBEAT);
+            }
+            if (channel.subscribers.isEmpty() && now - channel.emptySince >= channelIdleMs) {
+                channels.computeIfPresent(channel.key, (k, c) ->
+                        c == channel && c.subscribers.isEmpty() && now - c.emptySince >= channelIdleMs ? null : c);
+            }
+        }
+    }
+
+    // A send running past sse.send-timeout-ms drops its client. The blocked thread is interrupted and, while it
+    // stays stuck in the servlet write (interrupts don't always end one), a replacement thread keeps the rest of
+    // the subscribers moving.
+    @Scheduled(fixedRateString = "${sse.send-check-ms:1000}")
+    public void checkStalledSends() {
+        long cutoff = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(sendTimeoutMs);
+        for (Channel channel : channels.values()) {
+            for (Subscriber subscriber : channel.subscribers) {
+                if (subscriber.abandonIfStalled(cutoff)) {
+                    stalledSends.incrementAndGet();
+                    dropped.incrementAndGet();
+                    unsubscribe(subscriber);
+                }
+            }
+        }
+    }
+
+    private synchronized boolean addReplacementThread() {
+        if (sendThreads + replacementThreads >= maxSendThreads) {
+            return false;
+        }
+        replacementThreads++;
+        sender.setMaximumPoolSize(sendThreads + replacementThreads);
+        sender.setCorePoolSize(sendThreads + replacementThreads);
+        return true;
+    }
+
+    private synchronized void removeReplacementThread() {
+        replacementThreads--;
+        sender.setCorePoolSize(sendThreads + replacementThreads);
+        sender.setMaximumPoolSize(sendThreads + replacementThreads);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("connections", connections.get());
+        stats.put("channels", channels.size());
+        stats.put("lastEventId", eventIds.get());
+        stats.put("droppedSlowClients", dropped.get());
+        stats.put("stalledSends", stalledSends.get());
+        stats.put("sendThreads", sender.getCorePoolSize());
+        return stats;
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        Channel channel = subscriber.channel;
+        if (channel.subscribers.remove(subscriber)) {
+            connections.decrementAndGet();
+            if (channel.subscribers.isEmpty()) {
+                channel.emptySince = System.currentTimeMillis();
+            }
+        }
+    }
+
+    private String serialize(String vehicleNumber, double latitude, double longitude, String timestamp) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("vehicleNumber", vehicleNumber);
+        payload.put("latitude", latitude);
+        payload.put("longitude", longitude);
+        payload.put("timestamp", timestamp);
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (Exception e) {
+            log.warn("Could not serialize location for {}: {}", vehicleNumber, e.getMessage());
+            return null;
+        }
+    }
+
+    private static long parseId(String lastEventId) {
+        if (lastEventId == null || lastEventId.isBlank()) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(lastEventId.trim());
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static final class Channel {
+        final String key;
+        final Set<Subscriber> subscribers = new CopyOnWriteArraySet<>();
+        final RingBuffer<Event> recent;
+        volatile long emptySince = System.currentTimeMillis();
+
+        Channel(String key, int replaySize) {
+            this.key = key;
+            this.recent = new RingBuffer<>(replaySize);
+        }
+
+        // Buffered events after lastEventId, oldest first; just the latest one when there is no usable id
+        // (ids are global, so a channel's ids have gaps and "too old" simply means the whole buffer)
+        List<Event> since(long lastEventId) {
+            List<Event> buffered = recent.snapshot(recent.capacity());
+            if (buffered.isEmpty()) {
+                return List.of();
+            }
+            if (lastEventId < 0 || lastEventId > buffered.get(0).id) {
+                return List.of(buffered.get(0));
+            }
+            List<Event> missed = new ArrayList<>();
+            for (Event event : buffered) {
+                if (event.id <= lastEventId) {
+                    break;
+                }
+                missed.add(event);
+            }
+            Collections.reverse(missed);
+            return missed;
+        }
+    }
+
+    // One client's outgoing frames. At most one drain task runs per subscriber; once it is maxPending frames
+    // behind, or a single send outlasts sse.send-timeout-ms, it is dropped instead of queueing more.
+    private final class Subscriber {
+        final Channel channel;
+        final SseEmitter emitter;
+        private final ArrayDeque<Event> pending = new ArrayDeque<>();
+        private long lastId;
+        private boolean draining;
+        private boolean closed;
+        // Set while a send is in progress; cleared under the lock so an interrupt never hits a later send
+        private long sendingSince;
+        private Thread sendingThread;
+        private boolean replaced;
+
+        Subscriber(Channel channel, SseEmitter emitter) {
+            this.channel = channel;
+            this.emitter = emitter;
+        }
+
+        void enqueue(Event event) {
+            boolean overflow = false;
+            boolean schedule;
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                // Location events are deduplicated by id; heartbeats and the greeting carry 0
+                if (event.id > 0) {
+                    if (event.id <= lastId) {
+                        return;
+                    }
+                    lastId = event.id;
+                }
+                if (pending.size() >= maxPending) {
+                    closed = true;
+                    pending.clear();
+                    overflow = true;
+                } else {
+                    pending.add(event);
+                }
+                // A running drain picks up new frames, or completes the emitter after its current send if closed
+                schedule = !draining;
+                draining = true;
+            }
+            if (overflow) {
+                dropped.incrementAndGet();
+                unsubscribe(this);
+            }
+            if (schedule) {
+                sender.execute(this::drain);
+            }
+        }
+
+        synchronized boolean abandonIfStalled(long cutoff) {
+            if (sendingThread == null || closed || sendingSince - cutoff > 0) {
+                return false;
+            }
+            closed = true;
+            pending.clear();
+            replaced = addReplacementThread();
+            sendingThread.interrupt();
+            return true;
+        }
+
+        private void drain() {
+            while (true) {
+                Event next;
+                synchronized (this) {
+                    next = closed ? null : pending.poll();
+                    if (next == null) {
+                        draining = false;
+                        if (!closed) {
+                            return;
+                        }
+                    }
+                }
+                if (next == null) {
+                    // Dropped as too slow; it reconnects with Last-Event-ID
+                    unsubscribe(this);
+                    emitter.complete();
+                    return;
+                }
+                synchronized (this) {
+                    sendingSince = System.nanoTime();
+                    sendingThread = Thread.currentThread();
+                }
+                try {
+                    emitter.send(next.frame);
+                } catch (IOException | IllegalStateException e) {
+                    // Client went away (or the send was abandoned); completing triggers the onCompletion cleanup
+                    synchronized (this) {
+                        closed = true;
+                        pending.clear();
+                        draining = false;
+                    }
+                    endSend();
+                    emitter.completeWithError(e);
+                    return;
+                }
+                endSend();
+            }
+        }
+
+        private void endSend() {
+            boolean release;
+            synchronized (this) {
+                sendingThread = null;
+                release = replaced;
+                replaced = false;
+            }
+            // Clears an interrupt from an abandon that raced with the end of the send
+            Thread.interrupted();
+            if (release) {
+                removeReplacementThread();
+            }
+        }
+    }
+
+    private record RouteIndex(Map<String, List<TripSchedule>> schedules, Set<String> keys) {
+    }
+
+    // Frames are built once and shared by every subscriber; a builder can't be reused across sends
+    private record Event(long id, Set<ResponseBodyEmitter.DataWithMediaType> frame) {
+    }
+}
@@ -0,0 +1,181 @@
+package MargDarshakBackend.MargDarshakSIH.Service;
+
+import MargDarshakBackend.MargDarshakSIH.Model.LocationTrace;
+import MargDarshakBackend.MargDarshakSIH.Model.LocationTrace.Stage;
+import MargDarshakBackend.MargDarshakSIH.Utils.RingBuffer;
+import MargDarshakBackend.MargDarshakSIH.dto.SlowTrace;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Sampled per-message tracing for location updates.
+// A sampled message carries a trace-id header through the broker so the outbound channel can stamp each
+// per-session send. Traces settle for settle-ms (to collect sends) and are then recorded into the
+// location.trace.stage histograms; those over slow-ms are kept in a ring buffer for the admin endpoint.
+@Service
+public class LocationTraceService {
+
+    public static final String TRACE_HEADER = "trace-id";
+
+    @Autowired
+    private PipelineMetrics metrics;
+
+    @Value("${tracing.location.sample-rate:0.01}")
+    private double sampleRate;
+
+    @Value("${tracing.location.slow-ms:500}")
+    private long slowMs;
+
+    @Value("${tracing.location.settle-ms:2000}")
+    private long settleMs;
+
+    @Value("${tracing.location.buffer-size:200}")
+    private int bufferSize;
+
+    @Value("${tracing.location.max-active:10000}")
+    private int maxActive;
+
+    private final Map<String, LocationTrace> active = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private RingBuffer<SlowTrace> slow;
+
+    @PostConstruct
+    void init() {
+        slow = new RingBuffer<>(bufferSize);
+    }
+
+    // Returns null when the message isn't sampled (or tracing is off), so callers just null-check
+    public LocationTrace begin(String vehicleNumber, String clientTimestamp) {
+        if (sampleRate <= 0 || (sampleRate < 1 && ThreadLocalRandom.current().nextDouble() >= sampleRate)
+                || active.size() >= maxActive) {
+            return null;
+        }
+        String traceId = Long.toString(sequence.incrementAndGet(), 36);
+        LocationTrace trace = new LocationTrace(traceId, vehicleNumber, clientTimestamp, parseClientTime(clientTimestamp));
+        active.put(traceId, trace);
+        return trace;
+    }
+
+    public Map<String, Object> headers(LocationTrace trace) {
+        return Map.of(TRACE_HEADER, trace.getTraceId());
+    }
+
+    public void sendCompleted(String traceId) {
+        LocationTrace trace = active.get(traceId);
+        if (trace != null) {
+            trace.sendCompleted();
+        }
+    }
+
+    // Records the trace now instead of waiting for the sweep: for dropped messages, or when all sends are known
+    public void finish(LocationTrace trace) {
+        if (trace != null && active.remove(trace.getTraceId()) != null) {
+            complete(trace);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${tracing.location.sweep-ms:1000}")
+    public void sweep() {
+        long cutoff = System.currentTimeMillis() - settleMs;
+        Iterator<LocationTrace> it = active.values().iterator();
+        while (it.hasNext()) {
+            LocationTrace trace = it.next();
+            if (trace.getReceivedAtMillis() <= cutoff) {
+                it.remove();
+                complete(trace);
+            }
+        }
+    }
+
+    public List<SlowTrace> slowTraces(int limit) {
+        return slow.snapshot(limit);
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("sampleRate", sampleRate);
+        stats.put("slowMs", slowMs);
+        stats.put("active", active.size());
+        stats.put("completed", completed.get());
+        stats.put("slow", slow.written());
+        return stats;
+    }
+
+    private void complete(LocationTrace trace) {
+        completed.incrementAndGet();
+        Map<String, Double> stages = new LinkedHashMap<>();
+        long received = trace.stageNanos(Stage.RECEIVED);
+        if (trace.getClientEpochMillis() != null) {
+            long clientToServer = trace.getReceivedAtMillis() - trace.getClientEpochMillis();
+            // Negative means the phone's clock is ahead; nothing useful to record
+            if (clientToServer >= 0) {
+                stages.put("clientToServer", (double) clientToServer);
+                metrics.record("location.trace.stage", TimeUnit.MILLISECONDS.toNanos(clientToServer), "stage", "client_to_server");
+            }
+        }
+        long last = received;
+        last = stage(stages, "validation", last, trace.stageNanos(Stage.VALIDATED));
+        last = stage(stages, "redis", last, trace.stageNanos(Stage.PERSISTED));
+        // Trip lifecycle, geofence and traffic work, or the forward to the owner node
+        last = stage(stages, "dispatch", last, trace.stageNanos(Stage.DISPATCHED));
+        long dispatched = last;
+        last = stage(stages, "brokerEnqueue", last, trace.stageNanos(Stage.ENQUEUED));
+        if (trace.getSends() > 0) {
+            // The simple broker may complete sends before convertAndSend returns, so sends are measured from dispatch
+            stage(stages, "firstSend", dispatched, trace.getFirstSendNanos());
+            stage(stages, "lastSend", dispatched, trace.getLastSendNanos());
+            last = Math.max(last, trace.getLastSendNanos());
+        }
+        long totalNanos = last - received;
+        metrics.record("location.trace.total", totalNanos);
+        double totalMs = totalNanos / 1_000_000.0;
+        if (totalMs >= slowMs || stages.getOrDefault("clientToServer", 0.0) >= slowMs) {
+            slow.add(new SlowTrace(trace.getTraceId(), trace.getVehicleNumber(), trace.getClientTimestamp(),
+                    Instant.ofEpochMilli(trace.getReceivedAtMillis()).toString(), stages, trace.getSends(), totalMs));
+        }
+    }
+
+    // Records from -> to under the stage name; a stage that never ran (0) is skipped and the start carried forward
+    private long stage(Map<String, Double> stages, String name, long from, long to) {
+        if (to == 0) {
+            return from;
+        }
+        long nanos = Math.max(0, to - from);
+        stages.put(name, nanos / 1_000_000.0);
+        metrics.record("location.trace.stage", nanos, "stage", name);
+        return to;
+    }
+
+    // Epoch millis, ISO instant, or ISO local date-time in the server's zone
+    static Long parseClientTime(String timestamp) {
+        if (timestamp == null || timestamp.isEmpty()) {
+            return null;
+        }
+        try {
+            if (Character.isDigit(timestamp.charAt(0)) && timestamp.indexOf('-') < 0) {
+                return Long.parseLong(timestamp);
+            }
+            if (timestamp.endsWith("Z") || timestamp.indexOf('+') > 0) {
+                return Instant.parse(timestamp).toEpochMilli();
+            }
+            return LocalDateTime.parse(timestamp).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        } catch (Exception e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,481 @@
+package MargDarshakBackend.MargDarshakSIH.Service;
+
+import MargDarshakBackend.MargDarshakSIH.Repository.NotificationSubscriptionRepository;
+import MargDarshakBackend.MargDarshakSIH.Schedule.ScheduleLoader;
+import MargDarshakBackend.MargDarshakSIH.Utils.LruCache;
+import MargDarshakBackend.MargDarshakSIH.dto.Notification;
+import MargDarshakBackend.MargDarshakSIH.dto.StopEvent;
+import MargDarshakBackend.MargDarshakSIH.entity.NotificationSubscription;
+import MargDarshakBackend.MargDarshakSIH.entity.TripSchedule;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import redis.clients.jedis.JedisPooled;
+import redis.clients.jedis.StreamEntryID;
+import redis.clients.jedis.params.XAddParams;
+import redis.clients.jedis.params.XReadGroupParams;
+import redis.clients.jedis.resps.StreamConsumersInfo;
+import redis.clients.jedis.resps.StreamGroupInfo;
+import redis.clients.jedis.resps.StreamEntry;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Arrival, delay and SOS notifications.
+//  - Subscriptions (user -> route/stop/vehicle) are stored in Mongo and served from an inverted index
+//    (target -> immutable set of users). A subscribe or unsubscribe replaces only its target's set; the whole
+//    index is rebuilt periodically to pick up changes made on other nodes.
+//  - Events are appended to a Redis Stream, each tagged with the targets it concerns, so producers never
+//    expand recipients.
+//  - Every node reads the whole stream through its own consumer group (one per node id). A node only
+//    delivers to users connected to it, because the simple broker only knows local sessions. A restarted
+//    node resumes from its group's position and first re-reads what it had read but not acked. A node that
+//    stops cleanly deletes its group; groups of nodes that died (e.g. pods with a new HOSTNAME each start)
+//    are deleted by any node once all their consumers have been idle for group-idle-ms.
+//  - Per batch, events are grouped by recipient. Repeats of a dedup key within coalesce-ms are folded
+//    into one notification. Each recipient gets at most max-per-minute notifications (SOS is exempt) and
+//    one STOMP message per batch on /user/queue/notifications.
+@Service
+public class NotificationService {
+    private static final Logger log = LoggerFactory.getLogger(NotificationService.class);
+
+    public static final String STREAM = "notifications:events";
+    public static final Set<String> TYPES = Set.of("route", "stop", "vehicle");
+    private static final String GROUP_PREFIX = "delivery:";
+
+    @Autowired
+    private NotificationSubscriptionRepository subscriptionRepository;
+
+    @Autowired
+    private ScheduleLoader scheduleLoader;
+
+    @Autowired
+    private JedisPooled jedis;
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Autowired
+    private SimpUserRegistry userRegistry;
+
+    @Value("${notifications.enabled:true}")
+    private boolean enabled;
+
+    @Value("${notifications.node-id:${sharding.node-id:${HOSTNAME:local}-${server.port:8080}}}")
+    private String nodeId;
+
+    @Value("${notifications.stream-max-len:100000}")
+    private long streamMaxLen;
+
+    @Value("${notifications.batch-size:200}")
+    private int batchSize;
+
+    @Value("${notifications.block-ms:1000}")
+    private int blockMs;
+
+    @Value("${notifications.coalesce-ms:60000}")
+    private long coalesceMs;
+
+    @Value("${notifications.max-per-minute:6}")
+    private int maxPerMinute;
+
+    @Value("${notifications.recipient-cache-size:100000}")
+    private int recipientCacheSize;
+
+    @Value("${notifications.group-idle-ms:3600000}")
+    private long groupIdleMs;
+
+    private volatile Map<String, Set<String>> usersByTarget = new ConcurrentHashMap<>();
+    // Local changes since the last rebuild started, replayed onto its result in case its read missed them
+    private final Queue<SubscriptionChange> recentChanges = new ConcurrentLinkedQueue<>();
+    private final AtomicLong changeSequence = new AtomicLong();
+    private LruCache<String, Long> recentlySent;
+    private LruCache<String, int[]> sentThisMinute;
+    private volatile boolean running;
+    private Thread consumer;
+
+    private final LongAdder published = new LongAdder();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder rateLimited = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        refreshIndex();
+        recentlySent = new LruCache<>(recipientCacheSize, coalesceMs);
+        sentThisMinute = new LruCache<>(recipientCacheSize, 60_000);
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        consumer = new Thread(this::consume, "notification-consumer");
+        consumer.setDaemon(true);
+        consumer.start();
+    }
+
+    @PreDestroy
+    void stop() {
+        running = false;
+        if (consumer != null) {
+            consumer.interrupt();
+            try {
+                jedis.xgroupDestroy(STREAM, group());
+            } catch (Exception e) {
+                log.warn("Could not delete consumer group {}: {}", group(), e.getMessage());
+            }
+        }
+    }
+
+    // Deletes the groups of nodes that are gone; a live node reads (blocking block-ms) all the time
+    @Scheduled(fixedDelayString = "${notifications.group-reap-ms:600000}")
+    public void reapGroups() {
+        if (!running) {
+            return;
+        }
+        try {
+            for (StreamGroupInfo info : jedis.xinfoGroups(STREAM)) {
+                String name = info.getName();
+                if (!name.startsWith(GROUP_PREFIX) || name.equals(group())) {
+                    continue;
+                }
+                boolean idle = true;
+                for (StreamConsumersInfo consumer : jedis.xinfoConsumers(STREAM, name)) {
+                    idle &= consumer.getIdle() >= groupIdleMs;
+                }
+                if (idle) {
+                    jedis.xgroupDestroy(STREAM, name);
+                    log.info("Deleted idle notification consumer group {}", name);
+                }
+            }
+        } catch (Exception e) {
+            log.warn("Consumer group cleanup failed: {}", e.getMessage());
+        }
+    }
+
+    private String group() {
+        return GROUP_PREFIX + nodeId;
+    }
+
+    // ---- subscriptions ----
+
+    public List<NotificationSubscription> subscriptions(String userEmail) {
+        return subscriptionRepository.findByUserEmail(userEmail);
+    }
+
+    public NotificationSubscription subscribe(String userEmail, String type, String target) {
+        String normalized = normalizeTarget(type, target);
+        NotificationSubscription subscription = subscriptionRepository
+                .findByUserEmailAndTypeAndTarget(userEmail, type, normalized)
+                .orElse(null);
+        if (subscription == null) {
+            try {
+                subscription = subscriptionRepository.save(new NotificationSubscription(null, userEmail, type, normalized));
+            } catch (DuplicateKeyException e) {
+                // A concurrent subscribe for the same target won the unique index
+                subscription = subscriptionRepository.findByUserEmailAndTypeAndTarget(userEmail, type, normalized).orElseThrow();
+            }
+        }
+        indexChange(type + ":" + normalized, userEmail, true);
+        return subscription;
+    }
+
+    public boolean unsubscribe(String userEmail, String type, String target) {
+        String normalized = normalizeTarget(type, target);
+        NotificationSubscription subscription = subscriptionRepository
+                .findByUserEmailAndTypeAndTarget(userEmail, type, normalized).orElse(null);
+        if (subscription == null) {
+            return false;
+        }
+        subscriptionRepository.delete(subscription);
+        indexChange(type + ":" + normalized, userEmail, false);
+        return true;
+    }
+
+    // Full rebuild from Mongo; only this periodic refresh (and startup) reads every subscription
+    @Scheduled(fixedDelayString = "${notifications.index-refresh-ms:60000}", initialDelayString = "${notifications.index-refresh-ms:60000}")
+    public synchronized void refreshIndex() {
+        long from = changeSequence.get();
+        Map<String, Set<String>> building = new HashMap<>();
+        for (NotificationSubscription s : subscriptionRepository.findAll()) {
+            building.computeIfAbsent(s.getType() + ":" + s.getTarget(), k -> new HashSet<>()).add(s.getUserEmail());
+        }
+        Map<String, Set<String>> index = new ConcurrentHashMap<>(building.size() * 2);
+        building.forEach((key, users) -> index.put(key, Set.copyOf(users)));
+        usersByTarget = index;
+        // Changes numbered after `from` may have been saved after findAll read past them
+        for (SubscriptionChange change : recentChanges) {
+            if (change.sequence() > from) {
+                apply(index, change);
+            }
+        }
+        recentChanges.removeIf(change -> change.sequence() <= from);
+    }
+
+    // Called after the Mongo write, so a rebuild that starts later reads it; logged before the index is
+    // read, so a rebuild that swaps in between still replays it. Add and remove are idempotent.
+    private void indexChange(String key, String userEmail, boolean add) {
+        SubscriptionChange change = new SubscriptionChange(changeSequence.incrementAndGet(), key, userEmail, add);
+        recentChanges.add(change);
+        apply(usersByTarget, change);
+    }
+
+    // Copy-on-write of one target's set: readers holding the old set never see it change
+    private static void apply(Map<String, Set<String>> index, SubscriptionChange change) {
+        index.compute(change.key(), (key, users) -> {
+            Set<String> next = users == null ? new HashSet<>() : new HashSet<>(users);
+            if (change.add()) {
+                next.add(change.userEmail());
+            } else {
+                next.remove(change.userEmail());
+            }
+            return next.isEmpty() ? null : Set.copyOf(next);
+        });
+    }
+
+    private record SubscriptionChange(long sequence, String key, String userEmail, boolean add) {
+    }
+
+    public static String normalizeTarget(String type, String target) {
+        return "route".equals(type) ? ScheduleLoader.normalizeRoute(target) : target.trim();
+    }
+
+    // ---- producing ----
+
+    // Stop arrivals reach subscribers of the stop, the vehicle and the vehicle's route
+    @EventListener
+    public void onStopEvent(StopEvent event) {
+        if (!StopEvent.ARRIVAL.equals(event.getType())) {
+            return;
+        }
+        Notification n = new Notification();
+        n.setType(Notification.ARRIVAL);
+        n.setVehicleNumber(event.getVehicleNumber());
+        n.setStopId(event.getStopId());
+        n.setMessage("Bus " + event.getVehicleNumber() + " arrived at " + event.getStopName());
+        n.setTimestamp(event.getTimestamp());
+        n.setDedupKey(Notification.ARRIVAL + ":" + event.getVehicleNumber() + ":" + event.getStopId());
+        publish(n, targetsFor(event.getVehicleNumber(), null, event.getStopId()));
+    }
+
+    // Targets for an event about a vehicle: the vehicle, its route keys (or the given route), and the stop if any
+    public List<String> targetsFor(String vehicleNumber, String route, String stopId) {
+        List<String> targets = new ArrayList<>();
+        if (vehicleNumber != null) {
+            targets.add("vehicle:" + vehicleNumber);
+        }
+        if (route != null) {
+            targets.add("route:" + ScheduleLoader.normalizeRoute(route));
+        } else if (vehicleNumber != null) {
+            TripSchedule schedule = scheduleLoader.getScheduleByVehicle(vehicleNumber);
+            if (schedule != null) {
+                for (String key : ScheduleLoader.routeKeys(schedule)) {
+                    targets.add("route:" + key);
+                }
+            }
+        }
+        if (stopId != null) {
+            targets.add("stop:" + stopId);
+        }
+        return targets;
+    }
+
+    public String publish(Notification n, Collection<String> targets) {
+        if (n.getDedupKey() == null) {
+            n.setDedupKey(n.getType() + ":" + n.getVehicleNumber() + ":" + (n.getStopId() != null ? n.getStopId() : n.getRoute()));
+        }
+        Map<String, String> fields = new HashMap<>();
+        put(fields, "type", n.getType());
+        put(fields, "message", n.getMessage());
+        put(fields, "vehicleNumber", n.getVehicleNumber());
+        put(fields, "route", n.getRoute());
+        put(fields, "stopId", n.getStopId());
+        put(fields, "dedupKey", n.getDedupKey());
+        fields.put("timestamp", Long.toString(n.getTimestamp() > 0 ? n.getTimestamp() : System.currentTimeMillis()));
+        fields.put("targets", String.join("\n", new LinkedHashSet<>(targets)));
+        StreamEntryID id = jedis.xadd(STREAM, XAddParams.xAddParams().maxLen(streamMaxLen).approximateTrimming(), fields);
+        published.increment();
+        return id.toString();
+    }
+
+    // ---- consuming ----
+
+    private void consume() {
+        String group = group();
+        ensureGroup(group);
+        // Our own pending entries first (read before a crash, never acked), then new ones
+        StreamEntryID from = new StreamEntryID(0, 0);
+        XReadGroupParams params = XReadGroupParams.xReadGroupParams().count(batchSize).block(blockMs);
+        while (running) {
+            try {
+                List<Map.Entry<String, List<StreamEntry>>> read = jedis.xreadGroup(group, nodeId, params, Map.of(STREAM, from));
+                List<StreamEntry> entries = read == null || read.isEmpty() ? List.of() : read.get(0).getValue();
+                if (entries.isEmpty()) {
+                    from = StreamEntryID.UNRECEIVED_ENTRY;
+                    continue;
+                }
+                deliver(entries);
+                StreamEntryID[] ids = new StreamEntryID[entries.size()];
+                for (int i = 0; i < ids.length; i++) {
+                    ids[i] = entries.get(i).getID();
+                }
+                jedis.xack(STREAM, group, ids);
+            } catch (Exception e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Notification consumer error: {}", e.getMessage());
+                if (e.getMessage() != null && e.getMessage().contains("NOGROUP")) {
+                    ensureGroup(group);
+                }
+                try {
+                    Thread.sleep(1000);
+                } catch (InterruptedException ie) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void ensureGroup(String group) {
+        try {
+            // A new group starts at the end of the stream; older events are not replayed to a brand-new node
+            jedis.xgroupCreate(STREAM, group, StreamEntryID.LAST_ENTRY, true);
+        } catch (Exception e) {
+            if (e.getMessage() == null || !e.getMessage().contains("BUSYGROUP")) {
+                log.warn("Could not create consumer group {}: {}", group, e.getMessage());
+            }
+        }
+    }
+
+    void deliver(List<StreamEntry> entries) {
+        Map<String, Set<String>> index = usersByTarget;
+        // recipient -> dedupKey -> newest notification, with the folded count
+        Map<String, Map<String, Notification>> byRecipient = new LinkedHashMap<>();
+        for (StreamEntry entry : entries) {
+            Notification n = fromFields(entry.getID().toString(), entry.getFields());
+            Set<String> recipients = new HashSet<>();
+            String targets = entry.getFields().get("targets");
+            if (targets != null) {
+                for (String target : targets.split("\n")) {
+                    recipients.addAll(index.getOrDefault(target, Set.of()));
+                }
+            }
+            for (String recipient : recipients) {
+                if (userRegistry.getUser(recipient) == null) {
+                    continue; // not connected to this node
+                }
+                byRecipient.computeIfAbsent(recipient, k -> new LinkedHashMap<>())
+                        .merge(n.getDedupKey(), copy(n), (older, newer) -> {
+                            coalesced.increment();
+                            newer.setCount(older.getCount() + newer.getCount());
+                            return newer;
+                        });
+            }
+        }
+        long now = System.currentTimeMillis();
+        byRecipient.forEach((recipient, notifications) -> {
+            List<Notification> batch = new ArrayList<>(notifications.size());
+            for (Notification n : notifications.values()) {
+                boolean sos = Notification.SOS.equals(n.getType());
+                String sentKey = recipient + "|" + n.getDedupKey();
+                if (!sos && recentlySent.get(sentKey) != null) {
+                    coalesced.increment();
+                    continue;
+                }
+                if (!sos && !withinRate(recipient)) {
+                    rateLimited.increment();
+                    continue;
+                }
+                recentlySent.put(sentKey, now);
+                batch.add(n);
+            }
+            if (!batch.isEmpty()) {
+                messagingTemplate.convertAndSendToUser(recipient, "/queue/notifications", batch);
+                delivered.add(batch.size());
+                batches.increment();
+            }
+        });
+    }
+
+    // Fixed one-minute window per recipient (the cache entry expires 60 s after it was created)
+    private boolean withinRate(String recipient) {
+        int[] count = sentThisMinute.get(recipient);
+        if (count == null) {
+            sentThisMinute.put(recipient, new int[]{1});
+            return true;
+        }
+        if (count[0] >= maxPerMinute) {
+            return false;
+        }
+        count[0]++;
+        return true;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("nodeId", nodeId);
+        stats.put("consumerRunning", running);
+        stats.put("subscribedTargets", usersByTarget.size());
+        stats.put("published", published.sum());
+        stats.put("delivered", delivered.sum());
+        stats.put("batches", batches.sum());
+        stats.put("coalesced", coalesced.sum());
+        stats.put("rateLimited", rateLimited.sum());
+        return stats;
+    }
+
+    private static Notification fromFields(String id, Map<String, String> fields) {
+        Notification n = new Notification();
+        n.setId(id);
+        n.setType(fields.get("type"));
+        n.setMessage(fields.get("message"));
+        n.setVehicleNumber(fields.get("vehicleNumber"));
+        n.setRoute(fields.get("route"));
+        n.setStopId(fields.get("stopId"));
+        n.setDedupKey(fields.get("dedupKey"));
+        n.setTimestamp(Long.parseLong(fields.getOrDefault("timestamp", "0")));
+        return n;
+    }
+
+    // Each recipient gets its own instance, since coalescing changes the count
+    private static Notification copy(Notification n) {
+        Notification c = new Notification();
+        c.setId(n.getId());
+        c.setType(n.getType());
+        c.setMessage(n.getMessage());
+        c.setVehicleNumber(n.getVehicleNumber());
+        c.setRoute(n.getRoute());
+        c.setStopId(n.getStopId());
+        c.setDedupKey(n.getDedupKey());
+        c.setTimestamp(n.getTimestamp());
+        return c;
+    }
+
+    private static void put(Map<String, String> fields, String name, String value) {
+        if (value != null) {
+            fields.put(name, value);
+        }
+    }
+}
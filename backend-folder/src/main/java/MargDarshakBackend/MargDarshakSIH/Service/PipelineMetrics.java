@@ -0,0 +1,129 @@
+package MargDarshakBackend.MargDarshakSIH.Service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+// Timers and gauges for the hot paths (location ingest, Redis, broadcast, JWT filter, schedule lookup).
+// Mongo command latency comes from the actuator's driver command listener (mongodb.driver.commands).
+// With metrics.enabled=false nothing is registered and start()/stop() reduce to a boolean check.
+@Service
+public class PipelineMetrics {
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Autowired
+    private EntityCacheService entityCache;
+
+    @Value("${metrics.enabled:true}")
+    private boolean enabled;
+
+    @Value("${metrics.histograms:true}")
+    private boolean histograms;
+
+    @Value("${metrics.active-window-seconds:120}")
+    private long activeWindowSeconds;
+
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+    private final Map<String, Long> vehicleLastSeen = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void init() {
+        if (!enabled) {
+            return;
+        }
+        Gauge.builder("location.active.vehicles", this, PipelineMetrics::activeVehicles)
+                .description("Vehicles that sent a fix within the active window")
+                .register(registry);
+        for (TwoLevelCache<?> cache : entityCache.caches()) {
+            Gauge.builder("cache.local.size", cache, TwoLevelCache::getLocalSize)
+                    .tag("cache", cache.getName()).register(registry);
+            Gauge.builder("cache.hit.ratio", cache, PipelineMetrics::hitRatio)
+                    .tag("cache", cache.getName()).register(registry);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Returns 0 when disabled so callers don't need their own check
+    public long start() {
+        return enabled ? System.nanoTime() : 0L;
+    }
+
+    public void stop(String name, long start, String... tags) {
+        if (!enabled) {
+            return;
+        }
+        timer(name, tags).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    public void record(String name, long nanos, String... tags) {
+        if (enabled) {
+            timer(name, tags).record(nanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    public <T> T time(String name, Supplier<T> call, String... tags) {
+        if (!enabled) {
+            return call.get();
+        }
+        long start = System.nanoTime();
+        try {
+            return call.get();
+        } finally {
+            stop(name, start, tags);
+        }
+    }
+
+    public void vehicleActive(String vehicleNumber) {
+        if (enabled) {
+            vehicleLastSeen.put(vehicleNumber, System.currentTimeMillis());
+        }
+    }
+
+    private Timer timer(String name, String... tags) {
+        String key = tags.length == 0 ? name : name + String.join(",", tags);
+        Timer timer = timers.get(key);
+        if (timer == null) {
+            timer = timers.computeIfAbsent(key, k -> Timer.builder(name)
+                    .tags(tags)
+                    .publishPercentileHistogram(histograms)
+                    .register(registry));
+        }
+        return timer;
+    }
+
+    // Prunes stale entries while counting so the map only holds recently active vehicles
+    private double activeVehicles() {
+        long cutoff = System.currentTimeMillis() - activeWindowSeconds * 1000;
+        int active = 0;
+        Iterator<Map.Entry<String, Long>> it = vehicleLastSeen.entrySet().iterator();
+        while (it.hasNext()) {
+            if (it.next().getValue() < cutoff) {
+                it.remove();
+            } else {
+                active++;
+            }
+        }
+        return active;
+    }
+
+    private static double hitRatio(TwoLevelCache<?> cache) {
+        long hits = cache.getLocalHits() + cache.getRedisHits();
+        long total = hits + cache.getMisses();
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+}
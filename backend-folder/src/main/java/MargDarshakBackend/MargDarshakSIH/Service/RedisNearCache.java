@@ -0,0 +1,234 @@
+package MargDarshakBackend.MargDarshakSIH.Service;
+
+import MargDarshakBackend.MargDarshakSIH.Utils.LruCache;
+import io.lettuce.core.RedisChannelHandler;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisConnectionStateListener;
+import io.lettuce.core.TrackingArgs;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.push.PushMessage;
+import io.lettuce.core.codec.ByteArrayCodec;
+import io.lettuce.core.codec.RedisCodec;
+import io.lettuce.core.codec.StringCodec;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import redis.clients.jedis.JedisPooled;
+
+import java.net.SocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+// Client-side cache for hot Redis reads (live locations, trip metadata).
+// Reads go through one RESP3 connection with CLIENT TRACKING on, so Redis remembers which keys this node
+// holds and pushes an "invalidate" message when any client writes one of them. Values live in a bounded
+// LRU until invalidated (or ttl-seconds as a safety net). While tracking is not active (startup, reconnect,
+// Redis down) reads fall back to the Jedis pool and nothing is cached.
+@Service
+public class RedisNearCache {
+    private static final Logger log = LoggerFactory.getLogger(RedisNearCache.class);
+
+    @Autowired
+    private RedisClient redisClient;
+
+    @Autowired
+    private JedisPooled jedis;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Autowired
+    private PipelineMetrics metrics;
+
+    @Value("${redis.near-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${redis.near-cache.max-entries:20000}")
+    private int maxEntries;
+
+    @Value("${redis.near-cache.ttl-seconds:300}")
+    private long ttlSeconds;
+
+    private LruCache<String, Object> local;
+    private StatefulRedisConnection<String, byte[]> connection;
+    private volatile boolean tracking;
+
+    // Invalidation generations, striped by key hash, plus one for whole-cache flushes. A read notes both before
+    // going to Redis and only keeps the value if neither moved, so an invalidation that lands mid-read wins.
+    private static final int GENERATION_STRIPES = 1024;
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+    private final AtomicLong flushes = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    private final LongAdder bypassed = new LongAdder();
+
+    @PostConstruct
+    void init() {
+        local = new LruCache<>(maxEntries, ttlSeconds * 1000);
+        if (metrics.isEnabled()) {
+            Gauge.builder("redis.nearcache.hit.ratio", this, RedisNearCache::hitRatio).register(registry);
+            Gauge.builder("redis.nearcache.size", local, LruCache::size).register(registry);
+            Gauge.builder("redis.nearcache.invalidations", invalidations, LongAdder::sum).register(registry);
+        }
+        if (!enabled) {
+            return;
+        }
+        redisClient.addListener(new RedisConnectionStateListener() {
+            @Override
+            public void onRedisConnected(RedisChannelHandler<?, ?> handler, SocketAddress address) {
+                if (connection != null) {
+                    // Reconnected: tracking state on the server is gone, re-enable it off the event loop
+                    enableTracking();
+                }
+            }
+
+            @Override
+            public void onRedisDisconnected(RedisChannelHandler<?, ?> handler) {
+                // Invalidations may be missed while disconnected
+                tracking = false;
+                flushes.incrementAndGet();
+                local.clear();
+            }
+        });
+        try {
+            connection = redisClient.connect(RedisCodec.of(StringCodec.UTF8, ByteArrayCodec.INSTANCE));
+            connection.addListener(this::onPush);
+            enableTracking();
+        } catch (Exception e) {
+            log.warn("Redis near-cache disabled, could not connect: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void close() {
+        if (connection != null) {
+            connection.close();
+        }
+    }
+
+    // The cached map is handed to every reader, so it is stored unmodifiable
+    public Map<String, String> hgetAll(String key) {
+        return read(key, k -> {
+            Map<String, byte[]> raw = connection.sync().hgetall(k);
+            Map<String, String> values = new HashMap<>(raw.size() * 2);
+            raw.forEach((field, value) -> values.put(field, new String(value, StandardCharsets.UTF_8)));
+            return Map.copyOf(values);
+        }, jedis::hgetAll);
+    }
+
+    public byte[] getBytes(String key) {
+        return read(key, k -> connection.sync().get(k),
+                k -> jedis.get(k.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T read(String key, Function<String, T> trackedRead, Function<String, T> directRead) {
+        if (!tracking) {
+            bypassed.increment();
+            return directRead.apply(key);
+        }
+        Object cached = local.get(key);
+        if (cached != null) {
+            hits.increment();
+            return (T) cached;
+        }
+        misses.increment();
+        int stripe = stripe(key);
+        long generation = generations.get(stripe);
+        long flush = flushes.get();
+        T value;
+        try {
+            value = trackedRead.apply(key);
+        } catch (Exception e) {
+            log.debug("Tracked read of {} failed, reading directly: {}", key, e.getMessage());
+            return directRead.apply(key);
+        }
+        if (value != null && tracking && unchanged(stripe, generation, flush)) {
+            local.put(key, value);
+            // onPush bumps the generation before removing, so re-checking after the put catches an
+            // invalidation that raced with it; dropping a fresh value here only costs one extra miss
+            if (!unchanged(stripe, generation, flush)) {
+                local.remove(key);
+            }
+        }
+        return value;
+    }
+
+    private boolean unchanged(int stripe, long generation, long flush) {
+        return generations.get(stripe) == generation && flushes.get() == flush;
+    }
+
+    private static int stripe(String key) {
+        return (key.hashCode() & 0x7fffffff) % GENERATION_STRIPES;
+    }
+
+    private void enableTracking() {
+        connection.async().clientTracking(TrackingArgs.Builder.enabled()).whenComplete((ok, e) -> {
+            if (e != null) {
+                log.warn("CLIENT TRACKING failed, near-cache bypassed: {}", e.getMessage());
+                tracking = false;
+                return;
+            }
+            flushes.incrementAndGet();
+            local.clear();
+            tracking = true;
+            log.info("Redis near-cache tracking enabled");
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private void onPush(PushMessage message) {
+        if (!"invalidate".equals(message.getType())) {
+            return;
+        }
+        List<Object> content = message.getContent(StringCodec.UTF8::decodeKey);
+        Object keys = content.size() > 1 ? content.get(1) : null;
+        if (keys == null) {
+            // Null payload: the server flushed its tracking table (FLUSHALL/FLUSHDB or tracking table overflow)
+            flushes.incrementAndGet();
+            local.clear();
+            invalidations.increment();
+            return;
+        }
+        for (Object key : (List<Object>) keys) {
+            String k = String.valueOf(key);
+            generations.incrementAndGet(stripe(k));
+            local.remove(k);
+            invalidations.increment();
+        }
+    }
+
+    private double hitRatio() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return total == 0 ? 0.0 : (double) h / total;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("tracking", tracking);
+        stats.put("hits", hits.sum());
+        stats.put("misses", misses.sum());
+        stats.put("hitRatio", hitRatio());
+        stats.put("bypassed", bypassed.sum());
+        stats.put("invalidations", invalidations.sum());
+        stats.put("localSize", local.size());
+        stats.put("evictions", local.evictions());
+        return stats;
+    }
+}
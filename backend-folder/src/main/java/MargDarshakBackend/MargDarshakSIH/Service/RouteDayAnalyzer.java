@@ -0,0 +1,252 @@
+package MargDarshakBackend.MargDarshakSIH.Service;
+
+import MargDarshakBackend.MargDarshakSIH.Utils.GeoUtils;
+import MargDarshakBackend.MargDarshakSIH.entity.RouteDailySummary;
+import MargDarshakBackend.MargDarshakSIH.entity.RouteDailySummary.StopHeadway;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+// The computation behind AnalyticsService, kept free of Spring and Mongo so it can be benchmarked on synthetic data.
+// Two parallel phases on the given pool: per trip (delays, and the time the bus passed each stop of its route,
+// taken from the trajectory point closest to the stop) and per route (delay distribution, headways between
+// consecutive passages at each stop, bunching). Trajectories and all series are primitive arrays.
+public class RouteDayAnalyzer {
+
+    private final double onTimeEarlyMinutes;
+    private final double onTimeLateMinutes;
+    private final double stopRadiusKm;
+    private final double bunchingRatio;
+    private final double bunchingMinutes;
+
+    public RouteDayAnalyzer(double onTimeEarlyMinutes, double onTimeLateMinutes, double stopRadiusMeters,
+                            double bunchingRatio, double bunchingMinutes) {
+        this.onTimeEarlyMinutes = onTimeEarlyMinutes;
+        this.onTimeLateMinutes = onTimeLateMinutes;
+        this.stopRadiusKm = stopRadiusMeters / 1000;
+        this.bunchingRatio = bunchingRatio;
+        this.bunchingMinutes = bunchingMinutes;
+    }
+
+    public List<RouteDailySummary> analyze(LocalDate date, List<TripSeries> trips, Map<String, RouteInfo> routes, ForkJoinPool pool) {
+        Map<String, List<TripResult>> byRoute = pool.submit(() -> trips.parallelStream()
+                .filter(t -> routes.containsKey(t.route))
+                .map(t -> trip(t, routes.get(t.route)))
+                .collect(Collectors.groupingByConcurrent(r -> r.route))).join();
+        LocalDateTime generatedAt = LocalDateTime.now();
+        return pool.submit(() -> byRoute.entrySet().parallelStream()
+                .map(e -> route(date, routes.get(e.getKey()), e.getValue(), generatedAt))
+                .sorted((a, b) -> a.getRoute().compareTo(b.getRoute()))
+                .toList()).join();
+    }
+
+    TripResult trip(TripSeries t, RouteInfo route) {
+        long[] passages = new long[route.stopLats.length];
+        double padLat = GeoUtils.metersToLatDegrees(stopRadiusKm * 1000);
+        for (int s = 0; s < passages.length; s++) {
+            double best = stopRadiusKm;
+            long at = Long.MIN_VALUE;
+            double padLon = GeoUtils.metersToLonDegrees(stopRadiusKm * 1000, route.stopLats[s]);
+            for (int i = 0; i < t.times.length; i++) {
+                // Cheap box test first; most points are nowhere near the stop
+                if (Math.abs(t.lats[i] - route.stopLats[s]) > padLat || Math.abs(t.lons[i] - route.stopLons[s]) > padLon) {
+                    continue;
+                }
+                double d = GeoUtils.haversineKm(t.lats[i], t.lons[i], route.stopLats[s], route.stopLons[s]);
+                if (d <= best) {
+                    best = d;
+                    at = t.times[i];
+                }
+            }
+            passages[s] = at;
+        }
+        double startDelay = t.scheduledStart == Long.MIN_VALUE || t.firstFix == Long.MIN_VALUE
+                ? Double.NaN : (t.firstFix - t.scheduledStart) / 60_000.0;
+        double endDelay = t.scheduledEnd == Long.MIN_VALUE || t.lastFix == Long.MIN_VALUE || !t.completed
+                ? Double.NaN : (t.lastFix - t.scheduledEnd) / 60_000.0;
+        return new TripResult(t.route, t.completed, t.distanceKm, startDelay, endDelay, passages);
+    }
+
+    RouteDailySummary route(LocalDate date, RouteInfo route, List<TripResult> results, LocalDateTime generatedAt) {
+        int n = results.size();
+        double[] startDelays = new double[n];
+        double[] endDelays = new double[n];
+        int starts = 0, ends = 0, completed = 0;
+        double distance = 0;
+        for (TripResult r : results) {
+            if (!Double.isNaN(r.startDelay)) {
+                startDelays[starts++] = r.startDelay;
+            }
+            if (!Double.isNaN(r.endDelay)) {
+                endDelays[ends++] = r.endDelay;
+            }
+            if (r.completed) {
+                completed++;
+            }
+            distance += r.distanceKm;
+        }
+
+        double bunchingThreshold = Double.isNaN(route.scheduledHeadwayMinutes)
+                ? bunchingMinutes : route.scheduledHeadwayMinutes * bunchingRatio;
+        List<StopHeadway> stops = new ArrayList<>(route.stopIds.length);
+        long[] passages = new long[n];
+        double[] headways = new double[Math.max(0, n - 1)];
+        int observations = 0, bunching = 0, cvObservations = 0;
+        double headwaySum = 0, cvWeighted = 0;
+        for (int s = 0; s < route.stopIds.length; s++) {
+            int count = 0;
+            for (TripResult r : results) {
+                if (r.passages[s] != Long.MIN_VALUE) {
+                    passages[count++] = r.passages[s];
+                }
+            }
+            Arrays.sort(passages, 0, count);
+            int h = 0, bunched = 0;
+            double sum = 0;
+            for (int i = 1; i < count; i++) {
+                headways[h] = (passages[i] - passages[i - 1]) / 60_000.0;
+                sum += headways[h];
+                if (headways[h] < bunchingThreshold) {
+                    bunched++;
+                }
+                h++;
+            }
+            Double mean = h == 0 ? null : sum / h;
+            Double cv = h < 2 || sum == 0 ? null : stddev(headways, h, sum / h) / (sum / h);
+            stops.add(new StopHeadway(route.stopIds[s], count, round(mean), round(cv), bunched));
+            observations += h;
+            bunching += bunched;
+            headwaySum += sum;
+            if (cv != null) {
+                cvWeighted += cv * h;
+                cvObservations += h;
+            }
+        }
+
+        RouteDailySummary summary = new RouteDailySummary();
+        summary.setId(route.key + "|" + date);
+        summary.setRoute(route.key);
+        summary.setRouteName(route.name);
+        summary.setDate(date);
+        summary.setTrips(n);
+        summary.setCompleted(completed);
+        summary.setAbandoned(n - completed);
+        summary.setDistanceKm(round(distance));
+        summary.setOnTimeStartPct(onTimePct(startDelays, starts));
+        summary.setMeanStartDelayMinutes(round(mean(startDelays, starts)));
+        summary.setP90StartDelayMinutes(round(percentile(startDelays, starts, 0.9)));
+        summary.setOnTimeEndPct(onTimePct(endDelays, ends));
+        summary.setMeanEndDelayMinutes(round(mean(endDelays, ends)));
+        summary.setP90EndDelayMinutes(round(percentile(endDelays, ends, 0.9)));
+        summary.setScheduledHeadwayMinutes(Double.isNaN(route.scheduledHeadwayMinutes) ? null : round(route.scheduledHeadwayMinutes));
+        summary.setMeanHeadwayMinutes(observations == 0 ? null : round(headwaySum / observations));
+        summary.setHeadwayCv(cvObservations == 0 ? null : round(cvWeighted / cvObservations));
+        summary.setHeadwayObservations(observations);
+        summary.setBunchingEvents(bunching);
+        summary.setStops(stops);
+        summary.setGeneratedAt(generatedAt);
+        return summary;
+    }
+
+    private Double onTimePct(double[] delays, int n) {
+        if (n == 0) {
+            return null;
+        }
+        int onTime = 0;
+        for (int i = 0; i < n; i++) {
+            if (delays[i] >= -onTimeEarlyMinutes && delays[i] <= onTimeLateMinutes) {
+                onTime++;
+            }
+        }
+        return round(100.0 * onTime / n);
+    }
+
+    private static Double mean(double[] values, int n) {
+        if (n == 0) {
+            return null;
+        }
+        double sum = 0;
+        for (int i = 0; i < n; i++) {
+            sum += values[i];
+        }
+        return sum / n;
+    }
+
+    // Nearest-rank; sorts the first n values in place
+    private static Double percentile(double[] values, int n, double p) {
+        if (n == 0) {
+            return null;
+        }
+        Arrays.sort(values, 0, n);
+        return values[Math.min(n - 1, (int) Math.ceil(p * n) - 1)];
+    }
+
+    private static double stddev(double[] values, int n, double mean) {
+        double sq = 0;
+        for (int i = 0; i < n; i++) {
+            sq += (values[i] - mean) * (values[i] - mean);
+        }
+        return Math.sqrt(sq / n);
+    }
+
+    private static Double round(Double value) {
+        return value == null ? null : Math.round(value * 100) / 100.0;
+    }
+
+    // One archived trip as primitive series. Unknown times are Long.MIN_VALUE.
+    public static final class TripSeries {
+        final String route;
+        final boolean completed;
+        final double distanceKm;
+        final long scheduledStart;
+        final long scheduledEnd;
+        final long firstFix;
+        final long lastFix;
+        final double[] lats;
+        final double[] lons;
+        final long[] times;
+
+        public TripSeries(String route, boolean completed, double distanceKm, long scheduledStart, long scheduledEnd,
+                          long firstFix, long lastFix, double[] lats, double[] lons, long[] times) {
+            this.route = route;
+            this.completed = completed;
+            this.distanceKm = distanceKm;
+            this.scheduledStart = scheduledStart;
+            this.scheduledEnd = scheduledEnd;
+            this.firstFix = firstFix;
+            this.lastFix = lastFix;
+            this.lats = lats;
+            this.lons = lons;
+            this.times = times;
+        }
+    }
+
+    // A route's stops in order and its scheduled headway (NaN when it has fewer than two departures)
+    public static final class RouteInfo {
+        final String key;
+        final String name;
+        final String[] stopIds;
+        final double[] stopLats;
+        final double[] stopLons;
+        final double scheduledHeadwayMinutes;
+
+        public RouteInfo(String key, String name, String[] stopIds, double[] stopLats, double[] stopLons,
+                         double scheduledHeadwayMinutes) {
+            this.key = key;
+            this.name = name;
+            this.stopIds = stopIds;
+            this.stopLats = stopLats;
+            this.stopLons = stopLons;
+            this.scheduledHeadwayMinutes = scheduledHeadwayMinutes;
+        }
+    }
+
+    record TripResult(String route, boolean completed, double distanceKm, double startDelay, double endDelay, long[] passages) {
+    }
+}
@@ -0,0 +1,304 @@
+package MargDarshakBackend.MargDarshakSIH.Service;
+
+import MargDarshakBackend.MargDarshakSIH.Model.Stop;
+import MargDarshakBackend.MargDarshakSIH.Repository.RouteShapeRepository;
+import MargDarshakBackend.MargDarshakSIH.Schedule.ScheduleLoader;
+import MargDarshakBackend.MargDarshakSIH.Service.RouteNetwork.Network;
+import MargDarshakBackend.MargDarshakSIH.Utils.GeoUtils;
+import MargDarshakBackend.MargDarshakSIH.Utils.LineSimplifier;
+import MargDarshakBackend.MargDarshakSIH.Utils.PolylineCodec;
+import MargDarshakBackend.MargDarshakSIH.entity.RouteShape;
+import MargDarshakBackend.MargDarshakSIH.entity.TripSchedule;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+// Route shapes for the map. A route's shape comes from, in order: an imported polyline or GTFS shapes.txt
+// (Mongo route_shapes, keyed by normalized route), or straight lines between its stops (RouteNetwork).
+// Each shape is simplified once per zoom level (routes.shape-levels = minZoom:toleranceMeters,...) and
+// encoded as a Google polyline; the per-level JSON is serialised up front. The version is a hash of the
+// shape and the level spec, so a versioned shape URL never changes content and can be cached as immutable.
+// Rebuilt on import, when schedules/stops change, and periodically to pick up other nodes' imports.
+@Service
+public class RouteGeometryService {
+    private static final Logger log = LoggerFactory.getLogger(RouteGeometryService.class);
+
+    @Autowired
+    private RouteShapeRepository shapeRepository;
+
+    @Autowired
+    private RouteNetwork routeNetwork;
+
+    @Autowired
+    private ScheduleLoader scheduleLoader;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${routes.shape-levels:0:2000,8:500,11:100,14:20,16:0}")
+    private String levelSpec;
+
+    private volatile Cache cache = new Cache(null, List.of(), Map.of(), Map.of());
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void init() {
+        refresh();
+    }
+
+    @Scheduled(fixedDelayString = "${routes.shape-refresh-ms:300000}", initialDelayString = "${routes.shape-refresh-ms:300000}")
+    public synchronized void refresh() {
+        rebuild(shapeRepository.findAll());
+    }
+
+    // Accepts any route alias: full stop list, origin→destination, origin-destination or tripId
+    public Optional<Geometry> geometry(String routeId) {
+        Cache c = current();
+        String key = ScheduleLoader.normalizeRoute(routeId);
+        return Optional.ofNullable(c.geometries.get(c.aliases.getOrDefault(key, key)));
+    }
+
+    public synchronized Geometry importShape(String routeId, double[] lats, double[] lons) {
+        String key = resolve(routeId);
+        RouteShape shape = new RouteShape(key, "import", PolylineCodec.encode(lats, lons), lats.length, LocalDateTime.now());
+        shapeRepository.save(shape);
+        List<RouteShape> shapes = new ArrayList<>(cache.shapes);
+        shapes.removeIf(s -> s.getId().equals(key));
+        shapes.add(shape);
+        rebuild(shapes);
+        return cache.geometries.get(key);
+    }
+
+    // GTFS shapes.txt (shape_id, shape_pt_lat, shape_pt_lon, shape_pt_sequence, any column order).
+    // shape_id is matched against route aliases, so name shapes after the route or one of its trip ids.
+    public synchronized int importGtfs(InputStream in) throws IOException {
+        Map<String, TreeMap<Integer, double[]>> points = new LinkedHashMap<>();
+        try (BufferedReader br = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            String header = br.readLine();
+            if (header == null) {
+                return 0;
+            }
+            List<String> columns = Arrays.stream(header.replace("\uFEFF", "").split(",")).map(String::trim).toList();
+            int idCol = columns.indexOf("shape_id");
+            int latCol = columns.indexOf("shape_pt_lat");
+            int lonCol = columns.indexOf("shape_pt_lon");
+            int seqCol = columns.indexOf("shape_pt_sequence");
+            if (idCol < 0 || latCol < 0 || lonCol < 0 || seqCol < 0) {
+                throw new IllegalArgumentException("shapes.txt needs shape_id, shape_pt_lat, shape_pt_lon and shape_pt_sequence columns");
+            }
+            int needed = Math.max(Math.max(idCol, latCol), Math.max(lonCol, seqCol)) + 1;
+            String line;
+            int lineNumber = 1;
+            while ((line = br.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                String[] data = line.split(",", -1);
+                if (data.length < needed) {
+                    throw new IllegalArgumentException("line " + lineNumber + " has " + data.length + " columns, expected " + needed);
+                }
+                try {
+                    points.computeIfAbsent(data[idCol].trim(), k -> new TreeMap<>())
+                            .put(Integer.parseInt(data[seqCol].trim()),
+                                    new double[]{Double.parseDouble(data[latCol].trim()), Double.parseDouble(data[lonCol].trim())});
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("line " + lineNumber + ": " + e.getMessage());
+                }
+            }
+        }
+        Map<String, RouteShape> byKey = new HashMap<>();
+        for (RouteShape s : cache.shapes) {
+            byKey.put(s.getId(), s);
+        }
+        List<RouteShape> imported = new ArrayList<>();
+        points.forEach((shapeId, sequence) -> {
+            if (sequence.size() < 2) {
+                return;
+            }
+            double[] lats = new double[sequence.size()];
+            double[] lons = new double[sequence.size()];
+            int i = 0;
+            for (double[] p : sequence.values()) {
+                lats[i] = p[0];
+                lons[i++] = p[1];
+            }
+            RouteShape shape = new RouteShape(resolve(shapeId), "gtfs", PolylineCodec.encode(lats, lons), lats.length, LocalDateTime.now());
+            imported.add(shape);
+            byKey.put(shape.getId(), shape);
+        });
+        shapeRepository.saveAll(imported);
+        rebuild(new ArrayList<>(byKey.values()));
+        return imported.size();
+    }
+
+    private String resolve(String routeId) {
+        String key = ScheduleLoader.normalizeRoute(routeId);
+        return current().aliases.getOrDefault(key, key);
+    }
+
+    private Cache current() {
+        Cache c = cache;
+        if (c.network != routeNetwork.current()) {
+            synchronized (this) {
+                if (cache.network != routeNetwork.current()) {
+                    rebuild(cache.shapes);
+                }
+                c = cache;
+            }
+        }
+        return c;
+    }
+
+    private void rebuild(List<RouteShape> shapes) {
+        Network network = routeNetwork.current();
+        List<Level> levels = parseLevels(levelSpec);
+        Map<String, String> aliases = new HashMap<>();
+        Map<String, TripSchedule> scheduleByRoute = new HashMap<>();
+        for (List<TripSchedule> vehicleSchedules : scheduleLoader.getSchedules().values()) {
+            for (TripSchedule s : vehicleSchedules) {
+                String key = ScheduleLoader.normalizeRoute(s.getRoute());
+                scheduleByRoute.putIfAbsent(key, s);
+                for (String alias : ScheduleLoader.routeKeys(s)) {
+                    aliases.putIfAbsent(alias, key);
+                }
+            }
+        }
+        Map<String, RouteShape> stored = new HashMap<>();
+        for (RouteShape s : shapes) {
+            stored.put(s.getId(), s);
+        }
+        Map<String, Geometry> geometries = new HashMap<>();
+        for (String key : network.routes()) {
+            TripSchedule schedule = scheduleByRoute.get(key);
+            List<Stop> stops = network.stopsOf(key);
+            RouteShape shape = stored.get(key);
+            double[][] points;
+            String source;
+            if (shape != null) {
+                points = PolylineCodec.decode(shape.getPolyline());
+                source = shape.getSource();
+            } else {
+                points = new double[2][stops.size()];
+                for (int i = 0; i < stops.size(); i++) {
+                    points[0][i] = stops.get(i).getLat();
+                    points[1][i] = stops.get(i).getLon();
+                }
+                source = "stops";
+            }
+            if (points[0].length >= 2) {
+                geometries.put(key, build(key, schedule == null ? key : schedule.getRoute(), source, points, stops, schedule, levels));
+            }
+        }
+        // Imported shapes for routes that aren't (yet) in the schedules are still served under their own key
+        for (RouteShape shape : shapes) {
+            if (!geometries.containsKey(shape.getId())) {
+                geometries.put(shape.getId(), build(shape.getId(), shape.getId(), shape.getSource(),
+                        PolylineCodec.decode(shape.getPolyline()), List.of(), null, levels));
+            }
+        }
+        cache = new Cache(network, List.copyOf(shapes), aliases, geometries);
+        log.info("Route geometry: {} routes ({} stored shapes)", geometries.size(), shapes.size());
+    }
+
+    private Geometry build(String key, String name, String source, double[][] points, List<Stop> stops,
+                           TripSchedule schedule, List<Level> levelSpecs) {
+        String full = PolylineCodec.encode(points[0], points[1]);
+        String version = hex(sha256(source + "|" + levelSpec + "|" + full)).substring(0, 16);
+        double lengthKm = 0;
+        for (int i = 1; i < points[0].length; i++) {
+            lengthKm += GeoUtils.haversineKm(points[0][i - 1], points[1][i - 1], points[0][i], points[1][i]);
+        }
+        Long estimatedMinutes = null;
+        if (schedule != null && schedule.getStartTime() != null && schedule.getEndTime() != null) {
+            long minutes = Duration.between(schedule.getStartTime(), schedule.getEndTime()).toMinutes();
+            estimatedMinutes = minutes >= 0 ? minutes : minutes + 24 * 60;
+        }
+        List<Level> levels = new ArrayList<>(levelSpecs.size());
+        for (Level spec : levelSpecs) {
+            double[][] simplified = LineSimplifier.simplify(points[0], points[1], spec.toleranceMeters);
+            String polyline = PolylineCodec.encode(simplified[0], simplified[1]);
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("routeId", key);
+            body.put("version", version);
+            body.put("minZoom", spec.minZoom);
+            body.put("toleranceMeters", spec.toleranceMeters);
+            body.put("pointCount", simplified[0].length);
+            body.put("polyline", polyline);
+            try {
+                levels.add(new Level(spec.minZoom, spec.toleranceMeters, simplified[0].length, polyline, objectMapper.writeValueAsBytes(body)));
+            } catch (Exception e) {
+                throw new IllegalStateException("Failed to serialise shape level for " + key, e);
+            }
+        }
+        return new Geometry(key, name, source, version, lengthKm, estimatedMinutes, points[0].length, List.copyOf(stops), List.copyOf(levels));
+    }
+
+    // "0:2000,8:500,..." -> levels sorted by minZoom
+    static List<Level> parseLevels(String spec) {
+        List<Level> levels = new ArrayList<>();
+        for (String part : spec.split(",")) {
+            String[] kv = part.trim().split(":");
+            levels.add(new Level(Integer.parseInt(kv[0].trim()), Double.parseDouble(kv[1].trim()), 0, null, null));
+        }
+        levels.sort((a, b) -> Integer.compare(a.minZoom, b.minZoom));
+        return levels;
+    }
+
+    private static byte[] sha256(String value) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String hex(byte[] bytes) {
+        return HexFormat.of().formatHex(bytes);
+    }
+
+    public record Geometry(String routeId, String routeName, String source, String version, double lengthKm,
+                           Long estimatedMinutes, int pointCount, List<Stop> stops, List<Level> levels) {
+
+        // The most detailed level whose minZoom is at or below zoom (the coarsest one below the first minZoom)
+        public Level level(int zoom) {
+            Level chosen = levels.get(0);
+            for (Level level : levels) {
+                if (level.minZoom <= zoom) {
+                    chosen = level;
+                }
+            }
+            return chosen;
+        }
+    }
+
+    public record Level(int minZoom, double toleranceMeters, int pointCount, String polyline, byte[] json) {
+    }
+
+    private record Cache(Network network, List<RouteShape> shapes, Map<String, String> aliases, Map<String, Geometry> geometries) {
+    }
+}
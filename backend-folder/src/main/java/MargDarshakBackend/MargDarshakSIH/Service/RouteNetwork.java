@@ -0,0 +1,176 @@
+package MargDarshakBackend.MargDarshakSIH.Service;
+
+import MargDarshakBackend.MargDarshakSIH.Model.Stop;
+import MargDarshakBackend.MargDarshakSIH.Schedule.ScheduleLoader;
+import MargDarshakBackend.MargDarshakSIH.Schedule.StopLoader;
+import MargDarshakBackend.MargDarshakSIH.Utils.GeoUtils;
+import MargDarshakBackend.MargDarshakSIH.entity.TripSchedule;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Route geometry derived from TripSchedule.route ("A→B→C") with stop coordinates from stops.csv.
+// Consecutive stops form directed segments that are shared by every route running between the same two stops.
+// Rebuilt (immutable) when ScheduleLoader or StopLoader swaps in new data. Stops missing from stops.csv
+// are skipped, so the segment then joins the stops on either side of them.
+@Service
+public class RouteNetwork {
+    private static final Logger log = LoggerFactory.getLogger(RouteNetwork.class);
+
+    @Autowired
+    private ScheduleLoader scheduleLoader;
+
+    @Autowired
+    private StopLoader stopLoader;
+
+    private Object schedulesSource;
+    private Object stopsSource;
+    private volatile Network network = new Network(List.of(), Map.of(), Map.of());
+
+    public Network current() {
+        Map<String, List<TripSchedule>> schedules = scheduleLoader.getSchedules();
+        Map<String, Stop> stops = stopLoader.getStops();
+        if (schedules != schedulesSource || stops != stopsSource) {
+            synchronized (this) {
+                if (schedules != schedulesSource || stops != stopsSource) {
+                    network = Network.build(schedules, stops);
+                    schedulesSource = schedules;
+                    stopsSource = stops;
+                    log.info("Route network: {} routes, {} segments", network.stopsByRoute.size(), network.segments.size());
+                }
+            }
+        }
+        return network;
+    }
+
+    public static final class Network {
+        private final List<Segment> segments;
+        private final Map<String, List<Segment>> segmentsByRoute;
+        private final Map<String, List<Stop>> stopsByRoute;
+
+        private Network(List<Segment> segments, Map<String, List<Segment>> segmentsByRoute, Map<String, List<Stop>> stopsByRoute) {
+            this.segments = segments;
+            this.segmentsByRoute = segmentsByRoute;
+            this.stopsByRoute = stopsByRoute;
+        }
+
+        public List<Segment> segments() {
+            return segments;
+        }
+
+        // Keyed by ScheduleLoader.normalizeRoute(route)
+        public List<Segment> segmentsOf(String route) {
+            return segmentsByRoute.getOrDefault(ScheduleLoader.normalizeRoute(route), List.of());
+        }
+
+        public List<Stop> stopsOf(String route) {
+            return stopsByRoute.getOrDefault(ScheduleLoader.normalizeRoute(route), List.of());
+        }
+
+        public Set<String> routes() {
+            return stopsByRoute.keySet();
+        }
+
+        static Network build(Map<String, List<TripSchedule>> schedules, Map<String, Stop> stops) {
+            Map<String, Stop> byName = new HashMap<>();
+            for (Stop stop : stops.values()) {
+                byName.put(stop.getName().toLowerCase(), stop);
+                byName.put(stop.getStopId().toLowerCase(), stop);
+            }
+            Map<String, Segment> segmentsById = new LinkedHashMap<>();
+            Map<String, List<Segment>> segmentsByRoute = new LinkedHashMap<>();
+            Map<String, List<Stop>> stopsByRoute = new LinkedHashMap<>();
+            for (List<TripSchedule> vehicleSchedules : schedules.values()) {
+                for (TripSchedule s : vehicleSchedules) {
+                    String key = ScheduleLoader.normalizeRoute(s.getRoute());
+                    if (key.isEmpty() || stopsByRoute.containsKey(key)) {
+                        continue;
+                    }
+                    List<Stop> path = new ArrayList<>();
+                    for (String name : s.getRoute().replace("->", "→").split("→")) {
+                        Stop stop = byName.get(name.trim().toLowerCase());
+                        if (stop != null) {
+                            path.add(stop);
+                        }
+                    }
+                    List<Segment> routeSegments = new ArrayList<>();
+                    for (int i = 1; i < path.size(); i++) {
+                        Stop from = path.get(i - 1);
+                        Stop to = path.get(i);
+                        Segment segment = segmentsById.computeIfAbsent(from.getStopId() + "→" + to.getStopId(),
+                                id -> new Segment(segmentsById.size(), id, from, to));
+                        segment.routes.add(key);
+                        routeSegments.add(segment);
+                    }
+                    stopsByRoute.put(key, List.copyOf(path));
+                    segmentsByRoute.put(key, List.copyOf(routeSegments));
+                }
+            }
+            return new Network(List.copyOf(segmentsById.values()), segmentsByRoute, stopsByRoute);
+        }
+    }
+
+    public static final class Segment {
+        private final int index;
+        private final String id;
+        private final Stop from;
+        private final Stop to;
+        private final double lengthKm;
+        private final double bearing;
+        private final Set<String> routes = new LinkedHashSet<>();
+
+        Segment(int index, String id, Stop from, Stop to) {
+            this.index = index;
+            this.id = id;
+            this.from = from;
+            this.to = to;
+            this.lengthKm = GeoUtils.haversineKm(from.getLat(), from.getLon(), to.getLat(), to.getLon());
+            this.bearing = GeoUtils.bearingDegrees(from.getLat(), from.getLon(), to.getLat(), to.getLon());
+        }
+
+        // Dense index within its Network, for array-backed per-segment state
+        public int index() {
+            return index;
+        }
+
+        public String id() {
+            return id;
+        }
+
+        public Stop from() {
+            return from;
+        }
+
+        public Stop to() {
+            return to;
+        }
+
+        public double lengthKm() {
+            return lengthKm;
+        }
+
+        // Direction of travel from `from` to `to`, degrees from north; the reverse trip is a separate segment
+        public double bearingDegrees() {
+            return bearing;
+        }
+
+        public Set<String> routes() {
+            return Collections.unmodifiableSet(routes);
+        }
+
+        // Distance from the point to the segment, in a local equirectangular projection (fine at route scale)
+        public double distanceKm(double lat, double lon) {
+            return GeoUtils.distanceToSegmentKm(lat, lon, from.getLat(), from.getLon(), to.getLat(), to.getLon());
+        }
+    }
+}
@@ -0,0 +1,373 @@
+package MargDarshakBackend.MargDarshakSIH.Service;
+
+import MargDarshakBackend.MargDarshakSIH.Model.CrowdingBand;
+import MargDarshakBackend.MargDarshakSIH.Repository.VehicleRepository;
+import MargDarshakBackend.MargDarshakSIH.dto.OccupancyEvent;
+import MargDarshakBackend.MargDarshakSIH.dto.SeatOccupancyResponse;
+import MargDarshakBackend.MargDarshakSIH.dto.ShardMessage;
+import MargDarshakBackend.MargDarshakSIH.entity.SeatOccupancy;
+import MargDarshakBackend.MargDarshakSIH.entity.Vehicle;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import redis.clients.jedis.JedisPooled;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Live seat occupancy per bus. Occupied and women-occupied counts are packed into one AtomicLong
+// so a boarding/alighting event is a single CAS with no locks. Mongo is written in batches by a
+// scheduled flush, and STOMP subscribers on /topic/occupancy/{busId} only hear about a bus when its
+// crowding band changes, not on every event (only those rare broadcasts take a per-bus lock).
+// With sharding on, any node may receive a bus's writes, so the counts live in Redis instead (hash
+// occupancy:{busId}): each event or update is one Lua script call that clamps and stores atomically and
+// returns the counts before and after. Written bus ids go into a Redis set that whichever node flushes
+// next drains into Mongo. Band changes are broadcast to every node's local subscribers, tagged with the
+// hash's version so a node that receives them out of order only announces the newest.
+@Service
+public class SeatOccupancyService {
+    private static final Logger log = LoggerFactory.getLogger(SeatOccupancyService.class);
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private VehicleRepository vehicleRepository;
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Autowired
+    private ShardMembership membership;
+
+    @Autowired
+    private JedisPooled jedis;
+
+    @Autowired
+    private RedisNearCache nearCache;
+
+    @Value("${occupancy.default-seats:40}")
+    private int defaultSeats;
+
+    static final String SHARED_PREFIX = "occupancy:";
+    static final String SHARED_DIRTY = "occupancy:dirty";
+    private static final int SHARED_FLUSH_BATCH = 500;
+
+    // KEYS: hash, dirty set. ARGV: mode (delta|set), occupied, women, default seats, now, total seats, bus id.
+    // In set mode an empty occupied/women/total leaves that count unchanged.
+    // Returns {total before, occupied before, total, occupied, women, version}.
+    private static final String SHARED_UPDATE_SCRIPT = String.join("\n",
+            "local current = redis.call('hmget', KEYS[1], 'total', 'occupied', 'women')",
+            "local total = tonumber(current[1] or ARGV[4])",
+            "local occupied = tonumber(current[2] or '0')",
+            "local women = tonumber(current[3] or '0')",
+            "local totalBefore, occupiedBefore = total, occupied",
+            "if ARGV[1] == 'delta' then",
+            "  occupied = math.max(0, occupied + tonumber(ARGV[2]))",
+            "  women = math.max(0, math.min(occupied, women + tonumber(ARGV[3])))",
+            "else",
+            "  if ARGV[2] ~= '' then occupied = math.max(0, tonumber(ARGV[2])) end",
+            "  if ARGV[3] ~= '' then women = math.max(0, tonumber(ARGV[3])) end",
+            "  women = math.min(occupied, women)",
+            "  if ARGV[6] ~= '' and tonumber(ARGV[6]) > 0 then total = tonumber(ARGV[6]) end",
+            "end",
+            "local version = redis.call('hincrby', KEYS[1], 'version', 1)",
+            "redis.call('hset', KEYS[1], 'total', total, 'occupied', occupied, 'women', women, 'updated', ARGV[5])",
+            "redis.call('sadd', KEYS[2], ARGV[7])",
+            "return {totalBefore, occupiedBefore, total, occupied, women, version}");
+
+    private final ConcurrentHashMap<String, BusOccupancy> buses = new ConcurrentHashMap<>();
+    // Shared mode: seats for buses not yet in Redis, and the newest band version announced per bus
+    private final ConcurrentHashMap<String, Integer> seatsByBus = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Long> announcedVersions = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void init() {
+        membership.onBroadcast(ShardMessage.OCCUPANCY, m -> deliverBand(m.getOccupancy(), m.getVersion()));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (membership.isEnabled()) {
+            seedShared();
+            return;
+        }
+        for (SeatOccupancy saved : mongoTemplate.findAll(SeatOccupancy.class)) {
+            BusOccupancy bus = new BusOccupancy(saved.getBusId(), saved.getTotalSeats());
+            bus.state.set(pack(saved.getOccupiedSeats(), saved.getWomenSeatsOccupied()));
+            bus.lastUpdated = saved.getLastUpdated();
+            bus.band.set(CrowdingBand.of(saved.getOccupiedSeats(), saved.getTotalSeats()).ordinal());
+            buses.put(saved.getBusId(), bus);
+        }
+        log.info("Loaded occupancy for {} buses", buses.size());
+    }
+
+    public SeatOccupancyResponse get(String busId) {
+        if (membership.isEnabled()) {
+            Map<String, String> shared = nearCache.hgetAll(SHARED_PREFIX + busId);
+            return shared.isEmpty() ? null : sharedSnapshot(busId, shared);
+        }
+        BusOccupancy bus = buses.get(busId);
+        return bus == null ? null : bus.snapshot();
+    }
+
+    public SeatOccupancyResponse applyEvent(OccupancyEvent event) {
+        int delta = event.getBoarded() - event.getAlighted();
+        int womenDelta = event.getWomenBoarded() - event.getWomenAlighted();
+        if (membership.isEnabled()) {
+            return updateShared(event.getBusId(), "delta", String.valueOf(delta), String.valueOf(womenDelta), "");
+        }
+        BusOccupancy bus = bus(event.getBusId());
+        long updated = bus.state.updateAndGet(current -> {
+            int occupied = Math.max(0, occupied(current) + delta);
+            int women = Math.max(0, Math.min(occupied, women(current) + womenDelta));
+            return pack(occupied, women);
+        });
+        return changed(bus, updated);
+    }
+
+    // Absolute update (POST /api/buses/{busId}/occupancy); null fields are left unchanged
+    public SeatOccupancyResponse set(String busId, Integer totalSeats, Integer occupiedSeats, Integer womenSeatsOccupied) {
+        if (membership.isEnabled()) {
+            return updateShared(busId, "set", occupiedSeats == null ? "" : occupiedSeats.toString(),
+                    womenSeatsOccupied == null ? "" : womenSeatsOccupied.toString(), totalSeats == null ? "" : totalSeats.toString());
+        }
+        BusOccupancy bus = bus(busId);
+        if (totalSeats != null && totalSeats > 0) {
+            bus.totalSeats = totalSeats;
+        }
+        long updated = bus.state.updateAndGet(current -> {
+            int occupied = occupiedSeats != null ? Math.max(0, occupiedSeats) : occupied(current);
+            int women = womenSeatsOccupied != null ? Math.max(0, womenSeatsOccupied) : women(current);
+            return pack(occupied, Math.min(occupied, women));
+        });
+        return changed(bus, updated);
+    }
+
+    private SeatOccupancyResponse changed(BusOccupancy bus, long state) {
+        bus.lastUpdated = System.currentTimeMillis();
+        bus.dirty.set(true);
+        announceBand(bus);
+        return bus.snapshot(state);
+    }
+
+    // Claims a band change with a CAS loop that recomputes the band from the latest state, so racing events
+    // can't leave subscribers on a stale band. Sends are serialized per bus and skipped once a newer change has
+    // been claimed, since that claimer sends the newer band itself.
+    private void announceBand(BusOccupancy bus) {
+        while (true) {
+            int previous = bus.band.get();
+            int band = CrowdingBand.of(occupied(bus.state.get()), bus.totalSeats).ordinal();
+            if (band == previous) {
+                return;
+            }
+            if (bus.band.compareAndSet(previous, band)) {
+                synchronized (bus) {
+                    if (bus.band.get() == band) {
+                        messagingTemplate.convertAndSend("/topic/occupancy/" + bus.busId, bus.snapshot());
+                    }
+                }
+                return;
+            }
+        }
+    }
+
+    private BusOccupancy bus(String busId) {
+        BusOccupancy bus = buses.get(busId);
+        if (bus != null) {
+            return bus;
+        }
+        // First event for an unknown bus: take capacity from its registered vehicle, once
+        int seats = registeredSeats(busId);
+        return buses.computeIfAbsent(busId, id -> new BusOccupancy(id, seats));
+    }
+
+    private int registeredSeats(String busId) {
+        return vehicleRepository.findFirstByVehicleNumber(busId)
+                .map(Vehicle::getSeatingCapacity)
+                .filter(capacity -> capacity != null && capacity > 0)
+                .orElse(defaultSeats);
+    }
+
+    // ---- shared (sharding) mode ----
+
+    private SeatOccupancyResponse updateShared(String busId, String mode, String occupied, String women, String totalSeats) {
+        // Only used if the bus has no hash yet; looked up once per bus and node
+        int seats = seatsByBus.computeIfAbsent(busId, this::registeredSeats);
+        long now = System.currentTimeMillis();
+        @SuppressWarnings("unchecked")
+        List<Long> result = (List<Long>) jedis.eval(SHARED_UPDATE_SCRIPT, List.of(SHARED_PREFIX + busId, SHARED_DIRTY),
+                List.of(mode, occupied, women, String.valueOf(seats), String.valueOf(now), totalSeats, busId));
+        int total = result.get(2).intValue();
+        int occupiedNow = result.get(3).intValue();
+        SeatOccupancyResponse snapshot = snapshot(busId, total, occupiedNow, result.get(4).intValue(), now);
+        if (CrowdingBand.of(result.get(1).intValue(), result.get(0).intValue()) != CrowdingBand.of(occupiedNow, total)) {
+            long version = result.get(5);
+            deliverBand(snapshot, version);
+            membership.broadcast(ShardMessage.occupancy(snapshot, version));
+        }
+        return snapshot;
+    }
+
+    // Sends to this node's subscribers unless a newer band for the bus has already gone out
+    private void deliverBand(SeatOccupancyResponse snapshot, Long version) {
+        if (snapshot == null || version == null) {
+            return;
+        }
+        announcedVersions.compute(snapshot.getBusId(), (busId, announced) -> {
+            if (announced != null && announced >= version) {
+                return announced;
+            }
+            messagingTemplate.convertAndSend("/topic/occupancy/" + busId, snapshot);
+            return version;
+        });
+    }
+
+    // Mongo holds the last flushed counts; fills in buses Redis doesn't have (e.g. after a Redis restart)
+    private void seedShared() {
+        int seeded = 0;
+        for (SeatOccupancy saved : mongoTemplate.findAll(SeatOccupancy.class)) {
+            String key = SHARED_PREFIX + saved.getBusId();
+            if (jedis.hsetnx(key, "total", String.valueOf(saved.getTotalSeats())) == 1) {
+                jedis.hset(key, Map.of("occupied", String.valueOf(saved.getOccupiedSeats()),
+                        "women", String.valueOf(saved.getWomenSeatsOccupied()),
+                        "updated", String.valueOf(saved.getLastUpdated())));
+                seeded++;
+            }
+        }
+        log.info("Seeded shared occupancy for {} buses", seeded);
+    }
+
+    // Takes a batch of written bus ids from the shared set, so each change is flushed by one node
+    private void flushShared() {
+        List<String> busIds = new ArrayList<>(jedis.spop(SHARED_DIRTY, SHARED_FLUSH_BATCH));
+        if (busIds.isEmpty()) {
+            return;
+        }
+        try {
+            BulkOperations ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, SeatOccupancy.class);
+            for (String busId : busIds) {
+                Map<String, String> shared = jedis.hgetAll(SHARED_PREFIX + busId);
+                if (shared.isEmpty()) {
+                    continue;
+                }
+                ops.upsert(new Query(Criteria.where("_id").is(busId)), new Update()
+                        .set("totalSeats", intField(shared, "total"))
+                        .set("occupiedSeats", intField(shared, "occupied"))
+                        .set("womenSeatsOccupied", intField(shared, "women"))
+                        .set("lastUpdated", Long.parseLong(shared.getOrDefault("updated", "0"))));
+            }
+            ops.execute();
+            log.debug("Persisted shared occupancy for {} buses", busIds.size());
+        } catch (Exception e) {
+            log.warn("Failed to persist shared occupancy: {}", e.getMessage());
+            jedis.sadd(SHARED_DIRTY, busIds.toArray(new String[0]));
+        }
+    }
+
+    private static SeatOccupancyResponse sharedSnapshot(String busId, Map<String, String> shared) {
+        return snapshot(busId, intField(shared, "total"), intField(shared, "occupied"), intField(shared, "women"),
+                Long.parseLong(shared.getOrDefault("updated", "0")));
+    }
+
+    private static int intField(Map<String, String> shared, String field) {
+        return Integer.parseInt(shared.getOrDefault(field, "0"));
+    }
+
+    private static SeatOccupancyResponse snapshot(String busId, int totalSeats, int occupied, int women, long lastUpdated) {
+        CrowdingBand band = CrowdingBand.of(occupied, totalSeats);
+        return new SeatOccupancyResponse(busId, totalSeats, occupied, women, Instant.ofEpochMilli(lastUpdated).toString(),
+                Map.of("status", band.getStatus(), "color", band.getColor()));
+    }
+
+    @Scheduled(fixedDelayString = "${occupancy.flush-ms:5000}")
+    public void flush() {
+        if (membership.isEnabled()) {
+            flushShared();
+            return;
+        }
+        BulkOperations ops = null;
+        int count = 0;
+        for (BusOccupancy bus : buses.values()) {
+            if (!bus.dirty.compareAndSet(true, false)) {
+                continue;
+            }
+            if (ops == null) {
+                ops = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, SeatOccupancy.class);
+            }
+            long state = bus.state.get();
+            ops.upsert(new Query(Criteria.where("_id").is(bus.busId)), new Update()
+                    .set("totalSeats", bus.totalSeats)
+                    .set("occupiedSeats", occupied(state))
+                    .set("womenSeatsOccupied", women(state))
+                    .set("lastUpdated", bus.lastUpdated));
+            count++;
+        }
+        if (ops == null) {
+            return;
+        }
+        try {
+            ops.execute();
+            log.debug("Persisted occupancy for {} buses", count);
+        } catch (Exception e) {
+            log.warn("Failed to persist occupancy: {}", e.getMessage());
+            buses.values().forEach(bus -> bus.dirty.set(true));
+        }
+    }
+
+    public int trackedBuses() {
+        return buses.size();
+    }
+
+    private static long pack(int occupied, int women) {
+        return ((long) occupied << 32) | (women & 0xFFFFFFFFL);
+    }
+
+    private static int occupied(long state) {
+        return (int) (state >>> 32);
+    }
+
+    private static int women(long state) {
+        return (int) state;
+    }
+
+    public static final class BusOccupancy {
+        private final String busId;
+        private final AtomicLong state = new AtomicLong();
+        private final AtomicInteger band = new AtomicInteger(-1);
+        private final AtomicBoolean dirty = new AtomicBoolean();
+        private volatile int totalSeats;
+        private volatile long lastUpdated;
+
+        BusOccupancy(String busId, int totalSeats) {
+            this.busId = busId;
+            this.totalSeats = totalSeats;
+        }
+
+        public SeatOccupancyResponse snapshot() {
+            return snapshot(state.get());
+        }
+
+        SeatOccupancyResponse snapshot(long state) {
+            return SeatOccupancyService.snapshot(busId, totalSeats, occupied(state), women(state), lastUpdated);
+        }
+    }
+}
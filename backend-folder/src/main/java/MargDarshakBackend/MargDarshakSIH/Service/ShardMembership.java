@@ -0,0 +1,203 @@
+package MargDarshakBackend.MargDarshakSIH.Service;
+
+import MargDarshakBackend.MargDarshakSIH.Utils.ConsistentHashRing;
+import MargDarshakBackend.MargDarshakSIH.dto.OwnershipChangedEvent;
+import MargDarshakBackend.MargDarshakSIH.dto.ShardMessage;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import redis.clients.jedis.JedisPooled;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+// Which node owns which vehicle. Members hold a lease in the Redis sorted set shard:members (score = lease expiry),
+// renewed every heartbeat; expired members are pruned by whichever node notices first. Vehicles map to members by
+// consistent hashing, so a join or leave moves ~1/N of the vehicles. A changed member set is only adopted after it
+// has been stable for settle-ms, which keeps a flapping node from churning ownership; the new ring is announced
+// with an OwnershipChangedEvent. With sharding.enabled=false (the default) this node owns every vehicle.
+// Read views built from per-vehicle state (traffic, stop events) are shared over the shard:broadcast channel.
+@Service
+public class ShardMembership {
+    private static final Logger log = LoggerFactory.getLogger(ShardMembership.class);
+
+    static final String MEMBERS_KEY = "shard:members";
+    static final String BROADCAST = "shard:broadcast";
+
+    @Autowired
+    private JedisPooled jedis;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${sharding.enabled:false}")
+    private boolean enabled;
+
+    @Value("${sharding.node-id:${HOSTNAME:local}-${server.port:8080}}")
+    private String nodeId;
+
+    @Value("${sharding.lease-ms:10000}")
+    private long leaseMs;
+
+    @Value("${sharding.settle-ms:5000}")
+    private long settleMs;
+
+    @Value("${sharding.virtual-nodes:128}")
+    private int virtualNodes;
+
+    private final Map<String, Consumer<ShardMessage>> broadcastHandlers = new ConcurrentHashMap<>();
+    private volatile ConsistentHashRing ring;
+    private Set<String> pending;
+    private long pendingSince;
+
+    @PostConstruct
+    void init() {
+        ring = new ConsistentHashRing(List.of(nodeId), virtualNodes);
+        if (enabled) {
+            // The first view is adopted at once: there is no previous ownership to protect
+            Set<String> members = renew(System.currentTimeMillis());
+            if (members != null) {
+                ring = new ConsistentHashRing(members, virtualNodes);
+            }
+            log.info("Sharding: node {} joined, members {}", nodeId, ring.nodes());
+        }
+    }
+
+    @PreDestroy
+    void leave() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            jedis.zrem(MEMBERS_KEY, nodeId);
+        } catch (Exception e) {
+            log.warn("Sharding: failed to leave cleanly, lease will expire: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedRateString = "${sharding.heartbeat-ms:2000}")
+    public synchronized void heartbeat() {
+        if (!enabled) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        Set<String> members = renew(now);
+        if (members == null || members.equals(ring.nodes())) {
+            pending = null;
+            return;
+        }
+        if (!members.equals(pending)) {
+            pending = members;
+            pendingSince = now;
+            log.info("Sharding: member set changing to {}, settling for {} ms", members, settleMs);
+            return;
+        }
+        if (now - pendingSince >= settleMs) {
+            Set<String> previous = ring.nodes();
+            ring = new ConsistentHashRing(members, virtualNodes);
+            pending = null;
+            log.info("Sharding: members {} -> {}", previous, members);
+            eventPublisher.publishEvent(new OwnershipChangedEvent(previous, members));
+        }
+    }
+
+    // Renews this node's lease, prunes expired ones and returns the live members (null if Redis is unreachable,
+    // in which case the current ring is kept)
+    private Set<String> renew(long now) {
+        try {
+            jedis.zadd(MEMBERS_KEY, now + leaseMs, nodeId);
+            jedis.zremrangeByScore(MEMBERS_KEY, 0, now);
+            Set<String> members = new TreeSet<>(jedis.zrange(MEMBERS_KEY, 0, -1));
+            members.add(nodeId);
+            return members;
+        } catch (Exception e) {
+            log.warn("Sharding: lease renewal failed: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public String nodeId() {
+        return nodeId;
+    }
+
+    public String ownerOf(String vehicleNumber) {
+        return enabled ? ring.ownerOf(vehicleNumber) : nodeId;
+    }
+
+    public boolean owns(String vehicleNumber) {
+        return !enabled || nodeId.equals(ring.ownerOf(vehicleNumber));
+    }
+
+    // Pub/sub inbox of a node; see ShardRouter
+    public static String inbox(String node) {
+        return "shard:inbox:" + node;
+    }
+
+    // False when no subscriber received the message or it could not be published (the caller then handles it
+    // locally); a node whose inbox subscription is down counts as not received
+    public boolean send(String node, ShardMessage message) {
+        try {
+            return jedis.publish(inbox(node), objectMapper.writeValueAsString(message)) > 0;
+        } catch (Exception e) {
+            log.warn("Sharding: publish to {} failed: {}", node, e.getMessage());
+            return false;
+        }
+    }
+
+    // Registers the handler for broadcasts of a type from other nodes. It runs on one of ShardRouter's shard-worker
+    // threads, not the pub/sub thread. Workers are striped by vehicle, so broadcasts about one vehicle are handled in
+    // order on the same worker, while different vehicles may be handled concurrently (the handler must be thread-safe).
+    // A handler that blocks holds up every other inbox message queued on its worker.
+    public void onBroadcast(String type, Consumer<ShardMessage> handler) {
+        broadcastHandlers.put(type, handler);
+    }
+
+    // To every other node; the sender has already applied the message locally
+    public void broadcast(ShardMessage message) {
+        message.setNode(nodeId);
+        try {
+            jedis.publish(BROADCAST, objectMapper.writeValueAsString(message));
+        } catch (Exception e) {
+            log.warn("Sharding: {} broadcast failed: {}", message.getType(), e.getMessage());
+        }
+    }
+
+    void receiveBroadcast(ShardMessage message) {
+        if (nodeId.equals(message.getNode())) {
+            return;
+        }
+        Consumer<ShardMessage> handler = broadcastHandlers.get(message.getType());
+        if (handler != null) {
+            handler.accept(message);
+        }
+    }
+
+    public synchronized Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("nodeId", nodeId);
+        stats.put("members", ring.nodes());
+        stats.put("pendingMembers", pending);
+        stats.put("virtualNodes", virtualNodes);
+        return stats;
+    }
+}
@@ -0,0 +1,217 @@
+package MargDarshakBackend.MargDarshakSIH.Service;
+
+import MargDarshakBackend.MargDarshakSIH.Model.TripState;
+import MargDarshakBackend.MargDarshakSIH.dto.ShardMessage;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import redis.clients.jedis.JedisPooled;
+import redis.clients.jedis.JedisPubSub;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Per-vehicle state work (trip lifecycle, geofences, traffic) runs on the vehicle's owner (ShardMembership).
+// Every node still stores and broadcasts the fixes it ingests; only dispatch() is sharded. Fixes for vehicles owned
+// elsewhere are published to the owner's inbox channel. Whatever arrives in the inbox is accepted even if ownership
+// has moved on since (re-forwarding could loop while nodes disagree), and a fix whose forward fails is processed
+// here, so a Redis hiccup degrades to duplicated state rather than lost fixes.
+// Inbox messages are ShardMessage JSON (fix, adopt, end), so IDs may contain any character. The same subscription
+// also carries shard:broadcast, handed to ShardMembership's broadcast handlers.
+// The pub/sub thread only parses and hands messages off to sharding.inbox-threads workers, striped by vehicle so
+// one vehicle's fixes, adopts and ends stay in order. A slow consumer would otherwise grow this node's pub/sub
+// output buffer until Redis disconnects it (client-output-buffer-limit pubsub) and silently drops the backlog.
+// Each worker queues at most sharding.inbox-queue messages; beyond that they are dropped and counted.
+@Service
+public class ShardRouter {
+    private static final Logger log = LoggerFactory.getLogger(ShardRouter.class);
+
+    @Autowired
+    private ShardMembership membership;
+
+    @Autowired
+    private JedisPooled jedis;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private TripLifecycleService tripLifecycle;
+
+    @Autowired
+    private GeofenceService geofenceService;
+
+    @Autowired
+    private TrafficAggregator trafficAggregator;
+
+    @Autowired
+    private PipelineMetrics metrics;
+
+    private final LongAdder local = new LongAdder();
+    private final LongAdder forwarded = new LongAdder();
+    private final LongAdder received = new LongAdder();
+    private final LongAdder forwardFailures = new LongAdder();
+    private final LongAdder inboxOverflow = new LongAdder();
+
+    @Value("${sharding.inbox-threads:4}")
+    private int inboxThreads;
+
+    @Value("${sharding.inbox-queue:10000}")
+    private int inboxQueue;
+
+    private ThreadPoolExecutor[] workers;
+
+    private volatile boolean running;
+    private Thread subscriber;
+    private final JedisPubSub inbox = new JedisPubSub() {
+        @Override
+        public void onMessage(String channel, String message) {
+            ShardMessage parsed;
+            try {
+                parsed = objectMapper.readValue(message, ShardMessage.class);
+            } catch (Exception e) {
+                log.warn("Sharding: bad inbox message '{}': {}", message, e.getMessage());
+                return;
+            }
+            boolean broadcast = ShardMembership.BROADCAST.equals(channel);
+            try {
+                workerFor(parsed).execute(() -> {
+                    try {
+                        if (broadcast) {
+                            membership.receiveBroadcast(parsed);
+                        } else {
+                            handle(parsed);
+                        }
+                    } catch (Exception e) {
+                        log.warn("Sharding: failed to handle {} message: {}", parsed.getType(), e.getMessage());
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                inboxOverflow.increment();
+            }
+        }
+    };
+
+    @PostConstruct
+    void init() {
+        if (!membership.isEnabled()) {
+            return;
+        }
+        workers = new ThreadPoolExecutor[inboxThreads];
+        for (int i = 0; i < inboxThreads; i++) {
+            String name = "shard-worker-" + (i + 1);
+            workers[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(inboxQueue), r -> {
+                Thread t = new Thread(r, name);
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        running = true;
+        subscriber = new Thread(this::subscribe, "shard-inbox");
+        subscriber.setDaemon(true);
+        subscriber.start();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        running = false;
+        if (inbox.isSubscribed()) {
+            inbox.unsubscribe();
+        }
+        if (workers != null) {
+            for (ThreadPoolExecutor worker : workers) {
+                worker.shutdown();
+            }
+        }
+    }
+
+    // By vehicle (a stop broadcast by its event's vehicle); traffic broadcasts just spread across the workers
+    private ThreadPoolExecutor workerFor(ShardMessage message) {
+        String key = message.getVehicleNumber() != null ? message.getVehicleNumber()
+                : message.getStopEvent() != null ? message.getStopEvent().getVehicleNumber()
+                : message.getTripId() != null ? message.getTripId() : message.getType();
+        return workers[Math.floorMod(key == null ? 0 : key.hashCode(), workers.length)];
+    }
+
+    // Blocks on one pooled connection; resubscribes after connection loss
+    private void subscribe() {
+        while (running) {
+            try {
+                jedis.subscribe(inbox, ShardMembership.inbox(membership.nodeId()), ShardMembership.BROADCAST);
+            } catch (Exception e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Sharding: inbox subscription lost, retrying: {}", e.getMessage());
+                try {
+                    Thread.sleep(1000);
+                } catch (InterruptedException ie) {
+                    return;
+                }
+            }
+        }
+    }
+
+    // Live fix from either ingest path
+    public void dispatch(String vehicleNumber, double lat, double lon, long epochMillis) {
+        long start = metrics.start();
+        String owner = membership.ownerOf(vehicleNumber);
+        if (!owner.equals(membership.nodeId())) {
+            if (membership.send(owner, ShardMessage.fix(vehicleNumber, lat, lon, epochMillis))) {
+                forwarded.increment();
+                metrics.stop("location.dispatch", start, "target", "forwarded");
+                return;
+            }
+            forwardFailures.increment();
+        }
+        local.increment();
+        process(vehicleNumber, lat, lon, epochMillis);
+        metrics.stop("location.dispatch", start, "target", "local");
+    }
+
+    private void process(String vehicleNumber, double lat, double lon, long epochMillis) {
+        tripLifecycle.onFix(vehicleNumber, lat, lon, epochMillis);
+        geofenceService.evaluate(vehicleNumber, lat, lon, epochMillis);
+        trafficAggregator.onFix(vehicleNumber, lat, lon, epochMillis);
+    }
+
+    private void handle(ShardMessage message) {
+        switch (message.getType()) {
+            case ShardMessage.FIX -> {
+                received.increment();
+                process(message.getVehicleNumber(), message.getLatitude(), message.getLongitude(), message.getTimestamp());
+            }
+            case ShardMessage.ADOPT -> tripLifecycle.adopt(message.getTripId());
+            case ShardMessage.END -> tripLifecycle.end(message.getTripId(),
+                    message.getState() == null ? null : TripState.valueOf(message.getState().toUpperCase()));
+            default -> log.warn("Sharding: unknown inbox message type {}", message.getType());
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>(membership.stats());
+        stats.put("processedLocally", local.sum());
+        stats.put("forwarded", forwarded.sum());
+        stats.put("received", received.sum());
+        stats.put("forwardFailures", forwardFailures.sum());
+        stats.put("inboxOverflow", inboxOverflow.sum());
+        int queued = 0;
+        if (workers != null) {
+            for (ThreadPoolExecutor worker : workers) {
+                queued += worker.getQueue().size();
+            }
+        }
+        stats.put("inboxQueued", queued);
+        return stats;
+    }
+}
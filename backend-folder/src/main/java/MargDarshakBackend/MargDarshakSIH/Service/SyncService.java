@@ -0,0 +1,221 @@
+package MargDarshakBackend.MargDarshakSIH.Service;
+
+import MargDarshakBackend.MargDarshakSIH.Model.Stop;
+import MargDarshakBackend.MargDarshakSIH.Schedule.ScheduleLoader;
+import MargDarshakBackend.MargDarshakSIH.Schedule.StopLoader;
+import MargDarshakBackend.MargDarshakSIH.entity.TripSchedule;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Versioned reference data (trips, routes, stops) for offline-first clients.
+// A dataset is rebuilt whenever ScheduleLoader or StopLoader swaps in new data (load or reload). Its version
+// is a hash of the content, so every node serving the same files hands out the same versions and ETags.
+// The last sync.history versions are kept. A client on one of them gets a delta (changed entries plus
+// deleted ids); a client on any other version gets the full snapshot.
+@Service
+public class SyncService {
+
+    public static final String TRIPS = "trips";
+    public static final String ROUTES = "routes";
+    public static final String STOPS = "stops";
+    private static final List<String> KINDS = List.of(TRIPS, ROUTES, STOPS);
+
+    @Autowired
+    private ScheduleLoader scheduleLoader;
+
+    @Autowired
+    private StopLoader stopLoader;
+
+    @Value("${sync.history:10}")
+    private int historySize;
+
+    private Object schedulesSource;
+    private Object stopsSource;
+    private Dataset current;
+    private final LinkedHashMap<String, Dataset> history = new LinkedHashMap<>();
+    // Built responses keyed by "version|since" (since "" = snapshot); cleared on every rebuild
+    private final Map<String, Map<String, Object>> responses = new ConcurrentHashMap<>();
+
+    public synchronized String currentVersion() {
+        return dataset().version;
+    }
+
+    // Snapshot when since is null or not in the history, delta otherwise (possibly empty)
+    public Map<String, Object> sync(String since) {
+        Dataset now;
+        Dataset base;
+        synchronized (this) {
+            now = dataset();
+            base = since == null ? null : history.get(since);
+        }
+        String key = now.version + "|" + (base == null ? "" : base.version);
+        return responses.computeIfAbsent(key, k -> base == null ? snapshot(now) : delta(base, now));
+    }
+
+    private Dataset dataset() {
+        Map<String, List<TripSchedule>> schedules = scheduleLoader.getSchedules();
+        Map<String, Stop> stops = stopLoader.getStops();
+        if (current == null || schedules != schedulesSource || stops != stopsSource) {
+            Dataset built = Dataset.build(schedules, stops);
+            schedulesSource = schedules;
+            stopsSource = stops;
+            if (current == null || !built.version.equals(current.version)) {
+                current = built;
+                history.remove(built.version);
+                history.put(built.version, built);
+                while (history.size() > historySize) {
+                    history.remove(history.keySet().iterator().next());
+                }
+                responses.clear();
+            }
+        }
+        return current;
+    }
+
+    private static Map<String, Object> snapshot(Dataset data) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("version", data.version);
+        body.put("mode", "snapshot");
+        for (String kind : KINDS) {
+            body.put(kind, new ArrayList<>(data.entries.get(kind).values()));
+        }
+        return body;
+    }
+
+    private static Map<String, Object> delta(Dataset base, Dataset data) {
+        Map<String, Object> upserts = new LinkedHashMap<>();
+        Map<String, Object> deletes = new LinkedHashMap<>();
+        for (String kind : KINDS) {
+            Map<String, String> oldHashes = base.hashes.get(kind);
+            Map<String, String> newHashes = data.hashes.get(kind);
+            List<Object> changed = new ArrayList<>();
+            newHashes.forEach((id, hash) -> {
+                if (!hash.equals(oldHashes.get(id))) {
+                    changed.add(data.entries.get(kind).get(id));
+                }
+            });
+            List<String> removed = new ArrayList<>();
+            for (String id : oldHashes.keySet()) {
+                if (!newHashes.containsKey(id)) {
+                    removed.add(id);
+                }
+            }
+            if (!changed.isEmpty()) {
+                upserts.put(kind, changed);
+            }
+            if (!removed.isEmpty()) {
+                deletes.put(kind, removed);
+            }
+        }
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("version", data.version);
+        body.put("since", base.version);
+        body.put("mode", "delta");
+        body.put("upserts", upserts);
+        body.put("deletes", deletes);
+        return body;
+    }
+
+    private static final class Dataset {
+        final String version;
+        // kind -> id -> entry, ids sorted so the version hash is stable
+        final Map<String, Map<String, Map<String, Object>>> entries;
+        final Map<String, Map<String, String>> hashes;
+
+        private Dataset(String version, Map<String, Map<String, Map<String, Object>>> entries, Map<String, Map<String, String>> hashes) {
+            this.version = version;
+            this.entries = entries;
+            this.hashes = hashes;
+        }
+
+        static Dataset build(Map<String, List<TripSchedule>> schedules, Map<String, Stop> stops) {
+            Map<String, Map<String, Map<String, Object>>> entries = new HashMap<>();
+            Map<String, Map<String, Object>> trips = new TreeMap<>();
+            Map<String, Map<String, Object>> routes = new TreeMap<>();
+            for (List<TripSchedule> vehicleSchedules : schedules.values()) {
+                for (TripSchedule s : vehicleSchedules) {
+                    Map<String, Object> trip = new LinkedHashMap<>();
+                    trip.put("id", s.getTripId());
+                    trip.put("vehicleNumber", s.getVehicleNumber());
+                    trip.put("startTime", String.valueOf(s.getStartTime()));
+                    trip.put("endTime", String.valueOf(s.getEndTime()));
+                    trip.put("origin", s.getOrigin());
+                    trip.put("destination", s.getDestination());
+                    trip.put("route", s.getRoute());
+                    trips.put(s.getTripId(), trip);
+
+                    String routeId = ScheduleLoader.normalizeRoute(s.getRoute());
+                    Map<String, Object> route = routes.computeIfAbsent(routeId, k -> {
+                        Map<String, Object> r = new LinkedHashMap<>();
+                        r.put("id", k);
+                        r.put("name", s.getRoute());
+                        r.put("origin", s.getOrigin());
+                        r.put("destination", s.getDestination());
+                        r.put("tripIds", new ArrayList<String>());
+                        return r;
+                    });
+                    @SuppressWarnings("unchecked")
+                    List<String> tripIds = (List<String>) route.get("tripIds");
+                    tripIds.add(s.getTripId());
+                }
+            }
+            for (Map<String, Object> route : routes.values()) {
+                @SuppressWarnings("unchecked")
+                List<String> tripIds = (List<String>) route.get("tripIds");
+                tripIds.sort(null);
+            }
+            Map<String, Map<String, Object>> stopEntries = new TreeMap<>();
+            for (Stop stop : stops.values()) {
+                Map<String, Object> entry = new LinkedHashMap<>();
+                entry.put("id", stop.getStopId());
+                entry.put("name", stop.getName());
+                entry.put("lat", stop.getLat());
+                entry.put("lon", stop.getLon());
+                entry.put("radius", stop.getRadiusMeters());
+                stopEntries.put(stop.getStopId(), entry);
+            }
+            entries.put(TRIPS, trips);
+            entries.put(ROUTES, routes);
+            entries.put(STOPS, stopEntries);
+
+            Map<String, Map<String, String>> hashes = new HashMap<>();
+            MessageDigest all = sha256();
+            for (String kind : KINDS) {
+                Map<String, String> kindHashes = new HashMap<>();
+                entries.get(kind).forEach((id, entry) -> {
+                    String hash = hex(sha256().digest(entry.toString().getBytes(StandardCharsets.UTF_8)));
+                    kindHashes.put(id, hash);
+                    all.update((kind + "/" + id + "=" + hash + "\n").getBytes(StandardCharsets.UTF_8));
+                });
+                hashes.put(kind, kindHashes);
+            }
+            // 16 hex chars is plenty to tell versions apart
+            return new Dataset(hex(all.digest()).substring(0, 16), entries, hashes);
+        }
+
+        private static MessageDigest sha256() {
+            try {
+                return MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private static String hex(byte[] bytes) {
+            return HexFormat.of().formatHex(bytes);
+        }
+    }
+}
@@ -0,0 +1,399 @@
+package MargDarshakBackend.MargDarshakSIH.Service;
+
+import MargDarshakBackend.MargDarshakSIH.Service.RouteNetwork.Network;
+import MargDarshakBackend.MargDarshakSIH.Service.RouteNetwork.Segment;
+import MargDarshakBackend.MargDarshakSIH.Utils.GeoUtils;
+import MargDarshakBackend.MargDarshakSIH.Utils.GridIndex;
+import MargDarshakBackend.MargDarshakSIH.Utils.SpeedWindow;
+import MargDarshakBackend.MargDarshakSIH.dto.TrafficSnapshot;
+import MargDarshakBackend.MargDarshakSIH.dto.TrafficSnapshot.RouteCondition;
+import MargDarshakBackend.MargDarshakSIH.dto.TrafficSnapshot.SegmentCondition;
+import MargDarshakBackend.MargDarshakSIH.dto.ShardMessage;
+import MargDarshakBackend.MargDarshakSIH.dto.ShardMessage.TrafficSample;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+// Live traffic conditions from fleet speeds. Each fix is snapped to the nearest route segment (RouteNetwork, via a
+// grid of segment bounding boxes) that points the way the vehicle is heading, so the two directions of a road
+// keep separate windows; when two consecutive fixes of a vehicle land on the same segment, the speed
+// between them goes into that segment's SpeedWindow. A scheduled job summarises every window into an immutable
+// TrafficSnapshot (and its JSON bytes); readers only ever get the last published snapshot.
+// Condition is the median speed against traffic.free-flow-kmh; delay is the extra travel time over the segment.
+// With sharding, fixes reach only the vehicle's owner, so each node broadcasts the speeds it measured at publish time
+// and adds the other nodes' to its own windows; every node's snapshot then covers the whole fleet.
+@Service
+public class TrafficAggregator {
+    private static final Logger log = LoggerFactory.getLogger(TrafficAggregator.class);
+
+    private static final String LIGHT = "light";
+    private static final String MODERATE = "moderate";
+    private static final String HEAVY = "heavy";
+    private static final String UNKNOWN = "unknown";
+
+    @Autowired
+    private RouteNetwork routeNetwork;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PipelineMetrics metrics;
+
+    @Autowired
+    private ShardMembership membership;
+
+    @Value("${traffic.enabled:true}")
+    private boolean enabled;
+
+    @Value("${traffic.window-seconds:900}")
+    private long windowSeconds;
+
+    @Value("${traffic.samples-per-segment:256}")
+    private int samplesPerSegment;
+
+    @Value("${traffic.min-samples:3}")
+    private int minSamples;
+
+    @Value("${traffic.snap-max-meters:500}")
+    private double snapMaxMeters;
+
+    @Value("${traffic.cell-meters:2000}")
+    private double cellMeters;
+
+    @Value("${traffic.min-interval-ms:5000}")
+    private long minIntervalMs;
+
+    @Value("${traffic.heading-min-meters:20}")
+    private double headingMinMeters;
+
+    @Value("${traffic.heading-tolerance-degrees:90}")
+    private double headingToleranceDegrees;
+
+    @Value("${traffic.max-gap-ms:300000}")
+    private long maxGapMs;
+
+    @Value("${traffic.max-speed-kmh:120}")
+    private double maxSpeedKmh;
+
+    @Value("${traffic.free-flow-kmh:40}")
+    private double freeFlowKmh;
+
+    @Value("${traffic.moderate-ratio:0.7}")
+    private double moderateRatio;
+
+    @Value("${traffic.heavy-ratio:0.4}")
+    private double heavyRatio;
+
+    private volatile Windows windows;
+    private volatile Published published = new Published(
+            new TrafficSnapshot(0, 0, 0, UNKNOWN, Map.of(), List.of()), new byte[0], Map.of());
+    private final Map<String, VehicleTrack> vehicles = new ConcurrentHashMap<>();
+    private final Queue<TrafficSample> outbox = new ConcurrentLinkedQueue<>();
+    private long generation;
+
+    @PostConstruct
+    void init() {
+        membership.onBroadcast(ShardMessage.TRAFFIC, m -> addShared(m.getSamples()));
+    }
+
+    public void onFix(String vehicleNumber, double lat, double lon, long epochMillis) {
+        if (!enabled) {
+            return;
+        }
+        long start = metrics.start();
+        Windows w = windows();
+        VehicleTrack track = vehicles.computeIfAbsent(vehicleNumber, k -> new VehicleTrack());
+        synchronized (track) {
+            long dt = epochMillis - track.millis;
+            if (track.millis != 0 && dt < minIntervalMs) {
+                // Too close to the previous fix for a stable speed (or out of order); keep the older anchor
+                metrics.stop("traffic.snap", start);
+                return;
+            }
+            boolean continuing = track.millis != 0 && track.network == w.network && dt <= maxGapMs;
+            double heading = continuing ? heading(track.lat, track.lon, lat, lon) : Double.NaN;
+            Segment segment = w.snap(lat, lon, snapMaxMeters / 1000, heading, continuing ? track.segment : -1,
+                    headingToleranceDegrees);
+            if (segment != null && continuing && track.segment == segment.index()) {
+                double speed = GeoUtils.haversineKm(track.lat, track.lon, lat, lon) / (dt / 3_600_000.0);
+                if (speed <= maxSpeedKmh) {
+                    w.speeds[segment.index()].add(epochMillis, speed);
+                    if (membership.isEnabled()) {
+                        outbox.add(new TrafficSample(segment.id(), epochMillis, speed));
+                    }
+                }
+            }
+            track.network = w.network;
+            track.segment = segment == null ? -1 : segment.index();
+            track.lat = lat;
+            track.lon = lon;
+            track.millis = epochMillis;
+        }
+        metrics.stop("traffic.snap", start);
+    }
+
+    public TrafficSnapshot snapshot() {
+        return published.snapshot;
+    }
+
+    // The snapshot pre-serialised at publish time
+    public byte[] snapshotJson() {
+        return published.json;
+    }
+
+    // Conditions along a set of points (e.g. a planned path): worst condition among the segments the points snap to,
+    // and the sum of their delays. Lookups only; nothing is aggregated per request.
+    public Map<String, Object> conditionsAlong(List<double[]> points) {
+        Published p = published;
+        Windows w = windows();
+        Set<String> segmentIds = new LinkedHashSet<>();
+        int previous = -1;
+        for (int i = 0; i < points.size(); i++) {
+            double[] point = points.get(i);
+            // Direction of the path at this point, from its neighbours
+            double[] a = points.get(Math.max(0, i - 1));
+            double[] b = points.get(Math.min(points.size() - 1, i + 1));
+            double heading = i > 0 ? heading(a[0], a[1], point[0], point[1]) : heading(point[0], point[1], b[0], b[1]);
+            Segment segment = w.snap(point[0], point[1], snapMaxMeters / 1000, heading, previous, headingToleranceDegrees);
+            if (segment != null) {
+                segmentIds.add(segment.id());
+                previous = segment.index();
+            }
+        }
+        // Unknown until at least one segment on the path has enough samples
+        String condition = UNKNOWN;
+        double delay = 0;
+        int samples = 0;
+        for (String id : segmentIds) {
+            SegmentCondition c = p.byId.get(id);
+            if (c == null || UNKNOWN.equals(c.condition())) {
+                continue;
+            }
+            condition = UNKNOWN.equals(condition) ? c.condition() : worse(condition, c.condition());
+            delay += c.delayMinutes();
+            samples += c.samples();
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("condition", condition);
+        result.put("delay", Math.round(delay));
+        result.put("segments", new ArrayList<>(segmentIds));
+        result.put("samples", samples);
+        result.put("generatedAt", p.snapshot.generatedAt());
+        return result;
+    }
+
+    @Scheduled(fixedRateString = "${traffic.publish-ms:10000}")
+    public void publish() {
+        if (!enabled) {
+            return;
+        }
+        share();
+        Windows w = windows();
+        long now = System.currentTimeMillis();
+        long since = now - windowSeconds * 1000;
+        double[] summary = new double[3];
+        List<SegmentCondition> segments = new ArrayList<>(w.network.segments().size());
+        Map<String, SegmentCondition> byId = new HashMap<>();
+        for (Segment s : w.network.segments()) {
+            w.speeds[s.index()].summarise(since, summary);
+            SegmentCondition c = condition(s, (int) summary[0], summary[1], summary[2]);
+            segments.add(c);
+            byId.put(s.id(), c);
+        }
+        Map<String, RouteCondition> routes = new LinkedHashMap<>();
+        double freeMinutes = 0, actualMinutes = 0;
+        for (String route : w.network.routes()) {
+            double routeFree = 0, routeActual = 0;
+            int withData = 0;
+            for (Segment s : w.network.segmentsOf(route)) {
+                SegmentCondition c = byId.get(s.id());
+                if (!UNKNOWN.equals(c.condition())) {
+                    routeFree += minutes(s.lengthKm(), freeFlowKmh);
+                    routeActual += minutes(s.lengthKm(), c.medianSpeedKmh());
+                    withData++;
+                }
+            }
+            routes.put(route, new RouteCondition(classify(routeFree, routeActual), round(routeActual - routeFree), withData));
+            freeMinutes += routeFree;
+            actualMinutes += routeActual;
+        }
+        TrafficSnapshot snapshot;
+        synchronized (this) {
+            snapshot = new TrafficSnapshot(++generation, now, windowSeconds,
+                    classify(freeMinutes, actualMinutes), routes, List.copyOf(segments));
+        }
+        try {
+            published = new Published(snapshot, objectMapper.writeValueAsBytes(snapshot), byId);
+        } catch (Exception e) {
+            log.warn("Failed to serialise traffic snapshot {}: {}", snapshot.generation(), e.getMessage());
+        }
+        vehicles.values().removeIf(t -> now - t.millis > maxGapMs * 2);
+    }
+
+    private void share() {
+        List<TrafficSample> samples = new ArrayList<>();
+        TrafficSample sample;
+        while ((sample = outbox.poll()) != null) {
+            samples.add(sample);
+        }
+        if (!samples.isEmpty()) {
+            membership.broadcast(ShardMessage.traffic(samples));
+        }
+    }
+
+    // Speeds measured on other nodes; segments are matched by id since each node builds its own network
+    private void addShared(List<TrafficSample> samples) {
+        if (!enabled || samples == null) {
+            return;
+        }
+        Windows w = windows();
+        for (TrafficSample sample : samples) {
+            Segment segment = w.byId.get(sample.segmentId());
+            if (segment != null) {
+                w.speeds[segment.index()].add(sample.timestamp(), sample.speedKmh());
+            }
+        }
+    }
+
+    private SegmentCondition condition(Segment s, int samples, double mean, double median) {
+        String condition = UNKNOWN;
+        double delay = 0;
+        if (samples >= minSamples) {
+            condition = classify(minutes(s.lengthKm(), freeFlowKmh), minutes(s.lengthKm(), median));
+            delay = Math.max(0, minutes(s.lengthKm(), median) - minutes(s.lengthKm(), freeFlowKmh));
+        }
+        return new SegmentCondition(s.id(), s.from().getName(), s.to().getName(),
+                s.from().getLat(), s.from().getLon(), s.to().getLat(), s.to().getLon(),
+                round(s.lengthKm()), samples, round(mean), round(median), condition, round(delay));
+    }
+
+    // Ratio of free-flow to observed travel time, i.e. observed speed over free-flow speed
+    private String classify(double freeMinutes, double actualMinutes) {
+        if (actualMinutes <= 0) {
+            return UNKNOWN;
+        }
+        double ratio = freeMinutes / actualMinutes;
+        return ratio < heavyRatio ? HEAVY : ratio < moderateRatio ? MODERATE : LIGHT;
+    }
+
+    private static String worse(String a, String b) {
+        return severity(b) > severity(a) ? b : a;
+    }
+
+    private static int severity(String condition) {
+        return HEAVY.equals(condition) ? 2 : MODERATE.equals(condition) ? 1 : 0;
+    }
+
+    // Bearing of travel between two points, NaN when they are too close together to tell
+    private double heading(double lat1, double lon1, double lat2, double lon2) {
+        if (GeoUtils.haversineKm(lat1, lon1, lat2, lon2) * 1000 < headingMinMeters) {
+            return Double.NaN;
+        }
+        return GeoUtils.bearingDegrees(lat1, lon1, lat2, lon2);
+    }
+
+    // A stationary median (0 km/h) would make the delay infinite; clamp to walking pace
+    private static double minutes(double km, double speedKmh) {
+        return km / Math.max(3, speedKmh) * 60;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 100) / 100.0;
+    }
+
+    // Windows are preallocated per segment and replaced wholesale when the route network changes
+    private Windows windows() {
+        Network network = routeNetwork.current();
+        Windows w = windows;
+        if (w == null || w.network != network) {
+            synchronized (this) {
+                w = windows;
+                if (w == null || w.network != network) {
+                    w = new Windows(network, samplesPerSegment, GeoUtils.metersToLatDegrees(cellMeters), snapMaxMeters);
+                    windows = w;
+                    log.info("Traffic windows: {} segments x {} samples", network.segments().size(), samplesPerSegment);
+                }
+            }
+        }
+        return w;
+    }
+
+    private static final class Windows {
+        final Network network;
+        final SpeedWindow[] speeds;
+        final GridIndex<Segment> index;
+        final Map<String, Segment> byId = new HashMap<>();
+
+        Windows(Network network, int capacity, double cellDegrees, double snapMaxMeters) {
+            this.network = network;
+            this.speeds = new SpeedWindow[network.segments().size()];
+            this.index = new GridIndex<>(cellDegrees);
+            for (Segment s : network.segments()) {
+                speeds[s.index()] = new SpeedWindow(capacity);
+                byId.put(s.id(), s);
+                double padLat = GeoUtils.metersToLatDegrees(snapMaxMeters);
+                double padLon = GeoUtils.metersToLonDegrees(snapMaxMeters, s.from().getLat());
+                index.add(s,
+                        Math.min(s.from().getLat(), s.to().getLat()) - padLat,
+                        Math.min(s.from().getLon(), s.to().getLon()) - padLon,
+                        Math.max(s.from().getLat(), s.to().getLat()) + padLat,
+                        Math.max(s.from().getLon(), s.to().getLon()) + padLon);
+            }
+        }
+
+        // Nearest segment within maxKm. With a heading, segments pointing more than toleranceDegrees away from it are
+        // skipped, so the A→B and B→A segments of a two-way road don't take each other's fixes. Without one (first
+        // fix, or the vehicle barely moved) the previous segment is kept while in range, otherwise the nearest wins.
+        Segment snap(double lat, double lon, double maxKm, double heading, int previous, double toleranceDegrees) {
+            boolean directed = !Double.isNaN(heading);
+            Segment nearest = null;
+            double best = maxKm;
+            for (Segment s : index.query(lat, lon)) {
+                if (directed && s.lengthKm() > 0
+                        && GeoUtils.bearingDifference(heading, s.bearingDegrees()) > toleranceDegrees) {
+                    continue;
+                }
+                double d = s.distanceKm(lat, lon);
+                if (d > maxKm) {
+                    continue;
+                }
+                if (!directed && s.index() == previous) {
+                    return s;
+                }
+                if (nearest == null || d < best) {
+                    best = d;
+                    nearest = s;
+                }
+            }
+            return nearest;
+        }
+    }
+
+    private static final class VehicleTrack {
+        Network network;
+        int segment = -1;
+        double lat;
+        double lon;
+        long millis;
+    }
+
+    private record Published(TrafficSnapshot snapshot, byte[] json, Map<String, SegmentCondition> byId) {
+    }
+}
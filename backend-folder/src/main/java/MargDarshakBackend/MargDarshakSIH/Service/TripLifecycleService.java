@@ -0,0 +1,584 @@
+package MargDarshakBackend.MargDarshakSIH.Service;
+
+import MargDarshakBackend.MargDarshakSIH.Model.TripState;
+import MargDarshakBackend.MargDarshakSIH.Repository.TripArchiveRepository;
+import MargDarshakBackend.MargDarshakSIH.Schedule.ScheduleLoader;
+import MargDarshakBackend.MargDarshakSIH.Utils.GeoUtils;
+import MargDarshakBackend.MargDarshakSIH.Utils.TimingWheel;
+import MargDarshakBackend.MargDarshakSIH.dto.OwnershipChangedEvent;
+import MargDarshakBackend.MargDarshakSIH.dto.ShardMessage;
+import MargDarshakBackend.MargDarshakSIH.entity.TripArchive;
+import MargDarshakBackend.MargDarshakSIH.entity.TripSchedule;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import redis.clients.jedis.Connection;
+import redis.clients.jedis.JedisPooled;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.params.ScanParams;
+import redis.clients.jedis.resps.ScanResult;
+
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Lifecycle of started trips: scheduled -> started -> in_progress -> completed | abandoned.
+// Active trips live in memory, keyed by tripId and vehicle. Each one has a single deadline in a timing wheel:
+// min(last activity + idle-timeout, scheduled end + end-grace). Live fixes only bump the in-memory timestamps.
+// When the wheel fires, the trip either moves its deadline (it saw fixes since) or ends. Nothing polls Redis.
+// Ended trips are queued and written to Mongo in batches. After the insert, their Redis keys
+// (trip_schedule, trip_location and the vehicle position) are deleted in one pipeline.
+// On startup the started trips are recovered from trip_schedule:* with a single SCAN, reading each page's hashes in
+// one pipeline.
+// Progress (first/last fix, fix count, distance, last position) is checkpointed into the same hash when the trip goes
+// in_progress and then every checkpoint-ms, so a recovered or handed-off trip carries on from it instead of from zero.
+// With sharding, a node only keeps trips of vehicles it owns (ShardMembership). Starting or ending a trip elsewhere
+// is passed to the owner, and on an ownership change trips are released (not ended) and the SCAN adopts new ones.
+@Service
+public class TripLifecycleService {
+    private static final Logger log = LoggerFactory.getLogger(TripLifecycleService.class);
+
+    @Autowired
+    private JedisPooled jedis;
+
+    @Autowired
+    private MongoTemplate mongoTemplate;
+
+    @Autowired
+    private TripArchiveRepository archiveRepository;
+
+    @Autowired
+    private ScheduleLoader scheduleLoader;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Autowired
+    private PipelineMetrics metrics;
+
+    @Autowired
+    private ShardMembership membership;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${trips.idle-timeout-minutes:15}")
+    private long idleTimeoutMinutes;
+
+    @Value("${trips.end-grace-minutes:30}")
+    private long endGraceMinutes;
+
+    @Value("${trips.early-finish-minutes:15}")
+    private long earlyFinishMinutes;
+
+    @Value("${trips.default-duration-minutes:120}")
+    private long defaultDurationMinutes;
+
+    @Value("${trips.trajectory-min-interval-ms:10000}")
+    private long trajectoryMinIntervalMs;
+
+    @Value("${trips.trajectory-max-points:2000}")
+    private int trajectoryMaxPoints;
+
+    @Value("${trips.archive-batch-size:200}")
+    private int archiveBatchSize;
+
+    @Value("${trips.archive-max-pending:10000}")
+    private int archiveMaxPending;
+
+    @Value("${trips.tick-ms:1000}")
+    private long tickMs;
+
+    @Value("${trips.wheel-slots:512}")
+    private int wheelSlots;
+
+    @Value("${trips.checkpoint-ms:30000}")
+    private long checkpointMs;
+
+    private final Map<String, ActiveTrip> trips = new ConcurrentHashMap<>();
+    private final Map<String, String> tripByVehicle = new ConcurrentHashMap<>();
+    private final Deque<TripArchive> pending = new ArrayDeque<>();
+    private final AtomicLong archiveDropped = new AtomicLong();
+    private TimingWheel<String> wheel;
+
+    @PostConstruct
+    void init() {
+        wheel = new TimingWheel<>(tickMs, wheelSlots, System.currentTimeMillis());
+        if (metrics.isEnabled()) {
+            Gauge.builder("trips.active", trips, Map::size).register(registry);
+            Gauge.builder("trips.archive.pending", this, TripLifecycleService::pendingCount).register(registry);
+        }
+    }
+
+    // Trips started before a restart, from their trip_schedule hashes
+    @EventListener(ApplicationReadyEvent.class)
+    public void recover() {
+        ScanParams params = new ScanParams().match("trip_schedule:*").count(500);
+        String cursor = ScanParams.SCAN_POINTER_START;
+        int recovered = 0;
+        try {
+            do {
+                ScanResult<String> page = jedis.scan(cursor, params);
+                Map<String, Response<Map<String, String>>> hashes = new LinkedHashMap<>();
+                try (Connection connection = jedis.getPool().getResource()) {
+                    Pipeline pipeline = new Pipeline(connection);
+                    for (String key : page.getResult()) {
+                        // Trips already running here (every one, on an ownership change) need no read
+                        if (!trips.containsKey(key.substring("trip_schedule:".length()))) {
+                            hashes.put(key, pipeline.hgetAll(key));
+                        }
+                    }
+                    pipeline.sync();
+                }
+                for (Map.Entry<String, Response<Map<String, String>>> entry : hashes.entrySet()) {
+                    try {
+                        if (restore(entry.getValue().get())) {
+                            recovered++;
+                        }
+                    } catch (DateTimeException | IllegalArgumentException e) {
+                        // One corrupt hash must not stop the others from being recovered
+                        log.warn("Skipping unreadable trip {}: {}", entry.getKey(), e.getMessage());
+                    }
+                }
+                cursor = page.getCursor();
+            } while (!ScanParams.SCAN_POINTER_START.equals(cursor));
+        } catch (Exception e) {
+            log.warn("Trip recovery from Redis failed: {}", e.getMessage());
+        }
+        if (recovered > 0) {
+            log.info("Recovered {} active trips", recovered);
+        }
+    }
+
+    // Called after trip_schedule:{tripId} is written. A different trip still open on the vehicle is ended first.
+    public TripState start(TripSchedule schedule) {
+        if (!membership.owns(schedule.getVehicleNumber()) && membership.send(membership.ownerOf(schedule.getVehicleNumber()),
+                ShardMessage.adopt(schedule.getTripId(), schedule.getVehicleNumber()))) {
+            return TripState.STARTED;
+        }
+        long now = System.currentTimeMillis();
+        String previous = tripByVehicle.get(schedule.getVehicleNumber());
+        if (previous != null && !previous.equals(schedule.getTripId())) {
+            ActiveTrip open = trips.get(previous);
+            if (open != null) {
+                end(open, open.outcome(now), now);
+            }
+        }
+        ActiveTrip trip = new ActiveTrip(schedule, now, expectedEnd(schedule));
+        trips.put(trip.tripId, trip);
+        tripByVehicle.put(trip.vehicleNumber, trip.tripId);
+        wheel.schedule(trip.tripId, trip.deadline());
+        return trip.state;
+    }
+
+    // Live fix from either ingest path; a no-op for vehicles without a started trip
+    public void onFix(String vehicleNumber, double latitude, double longitude, long epochMillis) {
+        String tripId = tripByVehicle.get(vehicleNumber);
+        if (tripId == null) {
+            return;
+        }
+        ActiveTrip trip = trips.get(tripId);
+        if (trip != null && trip.recordFix(latitude, longitude, epochMillis)) {
+            // Went in_progress, or the last checkpoint is older than checkpoint-ms
+            jedis.hset("trip_schedule:" + tripId, trip.checkpoint(false));
+        }
+    }
+
+    // Explicit end from the driver app; false if the trip isn't active
+    public boolean end(String tripId, TripState state) {
+        ActiveTrip trip = trips.get(tripId);
+        if (trip == null) {
+            String vehicleNumber = membership.isEnabled() ? jedis.hget("trip_schedule:" + tripId, "vehicleNumber") : null;
+            if (vehicleNumber != null && !membership.owns(vehicleNumber)) {
+                return membership.send(membership.ownerOf(vehicleNumber), ShardMessage.end(tripId, vehicleNumber, state == null ? null : state.value()));
+            }
+            return false;
+        }
+        long now = System.currentTimeMillis();
+        end(trip, state == null || !state.isFinal() ? trip.outcome(now) : state, now);
+        return true;
+    }
+
+    // Vehicle of a started trip, here or on another node; null once it has ended
+    public String vehicleOf(String tripId) {
+        ActiveTrip trip = trips.get(tripId);
+        return trip != null ? trip.vehicleNumber : jedis.hget("trip_schedule:" + tripId, "vehicleNumber");
+    }
+
+    public TripState stateOf(String tripId) {
+        ActiveTrip trip = trips.get(tripId);
+        if (trip != null) {
+            return trip.state;
+        }
+        if (membership.isEnabled()) {
+            // Active on another node
+            String state = jedis.hget("trip_schedule:" + tripId, "state");
+            if (state != null) {
+                return TripState.valueOf(state.toUpperCase());
+            }
+        }
+        synchronized (pending) {
+            for (TripArchive a : pending) {
+                if (a.getTripId().equals(tripId)) {
+                    return TripState.valueOf(a.getState().toUpperCase());
+                }
+            }
+        }
+        TripArchive archived = archiveRepository.findFirstByTripIdOrderByEndedAtDesc(tripId).orElse(null);
+        if (archived != null) {
+            return TripState.valueOf(archived.getState().toUpperCase());
+        }
+        for (List<TripSchedule> schedules : scheduleLoader.getSchedules().values()) {
+            for (TripSchedule s : schedules) {
+                if (tripId.equals(s.getTripId())) {
+                    return TripState.SCHEDULED;
+                }
+            }
+        }
+        return null;
+    }
+
+    // A trip started on another node for a vehicle this node owns; the trip_schedule hash is already written
+    public boolean adopt(String tripId) {
+        Map<String, String> hash = jedis.hgetAll("trip_schedule:" + tripId);
+        String vehicleNumber = hash.get("vehicleNumber");
+        String previous = vehicleNumber == null ? null : tripByVehicle.get(vehicleNumber);
+        if (previous != null && !previous.equals(tripId)) {
+            ActiveTrip open = trips.get(previous);
+            if (open != null) {
+                long now = System.currentTimeMillis();
+                end(open, open.outcome(now), now);
+            }
+        }
+        return restore(hash);
+    }
+
+    // Drops trips whose vehicles moved to another node (their Redis state stays for the new owner),
+    // then picks up trips of vehicles this node now owns
+    @EventListener(OwnershipChangedEvent.class)
+    public void onOwnershipChanged() {
+        int released = 0;
+        for (ActiveTrip trip : trips.values()) {
+            if (!membership.owns(trip.vehicleNumber) && trips.remove(trip.tripId, trip)) {
+                tripByVehicle.remove(trip.vehicleNumber, trip.tripId);
+                wheel.cancel(trip.tripId);
+                // Final checkpoint, with the trajectory, for the new owner
+                try {
+                    jedis.hset("trip_schedule:" + trip.tripId, trip.checkpoint(true));
+                } catch (Exception e) {
+                    log.warn("Checkpoint of released trip {} failed: {}", trip.tripId, e.getMessage());
+                }
+                released++;
+            }
+        }
+        if (released > 0) {
+            log.info("Released {} trips to other nodes", released);
+        }
+        recover();
+    }
+
+    @Scheduled(fixedRateString = "${trips.tick-ms:1000}")
+    public void tick() {
+        long now = System.currentTimeMillis();
+        for (String tripId : wheel.advance(now)) {
+            ActiveTrip trip = trips.get(tripId);
+            if (trip == null) {
+                continue;
+            }
+            long deadline = trip.deadline();
+            if (deadline > now) {
+                // Fixes arrived since the deadline was set
+                wheel.schedule(tripId, deadline);
+            } else {
+                end(trip, trip.outcome(now), now);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${trips.archive-flush-ms:5000}")
+    public void flushArchive() {
+        while (true) {
+            List<TripArchive> batch = new ArrayList<>(archiveBatchSize);
+            synchronized (pending) {
+                while (batch.size() < archiveBatchSize && !pending.isEmpty()) {
+                    batch.add(pending.pollFirst());
+                }
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+            try {
+                mongoTemplate.insert(batch, TripArchive.class);
+            } catch (Exception e) {
+                log.warn("Archiving {} trips failed, will retry: {}", batch.size(), e.getMessage());
+                synchronized (pending) {
+                    for (int i = batch.size() - 1; i >= 0; i--) {
+                        pending.addFirst(batch.get(i));
+                    }
+                }
+                return;
+            }
+            cleanup(batch);
+            if (batch.size() < archiveBatchSize) {
+                return;
+            }
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("active", trips.size());
+        stats.put("scheduledDeadlines", wheel.size());
+        stats.put("archivePending", pendingCount());
+        stats.put("archiveDropped", archiveDropped.get());
+        return stats;
+    }
+
+    private void end(ActiveTrip trip, TripState state, long now) {
+        if (!trips.remove(trip.tripId, trip)) {
+            return;
+        }
+        tripByVehicle.remove(trip.vehicleNumber, trip.tripId);
+        wheel.cancel(trip.tripId);
+        TripArchive archive = trip.toArchive(state, now);
+        TripArchive dropped = null;
+        synchronized (pending) {
+            if (pending.size() >= archiveMaxPending) {
+                dropped = pending.pollFirst();
+            }
+            pending.addLast(archive);
+        }
+        if (dropped != null) {
+            // Its trip_schedule hash still says in_progress; without deleting it the next restart would revive it
+            archiveDropped.incrementAndGet();
+            log.warn("Archive queue full, dropping trip {}", dropped.getTripId());
+            cleanup(List.of(dropped));
+        }
+        log.debug("Trip {} on {} ended: {}", trip.tripId, trip.vehicleNumber, state.value());
+    }
+
+    // Redis keys go only after the archive is durable, so a failed insert leaves the trip recoverable
+    private void cleanup(List<TripArchive> archived) {
+        try (Connection connection = jedis.getPool().getResource()) {
+            Pipeline pipeline = new Pipeline(connection);
+            for (TripArchive a : archived) {
+                pipeline.del("trip_schedule:" + a.getTripId(), "trip_location:" + a.getTripId());
+                // The bus stops showing as live once its trip is over, unless it has already started another
+                if (!tripByVehicle.containsKey(a.getVehicleNumber())) {
+                    pipeline.del(LocationStore.HASH_PREFIX + a.getVehicleNumber(), LocationStore.COMPACT_PREFIX + a.getVehicleNumber());
+                }
+            }
+            pipeline.sync();
+        } catch (Exception e) {
+            log.warn("Redis cleanup for {} archived trips failed: {}", archived.size(), e.getMessage());
+        }
+    }
+
+    private boolean restore(Map<String, String> hash) {
+        String tripId = hash.get("tripId");
+        String state = hash.getOrDefault("state", TripState.STARTED.value());
+        if (tripId == null || hash.get("vehicleNumber") == null || hash.get("startTime") == null || hash.get("endTime") == null
+                || TripState.valueOf(state.toUpperCase()).isFinal() || trips.containsKey(tripId)
+                || !membership.owns(hash.get("vehicleNumber"))) {
+            return false;
+        }
+        TripSchedule schedule = new TripSchedule(tripId, hash.get("vehicleNumber"), hash.get("startTime"), hash.get("endTime"),
+                hash.get("origin"), hash.get("destination"), hash.get("route"));
+        long now = System.currentTimeMillis();
+        ActiveTrip trip = new ActiveTrip(schedule, now, expectedEnd(schedule));
+        trip.startedAt = toMillis(schedule.getStartTime());
+        trip.state = TripState.valueOf(state.toUpperCase());
+        trip.restoreProgress(hash, now);
+        trips.put(tripId, trip);
+        tripByVehicle.put(trip.vehicleNumber, tripId);
+        wheel.schedule(tripId, trip.deadline());
+        return true;
+    }
+
+    // The CSV end time when it is after the (driver-supplied) start, otherwise start + default duration
+    private long expectedEnd(TripSchedule schedule) {
+        LocalDateTime start = schedule.getStartTime();
+        LocalDateTime end = schedule.getEndTime();
+        if (end == null || start == null || !end.isAfter(start)) {
+            end = (start != null ? start : LocalDateTime.now()).plusMinutes(defaultDurationMinutes);
+        }
+        return toMillis(end);
+    }
+
+    private int pendingCount() {
+        synchronized (pending) {
+            return pending.size();
+        }
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static long parseLong(String value) {
+        return value == null ? 0 : Long.parseLong(value);
+    }
+
+    private static LocalDateTime toLocal(long millis) {
+        return millis == 0 ? null : LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+    }
+
+    private final class ActiveTrip {
+        final String tripId;
+        final String vehicleNumber;
+        final String route;
+        final String origin;
+        final String destination;
+        final long expectedEnd;
+        long startedAt;
+        volatile TripState state = TripState.STARTED;
+        volatile long lastActivity;
+        long firstFix;
+        long lastFix;
+        long fixCount;
+        double distanceKm;
+        double lastLat;
+        double lastLon;
+        long lastSampled;
+        boolean hasPosition;
+        long checkpointed;
+        final List<TripArchive.TrajectoryPoint> trajectory = new ArrayList<>();
+
+        ActiveTrip(TripSchedule schedule, long now, long expectedEnd) {
+            this.tripId = schedule.getTripId();
+            this.vehicleNumber = schedule.getVehicleNumber();
+            this.route = schedule.getRoute();
+            this.origin = schedule.getOrigin();
+            this.destination = schedule.getDestination();
+            this.expectedEnd = expectedEnd;
+            this.startedAt = now;
+            this.lastActivity = now;
+        }
+
+        // True when this fix moves the trip to in_progress or a checkpoint is due
+        synchronized boolean recordFix(double lat, double lon, long t) {
+            boolean first = firstFix == 0;
+            boolean started = state != TripState.IN_PROGRESS;
+            if (first) {
+                firstFix = t;
+                state = TripState.IN_PROGRESS;
+            }
+            if (hasPosition) {
+                distanceKm += GeoUtils.haversineKm(lastLat, lastLon, lat, lon);
+            }
+            hasPosition = true;
+            fixCount++;
+            lastFix = t;
+            lastActivity = Math.max(lastActivity, t);
+            lastLat = lat;
+            lastLon = lon;
+            // Downsampled trajectory; the last fix is appended at the end so the trip's final position is kept
+            if (trajectory.size() < trajectoryMaxPoints && (first || t - lastSampled >= trajectoryMinIntervalMs)) {
+                trajectory.add(new TripArchive.TrajectoryPoint(lat, lon, t));
+                lastSampled = t;
+            }
+            return started || t - checkpointed >= checkpointMs;
+        }
+
+        // Progress fields for the trip_schedule hash; the trajectory only on handoff, it is too big to write often
+        synchronized Map<String, String> checkpoint(boolean withTrajectory) {
+            checkpointed = lastFix;
+            Map<String, String> fields = new HashMap<>();
+            fields.put("state", state.value());
+            fields.put("firstFix", Long.toString(firstFix));
+            fields.put("lastFix", Long.toString(lastFix));
+            fields.put("fixCount", Long.toString(fixCount));
+            fields.put("distanceKm", Double.toString(distanceKm));
+            if (hasPosition) {
+                fields.put("lastLat", Double.toString(lastLat));
+                fields.put("lastLon", Double.toString(lastLon));
+            }
+            if (withTrajectory) {
+                try {
+                    fields.put("trajectory", objectMapper.writeValueAsString(trajectory));
+                    fields.put("lastSampled", Long.toString(lastSampled));
+                } catch (Exception e) {
+                    log.warn("Trip {}: trajectory not checkpointed: {}", tripId, e.getMessage());
+                }
+            }
+            return fields;
+        }
+
+        // Picks up a checkpoint written by a previous owner (or before a restart). Without one, fixes from before
+        // are gone and an in_progress trip counts as live from now.
+        synchronized void restoreProgress(Map<String, String> hash, long now) {
+            firstFix = parseLong(hash.get("firstFix"));
+            lastFix = parseLong(hash.get("lastFix"));
+            fixCount = Math.max(parseLong(hash.get("fixCount")), firstFix > 0 ? 1 : 0);
+            distanceKm = hash.get("distanceKm") == null ? 0 : Double.parseDouble(hash.get("distanceKm"));
+            if (hash.get("lastLat") != null && hash.get("lastLon") != null) {
+                lastLat = Double.parseDouble(hash.get("lastLat"));
+                lastLon = Double.parseDouble(hash.get("lastLon"));
+                hasPosition = true;
+            }
+            if (hash.get("trajectory") != null) {
+                try {
+                    trajectory.addAll(List.of(objectMapper.readValue(hash.get("trajectory"), TripArchive.TrajectoryPoint[].class)));
+                    lastSampled = parseLong(hash.get("lastSampled"));
+                } catch (Exception e) {
+                    log.warn("Trip {}: unreadable trajectory checkpoint: {}", tripId, e.getMessage());
+                }
+            }
+            if (state == TripState.IN_PROGRESS && lastFix == 0) {
+                lastFix = now;
+            }
+            checkpointed = lastFix;
+        }
+
+        long deadline() {
+            return Math.min(lastActivity + Duration.ofMinutes(idleTimeoutMinutes).toMillis(),
+                    expectedEnd + Duration.ofMinutes(endGraceMinutes).toMillis());
+        }
+
+        // No fixes at all: abandoned. Past the scheduled end (+grace): completed. Went quiet: completed only
+        // if that happened close enough to the scheduled end.
+        TripState outcome(long now) {
+            if (state != TripState.IN_PROGRESS) {
+                return TripState.ABANDONED;
+            }
+            if (now >= expectedEnd + Duration.ofMinutes(endGraceMinutes).toMillis()) {
+                return TripState.COMPLETED;
+            }
+            return lastFix >= expectedEnd - Duration.ofMinutes(earlyFinishMinutes).toMillis()
+                    ? TripState.COMPLETED : TripState.ABANDONED;
+        }
+
+        synchronized TripArchive toArchive(TripState finalState, long now) {
+            state = finalState;
+            List<TripArchive.TrajectoryPoint> points = new ArrayList<>(trajectory);
+            if (fixCount > 0 && lastSampled != lastFix) {
+                points.add(new TripArchive.TrajectoryPoint(lastLat, lastLon, lastFix));
+            }
+            return new TripArchive(null, tripId, vehicleNumber, route, origin, destination, finalState.value(),
+                    toLocal(expectedEnd), toLocal(startedAt), toLocal(firstFix), toLocal(lastFix), toLocal(now),
+                    fixCount, distanceKm, points);
+        }
+    }
+}
@@ -0,0 +1,236 @@
+package MargDarshakBackend.MargDarshakSIH.Service;
+
+import MargDarshakBackend.MargDarshakSIH.Utils.LruCache;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.JedisPooled;
+import redis.clients.jedis.params.SetParams;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+// Read-through cache: in-process LRU first, then Redis, then the loader (Mongo).
+// Redis failures are logged and treated as a miss so lookups never fail because of the cache.
+// Values go in and come out through the copier, so callers never share (and can't mutate) the cached instance;
+// the copier may also drop fields that must not be cached.
+public class TwoLevelCache<T> {
+    private static final Logger log = LoggerFactory.getLogger(TwoLevelCache.class);
+
+    // Write generations, striped by key hash, plus a count of all writes. A fill from Redis or the loader notes
+    // them before reading and is dropped if a put or evict for the key landed meanwhile, so a loader that read
+    // Mongo before a write-through can't put its older value back. Fills use SET NX, so they never replace a
+    // value another node wrote to Redis either.
+    private static final int GENERATION_STRIPES = 1024;
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+    private final AtomicLong writes = new AtomicLong();
+
+    private final String name;
+    private final Class<T> type;
+    private final UnaryOperator<T> copier;
+    private final LruCache<String, T> local;
+    private final JedisPooled jedis;
+    private final ObjectMapper objectMapper;
+    private final boolean redisEnabled;
+    private final long redisTtlSeconds;
+
+    private final LongAdder localHits = new LongAdder();
+    private final LongAdder redisHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder redisErrors = new LongAdder();
+    private final LongAdder staleFills = new LongAdder();
+
+    public TwoLevelCache(String name, Class<T> type, UnaryOperator<T> copier, int maxEntries, long localTtlSeconds,
+                         JedisPooled jedis, ObjectMapper objectMapper,
+                         boolean redisEnabled, long redisTtlSeconds) {
+        this.name = name;
+        this.type = type;
+        this.copier = copier;
+        this.local = new LruCache<>(maxEntries, localTtlSeconds * 1000);
+        this.jedis = jedis;
+        this.objectMapper = objectMapper;
+        this.redisEnabled = redisEnabled;
+        this.redisTtlSeconds = redisTtlSeconds;
+    }
+
+    public T get(String key, Function<String, T> loader) {
+        return get(key, loader, null);
+    }
+
+    // alias names a second key a freshly loaded value is also cached under; cache hits never rewrite it
+    public T get(String key, Function<String, T> loader, Function<T, String> alias) {
+        T value = local.get(key);
+        if (value != null) {
+            localHits.increment();
+            return copier.apply(value);
+        }
+        int stripe = stripe(key);
+        long generation = generations.get(stripe);
+        long writesBefore = writes.get();
+        value = readRedis(key);
+        if (value != null) {
+            redisHits.increment();
+            value = copier.apply(value);
+            fillLocal(key, value, stripe, generation);
+            return copier.apply(value);
+        }
+        misses.increment();
+        value = loader.apply(key);
+        if (value != null) {
+            fill(key, value, stripe, generation);
+            String aliasKey = alias == null ? null : alias.apply(value);
+            // The alias generation wasn't known before the load, so any write since then skips it
+            if (aliasKey != null && writes.get() == writesBefore) {
+                int aliasStripe = stripe(aliasKey);
+                fill(aliasKey, value, aliasStripe, generations.get(aliasStripe));
+            }
+            return copier.apply(value);
+        }
+        return null;
+    }
+
+    public void put(String key, T value) {
+        bump(key);
+        value = copier.apply(value);
+        local.put(key, value);
+        if (!redisEnabled) {
+            return;
+        }
+        try {
+            jedis.setex(redisKey(key), redisTtlSeconds, objectMapper.writeValueAsString(value));
+        } catch (Exception e) {
+            redisErrors.increment();
+            log.warn("Cache {}: failed to write {} to Redis: {}", name, key, e.getMessage());
+        }
+    }
+
+    private void fill(String key, T value, int stripe, long generation) {
+        value = copier.apply(value);
+        if (!fillLocal(key, value, stripe, generation) || !redisEnabled) {
+            return;
+        }
+        try {
+            jedis.set(redisKey(key), objectMapper.writeValueAsString(value), SetParams.setParams().nx().ex(redisTtlSeconds));
+            // An evict between the local check and the SET deleted nothing in Redis yet; undo the fill
+            if (generations.get(stripe) != generation) {
+                jedis.del(redisKey(key));
+            }
+        } catch (Exception e) {
+            redisErrors.increment();
+            log.warn("Cache {}: failed to write {} to Redis: {}", name, key, e.getMessage());
+        }
+    }
+
+    private boolean fillLocal(String key, T value, int stripe, long generation) {
+        if (generations.get(stripe) != generation) {
+            staleFills.increment();
+            return false;
+        }
+        local.put(key, value);
+        // put and evict bump the generation before writing, so re-checking after the put catches a write that
+        // raced with it; dropping a fresh value here only costs one extra miss
+        if (generations.get(stripe) != generation) {
+            local.remove(key);
+            staleFills.increment();
+            return false;
+        }
+        return true;
+    }
+
+    private void bump(String key) {
+        generations.incrementAndGet(stripe(key));
+        writes.incrementAndGet();
+    }
+
+    private static int stripe(String key) {
+        return (key.hashCode() & 0x7fffffff) % GENERATION_STRIPES;
+    }
+
+    public void evict(String... keys) {
+        String[] redisKeys = new String[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            bump(keys[i]);
+            local.remove(keys[i]);
+            redisKeys[i] = redisKey(keys[i]);
+        }
+        if (!redisEnabled) {
+            return;
+        }
+        try {
+            jedis.del(redisKeys);
+        } catch (Exception e) {
+            redisErrors.increment();
+            log.warn("Cache {}: failed to evict from Redis: {}", name, e.getMessage());
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getLocalHits() {
+        return localHits.sum();
+    }
+
+    public long getRedisHits() {
+        return redisHits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getRedisErrors() {
+        return redisErrors.sum();
+    }
+
+    public long getStaleFills() {
+        return staleFills.sum();
+    }
+
+    public long getEvictions() {
+        return local.evictions();
+    }
+
+    public int getLocalSize() {
+        return local.size();
+    }
+
+    public Map<String, Object> stats() {
+        long hits = getLocalHits() + getRedisHits();
+        long total = hits + getMisses();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("localHits", getLocalHits());
+        stats.put("redisHits", getRedisHits());
+        stats.put("misses", getMisses());
+        stats.put("hitRatio", total == 0 ? 0.0 : (double) hits / total);
+        stats.put("localSize", getLocalSize());
+        stats.put("evictions", getEvictions());
+        stats.put("redisErrors", getRedisErrors());
+        stats.put("staleFills", getStaleFills());
+        return stats;
+    }
+
+    private T readRedis(String key) {
+        if (!redisEnabled) {
+            return null;
+        }
+        try {
+            String json = jedis.get(redisKey(key));
+            return json == null ? null : objectMapper.readValue(json, type);
+        } catch (Exception e) {
+            redisErrors.increment();
+            log.warn("Cache {}: failed to read {} from Redis: {}", name, key, e.getMessage());
+            return null;
+        }
+    }
+
+    private String redisKey(String key) {
+        return "cache:" + name + ":" + key;
+    }
+}
@@ -1,36 +1,66 @@
 package MargDarshakBackend.MargDarshakSIH.Service;
 
-import MargDarshakBackend.MargDarshakSIH.Repository.UserRepository;
+import MargDarshakBackend.MargDarshakSIH.Utils.AuthUtils;
 import MargDarshakBackend.MargDarshakSIH.entity.User;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
-import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
 
 @Service
 public class UserDetailsServiceImpl implements UserDetailsService {
 
     @Autowired
-    private UserRepository userRepository;
+    private EntityCacheService entityCache;
 
-    // ✅ Override the correct method
+    // Bootstrap admins, so the first admin doesn't need a hand-edited user document
+    @Value("${security.admin-emails:}")
+    private Set<String> adminEmails;
+
+    // ✅ Login (DaoAuthenticationProvider): needs the password hash, which the user cache doesn't hold
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
-        User user = userRepository.findByEmail(email);
+        User user = entityCache.findUserWithPassword(email);
+
+        if (user == null) {
+            throw new UsernameNotFoundException("Email not found: " + email);
+        }
+        return build(user, user.getPassword());
+    }
+
+    // Bearer-token requests (JwtFilter): the token is the credential, so the cached user is enough
+    public UserDetails loadTokenUser(String email) throws UsernameNotFoundException {
+        User user = entityCache.findUserByEmail(email);
 
         if (user == null) {
             throw new UsernameNotFoundException("Email not found: " + email);
         }
+        return build(user, "");
+    }
 
+    private UserDetails build(User user, String password) {
         // ✅ Build Spring Security UserDetails object
         return org.springframework.security.core.userdetails.User
                 .builder()
                 .username(user.getEmail())
-                .password(user.getPassword())
-                .authorities(Collections.emptyList()) // no roles yet
+                .password(password == null ? "" : password)
+                .roles(rolesOf(user).toArray(String[]::new))
                 .build();
     }
+
+    private Set<String> rolesOf(User user) {
+        Set<String> roles = new TreeSet<>();
+        if (user.getRoles() != null) {
+            roles.addAll(user.getRoles());
+        }
+        if (adminEmails.contains(user.getEmail())) {
+            roles.add(AuthUtils.ADMIN);
+        }
+        return roles;
+    }
 }
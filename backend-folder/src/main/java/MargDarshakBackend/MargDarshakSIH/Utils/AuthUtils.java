@@ -0,0 +1,25 @@
+package MargDarshakBackend.MargDarshakSIH.Utils;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+
+// Role checks for endpoints that sit under the permitAll /api/** rule but still need an admin
+public final class AuthUtils {
+
+    public static final String ADMIN = "ADMIN";
+
+    private AuthUtils() {
+    }
+
+    public static boolean isAdmin(Authentication authentication) {
+        if (authentication == null) {
+            return false;
+        }
+        for (GrantedAuthority authority : authentication.getAuthorities()) {
+            if (("ROLE_" + ADMIN).equals(authority.getAuthority())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
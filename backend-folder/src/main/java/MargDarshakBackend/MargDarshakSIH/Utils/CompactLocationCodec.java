@@ -0,0 +1,45 @@
+package MargDarshakBackend.MargDarshakSIH.Utils;
+
+import java.nio.ByteBuffer;
+
+// Fixed-layout binary value for a vehicle's live position (schema v1, 17 bytes):
+//   [0]     version
+//   [1..4]  latitude in microdegrees (int, ~0.11 m resolution)
+//   [5..8]  longitude in microdegrees (int)
+//   [9..16] fix time, epoch millis (long)
+// The vehicle number is not stored; it is already part of the key.
+public final class CompactLocationCodec {
+
+    public static final byte VERSION_1 = 1;
+    public static final int V1_LENGTH = 17;
+
+    private static final double MICRO = 1_000_000d;
+
+    private CompactLocationCodec() {
+    }
+
+    public static byte[] encode(double latitude, double longitude, long epochMillis) {
+        return ByteBuffer.allocate(V1_LENGTH)
+                .put(VERSION_1)
+                .putInt((int) Math.round(latitude * MICRO))
+                .putInt((int) Math.round(longitude * MICRO))
+                .putLong(epochMillis)
+                .array();
+    }
+
+    public static Fix decode(byte[] value) {
+        if (value == null || value.length == 0) {
+            throw new IllegalArgumentException("Empty compact location value");
+        }
+        if (value[0] != VERSION_1 || value.length < V1_LENGTH) {
+            throw new IllegalArgumentException("Unsupported compact location version " + value[0] + " (" + value.length + " bytes)");
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(value, 1, V1_LENGTH - 1);
+        double latitude = buffer.getInt() / MICRO;
+        double longitude = buffer.getInt() / MICRO;
+        return new Fix(latitude, longitude, buffer.getLong());
+    }
+
+    public record Fix(double latitude, double longitude, long epochMillis) {
+    }
+}
@@ -0,0 +1,69 @@
+package MargDarshakBackend.MargDarshakSIH.Utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+
+// Consistent hashing with virtual nodes: each node owns virtualNodes points on a 64-bit ring and a key belongs to
+// the first point at or after its hash. Adding or removing one of N nodes moves only ~1/N of the keys.
+// The hash is fixed (FNV-1a + murmur finaliser), so every JVM builds the same ring from the same member set.
+// Immutable; lookups are a binary search over two parallel arrays.
+public class ConsistentHashRing {
+
+    private final Set<String> nodes;
+    private final long[] points;
+    private final String[] owners;
+
+    public ConsistentHashRing(Collection<String> nodes, int virtualNodes) {
+        this.nodes = Collections.unmodifiableSet(new TreeSet<>(nodes));
+        long[][] entries = new long[this.nodes.size() * virtualNodes][];
+        String[] names = this.nodes.toArray(new String[0]);
+        int n = 0;
+        for (int i = 0; i < names.length; i++) {
+            for (int v = 0; v < virtualNodes; v++) {
+                entries[n++] = new long[]{hash(names[i] + "#" + v), i};
+            }
+        }
+        // Ties (practically impossible) break on node name order so the ring is still deterministic
+        Arrays.sort(entries, (a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(a[1], b[1]));
+        points = new long[n];
+        owners = new String[n];
+        for (int i = 0; i < n; i++) {
+            points[i] = entries[i][0];
+            owners[i] = names[(int) entries[i][1]];
+        }
+    }
+
+    // null on an empty ring
+    public String ownerOf(String key) {
+        if (points.length == 0) {
+            return null;
+        }
+        int i = Arrays.binarySearch(points, hash(key));
+        if (i < 0) {
+            i = -i - 1;
+        }
+        return owners[i == points.length ? 0 : i];
+    }
+
+    public Set<String> nodes() {
+        return nodes;
+    }
+
+    static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,66 @@
+package MargDarshakBackend.MargDarshakSIH.Utils;
+
+public final class GeoUtils {
+
+    public static final double EARTH_RADIUS_KM = 6371.0;
+
+    private GeoUtils() {
+    }
+
+    // Great-circle distance; accurate to well under a metre at city scale
+    public static double haversineKm(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    // Initial great-circle bearing from the first point to the second, degrees clockwise from north in [0, 360)
+    public static double bearingDegrees(double lat1, double lon1, double lat2, double lon2) {
+        double phi1 = Math.toRadians(lat1), phi2 = Math.toRadians(lat2);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double y = Math.sin(dLon) * Math.cos(phi2);
+        double x = Math.cos(phi1) * Math.sin(phi2) - Math.sin(phi1) * Math.cos(phi2) * Math.cos(dLon);
+        return (Math.toDegrees(Math.atan2(y, x)) + 360) % 360;
+    }
+
+    // Smallest angle between two bearings, in [0, 180]
+    public static double bearingDifference(double a, double b) {
+        double d = Math.abs(a - b) % 360;
+        return d > 180 ? 360 - d : d;
+    }
+
+    public static double metersToLatDegrees(double meters) {
+        return Math.toDegrees(meters / 1000 / EARTH_RADIUS_KM);
+    }
+
+    public static double metersToLonDegrees(double meters, double atLat) {
+        return metersToLatDegrees(meters) / Math.max(0.01, Math.cos(Math.toRadians(atLat)));
+    }
+
+    // Even-odd ray casting in lat/lon space, fine for stop-sized polygons
+    public static boolean pointInPolygon(double lat, double lon, double[] polyLat, double[] polyLon) {
+        boolean inside = false;
+        for (int i = 0, j = polyLat.length - 1; i < polyLat.length; j = i++) {
+            if ((polyLat[i] > lat) != (polyLat[j] > lat)
+                    && lon < (polyLon[j] - polyLon[i]) * (lat - polyLat[i]) / (polyLat[j] - polyLat[i]) + polyLon[i]) {
+                inside = !inside;
+            }
+        }
+        return inside;
+    }
+
+    // Point-to-segment distance in a local equirectangular projection around the point
+    public static double distanceToSegmentKm(double lat, double lon, double lat1, double lon1, double lat2, double lon2) {
+        double kmPerDegLat = Math.toRadians(EARTH_RADIUS_KM);
+        double kmPerDegLon = kmPerDegLat * Math.cos(Math.toRadians(lat));
+        double ax = (lon1 - lon) * kmPerDegLon, ay = (lat1 - lat) * kmPerDegLat;
+        double bx = (lon2 - lon) * kmPerDegLon, by = (lat2 - lat) * kmPerDegLat;
+        double dx = bx - ax, dy = by - ay;
+        double len2 = dx * dx + dy * dy;
+        double t = len2 == 0 ? 0 : Math.max(0, Math.min(1, -(ax * dx + ay * dy) / len2));
+        double px = ax + t * dx, py = ay + t * dy;
+        return Math.sqrt(px * px + py * py);
+    }
+}
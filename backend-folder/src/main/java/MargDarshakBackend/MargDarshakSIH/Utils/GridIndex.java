@@ -0,0 +1,112 @@
+package MargDarshakBackend.MargDarshakSIH.Utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Uniform lat/lon grid: each item is stored in every cell its bounding box touches, and a point query
+// reads the one cell the point falls in. Query cost depends on local density, not on the total item count.
+// Cells live in an open-addressed table keyed by a primitive long, so a query allocates nothing and touches
+// two arrays before the cell list; a HashMap<Long, ...> boxed the key and chased a node per lookup, which
+// made large indexes measurably slower through cache misses alone.
+// Built once and then read-only, so it is safe to share between threads.
+public class GridIndex<T> {
+
+    private final double cellDegrees;
+    private long[] keys = new long[16];
+    private List<T>[] cells = newCells(16);
+    private int cellCount;
+    private int size;
+
+    public GridIndex(double cellDegrees) {
+        this.cellDegrees = cellDegrees;
+    }
+
+    public void add(T item, double minLat, double minLon, double maxLat, double maxLon) {
+        long r0 = row(minLat), r1 = row(maxLat);
+        long c0 = col(minLon), c1 = col(maxLon);
+        for (long r = r0; r <= r1; r++) {
+            for (long c = c0; c <= c1; c++) {
+                cell(key(r, c)).add(item);
+            }
+        }
+        size++;
+    }
+
+    public List<T> query(double lat, double lon) {
+        long key = key(row(lat), col(lon));
+        int mask = keys.length - 1;
+        for (int slot = slot(key, mask); cells[slot] != null; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return cells[slot];
+            }
+        }
+        return List.of();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int cellCount() {
+        return cellCount;
+    }
+
+    private List<T> cell(long key) {
+        int mask = keys.length - 1;
+        int slot = slot(key, mask);
+        for (; cells[slot] != null; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return cells[slot];
+            }
+        }
+        List<T> cell = new ArrayList<>(2);
+        keys[slot] = key;
+        cells[slot] = cell;
+        // Kept at most half full so probe chains stay short
+        if (++cellCount * 2 > keys.length) {
+            grow();
+        }
+        return cell;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        List<T>[] oldCells = cells;
+        keys = new long[oldKeys.length * 2];
+        cells = newCells(oldKeys.length * 2);
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldCells[i] != null) {
+                int slot = slot(oldKeys[i], mask);
+                while (cells[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                cells[slot] = oldCells[i];
+            }
+        }
+    }
+
+    private long row(double lat) {
+        return (long) Math.floor(lat / cellDegrees);
+    }
+
+    private long col(double lon) {
+        return (long) Math.floor(lon / cellDegrees);
+    }
+
+    private static long key(long row, long col) {
+        return (row << 32) ^ (col & 0xffffffffL);
+    }
+
+    // Neighbouring cells differ only in the low bits of row or col, so mix before masking
+    private static int slot(long key, int mask) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> List<T>[] newCells(int length) {
+        return (List<T>[]) new List[length];
+    }
+}
@@ -0,0 +1,60 @@
+package MargDarshakBackend.MargDarshakSIH.Utils;
+
+// Douglas-Peucker simplification with an explicit stack (no recursion depth limit on long shapes).
+// Keeps the end points and every point further than toleranceMeters from the simplified line.
+public final class LineSimplifier {
+
+    private LineSimplifier() {
+    }
+
+    // {lats, lons} of the kept points; a tolerance of 0 keeps everything
+    public static double[][] simplify(double[] lats, double[] lons, double toleranceMeters) {
+        int n = lats.length;
+        if (n <= 2 || toleranceMeters <= 0) {
+            return new double[][]{lats.clone(), lons.clone()};
+        }
+        double toleranceKm = toleranceMeters / 1000;
+        boolean[] keep = new boolean[n];
+        keep[0] = true;
+        keep[n - 1] = true;
+        int[] stack = new int[2 * n];
+        int top = 0;
+        stack[top++] = 0;
+        stack[top++] = n - 1;
+        while (top > 0) {
+            int last = stack[--top];
+            int first = stack[--top];
+            double max = -1;
+            int index = -1;
+            for (int i = first + 1; i < last; i++) {
+                double d = GeoUtils.distanceToSegmentKm(lats[i], lons[i], lats[first], lons[first], lats[last], lons[last]);
+                if (d > max) {
+                    max = d;
+                    index = i;
+                }
+            }
+            if (index >= 0 && max > toleranceKm) {
+                keep[index] = true;
+                stack[top++] = first;
+                stack[top++] = index;
+                stack[top++] = index;
+                stack[top++] = last;
+            }
+        }
+        int kept = 0;
+        for (boolean k : keep) {
+            if (k) {
+                kept++;
+            }
+        }
+        double[] outLats = new double[kept];
+        double[] outLons = new double[kept];
+        for (int i = 0, j = 0; i < n; i++) {
+            if (keep[i]) {
+                outLats[j] = lats[i];
+                outLons[j++] = lons[i];
+            }
+        }
+        return new double[][]{outLats, outLons};
+    }
+}
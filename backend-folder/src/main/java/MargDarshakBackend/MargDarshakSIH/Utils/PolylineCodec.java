@@ -0,0 +1,69 @@
+package MargDarshakBackend.MargDarshakSIH.Utils;
+
+import java.util.Arrays;
+
+// Google encoded polyline format (precision 1e5): zig-zag varint deltas in 5-bit chunks, offset by 63.
+// Roughly 4-6 characters per point instead of ~20 for a JSON [lat, lng] pair.
+public final class PolylineCodec {
+
+    private PolylineCodec() {
+    }
+
+    public static String encode(double[] lats, double[] lons) {
+        StringBuilder sb = new StringBuilder(lats.length * 6);
+        long prevLat = 0, prevLon = 0;
+        for (int i = 0; i < lats.length; i++) {
+            long lat = Math.round(lats[i] * 1e5);
+            long lon = Math.round(lons[i] * 1e5);
+            write(sb, lat - prevLat);
+            write(sb, lon - prevLon);
+            prevLat = lat;
+            prevLon = lon;
+        }
+        return sb.toString();
+    }
+
+    // {lats, lons}
+    public static double[][] decode(String polyline) {
+        double[] lats = new double[polyline.length() / 2];
+        double[] lons = new double[lats.length];
+        int n = 0, i = 0;
+        long lat = 0, lon = 0;
+        while (i < polyline.length()) {
+            long[] read = read(polyline, i);
+            lat += read[0];
+            read = read(polyline, (int) read[1]);
+            lon += read[0];
+            i = (int) read[1];
+            lats[n] = lat / 1e5;
+            lons[n] = lon / 1e5;
+            n++;
+        }
+        return new double[][]{Arrays.copyOf(lats, n), Arrays.copyOf(lons, n)};
+    }
+
+    private static void write(StringBuilder sb, long value) {
+        long v = value < 0 ? ~(value << 1) : value << 1;
+        while (v >= 0x20) {
+            sb.append((char) ((0x20 | (v & 0x1f)) + 63));
+            v >>= 5;
+        }
+        sb.append((char) (v + 63));
+    }
+
+    // {value, next index}
+    private static long[] read(String s, int i) {
+        long result = 0;
+        int shift = 0;
+        int b;
+        do {
+            if (i >= s.length()) {
+                throw new IllegalArgumentException("Truncated polyline");
+            }
+            b = s.charAt(i++) - 63;
+            result |= (long) (b & 0x1f) << shift;
+            shift += 5;
+        } while (b >= 0x20);
+        return new long[]{(result & 1) != 0 ? ~(result >> 1) : result >> 1, i};
+    }
+}
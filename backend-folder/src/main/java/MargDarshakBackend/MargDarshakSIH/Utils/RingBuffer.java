@@ -0,0 +1,38 @@
+package MargDarshakBackend.MargDarshakSIH.Utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Fixed-capacity buffer that overwrites its oldest entry; snapshots are returned newest first
+public class RingBuffer<T> {
+
+    private final Object[] items;
+    private long written;
+
+    public RingBuffer(int capacity) {
+        this.items = new Object[capacity];
+    }
+
+    public synchronized void add(T item) {
+        items[(int) (written % items.length)] = item;
+        written++;
+    }
+
+    @SuppressWarnings("unchecked")
+    public synchronized List<T> snapshot(int limit) {
+        int n = (int) Math.min(Math.min(written, items.length), limit);
+        List<T> result = new ArrayList<>(n);
+        for (long i = written - 1; i >= written - n; i--) {
+            result.add((T) items[(int) (i % items.length)]);
+        }
+        return result;
+    }
+
+    public synchronized long written() {
+        return written;
+    }
+
+    public int capacity() {
+        return items.length;
+    }
+}
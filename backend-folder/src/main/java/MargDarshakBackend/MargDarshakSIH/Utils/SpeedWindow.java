@@ -0,0 +1,55 @@
+package MargDarshakBackend.MargDarshakSIH.Utils;
+
+import java.util.Arrays;
+
+// Fixed-capacity ring of (time, speed) samples. All arrays are allocated up front, so recording a sample and
+// summarising the window allocate nothing. Samples older than the window are skipped when summarising;
+// once the ring is full the oldest sample is overwritten.
+public class SpeedWindow {
+
+    private final long[] times;
+    private final double[] speeds;
+    private final double[] scratch;
+    private int next;
+    private int size;
+
+    public SpeedWindow(int capacity) {
+        times = new long[capacity];
+        speeds = new double[capacity];
+        scratch = new double[capacity];
+    }
+
+    public synchronized void add(long epochMillis, double speedKmh) {
+        times[next] = epochMillis;
+        speeds[next] = speedKmh;
+        next = (next + 1) % times.length;
+        if (size < times.length) {
+            size++;
+        }
+    }
+
+    // Writes {count, mean, median} of the samples taken at or after since into out
+    public synchronized void summarise(long since, double[] out) {
+        int n = 0;
+        double sum = 0;
+        for (int i = 0; i < size; i++) {
+            if (times[i] >= since) {
+                scratch[n++] = speeds[i];
+                sum += speeds[i];
+            }
+        }
+        out[0] = n;
+        if (n == 0) {
+            out[1] = 0;
+            out[2] = 0;
+            return;
+        }
+        Arrays.sort(scratch, 0, n);
+        out[1] = sum / n;
+        out[2] = n % 2 == 1 ? scratch[n / 2] : (scratch[n / 2 - 1] + scratch[n / 2]) / 2;
+    }
+
+    public int capacity() {
+        return times.length;
+    }
+}
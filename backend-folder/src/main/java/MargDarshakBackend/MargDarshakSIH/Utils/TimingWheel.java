@@ -0,0 +1,87 @@
+package MargDarshakBackend.MargDarshakSIH.Utils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Hashed timing wheel: deadlines are bucketed into slots of tickMillis, and advance() only visits the slots
+// whose ticks have passed, so expiring n keys costs O(n) no matter how many keys are pending.
+// Deadlines further out than one rotation stay in their slot and are skipped until their round comes.
+// One deadline per key; scheduling a key again moves it. Not meant for sub-tick precision.
+public class TimingWheel<K> {
+
+    private final long tickMillis;
+    private final List<Set<K>> slots;
+    private final Map<K, Entry> deadlines = new HashMap<>();
+    private long currentTick;
+
+    public TimingWheel(long tickMillis, int slotCount, long nowMillis) {
+        this.tickMillis = tickMillis;
+        this.slots = new ArrayList<>(slotCount);
+        for (int i = 0; i < slotCount; i++) {
+            slots.add(new HashSet<>());
+        }
+        this.currentTick = nowMillis / tickMillis;
+    }
+
+    public synchronized void schedule(K key, long deadlineMillis) {
+        cancel(key);
+        // Round up: advance() only visits ticks that have fully elapsed, so a deadline inside a tick must land
+        // in the following one or it would be skipped and wait a whole rotation. Anything already due goes into
+        // the next slot advance() will visit.
+        long tick = Math.max(Math.floorDiv(deadlineMillis + tickMillis - 1, tickMillis), currentTick + 1);
+        int slot = slot(tick);
+        deadlines.put(key, new Entry(deadlineMillis, slot));
+        slots.get(slot).add(key);
+    }
+
+    public synchronized boolean cancel(K key) {
+        Entry entry = deadlines.remove(key);
+        if (entry == null) {
+            return false;
+        }
+        slots.get(entry.slot).remove(key);
+        return true;
+    }
+
+    public synchronized Long deadline(K key) {
+        Entry entry = deadlines.get(key);
+        return entry == null ? null : entry.deadlineMillis;
+    }
+
+    public synchronized int size() {
+        return deadlines.size();
+    }
+
+    // Removes and returns every key whose deadline is at or before nowMillis
+    public synchronized List<K> advance(long nowMillis) {
+        List<K> expired = new ArrayList<>();
+        long targetTick = nowMillis / tickMillis;
+        // After a long pause one pass over every slot is enough
+        long last = Math.min(targetTick, currentTick + slots.size());
+        for (long tick = currentTick + 1; tick <= last; tick++) {
+            Iterator<K> it = slots.get(slot(tick)).iterator();
+            while (it.hasNext()) {
+                K key = it.next();
+                if (deadlines.get(key).deadlineMillis <= nowMillis) {
+                    it.remove();
+                    deadlines.remove(key);
+                    expired.add(key);
+                }
+            }
+        }
+        currentTick = Math.max(currentTick, targetTick);
+        return expired;
+    }
+
+    private int slot(long tick) {
+        return (int) (tick % slots.size());
+    }
+
+    private record Entry(long deadlineMillis, int slot) {
+    }
+}
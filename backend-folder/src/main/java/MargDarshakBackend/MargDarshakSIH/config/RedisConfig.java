@@ -1,14 +1,20 @@
 package MargDarshakBackend.MargDarshakSIH.config;
 
+import io.lettuce.core.ClientOptions;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisURI;
+import io.lettuce.core.protocol.ProtocolVersion;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.data.redis.connection.RedisConnectionFactory;
-import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.data.redis.serializer.Jackson2JsonRedisSerializer;
-import org.springframework.data.redis.serializer.StringRedisSerializer;
+import redis.clients.jedis.ConnectionPoolConfig;
 import redis.clients.jedis.JedisPooled;
 
-import org.springframework.beans.factory.annotation.Value;
+import java.time.Duration;
+
+// Single Redis access layer: the pooled Jedis client for all commands, plus one RESP3 Lettuce client used
+// only by RedisNearCache for its tracked (client-side cached) reads. Spring Data Redis auto-configuration
+// is excluded in application.properties so no second connection factory is created.
 @Configuration
 public class RedisConfig {
 
@@ -18,28 +24,50 @@ public class RedisConfig {
     @Value("${spring.redis.port:6379}")
     private int redisPort;
 
+    @Value("${redis.timeout-ms:2000}")
+    private int timeoutMs;
+
+    @Value("${redis.pool.max-total:64}")
+    private int maxTotal;
+
+    @Value("${redis.pool.max-idle:32}")
+    private int maxIdle;
+
+    @Value("${redis.pool.min-idle:8}")
+    private int minIdle;
+
+    @Value("${redis.pool.max-wait-ms:500}")
+    private long maxWaitMs;
+
     @Bean
     public JedisPooled jedisPooled() {
         try {
-            //            jedis.ping(); // Test connection during bean creation
-            return new JedisPooled(redisHost, redisPort);
+            ConnectionPoolConfig poolConfig = new ConnectionPoolConfig();
+            poolConfig.setMaxTotal(maxTotal);
+            poolConfig.setMaxIdle(maxIdle);
+            poolConfig.setMinIdle(minIdle);
+            // Fail fast instead of queueing request threads forever when the pool is exhausted
+            poolConfig.setMaxWait(Duration.ofMillis(maxWaitMs));
+            poolConfig.setTestWhileIdle(true);
+            poolConfig.setTimeBetweenEvictionRuns(Duration.ofSeconds(30));
+            return new JedisPooled(poolConfig, redisHost, redisPort, timeoutMs);
         } catch (Exception e) {
             throw new RuntimeException("Failed to create JedisPooled bean: " + e.getMessage(), e);
         }
     }
 
-    @Bean
-    public RedisTemplate<String, Object> redisTemplate(RedisConnectionFactory connectionFactory) {
-        RedisTemplate<String, Object> template = new RedisTemplate<>();
-        template.setConnectionFactory(connectionFactory);
-
-        // Use JSON serializer for storing objects
-        Jackson2JsonRedisSerializer<Object> serializer = new Jackson2JsonRedisSerializer<>(Object.class);
-        template.setValueSerializer(serializer);
-        template.setKeySerializer(new StringRedisSerializer());
-        template.setHashKeySerializer(new StringRedisSerializer());
-        template.setHashValueSerializer(serializer);
-        template.afterPropertiesSet();
-        return template;
+    // RESP3 is required for CLIENT TRACKING invalidations to arrive as push messages on the same connection
+    @Bean(destroyMethod = "shutdown")
+    public RedisClient nearCacheRedisClient() {
+        RedisClient client = RedisClient.create(RedisURI.builder()
+                .withHost(redisHost)
+                .withPort(redisPort)
+                .withTimeout(Duration.ofMillis(timeoutMs))
+                .build());
+        client.setOptions(ClientOptions.builder()
+                .protocolVersion(ProtocolVersion.RESP3)
+                .autoReconnect(true)
+                .build());
+        return client;
     }
-}
\ No newline at end of file
+}
@@ -46,8 +46,10 @@ public class SpringSecurity {
 
                         .requestMatchers("/api/auth/**").permitAll() // Allow auth endpoints
                         .requestMatchers("/uploads/**").permitAll() // Serve uploaded fil
+                        .requestMatchers("/api/admin/**").hasRole("ADMIN") // Before the /api/** catch-all below
                         .requestMatchers("/api/**","/api/public").permitAll()
                         .requestMatchers("/trip/socket/**").permitAll() // WebSocket endpoint
+                        .requestMatchers("/actuator/health", "/actuator/prometheus").permitAll() // Probes and Prometheus scrape
 
                         .requestMatchers("/api/favorites/**", "/api/bookings/**", "/api/rooms/*").authenticated()
                         .requestMatchers("/admin/**").hasRole("ADMIN") // Admin endpoints
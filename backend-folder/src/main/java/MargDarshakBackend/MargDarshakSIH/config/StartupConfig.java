@@ -0,0 +1,44 @@
+package MargDarshakBackend.MargDarshakSIH.config;
+
+import MargDarshakBackend.MargDarshakSIH.Schedule.ScheduleLoader;
+import MargDarshakBackend.MargDarshakSIH.Service.AnalyticsService;
+import MargDarshakBackend.MargDarshakSIH.Service.DriverAssignmentService;
+import MargDarshakBackend.MargDarshakSIH.Service.GeofenceService;
+import MargDarshakBackend.MargDarshakSIH.Service.LocationStreamHub;
+import MargDarshakBackend.MargDarshakSIH.Service.LocationTraceService;
+import MargDarshakBackend.MargDarshakSIH.Service.PipelineMetrics;
+import MargDarshakBackend.MargDarshakSIH.Service.RouteGeometryService;
+import MargDarshakBackend.MargDarshakSIH.Service.SeatOccupancyService;
+import MargDarshakBackend.MargDarshakSIH.Service.ShardMembership;
+import MargDarshakBackend.MargDarshakSIH.Service.ShardRouter;
+import MargDarshakBackend.MargDarshakSIH.Service.TrafficAggregator;
+import MargDarshakBackend.MargDarshakSIH.Service.TripLifecycleService;
+import MargDarshakBackend.MargDarshakSIH.websocket.StompSessionMetrics;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class StartupConfig {
+
+    // With spring.main.lazy-initialization=true (fast-startup profile) these still start eagerly:
+    // they run scheduled jobs, hold state that must exist before the first message, or start the schedule load.
+    @Bean
+    static LazyInitializationExcludeFilter eagerBeans() {
+        return LazyInitializationExcludeFilter.forBeanTypes(
+                ScheduleLoader.class,
+                SeatOccupancyService.class,
+                DriverAssignmentService.class,
+                LocationTraceService.class,
+                LocationStreamHub.class,
+                TripLifecycleService.class,
+                GeofenceService.class,
+                TrafficAggregator.class,
+                RouteGeometryService.class,
+                AnalyticsService.class,
+                ShardMembership.class,
+                ShardRouter.class,
+                PipelineMetrics.class,
+                StompSessionMetrics.class);
+    }
+}
@@ -0,0 +1,12 @@
+package MargDarshakBackend.MargDarshakSIH.dto;
+
+import lombok.Data;
+
+@Data
+public class AssignmentRequest {
+    private String driverEmail;
+    private String vehicleNumber;
+    // "HH:mm"; leave both empty for an all-day assignment
+    private String shiftStart;
+    private String shiftEnd;
+}
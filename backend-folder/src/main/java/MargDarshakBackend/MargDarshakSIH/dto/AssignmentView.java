@@ -0,0 +1,23 @@
+package MargDarshakBackend.MargDarshakSIH.dto;
+
+import MargDarshakBackend.MargDarshakSIH.entity.DriverAssignment;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// A DriverAssignment without the driver's identity and contact details, for callers other than admins
+// and the driver themselves
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AssignmentView {
+    private String id;
+    private String vehicleNumber;
+    private String shiftStart;
+    private String shiftEnd;
+
+    public static AssignmentView from(DriverAssignment assignment) {
+        return new AssignmentView(assignment.getId(), assignment.getVehicleNumber(),
+                assignment.getShiftStart(), assignment.getShiftEnd());
+    }
+}
@@ -0,0 +1,13 @@
+package MargDarshakBackend.MargDarshakSIH.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AuthResponse {
+    private String token;
+    private UserProfileView user;
+}
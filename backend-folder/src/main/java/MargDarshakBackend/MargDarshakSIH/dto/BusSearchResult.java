@@ -0,0 +1,36 @@
+package MargDarshakBackend.MargDarshakSIH.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Shape of NearbyBusResponse in the PWA. Fields whose source timed out are left null.
+// speed is always null: neither ingest path reports one.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BusSearchResult {
+    private String id;
+    private String route;
+    private String destination;
+    private String from;
+    private String to;
+    private String speed;
+    private String arrivalTime;
+    private String distance;
+    private String driverName;
+    private String driverPhone;
+    private boolean hasWomenConductor;
+    private Integer womenSeats;
+    private String image;
+    private Coordinates coordinates;
+    private SeatOccupancyResponse seatOccupancy;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Coordinates {
+        private double lat;
+        private double lng;
+    }
+}
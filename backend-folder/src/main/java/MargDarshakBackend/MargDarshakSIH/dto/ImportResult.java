@@ -0,0 +1,16 @@
+package MargDarshakBackend.MargDarshakSIH.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportResult {
+    private long row;
+    private String type;
+    private String key;
+    private String status; // created, updated, assigned, duplicate, error
+    private String message;
+}
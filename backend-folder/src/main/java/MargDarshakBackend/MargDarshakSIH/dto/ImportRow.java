@@ -0,0 +1,25 @@
+package MargDarshakBackend.MargDarshakSIH.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// One line of a bulk onboarding import (NDJSON object or CSV row).
+// type is "user", "vehicle" (owner identified by email) or "assignment" (driverEmail -> vehicleNumber).
+@Data
+@NoArgsConstructor
+public class ImportRow {
+    private long row;
+    private String type;
+
+    private String name;
+    private String email;
+    private String password;
+    private String phone;
+
+    private String vehicleNumber;
+    private String model;
+    private Integer seatingCapacity;
+    private String fuelType;
+
+    private String driverEmail;
+}
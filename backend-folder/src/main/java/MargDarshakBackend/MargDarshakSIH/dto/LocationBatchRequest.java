@@ -0,0 +1,13 @@
+package MargDarshakBackend.MargDarshakSIH.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class LocationBatchRequest {
+    private List<String> vehicles;
+    // Optional: the "asOf" of a previous response (epoch millis) or an ISO local date-time;
+    // only vehicles with a newer fix are returned
+    private String since;
+}
@@ -0,0 +1,24 @@
+package MargDarshakBackend.MargDarshakSIH.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// What a subscriber receives on /user/queue/notifications (in batches)
+@Data
+@NoArgsConstructor
+public class Notification {
+    public static final String ARRIVAL = "arrival";
+    public static final String DELAY = "delay";
+    public static final String SOS = "sos";
+
+    private String id; // stream entry id of the latest coalesced event
+    private String type;
+    private String message;
+    private String vehicleNumber;
+    private String route;
+    private String stopId;
+    private long timestamp;
+    // Events with the same key are coalesced per recipient; count is how many were folded into this one
+    private String dedupKey;
+    private int count = 1;
+}
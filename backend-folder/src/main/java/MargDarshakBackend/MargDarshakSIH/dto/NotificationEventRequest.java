@@ -0,0 +1,14 @@
+package MargDarshakBackend.MargDarshakSIH.dto;
+
+import lombok.Data;
+
+@Data
+public class NotificationEventRequest {
+    // "delay" or "sos"
+    private String type;
+    private String vehicleNumber;
+    // Optional; defaults to the vehicle's scheduled route
+    private String route;
+    private String stopId;
+    private String message;
+}
@@ -0,0 +1,13 @@
+package MargDarshakBackend.MargDarshakSIH.dto;
+
+import lombok.Data;
+
+// Boarding/alighting counts reported by a conductor or driver at a stop
+@Data
+public class OccupancyEvent {
+    private String busId;
+    private int boarded;
+    private int alighted;
+    private int womenBoarded;
+    private int womenAlighted;
+}
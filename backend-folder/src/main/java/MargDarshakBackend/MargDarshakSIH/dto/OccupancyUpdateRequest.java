@@ -0,0 +1,11 @@
+package MargDarshakBackend.MargDarshakSIH.dto;
+
+import lombok.Data;
+
+// Absolute occupancy update; fields left out (null) are not changed
+@Data
+public class OccupancyUpdateRequest {
+    private Integer totalSeats;
+    private Integer occupiedSeats;
+    private Integer womenSeatsOccupied;
+}
@@ -0,0 +1,7 @@
+package MargDarshakBackend.MargDarshakSIH.dto;
+
+import java.util.Set;
+
+// Published (Spring application event) by ShardMembership when this node adopts a new member set
+public record OwnershipChangedEvent(Set<String> previous, Set<String> current) {
+}
@@ -8,4 +8,6 @@ public class ProfileUpdateRequest {
     private String phone;
     private String address;
     private String profileImageUrl;
+    // Optional: version the client last read; a mismatch yields 409 Conflict
+    private Long version;
 }
@@ -0,0 +1,12 @@
+package MargDarshakBackend.MargDarshakSIH.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+// Body of PUT /api/map/route/{routeId}/shape: either an encoded polyline or a list of points
+@Data
+public class RouteShapeRequest {
+    private String polyline;
+    private List<TrafficConditionsRequest.Point> points;
+}
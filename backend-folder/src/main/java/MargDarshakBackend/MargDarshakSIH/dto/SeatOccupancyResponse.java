@@ -0,0 +1,20 @@
+package MargDarshakBackend.MargDarshakSIH.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+// Shape of SeatOccupancyData in the PWA
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SeatOccupancyResponse {
+    private String busId;
+    private int totalSeats;
+    private int occupiedSeats;
+    private int womenSeatsOccupied;
+    private String lastUpdated;
+    private Map<String, String> crowdingStatus;
+}
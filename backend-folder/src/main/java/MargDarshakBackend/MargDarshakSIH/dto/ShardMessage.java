@@ -0,0 +1,91 @@
+package MargDarshakBackend.MargDarshakSIH.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// Message between shard nodes over Redis pub/sub (JSON), see ShardRouter. Only the fields of its type are set.
+// fix, adopt and end go to the owner's inbox; stop, traffic and occupancy are broadcast to every node.
+@Data
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ShardMessage {
+    public static final String FIX = "fix";
+    public static final String ADOPT = "adopt";
+    public static final String END = "end";
+    public static final String STOP = "stop";
+    public static final String TRAFFIC = "traffic";
+    public static final String OCCUPANCY = "occupancy";
+
+    private String type;
+    private String node; // sender of a broadcast
+    private String vehicleNumber;
+    private String tripId;
+    private String state;
+    private Double latitude;
+    private Double longitude;
+    private Long timestamp; // epoch millis
+    private StopEvent stopEvent;
+    private List<TrafficSample> samples;
+    private SeatOccupancyResponse occupancy;
+    private Long version;
+
+    public static ShardMessage fix(String vehicleNumber, double latitude, double longitude, long timestamp) {
+        ShardMessage m = new ShardMessage();
+        m.type = FIX;
+        m.vehicleNumber = vehicleNumber;
+        m.latitude = latitude;
+        m.longitude = longitude;
+        m.timestamp = timestamp;
+        return m;
+    }
+
+    // The vehicle number keeps adopt and end on the same inbox worker as the vehicle's fixes
+    public static ShardMessage adopt(String tripId, String vehicleNumber) {
+        ShardMessage m = new ShardMessage();
+        m.type = ADOPT;
+        m.tripId = tripId;
+        m.vehicleNumber = vehicleNumber;
+        return m;
+    }
+
+    // state may be null: the owner decides the outcome from the fixes
+    public static ShardMessage end(String tripId, String vehicleNumber, String state) {
+        ShardMessage m = new ShardMessage();
+        m.type = END;
+        m.tripId = tripId;
+        m.vehicleNumber = vehicleNumber;
+        m.state = state;
+        return m;
+    }
+
+    public static ShardMessage stop(StopEvent event) {
+        ShardMessage m = new ShardMessage();
+        m.type = STOP;
+        m.stopEvent = event;
+        return m;
+    }
+
+    public static ShardMessage traffic(List<TrafficSample> samples) {
+        ShardMessage m = new ShardMessage();
+        m.type = TRAFFIC;
+        m.samples = samples;
+        return m;
+    }
+
+    // A crowding band change; the bus id as vehicleNumber keeps one bus's changes on one inbox worker
+    public static ShardMessage occupancy(SeatOccupancyResponse occupancy, long version) {
+        ShardMessage m = new ShardMessage();
+        m.type = OCCUPANCY;
+        m.vehicleNumber = occupancy.getBusId();
+        m.occupancy = occupancy;
+        m.version = version;
+        return m;
+    }
+
+    // One speed observation on a route segment (RouteNetwork segment id)
+    public record TrafficSample(String segmentId, long timestamp, double speedKmh) {
+    }
+}
@@ -0,0 +1,23 @@
+package MargDarshakBackend.MargDarshakSIH.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+// A completed location trace over the slow threshold, as returned by /api/admin/traces/slow.
+// stagesMs holds the time spent in each stage, in pipeline order; clientToServer is null if the
+// client timestamp could not be parsed.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SlowTrace {
+    private String traceId;
+    private String vehicleNumber;
+    private String clientTimestamp;
+    private String receivedAt;
+    private Map<String, Double> stagesMs;
+    private int sessionsSent;
+    private double totalMs;
+}
@@ -0,0 +1,22 @@
+package MargDarshakBackend.MargDarshakSIH.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Published (Spring application event) when a vehicle enters or leaves a stop's geofence
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StopEvent {
+    public static final String ARRIVAL = "arrival";
+    public static final String DEPARTURE = "departure";
+
+    private String type;
+    private String vehicleNumber;
+    private String stopId;
+    private String stopName;
+    private double latitude;
+    private double longitude;
+    private long timestamp; // epoch millis
+}
@@ -0,0 +1,11 @@
+package MargDarshakBackend.MargDarshakSIH.dto;
+
+import lombok.Data;
+
+@Data
+public class SubscriptionRequest {
+    // "route", "stop" or "vehicle"
+    private String type;
+    // Route string ("Origin→Destination" or tripId), stopId or vehicle number
+    private String target;
+}
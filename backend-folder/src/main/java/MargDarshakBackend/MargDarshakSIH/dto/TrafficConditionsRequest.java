@@ -0,0 +1,17 @@
+package MargDarshakBackend.MargDarshakSIH.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+// Body of POST /api/map/traffic-conditions, as sent by the PWA map view
+@Data
+public class TrafficConditionsRequest {
+    private List<Point> points;
+
+    @Data
+    public static class Point {
+        private Double lat;
+        private Double lng;
+    }
+}
@@ -0,0 +1,31 @@
+package MargDarshakBackend.MargDarshakSIH.dto;
+
+import java.util.List;
+import java.util.Map;
+
+// Published by TrafficAggregator on a fixed cadence and never modified afterwards
+public record TrafficSnapshot(long generation,
+                              long generatedAt,
+                              long windowSeconds,
+                              String condition,
+                              Map<String, RouteCondition> routes,
+                              List<SegmentCondition> segments) {
+
+    public record SegmentCondition(String segmentId,
+                                   String fromStop,
+                                   String toStop,
+                                   double fromLat,
+                                   double fromLon,
+                                   double toLat,
+                                   double toLon,
+                                   double lengthKm,
+                                   int samples,
+                                   double meanSpeedKmh,
+                                   double medianSpeedKmh,
+                                   String condition,
+                                   double delayMinutes) {
+    }
+
+    public record RouteCondition(String condition, double delayMinutes, int segmentsWithData) {
+    }
+}
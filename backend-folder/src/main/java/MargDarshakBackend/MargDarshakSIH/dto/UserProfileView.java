@@ -0,0 +1,27 @@
+package MargDarshakBackend.MargDarshakSIH.dto;
+
+import MargDarshakBackend.MargDarshakSIH.entity.User;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// What profile and auth responses actually need from a User. Used as a DTO projection,
+// so Mongo only returns these fields (never the password hash).
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserProfileView {
+    private String id;
+    private String name;
+    private String email;
+    private String phone;
+    private String address;
+    private String profileImageUrl;
+    private Boolean profileComplete;
+    private Long version;
+
+    public static UserProfileView from(User user) {
+        return new UserProfileView(user.getId(), user.getName(), user.getEmail(), user.getPhone(),
+                user.getAddress(), user.getProfileImageUrl(), user.getProfileComplete(), user.getVersion());
+    }
+}
@@ -0,0 +1,36 @@
+package MargDarshakBackend.MargDarshakSIH.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+// Links a driver (a User) to a vehicle number for a daily shift.
+// Driver name and phone are copied in so lookups never need to touch the users collection.
+@Document(collection = "driver_assignments")
+@CompoundIndex(name = "driver_vehicle", def = "{'driverId': 1, 'vehicleNumber': 1}", unique = true)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DriverAssignment {
+    @Id
+    private String id;
+
+    private String driverId;
+
+    @Indexed
+    private String driverEmail;
+
+    private String driverName;
+    private String driverPhone;
+
+    @Indexed
+    private String vehicleNumber;
+
+    // Daily shift as "HH:mm"; null means all day. A start after the end wraps past midnight.
+    private String shiftStart;
+    private String shiftEnd;
+}
@@ -15,12 +15,14 @@ public class DriverDocuments {
     @Id
     private String id;
 
-    @Indexed
+    // One per user: upsertByUserId relies on it so concurrent first writes can't create duplicates
+    @Indexed(unique = true, sparse = true)
     private String userId;
 
     private String drivingLicenseUrl;
     private String vehicleRegistrationUrl;
     private String insuranceCertificateUrl;
-}
-
 
+    // Bumped by every repository field update
+    private Long version;
+}
@@ -0,0 +1,27 @@
+package MargDarshakBackend.MargDarshakSIH.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+// A passenger following a route, stop or vehicle for notifications.
+// target is normalized: ScheduleLoader.normalizeRoute for routes, the stopId or vehicle number otherwise.
+@Document(collection = "notification_subscriptions")
+@CompoundIndex(name = "user_target", def = "{'userEmail': 1, 'type': 1, 'target': 1}", unique = true)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationSubscription {
+    @Id
+    private String id;
+
+    private String userEmail;
+
+    // "route", "stop" or "vehicle"
+    private String type;
+
+    private String target;
+}
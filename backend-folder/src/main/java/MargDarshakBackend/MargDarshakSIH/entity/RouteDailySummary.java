@@ -0,0 +1,60 @@
+package MargDarshakBackend.MargDarshakSIH.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+// One route's on-time performance, headway regularity and bunching for one day, written by AnalyticsService.
+// Delays are in minutes (positive = late); metrics with no observations are null.
+@Document(collection = "route_daily_summaries")
+@CompoundIndex(name = "route_date", def = "{'route': 1, 'date': 1}")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RouteDailySummary {
+    @Id
+    private String id; // route|date
+
+    private String route; // ScheduleLoader.normalizeRoute
+    private String routeName;
+    private LocalDate date;
+
+    private int trips;
+    private int completed;
+    private int abandoned;
+    private double distanceKm;
+
+    private Double onTimeStartPct;
+    private Double meanStartDelayMinutes;
+    private Double p90StartDelayMinutes;
+    private Double onTimeEndPct;
+    private Double meanEndDelayMinutes;
+    private Double p90EndDelayMinutes;
+
+    private Double scheduledHeadwayMinutes;
+    private Double meanHeadwayMinutes;
+    private Double headwayCv; // stddev / mean of observed headways, averaged over stops
+    private int headwayObservations;
+    private int bunchingEvents;
+
+    private List<StopHeadway> stops;
+    private LocalDateTime generatedAt;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class StopHeadway {
+        private String stopId;
+        private int passages;
+        private Double meanHeadwayMinutes;
+        private Double headwayCv;
+        private int bunchingEvents;
+    }
+}
@@ -0,0 +1,25 @@
+package MargDarshakBackend.MargDarshakSIH.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+// Full-resolution route shape, stored as an encoded polyline. Keyed by the normalized route
+// (ScheduleLoader.normalizeRoute) so every alias of a route resolves to the same shape.
+@Document(collection = "route_shapes")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RouteShape {
+    @Id
+    private String id;
+
+    private String source; // "gtfs" or "import"
+    private String polyline;
+    private int pointCount;
+    private LocalDateTime updatedAt;
+}
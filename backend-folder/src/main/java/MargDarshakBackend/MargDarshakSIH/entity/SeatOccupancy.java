@@ -0,0 +1,22 @@
+package MargDarshakBackend.MargDarshakSIH.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+// Last persisted occupancy per bus; the live values are held by SeatOccupancyService (in memory, or in Redis with sharding)
+@Document(collection = "seat_occupancy")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SeatOccupancy {
+    @Id
+    private String busId;
+
+    private int totalSeats;
+    private int occupiedSeats;
+    private int womenSeatsOccupied;
+    private long lastUpdated;
+}
@@ -0,0 +1,56 @@
+package MargDarshakBackend.MargDarshakSIH.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+// A finished trip: summary plus the downsampled trajectory, written once when the trip ends.
+@Document(collection = "trip_archives")
+@CompoundIndex(name = "vehicle_started", def = "{'vehicleNumber': 1, 'startedAt': -1}")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TripArchive {
+    @Id
+    private String id;
+
+    @Indexed
+    private String tripId;
+
+    private String vehicleNumber;
+    private String route;
+    private String origin;
+    private String destination;
+
+    // "completed" or "abandoned"
+    private String state;
+
+    private LocalDateTime scheduledEnd;
+    // Range-scanned by the nightly analytics (one day at a time)
+    @Indexed
+    private LocalDateTime startedAt;
+    private LocalDateTime firstFixAt;
+    private LocalDateTime lastFixAt;
+    private LocalDateTime endedAt;
+
+    private long fixCount;
+    private double distanceKm;
+
+    private List<TrajectoryPoint> trajectory;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class TrajectoryPoint {
+        private double lat;
+        private double lon;
+        private long t; // epoch millis
+    }
+}
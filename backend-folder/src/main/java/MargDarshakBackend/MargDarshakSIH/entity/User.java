@@ -10,6 +10,8 @@ import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
+import java.util.Set;
+
 @Document(collection = "users")
 @Data
 @Slf4j
@@ -78,4 +80,11 @@ public class User {
 
     // Profile completion flag
     private Boolean profileComplete;
+
+    // Granted as ROLE_<name> authorities, e.g. "ADMIN"; null or empty for ordinary users
+    private Set<String> roles;
+
+    // Bumped by every repository field update; clients echo it back for optimistic concurrency.
+    // Deliberately not @Version, so save() keeps its plain upsert behaviour for older documents.
+    private Long version;
 }
@@ -15,13 +15,15 @@ public class Vehicle {
     @Id
     private String id;
 
-    @Indexed
+    // One per user: upsertByUserId relies on it so concurrent first writes can't create duplicates
+    @Indexed(unique = true, sparse = true)
     private String userId;
 
     private String vehicleNumber;
     private String model;
     private Integer seatingCapacity;
     private String fuelType;
-}
-
 
+    // Bumped by every repository field update
+    private Long version;
+}
@@ -0,0 +1,90 @@
+package MargDarshakBackend.MargDarshakSIH.websocket;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+// Streaming parse/encode for the raw location socket: no data-binding, no reflection, no intermediate Map.
+// Jackson recycles the parser/generator buffers per thread; the output buffer is reused per thread too.
+public final class LocationFrameCodec {
+
+    private static final JsonFactory FACTORY = new JsonFactory();
+    private static final ThreadLocal<ByteArrayOutputStream> OUT = ThreadLocal.withInitial(() -> new ByteArrayOutputStream(128));
+
+    private LocationFrameCodec() {
+    }
+
+    // {"vehicleNumber":"..","latitude":..,"longitude":..,"timestamp":".."}; unknown fields are skipped.
+    // Coordinates may be numbers or numeric strings. Missing coordinates come back as NaN.
+    // The coordinates' text is kept as sent, so what is stored and broadcast matches the client's digits.
+    public static LocationFix parse(String payload) throws IOException {
+        String vehicleNumber = null;
+        String timestamp = null;
+        String latitude = null;
+        String longitude = null;
+        try (JsonParser parser = FACTORY.createParser(payload)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("Expected a JSON object");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                switch (field) {
+                    case "vehicleNumber" -> vehicleNumber = value == JsonToken.VALUE_NULL ? null : parser.getText();
+                    case "timestamp" -> timestamp = value == JsonToken.VALUE_NULL ? null : parser.getText();
+                    case "latitude" -> latitude = coordinate(parser, value);
+                    case "longitude" -> longitude = coordinate(parser, value);
+                    default -> parser.skipChildren();
+                }
+            }
+        }
+        return new LocationFix(vehicleNumber, parseCoordinate(latitude), parseCoordinate(longitude), timestamp,
+                latitude, longitude);
+    }
+
+    // Same shape the handler has always broadcast: {"latitude":"..","longitude":"..","timestamp":".."}
+    public static byte[] encode(String latitude, String longitude, String timestamp) throws IOException {
+        ByteArrayOutputStream out = OUT.get();
+        out.reset();
+        try (JsonGenerator gen = FACTORY.createGenerator(out)) {
+            gen.writeStartObject();
+            gen.writeStringField("latitude", latitude);
+            gen.writeStringField("longitude", longitude);
+            gen.writeStringField("timestamp", timestamp);
+            gen.writeEndObject();
+        }
+        return out.toByteArray();
+    }
+
+    // The token's text for a number or string, null for anything else
+    private static String coordinate(JsonParser parser, JsonToken value) throws IOException {
+        if (value == JsonToken.VALUE_NUMBER_FLOAT || value == JsonToken.VALUE_NUMBER_INT || value == JsonToken.VALUE_STRING) {
+            return parser.getText();
+        }
+        parser.skipChildren();
+        return null;
+    }
+
+    private static double parseCoordinate(String text) {
+        if (text == null) {
+            return Double.NaN;
+        }
+        try {
+            return Double.parseDouble(text);
+        } catch (NumberFormatException e) {
+            return Double.NaN;
+        }
+    }
+
+    public record LocationFix(String vehicleNumber, double latitude, double longitude, String timestamp,
+                              String latitudeText, String longitudeText) {
+
+        public boolean hasCoordinates() {
+            return !Double.isNaN(latitude) && !Double.isNaN(longitude);
+        }
+    }
+}
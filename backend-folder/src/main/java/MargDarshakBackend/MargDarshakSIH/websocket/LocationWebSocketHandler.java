@@ -1,19 +1,26 @@
 package MargDarshakBackend.MargDarshakSIH.websocket;
 
+import MargDarshakBackend.MargDarshakSIH.Model.LocationTrace;
 import MargDarshakBackend.MargDarshakSIH.Schedule.ScheduleLoader;
+import MargDarshakBackend.MargDarshakSIH.Service.LocationStreamHub;
+import MargDarshakBackend.MargDarshakSIH.Service.LocationTraceService;
+import MargDarshakBackend.MargDarshakSIH.Service.PipelineMetrics;
+import MargDarshakBackend.MargDarshakSIH.Service.ShardRouter;
 import MargDarshakBackend.MargDarshakSIH.entity.TripSchedule;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import MargDarshakBackend.MargDarshakSIH.websocket.LocationFrameCodec.LocationFix;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
 import redis.clients.jedis.JedisPooled;
 
-import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
 public class LocationWebSocketHandler extends TextWebSocketHandler {
+    private static final Logger logger = LoggerFactory.getLogger(LocationWebSocketHandler.class);
 
     @Autowired
     private ScheduleLoader scheduleLoader;
@@ -21,63 +28,104 @@ public class LocationWebSocketHandler extends TextWebSocketHandler {
     @Autowired
     private JedisPooled jedis;
 
+    @Autowired
+    private PipelineMetrics metrics;
+
+    @Autowired
+    private LocationTraceService traceService;
+
+    @Autowired
+    private LocationStreamHub streamHub;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
     private final ConcurrentHashMap<String, WebSocketSession> sessions = new ConcurrentHashMap<>();
-    private final ObjectMapper objectMapper = new ObjectMapper();
 
     @Override
     public void afterConnectionEstablished(WebSocketSession session) throws Exception {
         String token = session.getUri().getQuery().split("token=")[1];
         sessions.put(token, session);
-        System.out.println("WebSocket connected for token: " + token);
+        logger.debug("WebSocket connected for token: {}", token);
     }
 
     @Override
     protected void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
+        long start = metrics.start();
         try {
-            Map<String, Object> locationData = objectMapper.readValue(message.getPayload(), Map.class);
-            TripSchedule schedule = createTripScheduleFromMessage(locationData);
+            LocationFix fix = LocationFrameCodec.parse(message.getPayload());
+            LocationTrace trace = traceService.begin(fix.vehicleNumber(), fix.timestamp());
+            TripSchedule schedule = createTripScheduleFromMessage(fix);
 
             if (schedule == null) {
+                traceService.finish(trace);
                 session.sendMessage(new TextMessage("{\"error\": \"Invalid location data or no schedule found\"}"));
                 return;
             }
+            if (trace != null) {
+                trace.mark(LocationTrace.Stage.VALIDATED);
+            }
 
-            // Store location in Redis
-            Map<String, String> locationEntry = new HashMap<>();
-            locationEntry.put("latitude", String.valueOf(locationData.get("latitude")));
-            locationEntry.put("longitude", String.valueOf(locationData.get("longitude")));
-            locationEntry.put("timestamp", (String) locationData.get("timestamp"));
-            jedis.hset("trip_location:" + schedule.getTripId(), locationEntry);
+            // Store location in Redis, as the client wrote the coordinates
+            String latitude = fix.latitudeText();
+            String longitude = fix.longitudeText();
+            long redisStart = metrics.start();
+            jedis.hset("trip_location:" + schedule.getTripId(),
+                    Map.of("latitude", latitude, "longitude", longitude, "timestamp", fix.timestamp()));
+            metrics.stop("redis.command", redisStart, "op", "hset");
+            if (trace != null) {
+                trace.mark(LocationTrace.Stage.PERSISTED);
+            }
+            metrics.vehicleActive(schedule.getVehicleNumber());
+            shardRouter.dispatch(schedule.getVehicleNumber(), fix.latitude(), fix.longitude(), System.currentTimeMillis());
+            if (trace != null) {
+                trace.mark(LocationTrace.Stage.DISPATCHED);
+            }
 
-            // Broadcast to all sessions
-            String broadcastMessage = objectMapper.writeValueAsString(locationEntry);
+            // Broadcast to all sessions: encoded once, the same immutable frame goes to every session
+            long broadcastStart = metrics.start();
+            TextMessage frame = new TextMessage(LocationFrameCodec.encode(latitude, longitude, fix.timestamp()));
+            if (trace != null) {
+                trace.mark(LocationTrace.Stage.ENQUEUED);
+            }
             for (WebSocketSession s : sessions.values()) {
                 if (s.isOpen()) {
-                    s.sendMessage(new TextMessage(broadcastMessage));
+                    s.sendMessage(frame);
+                    if (trace != null) {
+                        trace.sendCompleted();
+                    }
                 }
             }
+            traceService.finish(trace);
+            streamHub.publish(schedule.getVehicleNumber(), fix.latitude(), fix.longitude(), fix.timestamp());
+            metrics.stop("location.broadcast", broadcastStart, "transport", "raw");
+            metrics.stop("location.ingest", start, "transport", "raw");
         } catch (Exception e) {
-            System.err.println("Error processing WebSocket message: " + e.getMessage());
+            logger.warn("Error processing WebSocket message: {}", e.getMessage());
             session.sendMessage(new TextMessage("{\"error\": \"" + e.getMessage() + "\"}"));
         }
     }
 
-    private TripSchedule createTripScheduleFromMessage(Map<String, Object> locationData) {
+    private TripSchedule createTripScheduleFromMessage(LocationFix fix) {
         try {
-            String vehicleNumber = (String) locationData.get("vehicleNumber");
+            String vehicleNumber = fix.vehicleNumber();
             if (vehicleNumber == null || vehicleNumber.isEmpty()) {
-                System.err.println("Missing vehicleNumber in location data");
+                logger.warn("Missing vehicleNumber in location data");
+                return null;
+            }
+            if (!fix.hasCoordinates() || fix.timestamp() == null) {
+                logger.warn("Missing coordinates or timestamp for vehicle: {}", vehicleNumber);
                 return null;
             }
 
             TripSchedule schedule = scheduleLoader.getScheduleByVehicle(vehicleNumber);
             if (schedule == null) {
-                System.err.println("No schedule found for vehicle: " + vehicleNumber);
+                logger.debug("No schedule found for vehicle: {}", vehicleNumber);
                 return null;
             }
             return schedule;
         } catch (Exception e) {
-            System.err.println("Error creating TripSchedule: " + e.getMessage());
+            logger.warn("Error creating TripSchedule: {}", e.getMessage());
             return null;
         }
     }
@@ -86,6 +134,6 @@ public class LocationWebSocketHandler extends TextWebSocketHandler {
     public void afterConnectionClosed(WebSocketSession session, org.springframework.web.socket.CloseStatus status) throws Exception {
         String token = session.getUri().getQuery().split("token=")[1];
         sessions.remove(token);
-        System.out.println("WebSocket disconnected for token: " + token);
+        logger.debug("WebSocket disconnected for token: {}", token);
     }
 }
\ No newline at end of file
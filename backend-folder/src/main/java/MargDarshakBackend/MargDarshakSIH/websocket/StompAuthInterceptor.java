@@ -0,0 +1,48 @@
+package MargDarshakBackend.MargDarshakSIH.websocket;
+
+import MargDarshakBackend.MargDarshakSIH.Utils.JwtUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// Binds the STOMP session to the user in the CONNECT frame's "Authorization: Bearer <jwt>" header, so
+// /user/queue/... destinations reach them. Connections without a valid token stay anonymous, as before.
+@Component
+public class StompAuthInterceptor implements ChannelInterceptor {
+    private static final Logger log = LoggerFactory.getLogger(StompAuthInterceptor.class);
+
+    @Autowired
+    private JwtUtils jwtUtils;
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getCommand() != StompCommand.CONNECT) {
+            return message;
+        }
+        String header = accessor.getFirstNativeHeader("Authorization");
+        if (header == null || !header.startsWith("Bearer ")) {
+            return message;
+        }
+        String jwt = header.substring(7);
+        try {
+            String email = jwtUtils.extractUsername(jwt);
+            if (email != null && jwtUtils.validateToken(jwt)) {
+                accessor.setUser(new UsernamePasswordAuthenticationToken(email, null, List.of()));
+            }
+        } catch (Exception e) {
+            log.debug("Ignoring invalid STOMP token: {}", e.getMessage());
+        }
+        return message;
+    }
+}
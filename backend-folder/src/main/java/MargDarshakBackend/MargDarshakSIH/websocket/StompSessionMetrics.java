@@ -0,0 +1,111 @@
+package MargDarshakBackend.MargDarshakSIH.websocket;
+
+import MargDarshakBackend.MargDarshakSIH.Service.PipelineMetrics;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.messaging.SessionSubscribeEvent;
+import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Gauges for connected STOMP sessions and subscriptions per topic, fed by the session events.
+// Per-bus topics (/topic/occupancy/{busId}) are collapsed to /topic/occupancy/* to bound cardinality.
+@Component
+public class StompSessionMetrics {
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Autowired
+    private PipelineMetrics metrics;
+
+    // sessionId -> (subscriptionId -> topic)
+    private final Map<String, Map<String, String>> sessions = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> subscriptionsByTopic = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void init() {
+        if (metrics.isEnabled()) {
+            Gauge.builder("stomp.sessions", sessions, Map::size).register(registry);
+        }
+    }
+
+    @EventListener
+    public void onConnected(SessionConnectedEvent event) {
+        if (metrics.isEnabled()) {
+            sessions.putIfAbsent(sessionId(event.getMessage()), new ConcurrentHashMap<>());
+        }
+    }
+
+    @EventListener
+    public void onSubscribe(SessionSubscribeEvent event) {
+        if (!metrics.isEnabled()) {
+            return;
+        }
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        if (accessor.getDestination() == null) {
+            return;
+        }
+        String topic = topic(accessor.getDestination());
+        Map<String, String> subscriptions = sessions.computeIfAbsent(accessor.getSessionId(), k -> new ConcurrentHashMap<>());
+        if (subscriptions.put(accessor.getSubscriptionId(), topic) == null) {
+            counter(topic).incrementAndGet();
+        }
+    }
+
+    @EventListener
+    public void onUnsubscribe(SessionUnsubscribeEvent event) {
+        if (!metrics.isEnabled()) {
+            return;
+        }
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        Map<String, String> subscriptions = sessions.get(accessor.getSessionId());
+        if (subscriptions == null) {
+            return;
+        }
+        String topic = subscriptions.remove(accessor.getSubscriptionId());
+        if (topic != null) {
+            counter(topic).decrementAndGet();
+        }
+    }
+
+    @EventListener
+    public void onDisconnect(SessionDisconnectEvent event) {
+        if (!metrics.isEnabled()) {
+            return;
+        }
+        Map<String, String> subscriptions = sessions.remove(event.getSessionId());
+        if (subscriptions != null) {
+            for (String topic : subscriptions.values()) {
+                counter(topic).decrementAndGet();
+            }
+        }
+    }
+
+    private AtomicInteger counter(String topic) {
+        return subscriptionsByTopic.computeIfAbsent(topic, t -> {
+            AtomicInteger count = new AtomicInteger();
+            Gauge.builder("stomp.subscriptions", count, AtomicInteger::get).tag("topic", t).register(registry);
+            return count;
+        });
+    }
+
+    private static String sessionId(org.springframework.messaging.Message<?> message) {
+        return StompHeaderAccessor.wrap(message).getSessionId();
+    }
+
+    // /topic/occupancy/KA01AB1234 -> /topic/occupancy/*
+    static String topic(String destination) {
+        int second = destination.indexOf('/', "/topic/".length());
+        return second < 0 ? destination : destination.substring(0, second) + "/*";
+    }
+}
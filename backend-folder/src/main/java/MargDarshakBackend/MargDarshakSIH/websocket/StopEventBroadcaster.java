@@ -0,0 +1,39 @@
+package MargDarshakBackend.MargDarshakSIH.websocket;
+
+import MargDarshakBackend.MargDarshakSIH.Service.ShardMembership;
+import MargDarshakBackend.MargDarshakSIH.dto.ShardMessage;
+import MargDarshakBackend.MargDarshakSIH.dto.StopEvent;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Component;
+
+// Arrival/departure events to STOMP subscribers of /topic/stops/{stopId}. Events are raised on the vehicle's owner
+// node; with sharding they are broadcast so subscribers connected to any node's (local) broker get them.
+@Component
+public class StopEventBroadcaster {
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Autowired
+    private ShardMembership membership;
+
+    @PostConstruct
+    void init() {
+        membership.onBroadcast(ShardMessage.STOP, m -> deliver(m.getStopEvent()));
+    }
+
+    @EventListener
+    public void onStopEvent(StopEvent event) {
+        deliver(event);
+        if (membership.isEnabled()) {
+            membership.broadcast(ShardMessage.stop(event));
+        }
+    }
+
+    private void deliver(StopEvent event) {
+        messagingTemplate.convertAndSend("/topic/stops/" + event.getStopId(), event);
+    }
+}
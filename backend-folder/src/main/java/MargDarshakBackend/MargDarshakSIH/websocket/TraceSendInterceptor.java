@@ -0,0 +1,46 @@
+package MargDarshakBackend.MargDarshakSIH.websocket;
+
+import MargDarshakBackend.MargDarshakSIH.Service.LocationTraceService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+
+// Stamps per-session send completion for traced location messages on the client outbound channel.
+// The broker copies the trace-id native header onto each subscriber's copy of the message; preSend moves it into
+// a plain message header, which the STOMP encoder does not write, so trace ids never reach clients.
+@Component
+public class TraceSendInterceptor implements ExecutorChannelInterceptor {
+
+    private static final String TRACE_ATTRIBUTE = "margdarshak.traceId";
+
+    @Autowired
+    private LocationTraceService traceService;
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+        String traceId = accessor.getFirstNativeHeader(LocationTraceService.TRACE_HEADER);
+        if (traceId == null) {
+            return message;
+        }
+        accessor.removeNativeHeader(LocationTraceService.TRACE_HEADER);
+        accessor.setHeader(TRACE_ATTRIBUTE, traceId);
+        return MessageBuilder.createMessage(message.getPayload(), accessor.getMessageHeaders());
+    }
+
+    @Override
+    public void afterMessageHandled(Message<?> message, MessageChannel channel, MessageHandler handler, Exception ex) {
+        if (ex != null) {
+            return;
+        }
+        Object traceId = message.getHeaders().get(TRACE_ATTRIBUTE);
+        if (traceId != null) {
+            traceService.sendCompleted(traceId.toString());
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package MargDarshakBackend.MargDarshakSIH.perf;
+
+import MargDarshakBackend.MargDarshakSIH.Service.RouteDayAnalyzer;
+import MargDarshakBackend.MargDarshakSIH.Service.RouteDayAnalyzer.RouteInfo;
+import MargDarshakBackend.MargDarshakSIH.Service.RouteDayAnalyzer.TripSeries;
+import MargDarshakBackend.MargDarshakSIH.entity.RouteDailySummary;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+// RouteDayAnalyzer over a synthetic day: 50 routes of 8 stops, 2000 two-hour trips with a fix every 10 s
+// (1.4M trajectory points). Time should drop close to 1/parallelism up to the number of physical cores.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AnalyticsBenchmark {
+
+    private static final int ROUTES = 50;
+    private static final int STOPS = 8;
+    private static final int TRIPS = 2000;
+    private static final int POINTS = 720;
+
+    @Param({"1", "2", "4", "8"})
+    private int parallelism;
+
+    private ForkJoinPool pool;
+    private RouteDayAnalyzer analyzer;
+    private List<TripSeries> trips;
+    private Map<String, RouteInfo> routes;
+    private final LocalDate date = LocalDate.of(2025, 9, 18);
+
+    @Setup
+    public void setup() {
+        Random random = new Random(11);
+        routes = new HashMap<>();
+        double[][] stopLats = new double[ROUTES][STOPS];
+        double[][] stopLons = new double[ROUTES][STOPS];
+        for (int r = 0; r < ROUTES; r++) {
+            String[] ids = new String[STOPS];
+            double lat = 12 + random.nextDouble() * 2, lon = 77 + random.nextDouble() * 2;
+            for (int s = 0; s < STOPS; s++) {
+                ids[s] = "r" + r + "s" + s;
+                stopLats[r][s] = lat + s * 0.05;
+                stopLons[r][s] = lon + s * 0.02;
+            }
+            routes.put("route" + r, new RouteInfo("route" + r, "Route " + r, ids, stopLats[r], stopLons[r], 20));
+        }
+        long dayStart = 1_758_153_600_000L;
+        trips = new ArrayList<>(TRIPS);
+        for (int i = 0; i < TRIPS; i++) {
+            int r = i % ROUTES;
+            long scheduled = dayStart + (i / ROUTES) * 20 * 60_000L;
+            long first = scheduled + (long) (random.nextGaussian() * 3 * 60_000);
+            double[] lats = new double[POINTS];
+            double[] lons = new double[POINTS];
+            long[] times = new long[POINTS];
+            for (int p = 0; p < POINTS; p++) {
+                // Constant speed along the stops, straight between each pair
+                double f = (double) p / (POINTS - 1) * (STOPS - 1);
+                int s = Math.min(STOPS - 2, (int) f);
+                lats[p] = stopLats[r][s] + (stopLats[r][s + 1] - stopLats[r][s]) * (f - s);
+                lons[p] = stopLons[r][s] + (stopLons[r][s + 1] - stopLons[r][s]) * (f - s);
+                times[p] = first + p * 10_000L;
+            }
+            trips.add(new TripSeries("route" + r, true, 40, scheduled, scheduled + 7_200_000L,
+                    first, times[POINTS - 1], lats, lons, times));
+        }
+        pool = new ForkJoinPool(parallelism);
+        analyzer = new RouteDayAnalyzer(1, 5, 300, 0.25, 2);
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Benchmark
+    public List<RouteDailySummary> analyzeDay() {
+        return analyzer.analyze(date, trips, routes, pool);
+    }
+}
@@ -0,0 +1,62 @@
+package MargDarshakBackend.MargDarshakSIH.perf;
+
+import MargDarshakBackend.MargDarshakSIH.websocket.LocationFrameCodec;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.web.socket.TextMessage;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// One raw-socket fix from payload to per-session frames, without the socket writes.
+// perMessage is the old handler (Map binding, HashMap, re-serialize, a TextMessage per session);
+// shared is the streaming codec with one frame for all sessions. Run with -prof gc for bytes/op.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BroadcastFanOutBenchmark {
+
+    @Param({"10", "1000"})
+    private int sessions;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final String payload = PerfData.rawFix("KA01AB1234", 12.9716, 77.5946);
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public void perMessage(Blackhole bh) throws IOException {
+        Map<String, Object> locationData = objectMapper.readValue(payload, Map.class);
+        Map<String, String> locationEntry = new HashMap<>();
+        locationEntry.put("latitude", String.valueOf(locationData.get("latitude")));
+        locationEntry.put("longitude", String.valueOf(locationData.get("longitude")));
+        locationEntry.put("timestamp", (String) locationData.get("timestamp"));
+        String broadcastMessage = objectMapper.writeValueAsString(locationEntry);
+        for (int i = 0; i < sessions; i++) {
+            bh.consume(new TextMessage(broadcastMessage));
+        }
+    }
+
+    @Benchmark
+    public void shared(Blackhole bh) throws IOException {
+        LocationFrameCodec.LocationFix fix = LocationFrameCodec.parse(payload);
+        TextMessage frame = new TextMessage(LocationFrameCodec.encode(fix.latitudeText(), fix.longitudeText(), fix.timestamp()));
+        for (int i = 0; i < sessions; i++) {
+            bh.consume(frame);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package MargDarshakBackend.MargDarshakSIH.perf;
+
+import MargDarshakBackend.MargDarshakSIH.Model.LocationUpdateRequest;
+import MargDarshakBackend.MargDarshakSIH.dto.UserProfileView;
+import MargDarshakBackend.MargDarshakSIH.entity.User;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Outbound serialization: the STOMP broadcast (what SimpMessagingTemplate converts per fix),
+// the raw-socket Map broadcast, and the full User entity vs the profile projection returned by the API
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BroadcastSerializationBenchmark {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final MappingJackson2MessageConverter converter = new MappingJackson2MessageConverter();
+    private LocationUpdateRequest update;
+    private Map<String, String> locationEntry;
+    private User user;
+    private UserProfileView profile;
+
+    @Setup
+    public void setup() {
+        update = new LocationUpdateRequest("KA01AB1234", 12.9716, 77.5946, "2025-09-18T08:15:00");
+        locationEntry = new HashMap<>();
+        locationEntry.put("latitude", "12.9716");
+        locationEntry.put("longitude", "77.5946");
+        locationEntry.put("timestamp", "2025-09-18T08:15:00");
+        user = PerfData.user();
+        profile = UserProfileView.from(user);
+    }
+
+    @Benchmark
+    public Message<?> stompBroadcast() {
+        return converter.toMessage(update, SimpMessageHeaderAccessor.create().getMessageHeaders());
+    }
+
+    @Benchmark
+    public String rawBroadcast() throws JsonProcessingException {
+        return objectMapper.writeValueAsString(locationEntry);
+    }
+
+    @Benchmark
+    public byte[] userEntity() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(user);
+    }
+
+    @Benchmark
+    public byte[] profileView() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(profile);
+    }
+}
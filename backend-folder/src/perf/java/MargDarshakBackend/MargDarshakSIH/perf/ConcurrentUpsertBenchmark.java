@@ -0,0 +1,156 @@
+package MargDarshakBackend.MargDarshakSIH.perf;
+
+import com.mongodb.ErrorCategory;
+import com.mongodb.MongoWriteException;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.client.model.Updates;
+import org.bson.Document;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Concurrent profile updates against a local Mongo: the old read-modify-save path vs the single findAndModify
+// $set/$inc upsert that VehicleRepositoryCustomImpl and DriverDocumentsRepositoryCustomImpl issue. Every thread
+// writes its own field on the same few userId documents, so any update that overwrites another thread's field
+// shows up as a lost field, and the version counter should equal the number of updates. Both runs use a scratch
+// collection with the unique userId index the entities declare; it is dropped afterwards.
+//
+//   ./mvnw -Pperf test-compile exec:exec@concurrent-upsert -Dupsert.args="--threads 16 --updates 2000"
+//
+// Options (defaults in brackets):
+//   --uri       Mongo to run against [mongodb://localhost:27017]
+//   --db        scratch database [perf_scratch]
+//   --threads   concurrent writers [8]
+//   --docs      userIds they share [16]
+//   --updates   updates per thread [2000]
+public class ConcurrentUpsertBenchmark {
+
+    private static final String COLLECTION = "upsert_benchmark";
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            options.put(args[i].replaceFirst("^--", ""), args[i + 1]);
+        }
+        String uri = options.getOrDefault("uri", "mongodb://localhost:27017");
+        String db = options.getOrDefault("db", "perf_scratch");
+        int threads = Integer.parseInt(options.getOrDefault("threads", "8"));
+        int docs = Integer.parseInt(options.getOrDefault("docs", "16"));
+        int updates = Integer.parseInt(options.getOrDefault("updates", "2000"));
+
+        try (MongoClient client = MongoClients.create(uri)) {
+            MongoCollection<Document> collection = client.getDatabase(db).getCollection(COLLECTION);
+            System.out.printf("%d threads x %d updates over %d documents, %s/%s%n%n", threads, updates, docs, db, COLLECTION);
+            System.out.printf("%-18s %10s %12s %12s %16s %11s%n", "path", "ms", "updates/s", "lost fields", "version/expected", "dup retries");
+            for (boolean atomic : new boolean[]{false, true}) {
+                reset(collection);
+                Result result = run(collection, atomic, threads, docs, updates);
+                System.out.printf("%-18s %10d %12.0f %12d %10d/%-5d %11d%n", atomic ? "findAndModify" : "read-modify-save",
+                        result.millis, (double) threads * updates * 1000 / Math.max(1, result.millis),
+                        result.lostFields, result.versions, (long) threads * updates, result.duplicateRetries);
+            }
+            collection.drop();
+        }
+    }
+
+    private static void reset(MongoCollection<Document> collection) {
+        collection.drop();
+        collection.createIndex(Indexes.ascending("userId"), new IndexOptions().unique(true).sparse(true));
+    }
+
+    private static Result run(MongoCollection<Document> collection, boolean atomic, int threads, int docs, int updates)
+            throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch go = new CountDownLatch(1);
+        AtomicLong duplicateRetries = new AtomicLong();
+        List<Future<?>> writers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            String field = "f" + t;
+            writers.add(pool.submit(() -> {
+                go.await();
+                for (int u = 0; u < updates; u++) {
+                    String userId = "user-" + (u % docs);
+                    while (true) {
+                        try {
+                            if (atomic) {
+                                upsert(collection, userId, field, u);
+                            } else {
+                                readModifySave(collection, userId, field, u);
+                            }
+                            break;
+                        } catch (MongoWriteException e) {
+                            if (e.getError().getCategory() != ErrorCategory.DUPLICATE_KEY) {
+                                throw e;
+                            }
+                            duplicateRetries.incrementAndGet();
+                        }
+                    }
+                }
+                return null;
+            }));
+        }
+        long start = System.nanoTime();
+        go.countDown();
+        for (Future<?> writer : writers) {
+            writer.get();
+        }
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        pool.shutdown();
+        return verify(collection, threads, docs, updates, millis, duplicateRetries.get());
+    }
+
+    // What UserRepositoryCustomImpl and friends do now: one round trip, only the given field is touched
+    private static void upsert(MongoCollection<Document> collection, String userId, String field, int value) {
+        collection.findOneAndUpdate(Filters.eq("userId", userId),
+                Updates.combine(Updates.set(field, value), Updates.inc("version", 1)),
+                new FindOneAndUpdateOptions().upsert(true).returnDocument(ReturnDocument.AFTER));
+    }
+
+    // What the controllers did before: load the document, change one field, write the whole document back
+    private static void readModifySave(MongoCollection<Document> collection, String userId, String field, int value) {
+        Document current = collection.find(Filters.eq("userId", userId)).first();
+        Document updated = current != null ? current : new Document("userId", userId);
+        updated.put(field, value);
+        updated.put("version", updated.get("version") instanceof Number n ? n.longValue() + 1 : 1L);
+        collection.replaceOne(Filters.eq("userId", userId), updated, new ReplaceOptions().upsert(true));
+    }
+
+    // Each thread's last write to a document is its largest u with u % docs == doc
+    private static Result verify(MongoCollection<Document> collection, int threads, int docs, int updates,
+                                 long millis, long duplicateRetries) {
+        long lost = 0;
+        long versions = 0;
+        for (int d = 0; d < docs; d++) {
+            Document doc = collection.find(Filters.eq("userId", "user-" + d)).first();
+            int last = d + ((updates - 1 - d) / docs) * docs;
+            for (int t = 0; t < threads; t++) {
+                Object value = doc == null ? null : doc.get("f" + t);
+                if (d < updates && !(value instanceof Number n && n.intValue() == last)) {
+                    lost++;
+                }
+            }
+            if (doc != null && doc.get("version") instanceof Number n) {
+                versions += n.longValue();
+            }
+        }
+        return new Result(millis, lost, versions, duplicateRetries);
+    }
+
+    private record Result(long millis, long lostFields, long versions, long duplicateRetries) {
+    }
+}
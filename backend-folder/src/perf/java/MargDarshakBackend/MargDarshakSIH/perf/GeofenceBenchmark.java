@@ -0,0 +1,83 @@
+package MargDarshakBackend.MargDarshakSIH.perf;
+
+import MargDarshakBackend.MargDarshakSIH.Model.Stop;
+import MargDarshakBackend.MargDarshakSIH.Service.GeofenceService;
+import MargDarshakBackend.MargDarshakSIH.Service.PipelineMetrics;
+import MargDarshakBackend.MargDarshakSIH.Service.ShardMembership;
+import MargDarshakBackend.MargDarshakSIH.dto.StopEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// GeofenceService.evaluate for fixes spread over a square holding `stops` circular stops (300 m).
+// The square grows with the stop count so density stays at DENSITY stops per square degree (a city grows
+// outwards, not denser). Time per fix should stay roughly flat from 20 to 20000 stops; a linear scan would grow 1000x.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeofenceBenchmark {
+
+    private static final int FIXES = 4096;
+    private static final double DENSITY = 2000;
+
+    @Param({"20", "2000", "20000"})
+    private int stops;
+
+    private GeofenceService service;
+    private double[] lats;
+    private double[] lons;
+    private String[] vehicles;
+    private int next;
+    private long clock;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(7);
+        double side = Math.sqrt(stops / DENSITY);
+        List<Stop> generated = new ArrayList<>(stops);
+        for (int i = 0; i < stops; i++) {
+            generated.add(new Stop("s" + i, "Stop " + i, 12.5 + random.nextDouble() * side, 76.8 + random.nextDouble() * side, 300));
+        }
+        service = new GeofenceService();
+        PerfData.inject(service, "metrics", new PipelineMetrics());
+        PerfData.inject(service, "eventPublisher", (ApplicationEventPublisher) event -> { });
+        // Sharding off: no shared stop sets in Redis, as on a single node
+        PerfData.inject(service, "membership", new ShardMembership());
+        PerfData.inject(service, "enabled", true);
+        PerfData.inject(service, "cellMeters", 1000.0);
+        PerfData.inject(service, "exitHysteresis", 1.15);
+        service.load(generated);
+
+        lats = new double[FIXES];
+        lons = new double[FIXES];
+        vehicles = new String[FIXES];
+        for (int i = 0; i < FIXES; i++) {
+            lats[i] = 12.5 + random.nextDouble() * side;
+            lons[i] = 76.8 + random.nextDouble() * side;
+            vehicles[i] = "KA01F" + (i % 500);
+        }
+    }
+
+    @Benchmark
+    public List<StopEvent> evaluate() {
+        int i = next++ & (FIXES - 1);
+        return service.evaluate(vehicles[i], lats[i], lons[i], ++clock);
+    }
+}
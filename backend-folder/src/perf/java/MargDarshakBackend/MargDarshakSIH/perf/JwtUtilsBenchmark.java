@@ -0,0 +1,56 @@
+package MargDarshakBackend.MargDarshakSIH.perf;
+
+import MargDarshakBackend.MargDarshakSIH.Utils.JwtUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// Token work done on every authenticated request (JwtFilter) and on login
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtUtilsBenchmark {
+
+    private JwtUtils jwtUtils;
+    private String token;
+
+    @Setup
+    public void setup() {
+        jwtUtils = new JwtUtils();
+        PerfData.inject(jwtUtils, "SECRET_KEY", PerfData.JWT_SECRET);
+        token = jwtUtils.generateToken("driver@example.com");
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtUtils.generateToken("driver@example.com");
+    }
+
+    @Benchmark
+    public String extractUsername() {
+        return jwtUtils.extractUsername(token);
+    }
+
+    @Benchmark
+    public Boolean validateToken() {
+        return jwtUtils.validateToken(token);
+    }
+
+    // What JwtFilter does per request: two full parses of the same token
+    @Benchmark
+    public boolean filterPath() {
+        return jwtUtils.extractUsername(token) != null && jwtUtils.validateToken(token);
+    }
+}
@@ -0,0 +1,140 @@
+package MargDarshakBackend.MargDarshakSIH.perf;
+
+import MargDarshakBackend.MargDarshakSIH.Utils.CompactLocationCodec;
+import redis.clients.jedis.Connection;
+import redis.clients.jedis.DefaultJedisClientConfig;
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.JedisPooled;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Protocol;
+import redis.clients.jedis.util.SafeEncoder;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+// Redis memory per live vehicle for the two LocationStore layouts. Writes N synthetic positions in each layout
+// to a scratch database, reads used_memory before and after, samples MEMORY USAGE per key and prints the
+// per-vehicle cost next to the request payload size. Keys are removed again afterwards.
+//
+//   ./mvnw -Pperf test-compile exec:exec@location-memory -Dmem.args="--vehicles 100000"
+//
+// Options (defaults in brackets):
+//   --host, --port  Redis to measure [localhost, 6379]
+//   --db            scratch database index, keys are deleted but use one nothing else writes to [15]
+//   --vehicles      positions written per layout [100000]
+public class LocationMemoryBenchmark {
+
+    private static final int BATCH = 1000;
+    private static final int SAMPLES = 1000;
+
+    public static void main(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            options.put(args[i].replaceFirst("^--", ""), args[i + 1]);
+        }
+        String host = options.getOrDefault("host", "localhost");
+        int port = Integer.parseInt(options.getOrDefault("port", "6379"));
+        int db = Integer.parseInt(options.getOrDefault("db", "15"));
+        int vehicles = Integer.parseInt(options.getOrDefault("vehicles", "100000"));
+
+        try (JedisPooled jedis = new JedisPooled(new HostAndPort(host, port),
+                DefaultJedisClientConfig.builder().database(db).build())) {
+            System.out.printf("%d vehicles, Redis %s:%d db %d%n%n", vehicles, host, port, db);
+            System.out.printf("%-8s %14s %12s %12s %14s%n", "layout", "used_memory", "bytes/veh", "key bytes", "write payload");
+            report("hash", measure(jedis, vehicles, false));
+            report("compact", measure(jedis, vehicles, true));
+        }
+    }
+
+    private static long[] measure(JedisPooled jedis, int vehicles, boolean compact) {
+        String prefix = compact ? "memtest:vloc:" : "memtest:location:";
+        Random random = new Random(42);
+        long before = usedMemory(jedis);
+        long payload = 0;
+        try (Connection connection = jedis.getPool().getResource()) {
+            Pipeline pipeline = new Pipeline(connection);
+            for (int i = 0; i < vehicles; i++) {
+                String vehicleNumber = vehicleNumber(i);
+                double latitude = 12.8 + random.nextDouble() * 0.4;
+                double longitude = 77.4 + random.nextDouble() * 0.4;
+                long epochMillis = System.currentTimeMillis() - random.nextInt(60_000);
+                if (compact) {
+                    byte[] key = (prefix + vehicleNumber).getBytes(StandardCharsets.UTF_8);
+                    byte[] value = CompactLocationCodec.encode(latitude, longitude, epochMillis);
+                    pipeline.set(key, value);
+                    payload += key.length + value.length;
+                } else {
+                    Map<String, String> fields = hashFields(vehicleNumber, latitude, longitude, epochMillis);
+                    pipeline.hset(prefix + vehicleNumber, fields);
+                    payload += prefix.length() + vehicleNumber.length();
+                    for (Map.Entry<String, String> f : fields.entrySet()) {
+                        payload += f.getKey().length() + f.getValue().length();
+                    }
+                }
+                if (i % BATCH == BATCH - 1) {
+                    pipeline.sync();
+                }
+            }
+            pipeline.sync();
+        }
+        long after = usedMemory(jedis);
+
+        long sampled = 0;
+        int step = Math.max(1, vehicles / SAMPLES);
+        int count = 0;
+        for (int i = 0; i < vehicles; i += step) {
+            Long usage = jedis.memoryUsage(prefix + vehicleNumber(i));
+            sampled += usage == null ? 0 : usage;
+            count++;
+        }
+
+        try (Connection connection = jedis.getPool().getResource()) {
+            Pipeline pipeline = new Pipeline(connection);
+            for (int i = 0; i < vehicles; i++) {
+                pipeline.del(prefix + vehicleNumber(i));
+                if (i % BATCH == BATCH - 1) {
+                    pipeline.sync();
+                }
+            }
+            pipeline.sync();
+        }
+        return new long[]{after - before, vehicles, count == 0 ? 0 : sampled / count, payload / vehicles};
+    }
+
+    private static void report(String layout, long[] r) {
+        System.out.printf("%-8s %14d %12d %12d %14d%n", layout, r[0], r[0] / r[1], r[2], r[3]);
+    }
+
+    // Same fields the hash layout stores
+    private static Map<String, String> hashFields(String vehicleNumber, double latitude, double longitude, long epochMillis) {
+        Map<String, String> fields = new HashMap<>();
+        fields.put("vehicleNumber", vehicleNumber);
+        fields.put("latitude", Double.toString(latitude));
+        fields.put("longitude", Double.toString(longitude));
+        fields.put("timestamp", LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault()).toString());
+        return fields;
+    }
+
+    private static String vehicleNumber(int i) {
+        return String.format("KA%02dF%04d", 1 + i / 10000 % 99, i % 10000);
+    }
+
+    private static long usedMemory(JedisPooled jedis) {
+        for (String line : info(jedis).split("\r?\n")) {
+            if (line.startsWith("used_memory:")) {
+                return Long.parseLong(line.substring("used_memory:".length()).trim());
+            }
+        }
+        return 0;
+    }
+
+    // JedisPooled has no INFO helper
+    private static String info(JedisPooled jedis) {
+        return SafeEncoder.encode((byte[]) jedis.sendCommand(Protocol.Command.INFO, "memory"));
+    }
+}
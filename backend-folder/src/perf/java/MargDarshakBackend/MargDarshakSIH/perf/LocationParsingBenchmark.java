@@ -0,0 +1,48 @@
+package MargDarshakBackend.MargDarshakSIH.perf;
+
+import MargDarshakBackend.MargDarshakSIH.Model.LocationUpdateRequest;
+import MargDarshakBackend.MargDarshakSIH.websocket.LocationFrameCodec;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Inbound fix parsing: typed STOMP payload, generic Map binding (the old LocationWebSocketHandler path)
+// and the streaming codec it uses now. Run with -prof gc to compare bytes/op.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LocationParsingBenchmark {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final String stompPayload = PerfData.stompFix("KA01AB1234", 12.9716, 77.5946);
+    private final String rawPayload = PerfData.rawFix("KA01AB1234", 12.9716, 77.5946);
+
+    @Benchmark
+    public LocationUpdateRequest typed() throws IOException {
+        return objectMapper.readValue(stompPayload, LocationUpdateRequest.class);
+    }
+
+    @Benchmark
+    public Map<?, ?> map() throws IOException {
+        return objectMapper.readValue(rawPayload, Map.class);
+    }
+
+    @Benchmark
+    public LocationFrameCodec.LocationFix streaming() throws IOException {
+        return LocationFrameCodec.parse(rawPayload);
+    }
+}
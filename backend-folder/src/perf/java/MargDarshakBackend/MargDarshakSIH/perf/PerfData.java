@@ -0,0 +1,81 @@
+package MargDarshakBackend.MargDarshakSIH.perf;
+
+import MargDarshakBackend.MargDarshakSIH.entity.User;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+// Synthetic inputs shared by the benchmarks, shaped like the real payloads
+final class PerfData {
+
+    static final String JWT_SECRET = "63e7b1ff4b6b889e72e05589d245d63c";
+
+    private static final String[][] ROUTES = {
+            {"Bangalore", "Mysore", "Bangalore→Ramanagara→Mandya→Mysore"},
+            {"Bangalore", "Chennai", "Bangalore→Krishnagiri→Vellore→Chennai"},
+            {"Delhi", "Gurgaon", "Delhi→Mahipalpur→IFFCO Chowk→Gurgaon"},
+            {"Pune", "Mumbai", "Pune→Lonavala→Panvel→Mumbai"},
+    };
+
+    private PerfData() {
+    }
+
+    // Sets an @Autowired/@Value field on a bean constructed outside Spring
+    static void inject(Object target, String name, Object value) {
+        Field field = ReflectionUtils.findField(target.getClass(), name);
+        ReflectionUtils.makeAccessible(field);
+        ReflectionUtils.setField(field, target, value);
+    }
+
+    // Runs a non-public lifecycle method such as @PostConstruct init()
+    static void invoke(Object target, String name) {
+        Method method = ReflectionUtils.findMethod(target.getClass(), name);
+        ReflectionUtils.makeAccessible(method);
+        ReflectionUtils.invokeMethod(method, target);
+    }
+
+    static String schedulesCsv(int rows) {
+        StringBuilder csv = new StringBuilder("tripId,vehicleNumber,startTime,endTime,origin,destination,route\n");
+        LocalDateTime base = LocalDateTime.of(2025, 9, 18, 6, 0);
+        for (int i = 0; i < rows; i++) {
+            String[] route = ROUTES[i % ROUTES.length];
+            LocalDateTime start = base.plusMinutes(15L * (i % 64));
+            csv.append(100 + i).append(',')
+                    .append(String.format("KA%02dAB%04d", i % 50, i / 2)).append(',')
+                    .append(start.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME)).append(',')
+                    .append(start.plusHours(2).format(DateTimeFormatter.ISO_LOCAL_DATE_TIME)).append(',')
+                    .append(route[0]).append(',').append(route[1]).append(',').append(route[2]).append('\n');
+        }
+        return csv.toString();
+    }
+
+    // /app/update-location payload
+    static String stompFix(String vehicleNumber, double lat, double lng) {
+        return "{\"vehicle_number\":\"" + vehicleNumber + "\",\"latitude\":" + lat + ",\"longitude\":" + lng
+                + ",\"timestamp\":\"2025-09-18T08:15:00\"}";
+    }
+
+    // LocationWebSocketHandler payload
+    static String rawFix(String vehicleNumber, double lat, double lng) {
+        return "{\"vehicleNumber\":\"" + vehicleNumber + "\",\"latitude\":" + lat + ",\"longitude\":" + lng
+                + ",\"timestamp\":\"2025-09-18T08:15:00\"}";
+    }
+
+    static User user() {
+        User user = new User();
+        user.setId("66f0c0ffee0000000000abcd");
+        user.setName("Ravi Kumar");
+        user.setEmail("ravi.kumar@example.com");
+        user.setPassword("$2a$10$7EqJtq98hPqEX7fNZaFWoOhi5BWX4Z6G0xVn9nq1hYb8ZQzZt7Jm2");
+        user.setPhone("+919876543210");
+        user.setProvider("local");
+        user.setAddress("12 MG Road, Bangalore");
+        user.setProfileImageUrl("/uploads/66f0c0ffee0000000000abcd.jpg");
+        user.setProfileComplete(true);
+        user.setVersion(3L);
+        return user;
+    }
+}
@@ -0,0 +1,66 @@
+package MargDarshakBackend.MargDarshakSIH.perf;
+
+import MargDarshakBackend.MargDarshakSIH.Schedule.ScheduleLoader;
+import MargDarshakBackend.MargDarshakSIH.Service.PipelineMetrics;
+import MargDarshakBackend.MargDarshakSIH.entity.TripSchedule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Parsing a synthetic schedules.csv of `rows` trips and looking a vehicle up in the loaded map
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScheduleLoaderBenchmark {
+
+    @Param({"5", "5000"})
+    private int rows;
+
+    private String csv;
+    private ScheduleLoader loader;
+    private String[] vehicles;
+    private int next;
+
+    @Setup
+    public void setup() throws IOException {
+        csv = PerfData.schedulesCsv(rows);
+        loader = new ScheduleLoader();
+        // An unconfigured PipelineMetrics is disabled, so lookups are measured without timers
+        PerfData.inject(loader, "metrics", new PipelineMetrics());
+        // Synchronous load, so lookups don't wait on the load gate
+        PerfData.invoke(loader, "init");
+        Map<String, List<TripSchedule>> parsed = ScheduleLoader.parse(new BufferedReader(new StringReader(csv)));
+        loader.getSchedules().clear();
+        loader.getSchedules().putAll(parsed);
+        vehicles = parsed.keySet().toArray(new String[0]);
+    }
+
+    @Benchmark
+    public Map<String, List<TripSchedule>> parse() throws IOException {
+        return ScheduleLoader.parse(new BufferedReader(new StringReader(csv)));
+    }
+
+    @Benchmark
+    public TripSchedule getScheduleByVehicle() {
+        String vehicle = vehicles[next++ % vehicles.length];
+        return loader.getScheduleByVehicle(vehicle);
+    }
+}
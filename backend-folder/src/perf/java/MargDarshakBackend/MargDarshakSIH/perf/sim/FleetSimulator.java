@@ -0,0 +1,265 @@
+package MargDarshakBackend.MargDarshakSIH.perf.sim;
+
+import MargDarshakBackend.MargDarshakSIH.Model.LocationUpdateRequest;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// End-to-end load generator for the STOMP location pipeline, run against a local backend, Redis and Mongo.
+// Drivers send /app/update-location fixes (generated along schedules.csv routes or replayed from a trace),
+// passengers subscribe to the location topic, and the driver-to-passenger latency is taken from the
+// send time carried in the fix's timestamp field. Server resource use is scraped from /actuator/prometheus.
+//
+//   ./mvnw -Pperf test-compile exec:exec@simulate -Dsim.args="--drivers 500 --passengers 2000 --duration 120"
+//
+// Options (defaults in brackets):
+//   --url         STOMP websocket URL [ws://localhost:8080/trip/socket/websocket]
+//   --drivers     simulated buses [50]
+//   --passengers  subscribed passenger sessions [200]
+//   --interval-ms time between fixes per driver [1000]
+//   --speed-kmh   simulated bus speed [40]
+//   --duration    seconds to run after ramp-up [60]
+//   --ramp        seconds to spread connections over [10]
+//   --topic       passenger subscription [/topic/location-updates]
+//   --trace       replay a trace CSV (vehicleNumber,epochMillis,lat,lon) instead of generated routes
+//   --speedup     trace replay speed factor [1]
+//   --record      append every fix seen by the first passenger to this trace CSV
+//   --metrics     Prometheus endpoint [http://localhost:8080/actuator/prometheus]
+//   --schedules, --stops  CSV inputs [src/main/resources/schedules.csv, src/main/resources/stops.csv]
+public class FleetSimulator {
+
+    private final Map<String, String> options;
+    private final LatencyHistogram latency = new LatencyHistogram(10_000);
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong sendErrors = new AtomicLong();
+    private final AtomicLong received = new AtomicLong();
+    private final List<StompSession> sessions = new ArrayList<>();
+    private final ConcurrentLinkedQueue<String> recorded = new ConcurrentLinkedQueue<>();
+    private final ScheduledExecutorService scheduler;
+    private final WebSocketStompClient stompClient;
+
+    FleetSimulator(Map<String, String> options) {
+        this.options = options;
+        int threads = Math.max(4, Runtime.getRuntime().availableProcessors());
+        scheduler = Executors.newScheduledThreadPool(threads);
+        ThreadPoolTaskScheduler heartbeat = new ThreadPoolTaskScheduler();
+        heartbeat.setPoolSize(1);
+        heartbeat.initialize();
+        stompClient = new WebSocketStompClient(new StandardWebSocketClient());
+        stompClient.setMessageConverter(new MappingJackson2MessageConverter());
+        stompClient.setTaskScheduler(heartbeat);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            options.put(args[i].replaceFirst("^--", ""), args[i + 1]);
+        }
+        new FleetSimulator(options).run();
+        System.exit(0);
+    }
+
+    void run() throws Exception {
+        String url = option("url", "ws://localhost:8080/trip/socket/websocket");
+        int drivers = intOption("drivers", 50);
+        int passengers = intOption("passengers", 200);
+        long rampMillis = intOption("ramp", 10) * 1000L;
+        long durationMillis = intOption("duration", 60) * 1000L;
+        ServerResourceProbe probe = new ServerResourceProbe(option("metrics", "http://localhost:8080/actuator/prometheus"));
+
+        System.out.printf("Connecting %d passengers and %d drivers to %s%n", passengers, drivers, url);
+        for (int i = 0; i < passengers; i++) {
+            StompSession session = connect(url);
+            boolean recorder = i == 0 && options.containsKey("record");
+            session.subscribe(option("topic", "/topic/location-updates"), new FixHandler(recorder));
+            pause(rampMillis / 2, passengers);
+        }
+
+        List<StompSession> driverSessions = new ArrayList<>();
+        for (int i = 0; i < drivers; i++) {
+            driverSessions.add(connect(url));
+            pause(rampMillis / 2, drivers);
+        }
+
+        if (options.containsKey("trace")) {
+            replayTrace(driverSessions, option("trace", null), Double.parseDouble(option("speedup", "1")));
+        } else {
+            driveRoutes(driverSessions);
+        }
+
+        scheduler.scheduleAtFixedRate(probe::sample, 0, 5, TimeUnit.SECONDS);
+        long start = System.currentTimeMillis();
+        while (System.currentTimeMillis() - start < durationMillis) {
+            Thread.sleep(Math.min(10_000, durationMillis - (System.currentTimeMillis() - start)));
+            report("progress", probe);
+        }
+        scheduler.shutdownNow();
+        // Let in-flight broadcasts arrive before the final report
+        Thread.sleep(1000);
+        probe.sample();
+        report("final", probe);
+        flushRecording();
+        for (StompSession session : sessions) {
+            session.disconnect();
+        }
+        stompClient.stop();
+    }
+
+    // Each driver walks a route from schedules.csv at speed-kmh, sending a fix every interval-ms
+    private void driveRoutes(List<StompSession> driverSessions) throws IOException {
+        List<RoutePath> routes = RoutePath.load(option("schedules", "src/main/resources/schedules.csv"),
+                option("stops", "src/main/resources/stops.csv"));
+        if (routes.isEmpty()) {
+            throw new IllegalStateException("No routes with known stop coordinates");
+        }
+        long intervalMillis = intOption("interval-ms", 1000);
+        double kmPerInterval = intOption("speed-kmh", 40) * intervalMillis / 3_600_000.0;
+        for (int i = 0; i < driverSessions.size(); i++) {
+            StompSession session = driverSessions.get(i);
+            RoutePath route = routes.get(i % routes.size());
+            String vehicleNumber = String.format("SIM%05d", i);
+            // Spread buses along the route and stagger their send phase
+            double offsetKm = route.lengthKm() * i / driverSessions.size();
+            AtomicLong step = new AtomicLong();
+            scheduler.scheduleAtFixedRate(() -> {
+                double[] p = route.positionAt(offsetKm + step.getAndIncrement() * kmPerInterval);
+                send(session, vehicleNumber, p[0], p[1]);
+            }, (intervalMillis * i) / Math.max(1, driverSessions.size()), intervalMillis, TimeUnit.MILLISECONDS);
+        }
+        System.out.printf("Driving %d buses over %d routes, one fix every %d ms%n",
+                driverSessions.size(), routes.size(), intervalMillis);
+    }
+
+    // Replays trace rows at their recorded spacing divided by speedup; vehicles are spread over the driver sessions
+    private void replayTrace(List<StompSession> driverSessions, String file, double speedup) throws IOException {
+        List<String[]> rows = new ArrayList<>();
+        try (BufferedReader br = new BufferedReader(new FileReader(file))) {
+            String line;
+            while ((line = br.readLine()) != null) {
+                String[] data = line.split(",", -1);
+                if (data.length == 4 && !data[1].trim().isEmpty() && Character.isDigit(data[1].trim().charAt(0))) {
+                    rows.add(data);
+                }
+            }
+        }
+        if (rows.isEmpty()) {
+            throw new IllegalStateException("Trace " + file + " has no rows");
+        }
+        rows.sort((a, b) -> Long.compare(Long.parseLong(a[1].trim()), Long.parseLong(b[1].trim())));
+        long t0 = Long.parseLong(rows.get(0)[1].trim());
+        Map<String, StompSession> sessionByVehicle = new HashMap<>();
+        for (String[] row : rows) {
+            String vehicleNumber = row[0].trim();
+            StompSession session = sessionByVehicle.computeIfAbsent(vehicleNumber,
+                    v -> driverSessions.get(sessionByVehicle.size() % driverSessions.size()));
+            long delay = (long) ((Long.parseLong(row[1].trim()) - t0) / speedup);
+            double lat = Double.parseDouble(row[2].trim());
+            double lon = Double.parseDouble(row[3].trim());
+            scheduler.schedule(() -> send(session, vehicleNumber, lat, lon), delay, TimeUnit.MILLISECONDS);
+        }
+        System.out.printf("Replaying %d fixes for %d vehicles at %.1fx%n", rows.size(), sessionByVehicle.size(), speedup);
+    }
+
+    private void send(StompSession session, String vehicleNumber, double lat, double lon) {
+        try {
+            // The timestamp carries the send time; the server echoes it in the broadcast
+            session.send("/app/update-location", new LocationUpdateRequest(vehicleNumber, lat, lon,
+                    Long.toString(System.currentTimeMillis())));
+            sent.incrementAndGet();
+        } catch (Exception e) {
+            sendErrors.incrementAndGet();
+        }
+    }
+
+    private StompSession connect(String url) throws Exception {
+        StompSession session = stompClient.connectAsync(url, new StompSessionHandlerAdapter() {
+        }).get(10, TimeUnit.SECONDS);
+        synchronized (sessions) {
+            sessions.add(session);
+        }
+        return session;
+    }
+
+    private void report(String label, ServerResourceProbe probe) {
+        System.out.printf("[%s] sent=%d errors=%d delivered=%d latency ms: mean=%.1f p50=%d p95=%d p99=%d max=%d over1s=%.3f%%%n",
+                label, sent.get(), sendErrors.get(), received.get(), latency.mean(), latency.percentile(0.50),
+                latency.percentile(0.95), latency.percentile(0.99), latency.max(), latency.fractionOver(1000) * 100);
+        System.out.printf("[%s] server: %s%n", label, probe.summary());
+    }
+
+    private void flushRecording() throws IOException {
+        String file = options.get("record");
+        if (file == null) {
+            return;
+        }
+        try (PrintWriter out = new PrintWriter(new FileWriter(file, true))) {
+            for (String row : recorded) {
+                out.println(row);
+            }
+        }
+        System.out.printf("Recorded %d fixes to %s%n", recorded.size(), file);
+    }
+
+    private void pause(long totalMillis, int count) throws InterruptedException {
+        if (totalMillis > 0 && count > 0) {
+            Thread.sleep(Math.max(0, totalMillis / count));
+        }
+    }
+
+    private String option(String name, String defaultValue) {
+        return options.getOrDefault(name, defaultValue);
+    }
+
+    private int intOption(String name, int defaultValue) {
+        return Integer.parseInt(options.getOrDefault(name, Integer.toString(defaultValue)));
+    }
+
+    private final class FixHandler implements StompFrameHandler {
+        private final boolean recorder;
+
+        FixHandler(boolean recorder) {
+            this.recorder = recorder;
+        }
+
+        @Override
+        public Type getPayloadType(StompHeaders headers) {
+            return LocationUpdateRequest.class;
+        }
+
+        @Override
+        public void handleFrame(StompHeaders headers, Object payload) {
+            long now = System.currentTimeMillis();
+            LocationUpdateRequest fix = (LocationUpdateRequest) payload;
+            received.incrementAndGet();
+            if (recorder) {
+                recorded.add(fix.getVehicleNumber() + "," + now + "," + fix.getLatitude() + "," + fix.getLongitude());
+            }
+            try {
+                latency.record(now - Long.parseLong(fix.getTimestamp()));
+            } catch (NumberFormatException | NullPointerException e) {
+                // Fix from a real driver on the same server; not ours to time
+            }
+        }
+    }
+}
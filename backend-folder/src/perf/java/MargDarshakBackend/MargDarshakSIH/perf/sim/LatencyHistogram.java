@@ -0,0 +1,72 @@
+package MargDarshakBackend.MargDarshakSIH.perf.sim;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Fixed 1 ms buckets up to maxMillis plus an overflow bucket; lock-free recording from many threads
+final class LatencyHistogram {
+
+    private final int maxMillis;
+    private final AtomicLongArray buckets;
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private volatile long max;
+
+    LatencyHistogram(int maxMillis) {
+        this.maxMillis = maxMillis;
+        this.buckets = new AtomicLongArray(maxMillis + 2);
+    }
+
+    void record(long millis) {
+        int bucket = (int) Math.max(0, Math.min(millis, maxMillis + 1));
+        buckets.incrementAndGet(bucket);
+        count.increment();
+        sum.add(Math.max(0, millis));
+        if (millis > max) {
+            max = millis;
+        }
+    }
+
+    long count() {
+        return count.sum();
+    }
+
+    double mean() {
+        long n = count();
+        return n == 0 ? 0 : (double) sum.sum() / n;
+    }
+
+    long max() {
+        return max;
+    }
+
+    // Upper bound of the bucket holding the given quantile; maxMillis+1 means "over the range"
+    long percentile(double quantile) {
+        long n = count();
+        if (n == 0) {
+            return 0;
+        }
+        long target = (long) Math.ceil(quantile * n);
+        long seen = 0;
+        for (int i = 0; i < buckets.length(); i++) {
+            seen += buckets.get(i);
+            if (seen >= target) {
+                return i;
+            }
+        }
+        return maxMillis + 1;
+    }
+
+    // Fraction of samples strictly above the threshold
+    double fractionOver(long millis) {
+        long n = count();
+        if (n == 0) {
+            return 0;
+        }
+        long over = 0;
+        for (int i = (int) Math.min(millis + 1, buckets.length()); i < buckets.length(); i++) {
+            over += buckets.get(i);
+        }
+        return (double) over / n;
+    }
+}
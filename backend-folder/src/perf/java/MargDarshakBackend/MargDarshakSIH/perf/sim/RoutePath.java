@@ -0,0 +1,95 @@
+package MargDarshakBackend.MargDarshakSIH.perf.sim;
+
+import MargDarshakBackend.MargDarshakSIH.Schedule.ScheduleLoader;
+import MargDarshakBackend.MargDarshakSIH.entity.TripSchedule;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// A schedule's stop list resolved to coordinates from stops.csv, walked at a constant speed
+final class RoutePath {
+
+    final String route;
+    private final double[] lats;
+    private final double[] lons;
+    private final double[] cumulativeKm;
+
+    private RoutePath(String route, List<double[]> points) {
+        this.route = route;
+        int n = points.size();
+        lats = new double[n];
+        lons = new double[n];
+        cumulativeKm = new double[n];
+        for (int i = 0; i < n; i++) {
+            lats[i] = points.get(i)[0];
+            lons[i] = points.get(i)[1];
+            if (i > 0) {
+                cumulativeKm[i] = cumulativeKm[i - 1] + haversineKm(lats[i - 1], lons[i - 1], lats[i], lons[i]);
+            }
+        }
+    }
+
+    double lengthKm() {
+        return cumulativeKm[cumulativeKm.length - 1];
+    }
+
+    // Position after travelling km along the route, wrapping back to the start at the end
+    double[] positionAt(double km) {
+        double length = lengthKm();
+        double d = length == 0 ? 0 : km % length;
+        int i = 1;
+        while (i < cumulativeKm.length - 1 && cumulativeKm[i] < d) {
+            i++;
+        }
+        double segment = cumulativeKm[i] - cumulativeKm[i - 1];
+        double f = segment == 0 ? 0 : (d - cumulativeKm[i - 1]) / segment;
+        return new double[]{lats[i - 1] + (lats[i] - lats[i - 1]) * f, lons[i - 1] + (lons[i] - lons[i - 1]) * f};
+    }
+
+    static List<RoutePath> load(String schedulesCsv, String stopsCsv) throws IOException {
+        Map<String, double[]> stops = new HashMap<>();
+        try (BufferedReader br = new BufferedReader(new FileReader(stopsCsv))) {
+            String line = br.readLine(); // Skip header
+            while ((line = br.readLine()) != null) {
+                String[] data = line.split(",", -1);
+                if (data.length >= 4) {
+                    stops.put(data[1].trim().toLowerCase(),
+                            new double[]{Double.parseDouble(data[2].trim()), Double.parseDouble(data[3].trim())});
+                }
+            }
+        }
+        Map<String, List<TripSchedule>> schedules;
+        try (BufferedReader br = new BufferedReader(new FileReader(schedulesCsv))) {
+            schedules = ScheduleLoader.parse(br);
+        }
+        List<RoutePath> routes = new ArrayList<>();
+        for (List<TripSchedule> vehicleSchedules : schedules.values()) {
+            for (TripSchedule s : vehicleSchedules) {
+                List<double[]> points = new ArrayList<>();
+                for (String stop : s.getRoute().split("→")) {
+                    double[] point = stops.get(stop.trim().toLowerCase());
+                    if (point != null) {
+                        points.add(point);
+                    }
+                }
+                if (points.size() >= 2) {
+                    routes.add(new RoutePath(s.getRoute(), points));
+                }
+            }
+        }
+        return routes;
+    }
+
+    static double haversineKm(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 6371.0 * 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+    }
+}
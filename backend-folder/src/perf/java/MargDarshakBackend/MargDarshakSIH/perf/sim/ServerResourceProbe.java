@@ -0,0 +1,82 @@
+package MargDarshakBackend.MargDarshakSIH.perf.sim;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Scrapes /actuator/prometheus and keeps the latest and peak value of a few process gauges
+final class ServerResourceProbe {
+
+    private static final String[] METRICS = {
+            "process_cpu_usage", "system_cpu_usage", "jvm_memory_used_bytes", "jvm_threads_live_threads",
+            "jvm_gc_pause_seconds_sum", "stomp_sessions", "location_active_vehicles",
+    };
+
+    private final HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(2)).build();
+    private final URI uri;
+    private final Map<String, Double> last = new LinkedHashMap<>();
+    private final Map<String, Double> peak = new LinkedHashMap<>();
+    private volatile boolean reachable = true;
+
+    ServerResourceProbe(String prometheusUrl) {
+        this.uri = URI.create(prometheusUrl);
+    }
+
+    synchronized void sample() {
+        String body;
+        try {
+            HttpResponse<String> response = http.send(HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(2)).build(),
+                    HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                reachable = false;
+                return;
+            }
+            body = response.body();
+        } catch (Exception e) {
+            reachable = false;
+            return;
+        }
+        reachable = true;
+        // Series with labels (e.g. memory per pool) are summed per metric name
+        Map<String, Double> current = new LinkedHashMap<>();
+        for (String line : body.split("\n")) {
+            if (line.isEmpty() || line.charAt(0) == '#') {
+                continue;
+            }
+            for (String metric : METRICS) {
+                if (line.startsWith(metric) && (line.charAt(metric.length()) == '{' || line.charAt(metric.length()) == ' ')) {
+                    double value = Double.parseDouble(line.substring(line.lastIndexOf(' ') + 1));
+                    current.merge(metric, value, Double::sum);
+                }
+            }
+        }
+        current.forEach((metric, value) -> {
+            last.put(metric, value);
+            peak.merge(metric, value, Math::max);
+        });
+    }
+
+    synchronized String summary() {
+        if (last.isEmpty()) {
+            return reachable ? "no samples" : "unreachable (" + uri + ")";
+        }
+        StringBuilder sb = new StringBuilder();
+        last.forEach((metric, value) -> sb.append(String.format("%s=%s (peak %s)  ", metric,
+                format(metric, value), format(metric, peak.get(metric)))));
+        return sb.toString().trim();
+    }
+
+    private static String format(String metric, double value) {
+        if (metric.endsWith("_bytes")) {
+            return String.format("%.0fMB", value / (1024 * 1024));
+        }
+        if (metric.endsWith("_usage")) {
+            return String.format("%.0f%%", value * 100);
+        }
+        return String.format("%.2f", value);
+    }
+}
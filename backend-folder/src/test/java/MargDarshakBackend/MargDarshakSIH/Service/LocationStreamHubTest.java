@@ -0,0 +1,107 @@
+package MargDarshakBackend.MargDarshakSIH.Service;
+
+import MargDarshakBackend.MargDarshakSIH.Schedule.ScheduleLoader;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class LocationStreamHubTest {
+
+	private final CountDownLatch release = new CountDownLatch(1);
+	private LocationStreamHub hub;
+
+	@BeforeEach
+	void setUp() {
+		hub = new LocationStreamHub();
+		ReflectionTestUtils.setField(hub, "scheduleLoader", mock(ScheduleLoader.class));
+		ReflectionTestUtils.setField(hub, "objectMapper", new ObjectMapper());
+		ReflectionTestUtils.setField(hub, "metrics", mock(PipelineMetrics.class));
+		ReflectionTestUtils.setField(hub, "replaySize", 8);
+		ReflectionTestUtils.setField(hub, "timeoutMs", 60_000L);
+		ReflectionTestUtils.setField(hub, "maxConnections", 100);
+		ReflectionTestUtils.setField(hub, "sendThreads", 1);
+		ReflectionTestUtils.setField(hub, "maxSendThreads", 4);
+		ReflectionTestUtils.setField(hub, "sendTimeoutMs", 100L);
+		ReflectionTestUtils.setField(hub, "maxPending", 64);
+		ReflectionTestUtils.setField(hub, "channelIdleMs", 300_000L);
+		hub.init();
+	}
+
+	@AfterEach
+	void tearDown() {
+		release.countDown();
+		hub.close();
+	}
+
+	@Test
+	void stalledClientIsDroppedWithoutStarvingOthers() throws Exception {
+		// The only sender thread gets stuck in the stalled client's first write and ignores interrupts,
+		// like a servlet write to a full TCP buffer
+		hub.subscribe("vehicle:KA01", null, new StalledEmitter(release));
+		RecordingEmitter healthy = new RecordingEmitter();
+		hub.subscribe("vehicle:KA01", null, healthy);
+		Thread.sleep(200);
+
+		hub.checkStalledSends();
+		hub.publish("KA01", 12.97, 77.59, "2025-09-18T08:00:00");
+
+		assertThat(healthy.sends.poll(2, TimeUnit.SECONDS)).as("greeting").isNotNull();
+		assertThat(healthy.sends.poll(2, TimeUnit.SECONDS)).as("location").isNotNull();
+		assertThat(hub.stats()).containsEntry("stalledSends", 1L).containsEntry("connections", 1);
+	}
+
+	@Test
+	void replacementThreadIsReleasedWhenTheWriteReturns() throws Exception {
+		hub.subscribe("vehicle:KA01", null, new StalledEmitter(release));
+		Thread.sleep(200);
+		hub.checkStalledSends();
+		assertThat(hub.stats()).containsEntry("sendThreads", 2);
+
+		release.countDown();
+		long deadline = System.currentTimeMillis() + 2000;
+		while (!Integer.valueOf(1).equals(hub.stats().get("sendThreads")) && System.currentTimeMillis() < deadline) {
+			Thread.sleep(10);
+		}
+		assertThat(hub.stats()).containsEntry("sendThreads", 1);
+	}
+
+	private static final class StalledEmitter extends SseEmitter {
+		private final CountDownLatch release;
+
+		StalledEmitter(CountDownLatch release) {
+			this.release = release;
+		}
+
+		@Override
+		public void send(Set<DataWithMediaType> items) {
+			boolean done = false;
+			while (!done) {
+				try {
+					done = release.await(10, TimeUnit.SECONDS);
+				} catch (InterruptedException ignored) {
+					// A blocked servlet write doesn't necessarily end on interrupt either
+				}
+			}
+		}
+	}
+
+	private static final class RecordingEmitter extends SseEmitter {
+		final LinkedBlockingQueue<Set<DataWithMediaType>> sends = new LinkedBlockingQueue<>();
+
+		@Override
+		public void send(Set<DataWithMediaType> items) {
+			sends.add(items);
+		}
+	}
+}
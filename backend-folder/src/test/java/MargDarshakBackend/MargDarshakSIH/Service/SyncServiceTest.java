@@ -0,0 +1,128 @@
+package MargDarshakBackend.MargDarshakSIH.Service;
+
+import MargDarshakBackend.MargDarshakSIH.Model.Stop;
+import MargDarshakBackend.MargDarshakSIH.Schedule.ScheduleLoader;
+import MargDarshakBackend.MargDarshakSIH.Schedule.StopLoader;
+import MargDarshakBackend.MargDarshakSIH.entity.TripSchedule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SyncServiceTest {
+
+	private final ScheduleLoader scheduleLoader = mock(ScheduleLoader.class);
+	private final StopLoader stopLoader = mock(StopLoader.class);
+	private SyncService sync;
+
+	@BeforeEach
+	void setUp() {
+		sync = new SyncService();
+		ReflectionTestUtils.setField(sync, "scheduleLoader", scheduleLoader);
+		ReflectionTestUtils.setField(sync, "stopLoader", stopLoader);
+		ReflectionTestUtils.setField(sync, "historySize", 2);
+	}
+
+	@Test
+	void unchangedReloadKeepsTheVersion() {
+		load(trips("10:00"), stops(true));
+		String version = sync.currentVersion();
+
+		// A reload swaps in new, equal maps
+		load(trips("10:00"), stops(true));
+
+		assertThat(sync.currentVersion()).isEqualTo(version);
+		Map<String, Object> delta = sync.sync(version);
+		assertThat(delta).containsEntry("mode", "delta").containsEntry("version", version);
+		assertThat(map(delta.get("upserts"))).isEmpty();
+		assertThat(map(delta.get("deletes"))).isEmpty();
+	}
+
+	@Test
+	void changedTripIsUpserted() {
+		load(trips("10:00"), stops(true));
+		String since = sync.currentVersion();
+
+		load(trips("10:30"), stops(true));
+
+		Map<String, Object> delta = sync.sync(since);
+		assertThat(delta.get("version")).isNotEqualTo(since);
+		assertThat(delta).containsEntry("mode", "delta").containsEntry("since", since);
+		Map<String, Object> upserts = map(delta.get("upserts"));
+		assertThat(upserts.keySet()).containsExactly(SyncService.TRIPS);
+		List<?> trips = list(upserts.get(SyncService.TRIPS));
+		assertThat(trips).hasSize(1);
+		assertThat(map(trips.get(0))).containsEntry("id", "101").containsEntry("endTime", "2025-09-18T10:30");
+		assertThat(map(delta.get("deletes"))).isEmpty();
+	}
+
+	@Test
+	void removedStopIsDeleted() {
+		load(trips("10:00"), stops(true));
+		String since = sync.currentVersion();
+
+		load(trips("10:00"), stops(false));
+
+		Map<String, Object> delta = sync.sync(since);
+		assertThat(map(delta.get("upserts"))).isEmpty();
+		assertThat(map(delta.get("deletes"))).containsEntry(SyncService.STOPS, List.of("mandya"));
+	}
+
+	@Test
+	void evictedVersionFallsBackToSnapshot() {
+		load(trips("10:00"), stops(true));
+		String oldest = sync.currentVersion();
+		load(trips("10:30"), stops(true));
+		String middle = sync.currentVersion();
+		load(trips("11:00"), stops(true));
+
+		Map<String, Object> response = sync.sync(oldest);
+		assertThat(response).containsEntry("mode", "snapshot").containsEntry("version", sync.currentVersion());
+		assertThat(list(response.get(SyncService.TRIPS))).hasSize(2);
+		assertThat(list(response.get(SyncService.STOPS))).hasSize(2);
+		assertThat(sync.sync(middle)).containsEntry("mode", "delta");
+		assertThat(sync.sync(null)).containsEntry("mode", "snapshot");
+	}
+
+	private void load(Map<String, List<TripSchedule>> schedules, Map<String, Stop> stops) {
+		when(scheduleLoader.getSchedules()).thenReturn(schedules);
+		when(stopLoader.getStops()).thenReturn(stops);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static Map<String, Object> map(Object value) {
+		return (Map<String, Object>) value;
+	}
+
+	private static List<Object> list(Object value) {
+		return new ArrayList<>((List<?>) value);
+	}
+
+	private static Map<String, List<TripSchedule>> trips(String firstTripEnd) {
+		Map<String, List<TripSchedule>> schedules = new HashMap<>();
+		schedules.put("KA01AB1234", new ArrayList<>(List.of(new TripSchedule("101", "KA01AB1234",
+				"2025-09-18T08:00:00", "2025-09-18T" + firstTripEnd + ":00", "Bangalore", "Mysore",
+				"Bangalore→Ramanagara→Mandya→Mysore"))));
+		schedules.put("KA01AB5678", new ArrayList<>(List.of(new TripSchedule("102", "KA01AB5678",
+				"2025-09-18T09:00:00", "2025-09-18T11:30:00", "Bangalore", "Chennai",
+				"Bangalore→Krishnagiri→Vellore→Chennai"))));
+		return schedules;
+	}
+
+	private static Map<String, Stop> stops(boolean withMandya) {
+		Map<String, Stop> stops = new HashMap<>();
+		stops.put("bangalore", new Stop("bangalore", "Bangalore", 12.9716, 77.5946, 1500));
+		if (withMandya) {
+			stops.put("mandya", new Stop("mandya", "Mandya", 12.5218, 76.8951, 600));
+		}
+		return stops;
+	}
+}
@@ -0,0 +1,50 @@
+package MargDarshakBackend.MargDarshakSIH.Utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class CompactLocationCodecTest {
+
+	@Test
+	void roundTripsToMicrodegrees() {
+		byte[] value = CompactLocationCodec.encode(12.9715987, 77.5945627, 1_726_000_000_123L);
+
+		assertThat(value).hasSize(CompactLocationCodec.V1_LENGTH);
+		assertThat(value[0]).isEqualTo(CompactLocationCodec.VERSION_1);
+		CompactLocationCodec.Fix fix = CompactLocationCodec.decode(value);
+		assertThat(fix.latitude()).isCloseTo(12.971599, within(1e-9));
+		assertThat(fix.longitude()).isCloseTo(77.594563, within(1e-9));
+		assertThat(fix.epochMillis()).isEqualTo(1_726_000_000_123L);
+	}
+
+	@Test
+	void keepsSignForSouthernAndWesternCoordinates() {
+		CompactLocationCodec.Fix fix = CompactLocationCodec.decode(CompactLocationCodec.encode(-33.8688, -151.2093, 0));
+
+		assertThat(fix.latitude()).isCloseTo(-33.8688, within(1e-6));
+		assertThat(fix.longitude()).isCloseTo(-151.2093, within(1e-6));
+	}
+
+	@Test
+	void ignoresTrailingBytes() {
+		byte[] value = Arrays.copyOf(CompactLocationCodec.encode(1.5, 2.5, 42), CompactLocationCodec.V1_LENGTH + 3);
+
+		assertThat(CompactLocationCodec.decode(value)).isEqualTo(new CompactLocationCodec.Fix(1.5, 2.5, 42));
+	}
+
+	@Test
+	void rejectsEmptyTruncatedAndUnknownVersions() {
+		byte[] value = CompactLocationCodec.encode(1, 2, 3);
+
+		assertThatThrownBy(() -> CompactLocationCodec.decode(null)).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> CompactLocationCodec.decode(new byte[0])).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> CompactLocationCodec.decode(Arrays.copyOf(value, 10))).isInstanceOf(IllegalArgumentException.class);
+		value[0] = 2;
+		assertThatThrownBy(() -> CompactLocationCodec.decode(value)).isInstanceOf(IllegalArgumentException.class);
+	}
+}
@@ -0,0 +1,58 @@
+package MargDarshakBackend.MargDarshakSIH.Utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConsistentHashRingTest {
+
+	@Test
+	void emptyRingHasNoOwner() {
+		assertThat(new ConsistentHashRing(List.of(), 16).ownerOf("KA-01-1234")).isNull();
+	}
+
+	@Test
+	void sameMembersGiveSameOwnersWhateverTheOrder() {
+		ConsistentHashRing a = new ConsistentHashRing(List.of("n1", "n2", "n3"), 64);
+		ConsistentHashRing b = new ConsistentHashRing(List.of("n3", "n1", "n2"), 64);
+		for (int i = 0; i < 1000; i++) {
+			assertThat(a.ownerOf("bus-" + i)).isEqualTo(b.ownerOf("bus-" + i));
+		}
+	}
+
+	@Test
+	void keysSpreadOverAllNodes() {
+		ConsistentHashRing ring = new ConsistentHashRing(List.of("n1", "n2", "n3"), 128);
+		Map<String, Integer> counts = new HashMap<>();
+		for (int i = 0; i < 9000; i++) {
+			counts.merge(ring.ownerOf("bus-" + i), 1, Integer::sum);
+		}
+		assertThat(counts).containsOnlyKeys("n1", "n2", "n3");
+		assertThat(counts.values()).allSatisfy(c -> assertThat(c).isBetween(2000, 4000));
+	}
+
+	@Test
+	void addingANodeOnlyMovesKeysToIt() {
+		ConsistentHashRing before = new ConsistentHashRing(List.of("n1", "n2", "n3"), 128);
+		ConsistentHashRing after = new ConsistentHashRing(List.of("n1", "n2", "n3", "n4"), 128);
+		int moved = 0;
+		for (int i = 0; i < 10000; i++) {
+			String key = "bus-" + i;
+			if (!before.ownerOf(key).equals(after.ownerOf(key))) {
+				assertThat(after.ownerOf(key)).isEqualTo("n4");
+				moved++;
+			}
+		}
+		assertThat(moved).isBetween(1500, 3500);
+	}
+
+	@Test
+	void nodesAreSortedByName() {
+		ConsistentHashRing ring = new ConsistentHashRing(List.of("b", "a"), 4);
+		assertThat(ring.nodes()).containsExactly("a", "b");
+	}
+}
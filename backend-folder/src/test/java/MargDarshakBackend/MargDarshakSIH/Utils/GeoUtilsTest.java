@@ -0,0 +1,33 @@
+package MargDarshakBackend.MargDarshakSIH.Utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class GeoUtilsTest {
+
+	@Test
+	void bearingOfCardinalDirections() {
+		assertThat(GeoUtils.bearingDegrees(12.9, 77.5, 13.0, 77.5)).isCloseTo(0, within(0.01));
+		assertThat(GeoUtils.bearingDegrees(12.9, 77.5, 12.9, 77.6)).isCloseTo(90, within(0.1));
+		assertThat(GeoUtils.bearingDegrees(13.0, 77.5, 12.9, 77.5)).isCloseTo(180, within(0.01));
+		assertThat(GeoUtils.bearingDegrees(12.9, 77.6, 12.9, 77.5)).isCloseTo(270, within(0.1));
+	}
+
+	@Test
+	void bearingDifferenceWrapsAround() {
+		assertThat(GeoUtils.bearingDifference(350, 10)).isEqualTo(20);
+		assertThat(GeoUtils.bearingDifference(10, 350)).isEqualTo(20);
+		assertThat(GeoUtils.bearingDifference(90, 270)).isEqualTo(180);
+		assertThat(GeoUtils.bearingDifference(45, 45)).isZero();
+	}
+
+	@Test
+	void oppositeDirectionsOfOneRoadDifferBy180() {
+		double ab = GeoUtils.bearingDegrees(12.97, 77.59, 12.30, 76.65);
+		double ba = GeoUtils.bearingDegrees(12.30, 76.65, 12.97, 77.59);
+
+		assertThat(GeoUtils.bearingDifference(ab, ba)).isCloseTo(180, within(1.0));
+	}
+}
@@ -0,0 +1,49 @@
+package MargDarshakBackend.MargDarshakSIH.Utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GridIndexTest {
+
+	@Test
+	void emptyIndexReturnsNothing() {
+		GridIndex<String> index = new GridIndex<>(0.01);
+
+		assertThat(index.query(12.97, 77.59)).isEmpty();
+		assertThat(index.size()).isZero();
+	}
+
+	@Test
+	void itemIsFoundAnywhereInsideItsBox() {
+		GridIndex<String> index = new GridIndex<>(0.01);
+		index.add("stop", 12.965, 77.585, 12.985, 77.605);
+
+		assertThat(index.query(12.966, 77.586)).containsExactly("stop");
+		assertThat(index.query(12.975, 77.595)).containsExactly("stop");
+		assertThat(index.query(12.984, 77.604)).containsExactly("stop");
+		assertThat(index.query(12.95, 77.59)).isEmpty();
+		assertThat(index.cellCount()).isEqualTo(9);
+	}
+
+	@Test
+	void overlappingItemsShareCells() {
+		GridIndex<String> index = new GridIndex<>(0.01);
+		index.add("a", 12.971, 77.591, 12.972, 77.592);
+		index.add("b", 12.973, 77.593, 12.974, 77.594);
+
+		assertThat(index.query(12.975, 77.595)).containsExactlyInAnyOrder("a", "b");
+		assertThat(index.size()).isEqualTo(2);
+		assertThat(index.cellCount()).isEqualTo(1);
+	}
+
+	@Test
+	void negativeCoordinatesUseFloorCells() {
+		GridIndex<String> index = new GridIndex<>(1.0);
+		index.add("south", -0.5, -0.5, -0.4, -0.4);
+
+		assertThat(index.query(-0.45, -0.45)).containsExactly("south");
+		assertThat(index.query(0.45, 0.45)).isEmpty();
+		assertThat(index.query(-0.45, 0.45)).isEmpty();
+	}
+}
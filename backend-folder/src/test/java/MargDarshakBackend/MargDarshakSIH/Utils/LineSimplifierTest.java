@@ -0,0 +1,45 @@
+package MargDarshakBackend.MargDarshakSIH.Utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LineSimplifierTest {
+
+	@Test
+	void collinearPointsCollapseToEndPoints() {
+		double[] lats = {12.90, 12.91, 12.92, 12.93, 12.94};
+		double[] lons = {77.50, 77.50, 77.50, 77.50, 77.50};
+		double[][] simplified = LineSimplifier.simplify(lats, lons, 10);
+		assertThat(simplified[0]).containsExactly(12.90, 12.94);
+		assertThat(simplified[1]).containsExactly(77.50, 77.50);
+	}
+
+	@Test
+	void keepsACornerBeyondTolerance() {
+		// An L shape: the corner is ~1.1 km off the straight line between the ends
+		double[] lats = {12.90, 12.905, 12.91, 12.91, 12.91};
+		double[] lons = {77.50, 77.50, 77.50, 77.505, 77.51};
+		double[][] simplified = LineSimplifier.simplify(lats, lons, 50);
+		assertThat(simplified[0]).containsExactly(12.90, 12.91, 12.91);
+		assertThat(simplified[1]).containsExactly(77.50, 77.50, 77.51);
+	}
+
+	@Test
+	void dropsJitterWithinTolerance() {
+		// ~5 m sideways wobble along a straight street
+		double[] lats = {12.90, 12.901, 12.902, 12.903, 12.904};
+		double[] lons = {77.50, 77.50004, 77.49996, 77.50004, 77.50};
+		assertThat(LineSimplifier.simplify(lats, lons, 20)[0]).hasSize(2);
+		assertThat(LineSimplifier.simplify(lats, lons, 1)[0]).hasSize(5);
+	}
+
+	@Test
+	void zeroToleranceOrShortLinesAreCopiedUnchanged() {
+		double[] lats = {12.90, 12.91, 12.92};
+		double[] lons = {77.50, 77.50, 77.50};
+		double[][] copy = LineSimplifier.simplify(lats, lons, 0);
+		assertThat(copy[0]).containsExactly(lats).isNotSameAs(lats);
+		assertThat(LineSimplifier.simplify(new double[]{1, 2}, new double[]{3, 4}, 100)[0]).containsExactly(1, 2);
+	}
+}
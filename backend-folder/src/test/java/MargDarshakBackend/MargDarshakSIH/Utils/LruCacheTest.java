@@ -0,0 +1,56 @@
+package MargDarshakBackend.MargDarshakSIH.Utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LruCacheTest {
+
+	@Test
+	void evictsLeastRecentlyUsedOverCapacity() {
+		LruCache<String, Integer> cache = new LruCache<>(2, 0);
+		cache.put("a", 1);
+		cache.put("b", 2);
+		assertThat(cache.get("a")).isEqualTo(1);
+		cache.put("c", 3);
+
+		assertThat(cache.get("b")).isNull();
+		assertThat(cache.get("a")).isEqualTo(1);
+		assertThat(cache.get("c")).isEqualTo(3);
+		assertThat(cache.size()).isEqualTo(2);
+		assertThat(cache.evictions()).isEqualTo(1);
+	}
+
+	@Test
+	void expiredEntriesAreDroppedOnRead() throws InterruptedException {
+		LruCache<String, Integer> cache = new LruCache<>(10, 20);
+		cache.put("a", 1);
+		Thread.sleep(40);
+
+		assertThat(cache.get("a")).isNull();
+		assertThat(cache.size()).isZero();
+	}
+
+	@Test
+	void zeroTtlNeverExpires() throws InterruptedException {
+		LruCache<String, Integer> cache = new LruCache<>(10, 0);
+		cache.put("a", 1);
+		Thread.sleep(5);
+
+		assertThat(cache.get("a")).isEqualTo(1);
+	}
+
+	@Test
+	void putReplacesAndRemoveAndClearEmpty() {
+		LruCache<String, Integer> cache = new LruCache<>(10, 0);
+		cache.put("a", 1);
+		cache.put("a", 2);
+		cache.put("b", 3);
+		assertThat(cache.get("a")).isEqualTo(2);
+
+		cache.remove("a");
+		assertThat(cache.get("a")).isNull();
+		cache.clear();
+		assertThat(cache.size()).isZero();
+	}
+}
@@ -0,0 +1,49 @@
+package MargDarshakBackend.MargDarshakSIH.Utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class PolylineCodecTest {
+
+	// Example from Google's encoded polyline format documentation
+	private static final String GOOGLE_EXAMPLE = "_p~iF~ps|U_ulLnnqC_mqNvxq`@";
+
+	@Test
+	void encodesTheReferenceExample() {
+		String encoded = PolylineCodec.encode(new double[]{38.5, 40.7, 43.252}, new double[]{-120.2, -120.95, -126.453});
+		assertThat(encoded).isEqualTo(GOOGLE_EXAMPLE);
+	}
+
+	@Test
+	void decodesTheReferenceExample() {
+		double[][] decoded = PolylineCodec.decode(GOOGLE_EXAMPLE);
+		assertThat(decoded[0]).containsExactly(new double[]{38.5, 40.7, 43.252}, within(1e-9));
+		assertThat(decoded[1]).containsExactly(new double[]{-120.2, -120.95, -126.453}, within(1e-9));
+	}
+
+	@Test
+	void roundTripsToFivePlaces() {
+		double[] lats = {12.971599, 12.972345, 12.9801, 13.0};
+		double[] lons = {77.594566, 77.59501, 77.6023, 77.6};
+		double[][] decoded = PolylineCodec.decode(PolylineCodec.encode(lats, lons));
+		assertThat(decoded[0]).containsExactly(lats, within(0.5e-5));
+		assertThat(decoded[1]).containsExactly(lons, within(0.5e-5));
+	}
+
+	@Test
+	void emptyInputGivesEmptyOutput() {
+		assertThat(PolylineCodec.encode(new double[0], new double[0])).isEmpty();
+		double[][] decoded = PolylineCodec.decode("");
+		assertThat(decoded[0]).isEmpty();
+		assertThat(decoded[1]).isEmpty();
+	}
+
+	@Test
+	void truncatedPolylineIsRejected() {
+		assertThatThrownBy(() -> PolylineCodec.decode("_p~iF~ps|U_ulL"))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+}
@@ -0,0 +1,47 @@
+package MargDarshakBackend.MargDarshakSIH.Utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RingBufferTest {
+
+	@Test
+	void emptyBufferHasEmptySnapshot() {
+		RingBuffer<Integer> buffer = new RingBuffer<>(4);
+		assertThat(buffer.snapshot(4)).isEmpty();
+		assertThat(buffer.written()).isZero();
+	}
+
+	@Test
+	void snapshotIsNewestFirst() {
+		RingBuffer<Integer> buffer = new RingBuffer<>(4);
+		buffer.add(1);
+		buffer.add(2);
+		buffer.add(3);
+
+		assertThat(buffer.snapshot(10)).containsExactly(3, 2, 1);
+	}
+
+	@Test
+	void overwritesOldestOnceFull() {
+		RingBuffer<Integer> buffer = new RingBuffer<>(3);
+		for (int i = 1; i <= 7; i++) {
+			buffer.add(i);
+		}
+
+		assertThat(buffer.snapshot(buffer.capacity())).containsExactly(7, 6, 5);
+		assertThat(buffer.written()).isEqualTo(7);
+	}
+
+	@Test
+	void snapshotHonoursLimit() {
+		RingBuffer<Integer> buffer = new RingBuffer<>(5);
+		for (int i = 1; i <= 5; i++) {
+			buffer.add(i);
+		}
+
+		assertThat(buffer.snapshot(2)).containsExactly(5, 4);
+		assertThat(buffer.snapshot(0)).isEmpty();
+	}
+}
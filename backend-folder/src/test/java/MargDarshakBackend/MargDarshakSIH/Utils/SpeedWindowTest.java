@@ -0,0 +1,57 @@
+package MargDarshakBackend.MargDarshakSIH.Utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SpeedWindowTest {
+
+	@Test
+	void emptyWindowSummarisesToZero() {
+		double[] out = new double[3];
+		new SpeedWindow(8).summarise(0, out);
+
+		assertThat(out).containsExactly(0, 0, 0);
+	}
+
+	@Test
+	void meanAndMedianOfOddAndEvenCounts() {
+		SpeedWindow window = new SpeedWindow(8);
+		window.add(1, 30);
+		window.add(2, 10);
+		window.add(3, 20);
+		double[] out = new double[3];
+
+		window.summarise(0, out);
+		assertThat(out).containsExactly(3, 20, 20);
+
+		window.add(4, 60);
+		window.summarise(0, out);
+		assertThat(out).containsExactly(4, 30, 25);
+	}
+
+	@Test
+	void samplesBeforeSinceAreSkipped() {
+		SpeedWindow window = new SpeedWindow(8);
+		window.add(1000, 5);
+		window.add(2000, 40);
+		window.add(3000, 50);
+		double[] out = new double[3];
+
+		window.summarise(2000, out);
+		assertThat(out).containsExactly(2, 45, 45);
+	}
+
+	@Test
+	void fullRingOverwritesOldest() {
+		SpeedWindow window = new SpeedWindow(3);
+		for (int i = 1; i <= 5; i++) {
+			window.add(i, i * 10);
+		}
+		double[] out = new double[3];
+
+		window.summarise(0, out);
+		assertThat(out).containsExactly(3, 40, 40);
+		assertThat(window.capacity()).isEqualTo(3);
+	}
+}
@@ -0,0 +1,83 @@
+package MargDarshakBackend.MargDarshakSIH.Utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimingWheelTest {
+
+	@Test
+	void expiresKeysOnceTheirDeadlinePasses() {
+		TimingWheel<String> wheel = new TimingWheel<>(1000, 8, 0);
+		wheel.schedule("a", 3000);
+		wheel.schedule("b", 5000);
+
+		assertThat(wheel.advance(2999)).isEmpty();
+		assertThat(wheel.advance(3000)).containsExactly("a");
+		assertThat(wheel.advance(5000)).containsExactly("b");
+		assertThat(wheel.size()).isZero();
+	}
+
+	@Test
+	void deadlineInsideCurrentTickFiresWhenItPasses() {
+		TimingWheel<String> wheel = new TimingWheel<>(1000, 8, 1000);
+		wheel.schedule("trip", 1500);
+
+		assertThat(wheel.advance(1200)).isEmpty();
+		assertThat(wheel.advance(2000)).containsExactly("trip");
+	}
+
+	@Test
+	void deadlineInsideLaterTickIsNotSkipped() {
+		TimingWheel<String> wheel = new TimingWheel<>(1000, 8, 0);
+		wheel.schedule("trip", 2500);
+
+		assertThat(wheel.advance(2400)).isEmpty();
+		assertThat(wheel.advance(3000)).containsExactly("trip");
+	}
+
+	@Test
+	void alreadyDueKeyFiresOnNextAdvance() {
+		TimingWheel<String> wheel = new TimingWheel<>(1000, 8, 5000);
+		wheel.schedule("late", 1000);
+
+		assertThat(wheel.advance(6000)).containsExactly("late");
+	}
+
+	@Test
+	void deadlinesBeyondOneRotationWaitForTheirRound() {
+		TimingWheel<String> wheel = new TimingWheel<>(1000, 4, 0);
+		wheel.schedule("far", 6000);
+
+		assertThat(wheel.advance(2000)).isEmpty();
+		assertThat(wheel.advance(4000)).isEmpty();
+		assertThat(wheel.advance(6000)).containsExactly("far");
+	}
+
+	@Test
+	void longPauseExpiresEverythingDue() {
+		TimingWheel<String> wheel = new TimingWheel<>(1000, 4, 0);
+		wheel.schedule("a", 1000);
+		wheel.schedule("b", 3000);
+		wheel.schedule("c", 9000);
+
+		List<String> expired = wheel.advance(20_000);
+		assertThat(expired).containsExactlyInAnyOrder("a", "b", "c");
+	}
+
+	@Test
+	void rescheduleMovesAndCancelRemoves() {
+		TimingWheel<String> wheel = new TimingWheel<>(1000, 8, 0);
+		wheel.schedule("a", 2000);
+		wheel.schedule("a", 4000);
+		assertThat(wheel.deadline("a")).isEqualTo(4000L);
+		assertThat(wheel.advance(3000)).isEmpty();
+
+		assertThat(wheel.cancel("a")).isTrue();
+		assertThat(wheel.cancel("a")).isFalse();
+		assertThat(wheel.advance(5000)).isEmpty();
+		assertThat(wheel.deadline("a")).isNull();
+	}
+}